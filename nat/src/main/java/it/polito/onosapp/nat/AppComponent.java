@@ -24,9 +24,20 @@ import org.onosproject.net.*;
 import org.onosproject.net.config.*;
 import org.onosproject.net.config.basics.SubjectFactories;
 import org.onosproject.net.flow.*;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.IPCriterion;
+import org.onosproject.net.flow.criteria.IPProtocolCriterion;
+import org.onosproject.net.flow.criteria.TcpPortCriterion;
+import org.onosproject.net.flow.criteria.UdpPortCriterion;
+import org.onosproject.net.flow.instructions.Instruction;
+import org.onosproject.net.flow.instructions.L3ModificationInstruction;
+import org.onosproject.net.flow.instructions.L4ModificationInstruction;
 import org.onosproject.net.flowobjective.DefaultForwardingObjective;
 import org.onosproject.net.flowobjective.FlowObjectiveService;
 import org.onosproject.net.flowobjective.ForwardingObjective;
+import org.onosproject.net.flowobjective.Objective;
+import org.onosproject.net.flowobjective.ObjectiveContext;
+import org.onosproject.net.flowobjective.ObjectiveError;
 import org.onosproject.net.packet.*;
 import org.onosproject.net.topology.TopologyService;
 import org.slf4j.Logger;
@@ -37,9 +48,15 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static org.onlab.packet.MacAddress.valueOf;
 import static org.onlab.util.Tools.groupedThreads;
 
@@ -51,9 +68,15 @@ public class AppComponent {
 
     private static final int DEFAULT_TIMEOUT = 1000;
     private static final int DEFAULT_PRIORITY = 40001;
-
-    private static final short FIRST_PORT = 10000;
-    private static final short LAST_PORT = 12000;
+    private static final int INSTALL_TIMEOUT_MS = 1000;
+    private static final int SESSION_TICK_MS = 1000;
+    private static final int ARP_TICK_MS = 100;
+    private static final int ARP_RETRANSMIT_MS = 250;
+    private static final int ARP_MAX_ATTEMPTS = 4;
+    private static final int ARP_TTL_MS = 60000;
+    private static final int ARP_UNRESOLVED_TTL_MS = 1000;
+    private static final int MAX_PENDING_DESTINATIONS = 1024;
+    private static final int MAX_PENDING_PACKETS = 64;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -100,6 +123,7 @@ public class AppComponent {
 
     private Ip4Address privateAddress;
     private Ip4Address publicAddress;
+    private List<Ip4Address> publicAddresses;
     private MacAddress privateMac = valueOf(randomMACAddress());
     private MacAddress publicMac = valueOf(randomMACAddress());
     private int flowTimeout = DEFAULT_TIMEOUT;
@@ -107,28 +131,29 @@ public class AppComponent {
 
     /**
      *  The Nat table:
-     *  Key: output port
-     *  value: "inputIP:inputPort"
-     */
-    private Map<Short, String> natPortMap = new HashMap<>();
-
-    /**
-     *  The ARP table
-     *  key: IP
-     *  value: MAC
+     *  private (IP, port, protocol) to public (IP, port), and back,
+     *  kept while the nat rules of the session are installed
      */
-    private Map<Ip4Address, MacAddress> arpTable = new HashMap<>();
+    private NatSessions sessions;
 
     /**
-     *  Map containing all pending IP packets that need to be processed after IP address resolution
-     *  key: destination IP
-     *  value: Queue of pending packets
+     *  The ARP table, with the IP packets that need to be processed after IP address resolution
      */
-    private Map<Ip4Address, Queue<PacketContext>> pendingPackets = new HashMap<>();
+    private final NatArpResolver arpResolver = new NatArpResolver(MAX_PENDING_DESTINATIONS, MAX_PENDING_PACKETS,
+            ARP_RETRANSMIT_MS, ARP_MAX_ATTEMPTS, ARP_TTL_MS, ARP_UNRESOLVED_TTL_MS);
 
     private final ExecutorService eventExecutor =
             newSingleThreadExecutor(groupedThreads("onos/nat-ctl", "event-handler", log));
 
+    // fires the packets whose flows were not confirmed in time
+    private ScheduledExecutorService installTimeoutExecutor;
+
+    // closes the sessions whose rule removals were missed
+    private ScheduledExecutorService sessionSweeper;
+
+    // retransmits the ARP requests and drops the packets waiting for too long
+    private ScheduledExecutorService arpExecutor;
+
     private final ConfigFactory configFactory =
             new ConfigFactory(SubjectFactories.APP_SUBJECT_FACTORY, PortConfig.class, "nat") {
                 @Override
@@ -138,6 +163,7 @@ public class AppComponent {
             };
 
     private final NetworkConfigListener configListener = new InternalConfigListener();
+    private final FlowRuleListener flowListener = new InternalFlowListener();
 
     @Activate
     protected void activate(ComponentContext context) {
@@ -146,7 +172,13 @@ public class AppComponent {
         loadConfiguration();
 
         appId = coreService.registerApplication("it.polito.onosapp.nat");
+        installTimeoutExecutor = newSingleThreadScheduledExecutor(groupedThreads("onos/nat-ctl", "install-timeout", log));
+        sessionSweeper = newSingleThreadScheduledExecutor(groupedThreads("onos/nat-ctl", "session-sweeper", log));
+        sessionSweeper.scheduleAtFixedRate(this::sweepSessions, SESSION_TICK_MS, SESSION_TICK_MS, TimeUnit.MILLISECONDS);
+        arpExecutor = newSingleThreadScheduledExecutor(groupedThreads("onos/nat-ctl", "arp-retransmit", log));
+        arpExecutor.scheduleAtFixedRate(processor::expireArpRequests, ARP_TICK_MS, ARP_TICK_MS, TimeUnit.MILLISECONDS);
         packetService.addProcessor(processor, PacketProcessor.director(0));
+        flowRuleService.addListener(flowListener);
         configService.addListener(configListener);
         configRegistry.registerConfigFactory(configFactory);
         requestIntercepts();
@@ -158,12 +190,21 @@ public class AppComponent {
     protected void deactivate() {
 
         withdrawIntercepts();
+        flowRuleService.removeListener(flowListener);
         flowRuleService.removeFlowRulesById(appId);
         packetService.removeProcessor(processor);
         configService.removeListener(configListener);
         configRegistry.unregisterConfigFactory(configFactory);
+        installTimeoutExecutor.shutdownNow();
+        sessionSweeper.shutdownNow();
+        arpExecutor.shutdownNow();
+        arpResolver.clear();
         processor = null;
 
+        log.info("ARP requests sent: {}, packets dropped: {} queue full, {} too many destinations, {} unresolved",
+                arpResolver.requests(), arpResolver.droppedQueueFull(), arpResolver.droppedTooManyDestinations(),
+                arpResolver.droppedUnresolved());
+
         log.info("Stopped");
     }
 
@@ -189,7 +230,13 @@ public class AppComponent {
             this.outputInterface = PortNumber.portNumber(config.getWanInterface());
 
             this.privateAddress = Ip4Address.valueOf(config.getPrivateAddress());
-            this.publicAddress = Ip4Address.valueOf(config.getPublicAddress());
+            this.publicAddresses = new ArrayList<>();
+            for (String address : config.getPublicAddresses())
+                this.publicAddresses.add(Ip4Address.valueOf(address));
+            this.publicAddress = publicAddresses.get(0);
+            this.sessions = new NatSessions(new NatTranslationTable(
+                    new NatPortAllocator(publicAddresses, config.getFirstPort(), config.getLastPort())),
+                    SESSION_TICK_MS, System.currentTimeMillis());
 
             log.info("Loaded parameters from configuration file.");
         } catch (IOException e) {
@@ -237,6 +284,8 @@ public class AppComponent {
 
         // clean old rules and restart interceptor with new configuration
         flowRuleService.removeFlowRulesById(appId);
+        sessions.clear();
+        arpResolver.clear();
         requestIntercepts();
     }
 
@@ -305,6 +354,11 @@ public class AppComponent {
 
             if (packetContext.isHandled())
                 return;
+            processPacket(packetContext);
+        }
+
+        // also called for the packets this processor has queued, and therefore blocked, itself
+        private void processPacket(PacketContext packetContext) {
             Ethernet ethPkt = packetContext.inPacket().parsed();
             if (ethPkt == null) {
                 return;
@@ -324,21 +378,19 @@ public class AppComponent {
                     if (Objects.equals(privateAddress, Ip4Address.valueOf(arpPacket.getTargetProtocolAddress()))) {
                         log.debug(" -- ARP request for nat interface");
                         processArpRequest(packetContext, ethPkt, privateMac);
-                    } else if (Objects.equals(publicAddress, Ip4Address.valueOf(arpPacket.getTargetProtocolAddress()))) {
+                    } else if (publicAddresses.contains(Ip4Address.valueOf(arpPacket.getTargetProtocolAddress()))) {
                         log.debug(" -- ARP request for public interface");
                         processArpRequest(packetContext, ethPkt, publicMac);
                     }
                 }
                 if ((arpPacket.getOpCode() == ARP.OP_REPLY)) {
                     log.debug(" -- ARP reply: {} is at {}", Ip4Address.valueOf(arpPacket.getSenderProtocolAddress()), MacAddress.valueOf(arpPacket.getSenderHardwareAddress()));
-                    arpTable.put(Ip4Address.valueOf(arpPacket.getSenderProtocolAddress()), MacAddress.valueOf(arpPacket.getSenderHardwareAddress()));
-
-                    // process enqueued packets for this destination
-                    Queue<PacketContext> packetsQueue = pendingPackets.get(Ip4Address.valueOf(arpPacket.getSenderProtocolAddress()));
-                    while (packetsQueue != null && !packetsQueue.isEmpty()) {
-                        PacketContext pendingPacketContext = packetsQueue.remove();
+                    // process enqueued packets for this destination, the packets coming after this point find the mac
+                    List<PacketContext> pendingPacketContexts = arpResolver.learn(Ip4Address.valueOf(arpPacket.getSenderProtocolAddress()),
+                            MacAddress.valueOf(arpPacket.getSenderHardwareAddress()), System.currentTimeMillis());
+                    for (PacketContext pendingPacketContext : pendingPacketContexts) {
                         log.debug("dequeued packet {}, processing...", pendingPacketContext);
-                        process(pendingPacketContext);
+                        processPacket(pendingPacketContext);
                     }
                 }
             } else if (ethPkt.getEtherType() == Ethernet.TYPE_IPV4) {
@@ -356,20 +408,37 @@ public class AppComponent {
                 IpAddress dstAddress = IpAddress.valueOf(ipHeader.getDestinationAddress());
 
                 // first we need to know the destination mac address
-                MacAddress dstMac = arpTable.get(dstAddress.getIp4Address());
+                long now = System.currentTimeMillis();
+                MacAddress dstMac = arpResolver.lookup(dstAddress.getIp4Address(), now);
                 if (dstMac == null) {
 
-                    log.debug(" - sending arp request to {}", dstAddress.getIp4Address());
+                    // add this packet to the pending packets to allow future processing
+                    switch (arpResolver.enqueue(dstAddress.getIp4Address(), packetContext, now)) {
+                        case FIRST:
+                            packetContext.block();
+                            log.debug(" - sending arp request to {}", dstAddress.getIp4Address());
+                            sendArpRequest(dstAddress, outputDeviceId, outputInterface);
+                            return;
+                        case QUEUED:
+                            packetContext.block();
+                            return;
+                        case DROPPED:
+                            log.debug(" - {} is not resolved, dropping", dstAddress.getIp4Address());
+                            return;
+                        default:
+                            // the reply came in the meantime
+                            dstMac = arpResolver.lookup(dstAddress.getIp4Address(), now);
+                            if (dstMac == null)
+                                return;
+                    }
+                } else if (arpResolver.refreshDue(dstAddress.getIp4Address(), now)) {
+                    log.debug(" - refreshing arp entry of {}", dstAddress.getIp4Address());
                     sendArpRequest(dstAddress, outputDeviceId, outputInterface);
-
-                    // add this packet to the map of the pending packets to allow future processing
-                    pendingPackets.putIfAbsent(dstAddress.getIp4Address(), new LinkedBlockingQueue<>());
-                    pendingPackets.get(dstAddress.getIp4Address()).add(packetContext);
-                    return;
                 }
 
                 int srcPortNumber;
                 int publicPort = 0;
+                Ip4Address natAddress = publicAddress;
 
                 if (ipHeader.getProtocol() == IPv4.PROTOCOL_TCP) {
 
@@ -378,9 +447,6 @@ public class AppComponent {
                     if (tcpHeader == null)
                         return;
                     srcPortNumber = tcpHeader.getSourcePort();
-                    publicPort = getAvailableOutputPort();
-
-                    natPortMap.put((short) publicPort, srcAddress.toString() + ":" + srcPortNumber);
 
                     log.debug(" - - Recieved from Device: " + packetContext.inPacket().receivedFrom().deviceId().toString() + " port: " + packetContext.inPacket().receivedFrom().port().toString());
                     log.debug(" - - Src IP: " + srcAddress.toString());
@@ -396,9 +462,6 @@ public class AppComponent {
                     if (udpHeader == null)
                         return;
                     srcPortNumber = udpHeader.getSourcePort();
-                    publicPort = getAvailableOutputPort();
-
-                    natPortMap.put((short) publicPort, srcAddress.toString() + ":" + srcPortNumber);
 
                     log.debug(" - - Recieved from Device: " + packetContext.inPacket().receivedFrom().deviceId().toString() + " port: " + packetContext.inPacket().receivedFrom().port().toString());
                     log.debug(" - - Src IP: " + srcAddress.toString());
@@ -420,12 +483,24 @@ public class AppComponent {
                     log.debug(" - - Src code: " + srcPortNumber);
                 } else return;
 
-                ipHeader.setSourceAddress(publicAddress.toInt());
+                if (ipHeader.getProtocol() != IPv4.PROTOCOL_ICMP) {
+                    // the same private endpoint keeps its public address and port
+                    int slot = sessions.open(NatTranslationTable.key(srcAddress.getIp4Address(), srcPortNumber, ipHeader.getProtocol()), sessionDeadline());
+                    if (slot == NatPortAllocator.NO_SLOT) {
+                        log.warn("No public port left, dropping packet from {}:{}", srcAddress, srcPortNumber);
+                        return;
+                    }
+                    natAddress = sessions.translations().allocator().address(slot);
+                    publicPort = sessions.translations().allocator().port(slot);
+                }
 
+                // the packet is sent once all the flows of its session are installed
+                PendingForward pendingForward = new PendingForward(packetContext);
+                TrafficTreatment natTreatment = null;
                 if(inputDeviceId.equals(outputDeviceId)) {
                     // nat interfaces are on the same device
-                    installIncomingNatRule(packetContext, srcAddress.getIp4Address(), dstAddress.getIp4Address(), ipHeader.getProtocol(), srcPortNumber, publicPort, dstMac, outputInterface);
-                    installOutcomingNatRule(dstAddress.getIp4Address(), srcAddress.getIp4Address(), ipHeader.getProtocol(), publicPort, srcPortNumber, ethPkt.getSourceMAC(), inputInterface);
+                    natTreatment = installIncomingNatRule(packetContext, srcAddress.getIp4Address(), dstAddress.getIp4Address(), ipHeader.getProtocol(), srcPortNumber, natAddress, publicPort, dstMac, outputInterface, pendingForward.track());
+                    installOutcomingNatRule(dstAddress.getIp4Address(), srcAddress.getIp4Address(), ipHeader.getProtocol(), natAddress, publicPort, srcPortNumber, ethPkt.getSourceMAC(), inputInterface, pendingForward.track());
                 } else {
                     // nat interfaces are on different devices, we need to find a path
                     Set<Path> paths = topologyService.getPaths(topologyService.currentTopology(), inputDeviceId, outputDeviceId);
@@ -435,27 +510,24 @@ public class AppComponent {
                     for (Link link : path.links()) {
                         if (link.src().deviceId().equals(inputDeviceId)) {
                             log.debug("LINK: input device");
-                            installIncomingNatRule(packetContext, srcAddress.getIp4Address(), dstAddress.getIp4Address(), ipHeader.getProtocol(), srcPortNumber, publicPort, dstMac, link.src().port());
-                            installForwardingRule(link.src().deviceId(), inputInterface, dstAddress.getIp4Address(), srcAddress.getIp4Address());
+                            natTreatment = installIncomingNatRule(packetContext, srcAddress.getIp4Address(), dstAddress.getIp4Address(), ipHeader.getProtocol(), srcPortNumber, natAddress, publicPort, dstMac, link.src().port(), pendingForward.track());
+                            installForwardingRule(link.src().deviceId(), inputInterface, dstAddress.getIp4Address(), srcAddress.getIp4Address(), pendingForward.track());
                         } else {
                             log.debug("LINK: not input device");
-                            installForwardingRule(link.src().deviceId(), link.src().port(), publicAddress.getIp4Address(), dstAddress.getIp4Address());
+                            installForwardingRule(link.src().deviceId(), link.src().port(), natAddress, dstAddress.getIp4Address(), pendingForward.track());
                         }
                         if (link.dst().deviceId().equals(outputDeviceId)) {
                             log.debug("LINK: output device");
-                            installOutcomingNatRule(dstAddress.getIp4Address(), srcAddress.getIp4Address(), ipHeader.getProtocol(), publicPort, srcPortNumber, ethPkt.getSourceMAC(), link.dst().port());
-                            installForwardingRule(link.dst().deviceId(), outputInterface, publicAddress.getIp4Address(), dstAddress.getIp4Address());
+                            installOutcomingNatRule(dstAddress.getIp4Address(), srcAddress.getIp4Address(), ipHeader.getProtocol(), natAddress, publicPort, srcPortNumber, ethPkt.getSourceMAC(), link.dst().port(), pendingForward.track());
+                            installForwardingRule(link.dst().deviceId(), outputInterface, natAddress, dstAddress.getIp4Address(), pendingForward.track());
                         } else {
                             log.debug("LINK: not output device");
-                            installForwardingRule(link.dst().deviceId(), link.dst().port(), dstAddress.getIp4Address(), srcAddress.getIp4Address());
+                            installForwardingRule(link.dst().deviceId(), link.dst().port(), dstAddress.getIp4Address(), srcAddress.getIp4Address(), pendingForward.track());
                         }
                     }
                 }
 
-                try { Thread.sleep(100); } catch (InterruptedException ignored) { }
-
-                log.info("Forwarding to Table");
-                packetToTable(packetContext);
+                pendingForward.start(natTreatment);
             }
         }
 
@@ -518,6 +590,18 @@ public class AppComponent {
             packetService.emit(new DefaultOutboundPacket(deviceId, builder.build(), ByteBuffer.wrap(ethRequest.serialize())));
         }
 
+        // retransmits the requests still unanswered, with backoff
+        private void expireArpRequests() {
+            try {
+                for (Ip4Address address : arpResolver.expire(System.currentTimeMillis())) {
+                    log.debug("Retransmitting arp request to {}", address);
+                    sendArpRequest(address, outputDeviceId, outputInterface);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Unable to retransmit arp requests", e);
+            }
+        }
+
         /**
          * Sends the Ethernet reply frame via the Packet Service.
          *
@@ -537,8 +621,9 @@ public class AppComponent {
     }
 
     // Install a rule in the last switch applying the NAT reverse function
-    private void installOutcomingNatRule(Ip4Address srcAddress, Ip4Address dstAddress, byte protocol, int dstPort,
-                                        int newDstPort, MacAddress dstMac, PortNumber portNumber) {
+    private void installOutcomingNatRule(Ip4Address srcAddress, Ip4Address dstAddress, byte protocol, Ip4Address natAddress, int dstPort,
+                                        int newDstPort, MacAddress dstMac, PortNumber portNumber,
+                                        ObjectiveContext objectiveContext) {
 
         log.info(" - Install outcoming nat Rule");
 
@@ -548,7 +633,7 @@ public class AppComponent {
                 .matchEthType(Ethernet.TYPE_IPV4)
                 .matchIPSrc(srcAddress.toIpPrefix())
                 .matchIPProtocol(protocol)
-                .matchIPDst(publicAddress.toIpPrefix());
+                .matchIPDst(natAddress.toIpPrefix());
         if (externalOutputVlan.toShort() != 0)
             selectorBuilder.matchVlanId(externalOutputVlan);
 
@@ -589,7 +674,7 @@ public class AppComponent {
                 .withFlag(ForwardingObjective.Flag.VERSATILE)
                 .fromApp(appId)
                 .makeTemporary(flowTimeout)
-                .add();
+                .add(objectiveContext);
 
         log.debug("Installing flow rule on device '" + outputDeviceId + "'");
         log.debug("Match: " +
@@ -597,7 +682,7 @@ public class AppComponent {
                 "IpSrc " + srcAddress.getIp4Address().toString() + " | " +
                 "PortDst " + dstPort + " | " +
                 "Proto " + protocol + " | " +
-                "IpDst " + publicAddress.getIp4Address().toString());
+                "IpDst " + natAddress.toString());
         String tcpLogString = "";
         if (protocol == IPv4.PROTOCOL_TCP || protocol == IPv4.PROTOCOL_UDP)
             tcpLogString = "setTpDst " + newDstPort + " | ";
@@ -612,9 +697,10 @@ public class AppComponent {
         flowObjectiveService.forward(outputDeviceId, forwardingObjective);
     }
 
-    // Install a rule in the first switch applying the NAT function
-    private void installIncomingNatRule(PacketContext context, Ip4Address srcAddress, Ip4Address dstAddress, byte protocol, int srcPort,
-                                        int newSrcPort, MacAddress dstMac, PortNumber portNumber) {
+    // Install a rule in the first switch applying the NAT function, returns its treatment
+    private TrafficTreatment installIncomingNatRule(PacketContext context, Ip4Address srcAddress, Ip4Address dstAddress, byte protocol, int srcPort,
+                                                    Ip4Address natAddress, int newSrcPort, MacAddress dstMac, PortNumber portNumber,
+                                                    ObjectiveContext objectiveContext) {
 
         log.info(" - Install incoming nat Rule");
 
@@ -640,7 +726,7 @@ public class AppComponent {
         }
 
         TrafficTreatment.Builder treatmentBuilder = DefaultTrafficTreatment.builder()
-                .setIpSrc(publicAddress)
+                .setIpSrc(natAddress)
                 .setEthSrc(publicMac)
                 .setEthDst(dstMac);
         // VLAN endpoint
@@ -657,15 +743,16 @@ public class AppComponent {
             treatmentBuilder.setUdpSrc(TpPort.tpPort(newSrcPort));
         // set output interface at the end
         treatmentBuilder.setOutput(portNumber);
+        TrafficTreatment treatment = treatmentBuilder.build();
 
         ForwardingObjective forwardingObjective = DefaultForwardingObjective.builder()
                 .withSelector(selectorBuilder.build())
-                .withTreatment(treatmentBuilder.build())
+                .withTreatment(treatment)
                 .withPriority(flowPriority)
                 .withFlag(ForwardingObjective.Flag.VERSATILE)
                 .fromApp(appId)
                 .makeTemporary(flowTimeout)
-                .add();
+                .add(objectiveContext);
 
         log.debug("Installing flow rule on device '" + inputDeviceId + "'");
         log.debug("Match: " +
@@ -678,7 +765,7 @@ public class AppComponent {
         if (protocol == IPv4.PROTOCOL_TCP || protocol == IPv4.PROTOCOL_UDP)
             tcpLogString = "setTpSrc " + newSrcPort + " | ";
         log.debug("Action: " +
-                "setIpSrc " + publicAddress.toString() + " | " +
+                "setIpSrc " + natAddress.toString() + " | " +
                 "setEthDst " + dstMac.toString() + " | " +
                 "setEthSrc " + publicMac.toString() + " | " +
                 tcpLogString +
@@ -686,10 +773,12 @@ public class AppComponent {
 
         // create the flow rule
         flowObjectiveService.forward(inputDeviceId, forwardingObjective);
+        return treatment;
     }
 
     // install rules to steer traffic towards the final port
-    private void installForwardingRule(DeviceId deviceId, PortNumber outputPort, Ip4Address srcAddress, Ip4Address dstAddress) {
+    private void installForwardingRule(DeviceId deviceId, PortNumber outputPort, Ip4Address srcAddress, Ip4Address dstAddress,
+                                       ObjectiveContext objectiveContext) {
 
         log.info(" - Install forwarding Rule");
 
@@ -722,7 +811,7 @@ public class AppComponent {
                 .withFlag(ForwardingObjective.Flag.VERSATILE)
                 .fromApp(appId)
                 .makeTemporary(flowTimeout)
-                .add();
+                .add(objectiveContext);
 
         log.debug("Installing flow rule on device '" + deviceId + "'");
         log.debug("Match: " +
@@ -735,11 +824,97 @@ public class AppComponent {
         flowObjectiveService.forward(deviceId, forwardingObjective);
     }
 
-    // Sends a packet to table.
-    private void packetToTable(PacketContext context) {
+    /**
+     * Packet waiting for the flows of its session to be installed before being sent
+     * with the treatment of its incoming NAT rule, so that it is translated as the
+     * next packets of the session.
+     *
+     * The packet is claimed once the objectives are submitted, and the packet processor thread
+     * does not wait: the frame is emitted from the callback of the last flow objective, or after
+     * a timeout if some of them are not confirmed. Without an incoming NAT rule the packet is
+     * left to the other processors. The frame is not sent back to the flow
+     * table, because an emitted packet no longer has the input port the NAT rule matches.
+     */
+    private class PendingForward implements ObjectiveContext {
+
+        private final PacketContext context;
+        private final DeviceId deviceId;
+        private final byte[] frame;
+        // one extra count held while the objectives are being submitted
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile TrafficTreatment treatment;
+        private volatile ScheduledFuture<?> timeout;
+
+        PendingForward(PacketContext context) {
+            this.context = context;
+            this.deviceId = context.inPacket().receivedFrom().deviceId();
+            ByteBuffer unparsed = context.inPacket().unparsed().duplicate();
+            this.frame = new byte[unparsed.remaining()];
+            unparsed.get(frame);
+        }
+
+        // returns the context of one more objective to wait for
+        ObjectiveContext track() {
+            pending.incrementAndGet();
+            return this;
+        }
+
+        // called once all the objectives are submitted, with the treatment of the incoming NAT rule
+        void start(TrafficTreatment treatment) {
+            if (treatment == null) {
+                log.warn("No incoming NAT rule installed on {}, packet not translated", deviceId);
+                return;
+            }
+            context.block();
+            this.treatment = treatment;
+            try {
+                timeout = installTimeoutExecutor.schedule(this::expire, INSTALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("NAT is stopping, packet not forwarded");
+                return;
+            }
+            countDown();
+        }
+
+        @Override
+        public void onSuccess(Objective objective) {
+            countDown();
+        }
+
+        @Override
+        public void onError(Objective objective, ObjectiveError error) {
+            if (done.compareAndSet(false, true)) {
+                cancelTimeout();
+                log.warn("Failed to install NAT flow {}: {}", objective.id(), error);
+            }
+        }
+
+        private void countDown() {
+            if (pending.decrementAndGet() == 0 && done.compareAndSet(false, true)) {
+                cancelTimeout();
+                log.debug("Forwarding translated packet");
+                emit();
+            }
+        }
+
+        private void expire() {
+            if (done.compareAndSet(false, true)) {
+                log.debug("NAT flows not confirmed within {} ms, forwarding anyway", INSTALL_TIMEOUT_MS);
+                emit();
+            }
+        }
 
-        context.treatmentBuilder().setOutput(PortNumber.TABLE);
-        context.send();
+        private void emit() {
+            packetService.emit(new DefaultOutboundPacket(deviceId, treatment, ByteBuffer.wrap(frame)));
+        }
+
+        private void cancelTimeout() {
+            ScheduledFuture<?> scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
     }
 
     // Selects a path from the given set that does not lead back to the specified port if possible.
@@ -760,16 +935,6 @@ public class AppComponent {
         return type == Ethernet.TYPE_LLDP || type == Ethernet.TYPE_BSN;
     }
 
-    private short getAvailableOutputPort() {
-
-        Random random = new Random();
-        short port;
-        do {
-            port = (short) (random.nextInt((LAST_PORT - FIRST_PORT) + 1) + FIRST_PORT);
-        } while (this.natPortMap.containsKey(port) && this.natPortMap.size() != LAST_PORT - FIRST_PORT + 1);
-        return port;
-    }
-
     private class InternalConfigListener implements NetworkConfigListener {
 
         @Override
@@ -788,6 +953,131 @@ public class AppComponent {
         }
     }
 
+    private class InternalFlowListener implements FlowRuleListener {
+
+        @Override
+        public void event(FlowRuleEvent event) {
+            FlowRule rule = event.subject();
+            if (event.type() == FlowRuleEvent.Type.RULE_REMOVED && rule.appId() == appId.id())
+                eventExecutor.execute(() -> natRuleRemoved(rule));
+        }
+    }
+
+    // a session is closed when all its nat rules have been removed, usually by their idle timeout; the rules of an
+    // earlier translation of its slot, e.g. removed when the configuration was read again, are not counted
+    private void natRuleRemoved(FlowRule rule) {
+        NatRule natRule = natRule(rule);
+        if (natRule != null && sessions.ruleRemoved(natRule.key, natRule.slot))
+            log.debug("Closed nat session of public port {}", sessions.translations().allocator().port(natRule.slot));
+    }
+
+    // backstop for the rule removals that were not notified, e.g. while a device was disconnected
+    private void sweepSessions() {
+        try {
+            int[] expired = sessions.expired(System.currentTimeMillis());
+            if (expired.length == 0)
+                return;
+            int[] installed = installedRules(expired);
+            for (int i = 0; i < expired.length; i++) {
+                int slot = expired[i];
+                if (installed[i] > 0)
+                    sessions.renew(slot, installed[i], sessionDeadline());
+                else if (sessions.release(slot))
+                    log.debug("Expired nat session of public port {}", sessions.translations().allocator().port(slot));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to sweep nat sessions", e);
+        }
+    }
+
+    // number of nat rules still on the devices for each of the given slots, which are sorted in place
+    private int[] installedRules(int[] slots) {
+        Arrays.sort(slots);
+        int[] installed = new int[slots.length];
+        Set<DeviceId> devices = new HashSet<>(Arrays.asList(inputDeviceId, outputDeviceId));
+        for (DeviceId deviceId : devices) {
+            for (FlowEntry entry : flowRuleService.getFlowEntries(deviceId)) {
+                if (entry.appId() != appId.id())
+                    continue;
+                NatRule natRule = natRule(entry);
+                if (natRule == null || sessions.translations().privateKey(natRule.slot) != natRule.key)
+                    continue;
+                int index = Arrays.binarySearch(slots, natRule.slot);
+                if (index >= 0)
+                    installed[index]++;
+            }
+        }
+        return installed;
+    }
+
+    // private endpoint and public slot a nat rule translates between
+    private static final class NatRule {
+        private final long key;
+        private final int slot;
+
+        private NatRule(long key, int slot) {
+            this.key = key;
+            this.slot = slot;
+        }
+    }
+
+    // translation of a nat rule, null for the other rules of the app: the incoming rule matches the private endpoint
+    // and sets the public one as source, the outcoming rule matches the public endpoint and sets the private one as destination
+    private NatRule natRule(FlowRule rule) {
+        TrafficSelector selector = rule.selector();
+        IPProtocolCriterion protocol = (IPProtocolCriterion) selector.getCriterion(Criterion.Type.IP_PROTO);
+        if (protocol == null)
+            return null;
+        int matchedPort = matchedPort(selector, protocol.protocol(), true);
+        boolean incoming = matchedPort >= 0;
+        if (!incoming)
+            matchedPort = matchedPort(selector, protocol.protocol(), false);
+        IPCriterion matchedAddress = (IPCriterion) selector.getCriterion(incoming ? Criterion.Type.IPV4_SRC : Criterion.Type.IPV4_DST);
+
+        Ip4Address setAddress = null;
+        int setPort = -1;
+        for (Instruction instruction : rule.treatment().allInstructions()) {
+            if (instruction instanceof L3ModificationInstruction.ModIPInstruction) {
+                L3ModificationInstruction.ModIPInstruction modIp = (L3ModificationInstruction.ModIPInstruction) instruction;
+                if (modIp.subtype() == (incoming ? L3ModificationInstruction.L3SubType.IPV4_SRC : L3ModificationInstruction.L3SubType.IPV4_DST))
+                    setAddress = modIp.ip().getIp4Address();
+            } else if (instruction instanceof L4ModificationInstruction.ModTransportPortInstruction) {
+                L4ModificationInstruction.ModTransportPortInstruction modPort = (L4ModificationInstruction.ModTransportPortInstruction) instruction;
+                L4ModificationInstruction.L4SubType subtype = modPort.subtype();
+                if (incoming ? subtype == L4ModificationInstruction.L4SubType.TCP_SRC || subtype == L4ModificationInstruction.L4SubType.UDP_SRC
+                        : subtype == L4ModificationInstruction.L4SubType.TCP_DST || subtype == L4ModificationInstruction.L4SubType.UDP_DST)
+                    setPort = modPort.port().toInt();
+            }
+        }
+        if (matchedAddress == null || matchedPort < 0 || setAddress == null || setPort < 0)
+            return null;
+
+        Ip4Address address = matchedAddress.ip().address().getIp4Address();
+        NatPortAllocator allocator = sessions.translations().allocator();
+        if (incoming)
+            return new NatRule(NatTranslationTable.key(address, matchedPort, (byte) protocol.protocol()), allocator.slot(setAddress, setPort));
+        return new NatRule(NatTranslationTable.key(setAddress, setPort, (byte) protocol.protocol()), allocator.slot(address, matchedPort));
+    }
+
+    // transport source or destination port matched by a selector, -1 if none
+    private static int matchedPort(TrafficSelector selector, short protocol, boolean source) {
+        if (protocol == IPv4.PROTOCOL_TCP) {
+            TcpPortCriterion tcpPort = (TcpPortCriterion) selector.getCriterion(source ? Criterion.Type.TCP_SRC : Criterion.Type.TCP_DST);
+            if (tcpPort != null)
+                return tcpPort.tcpPort().toInt();
+        } else if (protocol == IPv4.PROTOCOL_UDP) {
+            UdpPortCriterion udpPort = (UdpPortCriterion) selector.getCriterion(source ? Criterion.Type.UDP_SRC : Criterion.Type.UDP_DST);
+            if (udpPort != null)
+                return udpPort.udpPort().toInt();
+        }
+        return -1;
+    }
+
+    // the sweeper looks at a session again if its rules are still there after their idle timeout
+    private long sessionDeadline() {
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(flowTimeout) + SESSION_TICK_MS;
+    }
+
     private String randomMACAddress() {
         Random rand = new Random();
         byte[] macAddr = new byte[6];
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package it.polito.onosapp.nat;
+
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.MacAddress;
+import org.onosproject.net.packet.PacketContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ARP cache of the NAT, with the packets waiting for the resolution of their destination.
+ *
+ * Learned addresses expire after a TTL; a refresh request is due when three
+ * quarters of it have elapsed, so that an address in use is renewed before it
+ * expires. Unresolved destinations keep a bounded queue of packets and are
+ * asked again with an exponential backoff; a packet is dropped when its queue
+ * is full or when its destination does not answer. The backoff schedule is
+ * thus the longest time a packet waits. A destination that did not answer is
+ * remembered for a short while, and its packets are dropped at once instead
+ * of starting another resolution.
+ * The number of destinations being resolved is bounded as well, so that a scan
+ * of dead addresses cannot grow the heap.
+ *
+ * A queue is only changed inside the atomic operations of the pending map, and
+ * a reply records the address before taking the queue: a packet is never left
+ * in a queue that has already been drained.
+ */
+final class NatArpResolver {
+
+    /**
+     * Outcome of queuing a packet.
+     */
+    enum Admission {
+        /** first packet for the destination, an ARP request has to be sent */
+        FIRST,
+        /** queued behind a request already sent */
+        QUEUED,
+        /** the destination has been learned meanwhile, the packet can go */
+        RESOLVED,
+        /** dropped */
+        DROPPED
+    }
+
+    private static final class CacheEntry {
+        private final MacAddress mac;
+        private final long learnedMillis;
+        private final boolean refreshing;
+
+        private CacheEntry(MacAddress mac, long learnedMillis, boolean refreshing) {
+            this.mac = mac;
+            this.learnedMillis = learnedMillis;
+            this.refreshing = refreshing;
+        }
+    }
+
+    // only accessed inside the atomic operations of the pending map
+    private static final class Resolution {
+        private final Deque<PacketContext> packets = new ArrayDeque<>();
+        private int attempts = 1;
+        private long nextAttemptMillis;
+    }
+
+    private final int maxDestinations;
+    private final int maxPackets;
+    private final long retransmitMillis;
+    private final int maxAttempts;
+    private final long ttlMillis;
+    private final long unresolvedTtlMillis;
+
+    private final ConcurrentMap<Ip4Address, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Ip4Address, Resolution> pending = new ConcurrentHashMap<>();
+    // destinations that did not answer, with the time they can be asked again at
+    private final ConcurrentMap<Ip4Address, Long> unresolved = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder droppedQueueFull = new LongAdder();
+    private final LongAdder droppedTooManyDestinations = new LongAdder();
+    private final LongAdder droppedUnresolved = new LongAdder();
+
+    /**
+     * Creates a resolver.
+     *
+     * @param maxDestinations maximum number of destinations being resolved
+     * @param maxPackets maximum number of packets queued per destination
+     * @param retransmitMillis delay before the first retransmission, doubled at each one
+     * @param maxAttempts number of requests sent before giving up on a destination
+     * @param ttlMillis lifetime of a learned address
+     * @param unresolvedTtlMillis time a destination that did not answer is not asked again
+     */
+    NatArpResolver(int maxDestinations, int maxPackets, long retransmitMillis, int maxAttempts,
+                   long ttlMillis, long unresolvedTtlMillis) {
+        this.maxDestinations = maxDestinations;
+        this.maxPackets = maxPackets;
+        this.retransmitMillis = retransmitMillis;
+        this.maxAttempts = maxAttempts;
+        this.ttlMillis = ttlMillis;
+        this.unresolvedTtlMillis = unresolvedTtlMillis;
+    }
+
+    /**
+     * Returns the mac of an address.
+     *
+     * @param address the IP address
+     * @param nowMillis current time
+     * @return the mac, null if unknown or expired
+     */
+    MacAddress lookup(Ip4Address address, long nowMillis) {
+        CacheEntry entry = cache.get(address);
+        if (entry == null)
+            return null;
+        if (nowMillis - entry.learnedMillis >= ttlMillis) {
+            cache.remove(address, entry);
+            return null;
+        }
+        return entry.mac;
+    }
+
+    /**
+     * Tells whether a learned address has to be asked again; true at most once per learning.
+     *
+     * @param address the IP address
+     * @param nowMillis current time
+     * @return true if a refresh request has to be sent
+     */
+    boolean refreshDue(Ip4Address address, long nowMillis) {
+        CacheEntry entry = cache.get(address);
+        if (entry == null || entry.refreshing || nowMillis - entry.learnedMillis < ttlMillis / 4 * 3)
+            return false;
+        if (!cache.replace(address, entry, new CacheEntry(entry.mac, entry.learnedMillis, true)))
+            return false;
+        requests.increment();
+        return true;
+    }
+
+    /**
+     * Queues a packet waiting for the mac of its destination.
+     *
+     * @param address the destination IP address
+     * @param context the packet
+     * @param nowMillis current time
+     * @return what happened to the packet
+     */
+    Admission enqueue(Ip4Address address, PacketContext context, long nowMillis) {
+        AtomicReference<Admission> admission = new AtomicReference<>();
+        pending.compute(address, (ip, resolution) -> {
+            if (lookup(ip, nowMillis) != null) {
+                admission.set(Admission.RESOLVED);
+                return resolution;
+            }
+            if (resolution == null) {
+                Long retryMillis = unresolved.get(ip);
+                if (retryMillis != null && nowMillis < retryMillis) {
+                    droppedUnresolved.increment();
+                    admission.set(Admission.DROPPED);
+                    return null;
+                }
+                if (pending.size() >= maxDestinations) {
+                    droppedTooManyDestinations.increment();
+                    admission.set(Admission.DROPPED);
+                    return null;
+                }
+                resolution = new Resolution();
+                resolution.nextAttemptMillis = nowMillis + retransmitMillis;
+                requests.increment();
+                admission.set(Admission.FIRST);
+            } else if (resolution.packets.size() >= maxPackets) {
+                droppedQueueFull.increment();
+                admission.set(Admission.DROPPED);
+                return resolution;
+            } else {
+                admission.set(Admission.QUEUED);
+            }
+            resolution.packets.addLast(context);
+            return resolution;
+        });
+        return admission.get();
+    }
+
+    /**
+     * Records the mac of an address and takes the packets waiting for it.
+     *
+     * @param address the IP address
+     * @param mac the mac address
+     * @param nowMillis current time
+     * @return the packets to process again, in arrival order
+     */
+    List<PacketContext> learn(Ip4Address address, MacAddress mac, long nowMillis) {
+        cache.put(address, new CacheEntry(mac, nowMillis, false));
+        unresolved.remove(address);
+        Resolution resolution = pending.remove(address);
+        if (resolution == null)
+            return Collections.emptyList();
+        return new ArrayList<>(resolution.packets);
+    }
+
+    /**
+     * Drops the packets of the destinations that do not answer, and forgets
+     * the expired addresses.
+     *
+     * @param nowMillis current time
+     * @return the destinations an ARP request has to be sent again to
+     */
+    List<Ip4Address> expire(long nowMillis) {
+        cache.values().removeIf(entry -> nowMillis - entry.learnedMillis >= ttlMillis);
+        unresolved.values().removeIf(retryMillis -> nowMillis >= retryMillis);
+
+        List<Ip4Address> retransmit = new ArrayList<>();
+        for (Ip4Address address : pending.keySet()) {
+            pending.computeIfPresent(address, (ip, resolution) -> {
+                if (nowMillis < resolution.nextAttemptMillis)
+                    return resolution;
+                if (resolution.attempts >= maxAttempts) {
+                    droppedUnresolved.add(resolution.packets.size());
+                    if (unresolved.size() < maxDestinations)
+                        unresolved.put(ip, nowMillis + unresolvedTtlMillis);
+                    return null;
+                }
+                resolution.nextAttemptMillis = nowMillis + (retransmitMillis << resolution.attempts);
+                resolution.attempts++;
+                requests.increment();
+                retransmit.add(ip);
+                return resolution;
+            });
+        }
+        return retransmit;
+    }
+
+    /**
+     * Forgets every address and drops every pending packet, without counting them.
+     */
+    void clear() {
+        pending.clear();
+        cache.clear();
+        unresolved.clear();
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long droppedQueueFull() {
+        return droppedQueueFull.sum();
+    }
+
+    long droppedTooManyDestinations() {
+        return droppedTooManyDestinations.sum();
+    }
+
+    long droppedUnresolved() {
+        return droppedUnresolved.sum();
+    }
+}
@@ -1,6 +1,11 @@
 package it.polito.onosapp.nat;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.*;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Created by gabriele on 22/07/16.
@@ -13,6 +18,12 @@ public class NatConfiguration {
     private static final String INTERFACES = "interfaces";
     private static final String ADDRESSES = "addresses";
     private static final String PORT_LABELS = "port_labels";
+    private static final String PORTS = "ports";
+
+    private static final int DEFAULT_FIRST_PORT = 10000;
+    private static final int DEFAULT_LAST_PORT = 12000;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
 
     private String privatePortLabel;
     private String publicPortLabel;
@@ -25,6 +36,9 @@ public class NatConfiguration {
     private String privateAddress;
     private String publicAddress;
 
+    private int firstPort;
+    private int lastPort;
+
     public NatConfiguration() throws IOException {
 
         // [port_labels]
@@ -40,6 +54,10 @@ public class NatConfiguration {
         // [addresses]
         privateAddress = iniLoad(ADDRESSES, "private_address");
         publicAddress = iniLoad(ADDRESSES, "public_address");
+
+        // [ports], optional
+        firstPort = Integer.parseInt(iniLoad(PORTS, "first_port", String.valueOf(DEFAULT_FIRST_PORT)));
+        lastPort = Integer.parseInt(iniLoad(PORTS, "last_port", String.valueOf(DEFAULT_LAST_PORT)));
     }
 
     public String getPrivatePortLabel() {
@@ -75,30 +93,62 @@ public class NatConfiguration {
         return publicAddress;
     }
 
+    /**
+     * Returns the public addresses, given as a comma separated list of public_address.
+     *
+     * @return the public addresses
+     */
+    public List<String> getPublicAddresses() {
+        return Arrays.asList(publicAddress.split(","));
+    }
+
+    public int getFirstPort() {
+        return firstPort;
+    }
+
+    public int getLastPort() {
+        return lastPort;
+    }
+
+    private String iniLoad(String section, String key, String defaultValue) throws IOException {
+        String value = iniLookup(section, key);
+        return value != null ? value : defaultValue;
+    }
+
     private String iniLoad(String section, String key) throws IOException {
+        String value = iniLookup(section, key);
+        if (value == null)
+            throw new RuntimeException("Key '" + key + "' not found in section '" + section + "' of configuration file.");
+        return value;
+    }
+
+    // returns null if the section or the key is not in the configuration file
+    private String iniLookup(String section, String key) throws IOException {
 
         ClassLoader classLoader = AppComponent.class.getClassLoader();
         InputStream is = classLoader.getResourceAsStream(CONFIGURATION_FILE);
-        BufferedReader br = new BufferedReader(new InputStreamReader(is));
-        //File file = new File(classLoader.getResource("configuration/orch-config.ini").getFile());
-        //BufferedReader br = new BufferedReader(new FileReader(file));
+        if (is == null)
+            throw new FileNotFoundException("Configuration file '" + CONFIGURATION_FILE + "' not found.");
 
-        String line;
-        do {
-            line = br.readLine();
-        } while (line != null && !line.equals("["+section+"]"));
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(is))) {
+            String line;
+            do {
+                line = br.readLine();
+            } while (line != null && !line.equals("["+section+"]"));
 
-        if (line == null)
-            throw new RuntimeException("Section '" + section + "' not found in configuration file.");
+            if (line == null)
+                return null;
 
-        do {
-            line = br.readLine();
-        } while (line != null && (line.equals("") || (!(line.charAt(0) == '[') && !line.split("=")[0].replaceAll(" ", "").equals(key))));
+            do {
+                line = br.readLine();
+            } while (line != null && (line.equals("") || (!(line.charAt(0) == '[') && !line.split("=")[0].replaceAll(" ", "").equals(key))));
 
-        if (line == null || line.charAt(0) == '[')
-            throw new RuntimeException("Key '" + key + "' not found in section '" + section + "' of configuration file.");
+            if (line == null || line.charAt(0) == '[')
+                return null;
 
-        System.out.println("Found line: " + line);
-        return line.split("=")[1].replaceAll(" ", "");
+            log.debug("Found line: {}", line);
+            String[] fields = line.split("=", 2);
+            return fields.length < 2 ? "" : fields[1].replaceAll(" ", "");
+        }
     }
 }
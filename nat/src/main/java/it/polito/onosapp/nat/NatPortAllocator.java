@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package it.polito.onosapp.nat;
+
+import org.onlab.packet.Ip4Address;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Allocator of the public (address, port) pairs of the NAT.
+ *
+ * Each pair is a slot number: the index of the public address times the size
+ * of the port range, plus the offset of the port in the range. Free slots are
+ * kept in a stack, so that allocation and release are O(1) whatever the number
+ * of slots in use, and a bitmap guards against double releases. The stack is
+ * shuffled at creation and a released slot is swapped into a random position,
+ * so that public ports are not predictable, not even from the ports just freed.
+ */
+final class NatPortAllocator {
+
+    static final int NO_SLOT = -1;
+
+    private final List<Ip4Address> addresses;
+    private final int firstPort;
+    private final int rangeSize;
+
+    // guarded by this
+    private final int[] free;
+    private int freeCount;
+    private final BitSet allocated;
+
+    /**
+     * Creates an allocator.
+     *
+     * @param addresses the public addresses
+     * @param firstPort first public port
+     * @param lastPort last public port, included
+     */
+    NatPortAllocator(List<Ip4Address> addresses, int firstPort, int lastPort) {
+        if (addresses.isEmpty())
+            throw new IllegalArgumentException("At least one public address is required");
+        if (firstPort < 1 || lastPort > 65535 || firstPort > lastPort)
+            throw new IllegalArgumentException("Invalid port range " + firstPort + "-" + lastPort);
+        this.addresses = new ArrayList<>(addresses);
+        this.firstPort = firstPort;
+        this.rangeSize = lastPort - firstPort + 1;
+
+        int capacity = addresses.size() * rangeSize;
+        this.free = new int[capacity];
+        this.allocated = new BitSet(capacity);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < capacity; i++) {
+            int j = random.nextInt(i + 1);
+            free[i] = free[j];
+            free[j] = i;
+        }
+        this.freeCount = capacity;
+    }
+
+    /**
+     * Takes a free slot.
+     *
+     * @return the slot, NO_SLOT if every public port is in use
+     */
+    synchronized int allocate() {
+        if (freeCount == 0)
+            return NO_SLOT;
+        int slot = free[--freeCount];
+        allocated.set(slot);
+        return slot;
+    }
+
+    /**
+     * Gives a slot back.
+     *
+     * @param slot the slot
+     * @return false if the slot was not allocated
+     */
+    synchronized boolean release(int slot) {
+        if (slot < 0 || slot >= free.length || !allocated.get(slot))
+            return false;
+        allocated.clear(slot);
+        int position = ThreadLocalRandom.current().nextInt(freeCount + 1);
+        free[freeCount++] = free[position];
+        free[position] = slot;
+        return true;
+    }
+
+    /**
+     * Returns the slot of a public (address, port) pair.
+     *
+     * @param address the public address
+     * @param port the public port
+     * @return the slot, NO_SLOT if the pair is not managed by this allocator
+     */
+    int slot(Ip4Address address, int port) {
+        int index = addresses.indexOf(address);
+        if (index < 0 || port < firstPort || port >= firstPort + rangeSize)
+            return NO_SLOT;
+        return index * rangeSize + port - firstPort;
+    }
+
+    Ip4Address address(int slot) {
+        return addresses.get(slot / rangeSize);
+    }
+
+    int port(int slot) {
+        return firstPort + slot % rangeSize;
+    }
+
+    List<Ip4Address> addresses() {
+        return addresses;
+    }
+
+    int capacity() {
+        return free.length;
+    }
+
+    synchronized int available() {
+        return freeCount;
+    }
+}
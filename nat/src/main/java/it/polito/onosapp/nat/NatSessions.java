@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package it.polito.onosapp.nat;
+
+import java.util.Arrays;
+
+/**
+ * Lifecycle of the NAT sessions, i.e. of the translations of a {@link NatTranslationTable}.
+ *
+ * A session holds its translation while some of its NAT rules are installed.
+ * A private endpoint talking to several destinations has an incoming and an
+ * outcoming rule per destination, so the session counts its installed rules:
+ * when they have all been removed from the devices (usually by their idle
+ * timeout) the translation and its public port are freed.
+ * Each session also has a deadline in a timing wheel, as a backstop for the
+ * rule removals that are never notified and for the rules counted twice
+ * because they were installed again: expired sessions are handed back to the
+ * caller, which counts their rules on the devices and either renews or
+ * releases them.
+ * A removed rule is only counted against the session whose translation it
+ * applies, so that the late removals of the rules of an earlier translation
+ * of the same slot, e.g. from before the sessions were cleared, are ignored.
+ */
+final class NatSessions {
+
+    private static final int RULES_PER_DESTINATION = 2;
+
+    private static final int WHEEL_SIZE = 4096;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int INITIAL_BUCKET_SIZE = 8;
+    private static final int[] NONE = new int[0];
+
+    private final NatTranslationTable translations;
+    private final long tickMillis;
+
+    // guarded by this
+    private final int[] rules;
+    private final long[] deadlines;
+    private final int[][] buckets = new int[WHEEL_SIZE][];
+    private final int[] bucketSizes = new int[WHEEL_SIZE];
+    private long currentTick;
+
+    /**
+     * Creates the sessions of a translation table.
+     *
+     * @param translations the translation table
+     * @param tickMillis resolution of the deadlines
+     * @param nowMillis current time
+     */
+    NatSessions(NatTranslationTable translations, long tickMillis, long nowMillis) {
+        this.translations = translations;
+        this.tickMillis = tickMillis;
+        int capacity = translations.allocator().capacity();
+        this.rules = new int[capacity];
+        this.deadlines = new long[capacity];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    NatTranslationTable translations() {
+        return translations;
+    }
+
+    /**
+     * Opens the session of a private endpoint, or renews it if it exists,
+     * once the incoming and outcoming NAT rules towards one destination are
+     * being installed.
+     *
+     * @param key the private endpoint key
+     * @param deadlineMillis time the rules are checked at if they are not removed before
+     * @return the public slot, NatPortAllocator.NO_SLOT if every public port is in use
+     */
+    synchronized int open(long key, long deadlineMillis) {
+        int slot = translations.translate(key);
+        if (slot != NatPortAllocator.NO_SLOT) {
+            rules[slot] += RULES_PER_DESTINATION;
+            schedule(slot, deadlineMillis);
+        }
+        return slot;
+    }
+
+    /**
+     * Records the removal of a NAT rule, closing the session when it has no rule left.
+     * The removal is ignored if the rule translates an endpoint the slot is no longer
+     * translated to.
+     *
+     * @param key the private endpoint key the rule translates to or from
+     * @param slot the public slot the rule translates to or from
+     * @return true if the session has been closed
+     */
+    synchronized boolean ruleRemoved(long key, int slot) {
+        if (slot < 0 || slot >= rules.length || rules[slot] == 0 || translations.privateKey(slot) != key)
+            return false;
+        if (--rules[slot] != 0)
+            return false;
+        close(slot);
+        return true;
+    }
+
+    /**
+     * Returns the sessions whose deadline has passed. They stay open until
+     * they are renewed or released.
+     *
+     * @param nowMillis current time
+     * @return the public slots of the expired sessions
+     */
+    synchronized int[] expired(long nowMillis) {
+        long tick = nowMillis / tickMillis;
+        if (tick <= currentTick)
+            return NONE;
+        int[] due = NONE;
+        int dueCount = 0;
+        long steps = Math.min(tick - currentTick, WHEEL_SIZE);
+        for (long step = 1; step <= steps; step++) {
+            int bucket = (int) ((currentTick + step) & WHEEL_MASK);
+            int[] entries = buckets[bucket];
+            int kept = 0;
+            for (int i = 0; i < bucketSizes[bucket]; i++) {
+                int slot = entries[i];
+                long deadline = deadlines[slot];
+                if (deadline == 0)
+                    continue;
+                if (deadline <= tick) {
+                    // a slot is due once, its duplicate entries are dropped
+                    deadlines[slot] = 0;
+                    if (dueCount == due.length)
+                        due = Arrays.copyOf(due, Math.max(INITIAL_BUCKET_SIZE, dueCount * 2));
+                    due[dueCount++] = slot;
+                } else if ((deadline & WHEEL_MASK) == bucket) {
+                    // due in a later turn of the wheel
+                    entries[kept++] = slot;
+                }
+            }
+            bucketSizes[bucket] = kept;
+        }
+        currentTick = tick;
+        return Arrays.copyOf(due, dueCount);
+    }
+
+    /**
+     * Gives an expired session the number of rules found on the devices and a
+     * new deadline, unless it has been renewed or closed meanwhile.
+     *
+     * @param slot the public slot
+     * @param installedRules number of NAT rules of the session found on the devices, at least one
+     * @param deadlineMillis new deadline
+     */
+    synchronized void renew(int slot, int installedRules, long deadlineMillis) {
+        if (deadlines[slot] == 0 && rules[slot] != 0) {
+            rules[slot] = installedRules;
+            schedule(slot, deadlineMillis);
+        }
+    }
+
+    /**
+     * Closes an expired session, unless it has been renewed meanwhile.
+     *
+     * @param slot the public slot
+     * @return true if the session has been closed
+     */
+    synchronized boolean release(int slot) {
+        if (deadlines[slot] != 0 || rules[slot] == 0)
+            return false;
+        close(slot);
+        return true;
+    }
+
+    /**
+     * Closes every session.
+     */
+    synchronized void clear() {
+        translations.clear();
+        Arrays.fill(rules, 0);
+        Arrays.fill(deadlines, 0);
+        Arrays.fill(bucketSizes, 0);
+    }
+
+    synchronized int size() {
+        return translations.size();
+    }
+
+    private void close(int slot) {
+        rules[slot] = 0;
+        deadlines[slot] = 0;
+        translations.remove(slot);
+    }
+
+    // the previous entry of a renewed slot stays in its bucket until visited
+    private void schedule(int slot, long deadlineMillis) {
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        deadlines[slot] = tick;
+        int bucket = (int) (tick & WHEEL_MASK);
+        int[] entries = buckets[bucket];
+        if (entries == null)
+            entries = buckets[bucket] = new int[INITIAL_BUCKET_SIZE];
+        else if (bucketSizes[bucket] == entries.length)
+            entries = buckets[bucket] = Arrays.copyOf(entries, entries.length * 2);
+        entries[bucketSizes[bucket]++] = slot;
+    }
+}
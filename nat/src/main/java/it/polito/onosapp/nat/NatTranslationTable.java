@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package it.polito.onosapp.nat;
+
+import org.onlab.packet.Ip4Address;
+
+import java.util.Arrays;
+
+/**
+ * Translation table of the NAT: private (address, port, protocol) endpoints to
+ * public (address, port) slots of a {@link NatPortAllocator}, and back.
+ *
+ * Private endpoints are packed into a long (32 bits of address, 16 bits of port
+ * and 8 bits of protocol) and kept in an open addressing hash table of
+ * primitives, so that a lookup allocates nothing. The reverse direction is an
+ * array indexed by slot.
+ */
+final class NatTranslationTable {
+
+    private static final long EMPTY = -1L;
+    static final int INITIAL_CAPACITY = 1024;
+
+    private final NatPortAllocator allocator;
+
+    // guarded by this
+    private long[] keys;
+    private int[] slots;
+    private int size;
+    private final long[] slotKeys;
+
+    NatTranslationTable(NatPortAllocator allocator) {
+        this.allocator = allocator;
+        this.keys = new long[INITIAL_CAPACITY];
+        this.slots = new int[INITIAL_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+        this.slotKeys = new long[allocator.capacity()];
+        Arrays.fill(slotKeys, EMPTY);
+    }
+
+    /**
+     * Packs a private endpoint into a key.
+     *
+     * @param address the private address
+     * @param port the private port
+     * @param protocol the IP protocol
+     * @return the key
+     */
+    static long key(Ip4Address address, int port, byte protocol) {
+        return (address.toInt() & 0xFFFFFFFFL) << 24 | (port & 0xFFFF) << 8 | (protocol & 0xFF);
+    }
+
+    static Ip4Address keyAddress(long key) {
+        return Ip4Address.valueOf((int) (key >>> 24));
+    }
+
+    static int keyPort(long key) {
+        return (int) (key >>> 8) & 0xFFFF;
+    }
+
+    static byte keyProtocol(long key) {
+        return (byte) key;
+    }
+
+    NatPortAllocator allocator() {
+        return allocator;
+    }
+
+    /**
+     * Returns the public slot of a private endpoint, allocating one if the
+     * endpoint has no translation yet.
+     *
+     * @param key the private endpoint key
+     * @return the slot, NatPortAllocator.NO_SLOT if every public port is in use
+     */
+    synchronized int translate(long key) {
+        int index = indexOf(key);
+        if (keys[index] == key)
+            return slots[index];
+        int slot = allocator.allocate();
+        if (slot == NatPortAllocator.NO_SLOT)
+            return slot;
+        keys[index] = key;
+        slots[index] = slot;
+        slotKeys[slot] = key;
+        if (++size * 2 > keys.length)
+            grow();
+        return slot;
+    }
+
+    /**
+     * Returns the public slot of a private endpoint, without allocating.
+     *
+     * @param key the private endpoint key
+     * @return the slot, NatPortAllocator.NO_SLOT if the endpoint has no translation
+     */
+    synchronized int find(long key) {
+        int index = indexOf(key);
+        return keys[index] == key ? slots[index] : NatPortAllocator.NO_SLOT;
+    }
+
+    /**
+     * Returns the private endpoint translated to a public slot.
+     *
+     * @param slot the public slot
+     * @return the private endpoint key, -1 if the slot is not in use
+     */
+    synchronized long privateKey(int slot) {
+        return slot < 0 || slot >= slotKeys.length ? EMPTY : slotKeys[slot];
+    }
+
+    /**
+     * Removes the translation of a public slot and frees the slot.
+     *
+     * @param slot the public slot
+     * @return false if the slot had no translation
+     */
+    synchronized boolean remove(int slot) {
+        long key = privateKey(slot);
+        if (key == EMPTY)
+            return false;
+        slotKeys[slot] = EMPTY;
+        int index = indexOf(key);
+        keys[index] = EMPTY;
+        size--;
+        // backward shift deletion: moves up the entries that probed past the removed one
+        int mask = keys.length - 1;
+        int next = (index + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                keys[index] = keys[next];
+                slots[index] = slots[next];
+                keys[next] = EMPTY;
+                index = next;
+            }
+            next = (next + 1) & mask;
+        }
+        allocator.release(slot);
+        return true;
+    }
+
+    /**
+     * Removes every translation and frees their slots.
+     */
+    synchronized void clear() {
+        for (int slot = 0; slot < slotKeys.length; slot++) {
+            if (slotKeys[slot] != EMPTY) {
+                slotKeys[slot] = EMPTY;
+                allocator.release(slot);
+            }
+        }
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // index of the key, or of the empty bucket where it would be inserted
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[oldKeys.length * 2];
+        slots = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                slots[index] = oldSlots[i];
+            }
+        }
+    }
+
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
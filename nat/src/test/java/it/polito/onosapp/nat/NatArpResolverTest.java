@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package it.polito.onosapp.nat;
+
+import org.junit.Test;
+
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.MacAddress;
+import org.onosproject.net.packet.DefaultPacketContext;
+import org.onosproject.net.packet.PacketContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the ARP cache of the NAT.
+ */
+public class NatArpResolverTest {
+
+    private static final Ip4Address DESTINATION = Ip4Address.valueOf("203.0.113.20");
+    private static final Ip4Address OTHER = Ip4Address.valueOf("203.0.113.21");
+    private static final MacAddress MAC = MacAddress.valueOf("00:00:00:00:00:20");
+    private static final long START = 1000000;
+    private static final long TICK = 50;
+    private static final int RETRANSMIT = 250;
+    private static final int ATTEMPTS = 4;
+    private static final int TTL = 60000;
+    private static final int UNRESOLVED_TTL = 1000;
+
+    private final NatArpResolver resolver = new NatArpResolver(2, 3, RETRANSMIT, ATTEMPTS, TTL, UNRESOLVED_TTL);
+
+    private static PacketContext packet() {
+        return new DefaultPacketContext(START, null, null, false) {
+            @Override
+            public void send() {
+            }
+        };
+    }
+
+    // runs the ticker from one time to another, returning the times requests are retransmitted at
+    private long[] tick(long fromMillis, long toMillis) {
+        long[] retransmits = new long[0];
+        for (long now = fromMillis; now <= toMillis; now += TICK) {
+            if (resolver.expire(now).contains(DESTINATION)) {
+                retransmits = Arrays.copyOf(retransmits, retransmits.length + 1);
+                retransmits[retransmits.length - 1] = now - START;
+            }
+        }
+        return retransmits;
+    }
+
+    /**
+     * Tests that the packets queued for a destination are handed back in order once it answers.
+     */
+    @Test
+    public void enqueueThenLearn() {
+        PacketContext first = packet();
+        PacketContext second = packet();
+        assertEquals(NatArpResolver.Admission.FIRST, resolver.enqueue(DESTINATION, first, START));
+        assertEquals(NatArpResolver.Admission.QUEUED, resolver.enqueue(DESTINATION, second, START + 10));
+        assertNull(resolver.lookup(DESTINATION, START + 10));
+
+        assertEquals(Arrays.asList(first, second), resolver.learn(DESTINATION, MAC, START + 20));
+        assertEquals(MAC, resolver.lookup(DESTINATION, START + 20));
+        assertEquals(NatArpResolver.Admission.RESOLVED, resolver.enqueue(DESTINATION, packet(), START + 30));
+        assertEquals(1, resolver.requests());
+    }
+
+    /**
+     * Tests that a packet arriving after the answer is not queued, and that an answer
+     * nobody waits for hands back nothing.
+     */
+    @Test
+    public void learnThenEnqueue() {
+        assertEquals(Collections.emptyList(), resolver.learn(DESTINATION, MAC, START));
+        assertEquals(NatArpResolver.Admission.RESOLVED, resolver.enqueue(DESTINATION, packet(), START + 10));
+        assertEquals(Collections.emptyList(), resolver.learn(DESTINATION, MAC, START + 20));
+        assertEquals(0, resolver.requests());
+    }
+
+    /**
+     * Tests that requests are retransmitted with backoff, and that the packets of a destination
+     * that does not answer are dropped as unresolved when it is given up.
+     */
+    @Test
+    public void backoffThenUnresolved() {
+        resolver.enqueue(DESTINATION, packet(), START);
+        resolver.enqueue(DESTINATION, packet(), START + 3000);
+        long giveUp = RETRANSMIT * ((1 << ATTEMPTS) - 1);
+
+        assertEquals("[250, 750, 1750]", Arrays.toString(tick(START, START + giveUp - TICK)));
+        assertEquals(0, resolver.droppedUnresolved());
+        assertEquals(0, tick(START + giveUp, START + giveUp).length);
+        assertEquals(2, resolver.droppedUnresolved());
+        assertEquals(ATTEMPTS, resolver.requests());
+    }
+
+    /**
+     * Tests that a destination given up is not asked again for a while, its packets being
+     * dropped as unresolved, and that an answer ends this at once.
+     */
+    @Test
+    public void unresolvedDestination() {
+        resolver.enqueue(DESTINATION, packet(), START);
+        long giveUp = START + RETRANSMIT * ((1 << ATTEMPTS) - 1);
+        tick(START, giveUp);
+        assertEquals(1, resolver.droppedUnresolved());
+
+        assertEquals(NatArpResolver.Admission.DROPPED, resolver.enqueue(DESTINATION, packet(), giveUp + 10));
+        assertEquals(2, resolver.droppedUnresolved());
+        assertEquals(ATTEMPTS, resolver.requests());
+
+        resolver.expire(giveUp + UNRESOLVED_TTL);
+        assertEquals(NatArpResolver.Admission.FIRST, resolver.enqueue(DESTINATION, packet(), giveUp + UNRESOLVED_TTL));
+        assertEquals(ATTEMPTS + 1, resolver.requests());
+
+        resolver.learn(DESTINATION, MAC, giveUp + UNRESOLVED_TTL + 10);
+        assertEquals(MAC, resolver.lookup(DESTINATION, giveUp + UNRESOLVED_TTL + 10));
+    }
+
+    /**
+     * Tests the drops of a full queue and of too many destinations.
+     */
+    @Test
+    public void bounds() {
+        for (int i = 0; i < 3; i++) {
+            resolver.enqueue(DESTINATION, packet(), START);
+        }
+        assertEquals(NatArpResolver.Admission.DROPPED, resolver.enqueue(DESTINATION, packet(), START));
+        assertEquals(1, resolver.droppedQueueFull());
+
+        resolver.enqueue(OTHER, packet(), START);
+        assertEquals(NatArpResolver.Admission.DROPPED,
+                     resolver.enqueue(Ip4Address.valueOf("203.0.113.22"), packet(), START));
+        assertEquals(1, resolver.droppedTooManyDestinations());
+        assertEquals(0, resolver.droppedUnresolved());
+    }
+
+    /**
+     * Tests that a learned address is refreshed once, after three quarters of its lifetime,
+     * and forgotten when it expires.
+     */
+    @Test
+    public void refreshAndExpiry() {
+        resolver.learn(DESTINATION, MAC, START);
+        assertFalse(resolver.refreshDue(DESTINATION, START + TTL / 4 * 3 - 1));
+        assertTrue(resolver.refreshDue(DESTINATION, START + TTL / 4 * 3));
+        assertFalse(resolver.refreshDue(DESTINATION, START + TTL / 4 * 3 + 1));
+        assertEquals(1, resolver.requests());
+
+        assertEquals(MAC, resolver.lookup(DESTINATION, START + TTL - 1));
+        resolver.expire(START + TTL);
+        assertNull(resolver.lookup(DESTINATION, START + TTL));
+    }
+}
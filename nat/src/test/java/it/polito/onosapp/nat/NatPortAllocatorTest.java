@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package it.polito.onosapp.nat;
+
+import org.junit.Test;
+
+import org.onlab.packet.Ip4Address;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the allocator of the public addresses and ports.
+ */
+public class NatPortAllocatorTest {
+
+    private static final Ip4Address PUBLIC1 = Ip4Address.valueOf("203.0.113.1");
+    private static final Ip4Address PUBLIC2 = Ip4Address.valueOf("203.0.113.2");
+    private static final List<Ip4Address> ADDRESSES = Arrays.asList(PUBLIC1, PUBLIC2);
+
+    /**
+     * Tests that every (address, port) pair is handed out once before the range is exhausted.
+     */
+    @Test
+    public void exhaustion() {
+        NatPortAllocator allocator = new NatPortAllocator(ADDRESSES, 1000, 1009);
+        assertEquals(20, allocator.capacity());
+        Set<Integer> slots = new HashSet<>();
+        for (int i = 0; i < allocator.capacity(); i++) {
+            int slot = allocator.allocate();
+            assertTrue(slots.add(slot));
+            assertEquals(slot, allocator.slot(allocator.address(slot), allocator.port(slot)));
+        }
+        assertEquals(0, allocator.available());
+        assertEquals(NatPortAllocator.NO_SLOT, allocator.allocate());
+
+        assertTrue(allocator.release(7));
+        assertEquals(7, allocator.allocate());
+        assertEquals(NatPortAllocator.NO_SLOT, allocator.allocate());
+    }
+
+    /**
+     * Tests that a slot is released once, and only if it was allocated.
+     */
+    @Test
+    public void doubleRelease() {
+        NatPortAllocator allocator = new NatPortAllocator(ADDRESSES, 1000, 1009);
+        int slot = allocator.allocate();
+        assertTrue(allocator.release(slot));
+        assertFalse(allocator.release(slot));
+        assertFalse(allocator.release(NatPortAllocator.NO_SLOT));
+        assertFalse(allocator.release(allocator.capacity()));
+        assertEquals(allocator.capacity(), allocator.available());
+
+        // the slot released twice is handed out once
+        Set<Integer> slots = new HashSet<>();
+        for (int i = 0; i < allocator.capacity(); i++) {
+            assertTrue(slots.add(allocator.allocate()));
+        }
+    }
+
+    /**
+     * Tests the mapping between slots and public (address, port) pairs.
+     */
+    @Test
+    public void slots() {
+        NatPortAllocator allocator = new NatPortAllocator(ADDRESSES, 1000, 1009);
+        assertEquals(0, allocator.slot(PUBLIC1, 1000));
+        assertEquals(19, allocator.slot(PUBLIC2, 1009));
+        assertEquals(PUBLIC2, allocator.address(10));
+        assertEquals(1000, allocator.port(10));
+        assertEquals(NatPortAllocator.NO_SLOT, allocator.slot(PUBLIC1, 999));
+        assertEquals(NatPortAllocator.NO_SLOT, allocator.slot(PUBLIC1, 1010));
+        assertEquals(NatPortAllocator.NO_SLOT, allocator.slot(Ip4Address.valueOf("203.0.113.3"), 1000));
+    }
+
+    /**
+     * Tests that the slot released last is not always the next one handed out.
+     */
+    @Test
+    public void releasedSlotNotPredictable() {
+        NatPortAllocator allocator = new NatPortAllocator(ADDRESSES, 1, 5000);
+        int reused = 0;
+        for (int i = 0; i < 100; i++) {
+            int slot = allocator.allocate();
+            allocator.release(slot);
+            int next = allocator.allocate();
+            if (next == slot)
+                reused++;
+            allocator.release(next);
+        }
+        // one chance in ten thousand each time
+        assertTrue(reused < 10);
+    }
+
+    /**
+     * Tests that invalid ranges are refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRange() {
+        new NatPortAllocator(ADDRESSES, 2000, 1999);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package it.polito.onosapp.nat;
+
+import org.junit.Test;
+
+import org.onlab.packet.IPv4;
+import org.onlab.packet.Ip4Address;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the lifecycle of the NAT sessions.
+ */
+public class NatSessionsTest {
+
+    private static final Ip4Address PRIVATE = Ip4Address.valueOf("192.168.0.10");
+    private static final long TICK = 100;
+    private static final long START = 1000000;
+    private static final long TIMEOUT = 10000;
+
+    private final NatPortAllocator allocator =
+            new NatPortAllocator(Collections.singletonList(Ip4Address.valueOf("203.0.113.1")), 1, 65535);
+    private final NatSessions sessions = new NatSessions(new NatTranslationTable(allocator), TICK, START);
+
+    private static long key(int port) {
+        return NatTranslationTable.key(PRIVATE, port, IPv4.PROTOCOL_TCP);
+    }
+
+    /**
+     * Tests that a session is closed once both its rules have been removed.
+     */
+    @Test
+    public void closedWhenRulesRemoved() {
+        int slot = sessions.open(key(40000), START + TIMEOUT);
+        assertFalse(sessions.ruleRemoved(key(40000), slot));
+        assertEquals(1, sessions.size());
+        assertTrue(sessions.ruleRemoved(key(40000), slot));
+        assertEquals(0, sessions.size());
+        assertEquals(allocator.capacity(), allocator.available());
+
+        // a late removal of a closed session is ignored
+        assertFalse(sessions.ruleRemoved(key(40000), slot));
+    }
+
+    /**
+     * Tests that a session towards several destinations lasts until the rules of every
+     * destination have been removed.
+     */
+    @Test
+    public void severalDestinations() {
+        int slot = sessions.open(key(40000), START + TIMEOUT);
+        assertEquals(slot, sessions.open(key(40000), START + TIMEOUT));
+        assertEquals(slot, sessions.open(key(40000), START + TIMEOUT));
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(sessions.ruleRemoved(key(40000), slot));
+        }
+        assertEquals(1, sessions.size());
+        assertTrue(sessions.ruleRemoved(key(40000), slot));
+        assertEquals(0, sessions.size());
+    }
+
+    /**
+     * Tests that the late removals of the rules of an earlier translation of a slot, or of
+     * an endpoint, do not count against its current session.
+     */
+    @Test
+    public void earlierTranslation() {
+        NatPortAllocator single = new NatPortAllocator(Collections.singletonList(Ip4Address.valueOf("203.0.113.1")), 1, 1);
+        NatSessions reused = new NatSessions(new NatTranslationTable(single), TICK, START);
+        int slot = reused.open(key(40000), START + TIMEOUT);
+        reused.clear();
+        assertEquals(slot, reused.open(key(40001), START + TIMEOUT));
+
+        assertFalse(reused.ruleRemoved(key(40000), slot));
+        assertFalse(reused.ruleRemoved(key(40000), slot));
+        assertFalse(reused.ruleRemoved(key(40001), slot + 1));
+        assertEquals(1, reused.size());
+        assertFalse(reused.ruleRemoved(key(40001), slot));
+        assertTrue(reused.ruleRemoved(key(40001), slot));
+        assertEquals(0, reused.size());
+    }
+
+    /**
+     * Tests that sessions expire at their deadline, and only once.
+     */
+    @Test
+    public void expiry() {
+        int first = sessions.open(key(40000), START + TIMEOUT);
+        int second = sessions.open(key(40001), START + 2 * TIMEOUT);
+        assertEquals(0, sessions.expired(START + TIMEOUT - TICK).length);
+        assertArrayEquals(new int[]{first}, sessions.expired(START + TIMEOUT));
+        assertEquals(0, sessions.expired(START + TIMEOUT + TICK).length);
+        assertArrayEquals(new int[]{second}, sessions.expired(START + 3 * TIMEOUT));
+    }
+
+    /**
+     * Tests that a renewed session expires at its last deadline only.
+     */
+    @Test
+    public void renewedBeforeExpiry() {
+        int slot = sessions.open(key(40000), START + TIMEOUT);
+        sessions.open(key(40000), START + 2 * TIMEOUT);
+        assertEquals(0, sessions.expired(START + TIMEOUT).length);
+        assertArrayEquals(new int[]{slot}, sessions.expired(START + 2 * TIMEOUT));
+    }
+
+    /**
+     * Tests that an expired session takes the number of rules found on the devices.
+     */
+    @Test
+    public void renewAfterExpiry() {
+        int slot = sessions.open(key(40000), START + TIMEOUT);
+        sessions.open(key(40000), START + TIMEOUT);
+        assertArrayEquals(new int[]{slot}, sessions.expired(START + TIMEOUT));
+
+        // only one destination is left on the devices
+        sessions.renew(slot, 2, START + 2 * TIMEOUT);
+        assertFalse(sessions.release(slot));
+        assertFalse(sessions.ruleRemoved(key(40000), slot));
+        assertTrue(sessions.ruleRemoved(key(40000), slot));
+        assertEquals(0, sessions.size());
+    }
+
+    /**
+     * Tests that an expired session is released, unless it has been opened again meanwhile.
+     */
+    @Test
+    public void releaseAfterExpiry() {
+        int first = sessions.open(key(40000), START + TIMEOUT);
+        int second = sessions.open(key(40001), START + TIMEOUT);
+        assertEquals(2, sessions.expired(START + TIMEOUT).length);
+
+        sessions.open(key(40001), START + 2 * TIMEOUT);
+        assertTrue(sessions.release(first));
+        assertFalse(sessions.release(first));
+        assertFalse(sessions.release(second));
+        assertEquals(1, sessions.size());
+        assertEquals(NatPortAllocator.NO_SLOT, sessions.translations().find(key(40000)));
+    }
+
+    /**
+     * Tests that clearing the sessions frees every slot and forgets their deadlines.
+     */
+    @Test
+    public void clear() {
+        for (int port = 1; port <= 100; port++) {
+            sessions.open(key(port), START + TIMEOUT);
+        }
+        sessions.clear();
+        assertEquals(0, sessions.size());
+        assertEquals(allocator.capacity(), allocator.available());
+        assertEquals(0, sessions.expired(START + TIMEOUT).length);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2016-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package it.polito.onosapp.nat;
+
+import org.junit.Test;
+
+import org.onlab.packet.IPv4;
+import org.onlab.packet.Ip4Address;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the translation table of the NAT.
+ */
+public class NatTranslationTableTest {
+
+    private static final Ip4Address PRIVATE = Ip4Address.valueOf("192.168.0.10");
+    private static final int LAST_BUCKET = NatTranslationTable.INITIAL_CAPACITY - 1;
+
+    private final NatPortAllocator allocator =
+            new NatPortAllocator(Collections.singletonList(Ip4Address.valueOf("203.0.113.1")), 1, 65535);
+    private final NatTranslationTable table = new NatTranslationTable(allocator);
+
+    private static long key(int port) {
+        return NatTranslationTable.key(PRIVATE, port, IPv4.PROTOCOL_TCP);
+    }
+
+    // private endpoint keys whose home bucket is the given one in a table of the initial capacity
+    private static List<Long> keysInBucket(int bucket, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (int port = 1; keys.size() < count; port++) {
+            if ((NatTranslationTable.hash(key(port)) & LAST_BUCKET) == bucket)
+                keys.add(key(port));
+        }
+        return keys;
+    }
+
+    /**
+     * Tests that a private endpoint keeps its public slot and that the slot leads back to it.
+     */
+    @Test
+    public void translate() {
+        long key = key(40000);
+        int slot = table.translate(key);
+        assertEquals(slot, table.translate(key));
+        assertEquals(slot, table.find(key));
+        assertEquals(key, table.privateKey(slot));
+        assertEquals(PRIVATE, NatTranslationTable.keyAddress(key));
+        assertEquals(40000, NatTranslationTable.keyPort(key));
+        assertEquals(IPv4.PROTOCOL_TCP, NatTranslationTable.keyProtocol(key));
+        assertEquals(NatPortAllocator.NO_SLOT, table.find(key(40001)));
+        assertEquals(1, table.size());
+    }
+
+    /**
+     * Tests that removing one of several colliding keys keeps the others reachable.
+     */
+    @Test
+    public void removeCollidingKeys() {
+        List<Long> keys = keysInBucket(7, 4);
+        List<Integer> slots = new ArrayList<>();
+        for (long key : keys) {
+            slots.add(table.translate(key));
+        }
+
+        assertTrue(table.remove(slots.get(1)));
+        assertFalse(table.remove(slots.get(1)));
+        assertEquals(NatPortAllocator.NO_SLOT, table.find(keys.get(1)));
+        for (int i : new int[]{0, 2, 3}) {
+            assertEquals((int) slots.get(i), table.find(keys.get(i)));
+        }
+        assertEquals(3, table.size());
+    }
+
+    /**
+     * Tests that removing keys whose probe sequence wraps around the end of the table
+     * keeps the others reachable.
+     */
+    @Test
+    public void removeAcrossWraparound() {
+        List<Long> last = keysInBucket(LAST_BUCKET, 3);
+        List<Long> first = keysInBucket(0, 1);
+        Map<Long, Integer> slots = new HashMap<>();
+        // the keys of the last bucket spill over buckets 0 and 1, pushing the key of bucket 0 to 2
+        for (long key : last) {
+            slots.put(key, table.translate(key));
+        }
+        slots.put(first.get(0), table.translate(first.get(0)));
+
+        assertTrue(table.remove(slots.remove(last.get(0))));
+        slots.forEach((key, slot) -> assertEquals((int) slot, table.find(key)));
+        assertTrue(table.remove(slots.remove(last.get(2))));
+        slots.forEach((key, slot) -> assertEquals((int) slot, table.find(key)));
+        assertEquals(NatPortAllocator.NO_SLOT, table.find(last.get(0)));
+        assertEquals(NatPortAllocator.NO_SLOT, table.find(last.get(2)));
+    }
+
+    /**
+     * Tests that growing the table keeps every translation, and that random removals afterwards
+     * keep the others.
+     */
+    @Test
+    public void growAndRemove() {
+        Map<Long, Integer> slots = new HashMap<>();
+        for (int port = 1; port <= 10 * NatTranslationTable.INITIAL_CAPACITY; port++) {
+            slots.put(key(port), table.translate(key(port)));
+        }
+        slots.forEach((key, slot) -> assertEquals((int) slot, table.find(key)));
+
+        List<Long> keys = new ArrayList<>(slots.keySet());
+        Collections.shuffle(keys, new Random(1));
+        for (long key : keys.subList(0, keys.size() / 2)) {
+            assertTrue(table.remove(slots.remove(key)));
+        }
+        slots.forEach((key, slot) -> assertEquals((int) slot, table.find(key)));
+        assertEquals(slots.size(), table.size());
+        assertEquals(allocator.capacity() - slots.size(), allocator.available());
+    }
+
+    /**
+     * Tests that no translation is made once every public port is in use.
+     */
+    @Test
+    public void exhausted() {
+        NatTranslationTable small = new NatTranslationTable(
+                new NatPortAllocator(Collections.singletonList(Ip4Address.valueOf("203.0.113.1")), 1000, 1001));
+        small.translate(key(1));
+        small.translate(key(2));
+        assertEquals(NatPortAllocator.NO_SLOT, small.translate(key(3)));
+        assertEquals(NatPortAllocator.NO_SLOT, small.find(key(3)));
+        assertEquals(2, small.size());
+    }
+
+    /**
+     * Tests that clearing the table frees every slot.
+     */
+    @Test
+    public void clear() {
+        for (int port = 1; port <= 100; port++) {
+            table.translate(key(port));
+        }
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals(allocator.capacity(), allocator.available());
+        assertEquals(NatPortAllocator.NO_SLOT, table.find(key(1)));
+    }
+}
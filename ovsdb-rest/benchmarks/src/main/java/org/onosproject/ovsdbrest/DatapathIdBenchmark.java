@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.Sets;
+import org.onosproject.net.DeviceId;
+import org.onosproject.store.service.AtomicCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of picking the datapath id of a new bridge, as the number of bridge
+ * devices already using ids grows.
+ * <p>
+ * The allocator runs on local primitives, so the figures leave out the
+ * round trips of the distributed counter and free set.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DatapathIdBenchmark {
+
+    private static final long FIRST_ID = 4;
+    private static final int BLOCK_SIZE = 64;
+
+    @Param({"0", "100", "1000", "10000"})
+    private int devices;
+
+    private Set<DeviceId> inUse;
+    private DatapathIdAllocator steady;
+    private DatapathIdAllocator fresh;
+
+    @Setup
+    public void setUp() {
+        inUse = Sets.newHashSet();
+        for (long id = FIRST_ID; id < FIRST_ID + devices; id++) {
+            inUse.add(DeviceId.deviceId(String.format("of:%016x", id)));
+        }
+        steady = allocator();
+        steady.release(steady.allocate(inUse::contains));
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        fresh = allocator();
+    }
+
+    private static DatapathIdAllocator allocator() {
+        return new DatapathIdAllocator(new LocalAtomicCounter(), Sets.newConcurrentHashSet(),
+                                       FIRST_ID, BLOCK_SIZE);
+    }
+
+    /**
+     * Creation and deletion of a bridge once the allocator is warm: the
+     * released id is reused.
+     *
+     * @return the allocated id
+     */
+    @Benchmark
+    public DeviceId allocateAndRelease() {
+        DeviceId dpid = steady.allocate(inUse::contains);
+        steady.release(dpid);
+        return dpid;
+    }
+
+    /**
+     * First creation on an allocator, which skips every id already used by
+     * the existing devices.
+     *
+     * @return the allocated id
+     */
+    @Benchmark
+    public DeviceId firstAllocation() {
+        return fresh.allocate(inUse::contains);
+    }
+
+    private static final class LocalAtomicCounter implements AtomicCounter {
+        private final AtomicLong value = new AtomicLong();
+
+        @Override
+        public String name() {
+            return "local";
+        }
+
+        @Override
+        public Type primitiveType() {
+            return Type.COUNTER;
+        }
+
+        @Override
+        public long incrementAndGet() {
+            return value.incrementAndGet();
+        }
+
+        @Override
+        public long getAndIncrement() {
+            return value.getAndIncrement();
+        }
+
+        @Override
+        public long getAndAdd(long delta) {
+            return value.getAndAdd(delta);
+        }
+
+        @Override
+        public long addAndGet(long delta) {
+            return value.addAndGet(delta);
+        }
+
+        @Override
+        public void set(long value) {
+            this.value.set(value);
+        }
+
+        @Override
+        public boolean compareAndSet(long expectedValue, long updateValue) {
+            return value.compareAndSet(expectedValue, updateValue);
+        }
+
+        @Override
+        public long get() {
+            return value.get();
+        }
+    }
+}
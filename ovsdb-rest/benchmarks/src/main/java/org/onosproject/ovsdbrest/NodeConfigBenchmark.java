@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.onlab.packet.IpAddress;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.DefaultApplicationId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.onosproject.ovsdbrest.OvsdbNodeConfig.OvsdbNode;
+
+/**
+ * Cost of reading the configured ovsdb nodes from the network configuration,
+ * as done on every configuration event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NodeConfigBenchmark {
+
+    private static final ApplicationId APP_ID = new DefaultApplicationId(1, "org.onosproject.ovsdbrest");
+
+    @Param({"10", "100", "1000", "10000"})
+    private int nodes;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private String text;
+    private OvsdbNodeConfig config;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        ArrayNode array = root.putArray("nodes");
+        for (int i = 0; i < nodes; i++) {
+            array.addObject()
+                    .put("ovsdbIp", IpAddress.valueOf(0x0a000000 + i + 1).toString())
+                    .put("ovsdbPort", "6640");
+        }
+        text = mapper.writeValueAsString(root);
+        config = config(root);
+    }
+
+    private OvsdbNodeConfig config(JsonNode json) {
+        OvsdbNodeConfig nodeConfig = new OvsdbNodeConfig();
+        nodeConfig.init(APP_ID, "ovsdbrest", json, mapper, c -> { });
+        return nodeConfig;
+    }
+
+    /**
+     * Builds the nodes from an already parsed configuration.
+     *
+     * @return the nodes
+     */
+    @Benchmark
+    public Set<OvsdbNode> getNodes() {
+        return config.getNodes();
+    }
+
+    /**
+     * Parses the configuration text, then builds the nodes.
+     *
+     * @return the nodes
+     * @throws IOException never, the text is valid
+     */
+    @Benchmark
+    public Set<OvsdbNode> parseAndGetNodes() throws IOException {
+        return config(mapper.readTree(text)).getNodes();
+    }
+}
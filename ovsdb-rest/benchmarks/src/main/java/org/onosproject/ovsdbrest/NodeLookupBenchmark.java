@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.TpPort;
+import org.onosproject.net.DeviceId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.onosproject.ovsdbrest.OvsdbNodeConfig.OvsdbNode;
+
+/**
+ * Cost of resolving the ovsdb node targeted by a request, by IP address,
+ * ovsdb device id or bridge device id, as the number of nodes grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NodeLookupBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int nodes;
+
+    private OvsdbNodeIndex index;
+    private IpAddress[] ips;
+    private String[] ipParams;
+    private DeviceId[] ovsdbIds;
+    private DeviceId[] bridgeIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<OvsdbNode> configured = new ArrayList<>(nodes);
+        ips = new IpAddress[nodes];
+        ipParams = new String[nodes];
+        ovsdbIds = new DeviceId[nodes];
+        bridgeIds = new DeviceId[nodes];
+        for (int i = 0; i < nodes; i++) {
+            ips[i] = IpAddress.valueOf(0x0a000000 + i + 1);
+            ipParams[i] = ips[i].toString();
+            OvsdbNode node = new OvsdbNode(ips[i], TpPort.tpPort(6640));
+            configured.add(node);
+            ovsdbIds[i] = node.ovsdbId();
+            bridgeIds[i] = DeviceId.deviceId(String.format("of:%016x", i + 4));
+        }
+        index = OvsdbNodeIndex.empty().rebuild(configured);
+        for (int i = 0; i < nodes; i++) {
+            index.registerBridge(bridgeIds[i], ips[i]);
+        }
+    }
+
+    private int nextIndex() {
+        next = next + 1 == nodes ? 0 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public OvsdbNode byIp() {
+        return index.byIp(ips[nextIndex()]);
+    }
+
+    @Benchmark
+    public OvsdbNode byOvsdbId() {
+        return index.byOvsdbId(ovsdbIds[nextIndex()]);
+    }
+
+    @Benchmark
+    public OvsdbNode byBridgeId() {
+        return index.byBridgeId(bridgeIds[nextIndex()]);
+    }
+
+    /**
+     * Lookup as done by a REST request, from the ovsdb-ip path parameter.
+     *
+     * @return the node
+     */
+    @Benchmark
+    public OvsdbNode byIpPathParam() {
+        return index.byIp(IpAddress.valueOf(ipParams[nextIndex()]));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import org.onlab.packet.IpAddress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing the path parameters of the REST requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PathParamBenchmark {
+
+    private String ipv4 = "192.168.100.21";
+    private String ipv6 = "2001:db8:85a3::8a2e:370:7334";
+    private String invalidIp = "192.168.100.x";
+    private String tunnelType = "VXLAN";
+
+    @Benchmark
+    public IpAddress ipv4() {
+        return IpAddress.valueOf(ipv4);
+    }
+
+    @Benchmark
+    public IpAddress ipv6() {
+        return IpAddress.valueOf(ipv6);
+    }
+
+    /**
+     * Rejection of a malformed address, which answers 400 to the client.
+     *
+     * @return null
+     */
+    @Benchmark
+    public IpAddress invalidIp() {
+        try {
+            return IpAddress.valueOf(invalidIp);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public OvsdbTunnelType tunnelType() {
+        return OvsdbTunnelType.valueOf(tunnelType);
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onlab.packet.IpAddress;
+import org.onosproject.net.DeviceId;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static org.onosproject.ovsdbrest.OvsdbRestException.OvsdbDeviceException;
+
+/**
+ * In-memory inventory of the bridges and ports of each ovsdb node.
+ * <p>
+ * The inventory of a node is loaded from the device on first access and then
+ * kept current by the bridge manager, which applies its own changes and the
+ * device and ovsdb events it receives. A node is reloaded only after it has
+ * been invalidated, e.g. when its ovsdb session goes down.
+ * </p>
+ * <p>
+ * Loads run outside any lock, so every change of a node bumps its generation,
+ * atomically with the update of the cached inventory. A load is published
+ * only if the generation of its node did not change while it ran; otherwise
+ * it is retried, since its snapshot may miss the changes.
+ * </p>
+ */
+final class BridgeInventoryCache {
+
+    /**
+     * Loads the bridges of an ovsdb node from the device.
+     */
+    interface Loader {
+        /**
+         * Reads the bridges currently defined on a node.
+         *
+         * @param ovsdbIp the ovsdb IP address
+         * @return bridges of the node
+         * @throws OvsdbDeviceException if the node cannot be queried
+         */
+        Collection<CachedBridge> load(IpAddress ovsdbIp) throws OvsdbDeviceException;
+    }
+
+    /**
+     * Cached bridge with the names of its ports.
+     */
+    static final class CachedBridge {
+        private final String name;
+        private final DeviceId deviceId;
+        private final Set<String> ports = Sets.newConcurrentHashSet();
+
+        CachedBridge(String name, DeviceId deviceId, Collection<String> ports) {
+            this.name = name;
+            this.deviceId = deviceId;
+            this.ports.addAll(ports);
+        }
+
+        String name() {
+            return name;
+        }
+
+        DeviceId deviceId() {
+            return deviceId;
+        }
+
+        Set<String> ports() {
+            return ImmutableSet.copyOf(ports);
+        }
+    }
+
+    private static final class NodeInventory {
+        private final ConcurrentMap<String, CachedBridge> bridges = Maps.newConcurrentMap();
+        private final long loadedAt = System.currentTimeMillis();
+        private volatile long updatedAt = loadedAt;
+
+        private CachedBridge byDeviceId(DeviceId deviceId) {
+            return bridges.values().stream()
+                    .filter(bridge -> bridge.deviceId.equals(deviceId))
+                    .findFirst().orElse(null);
+        }
+
+        private void touch() {
+            updatedAt = System.currentTimeMillis();
+        }
+    }
+
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final ConcurrentMap<IpAddress, NodeInventory> inventories = Maps.newConcurrentMap();
+    // only changed inside the atomic operations of inventories, on the same node
+    private final ConcurrentMap<IpAddress, Long> generations = Maps.newConcurrentMap();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Returns the device id of a bridge, loading the node inventory if needed.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge name
+     * @param loader loader used when the node inventory is not cached
+     * @return bridge device id, null if the node has no such bridge
+     * @throws OvsdbDeviceException if the node inventory cannot be loaded
+     */
+    DeviceId bridgeId(IpAddress ovsdbIp, String bridgeName, Loader loader) throws OvsdbDeviceException {
+        CachedBridge bridge = inventory(ovsdbIp, loader).bridges.get(bridgeName);
+        return bridge == null ? null : bridge.deviceId;
+    }
+
+    /**
+     * Returns the bridges of a node, loading the node inventory if needed.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param loader loader used when the node inventory is not cached
+     * @return bridges of the node
+     * @throws OvsdbDeviceException if the node inventory cannot be loaded
+     */
+    Collection<CachedBridge> bridges(IpAddress ovsdbIp, Loader loader) throws OvsdbDeviceException {
+        return ImmutableSet.copyOf(inventory(ovsdbIp, loader).bridges.values());
+    }
+
+    private NodeInventory inventory(IpAddress ovsdbIp, Loader loader) throws OvsdbDeviceException {
+        NodeInventory inventory = inventories.get(ovsdbIp);
+        if (inventory != null) {
+            hits.increment();
+            return inventory;
+        }
+        misses.increment();
+        NodeInventory loaded = null;
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            long generation = generations.getOrDefault(ovsdbIp, 0L);
+            NodeInventory candidate = new NodeInventory();
+            loader.load(ovsdbIp).forEach(bridge -> candidate.bridges.put(bridge.name, bridge));
+            loaded = candidate;
+            inventory = inventories.compute(ovsdbIp, (ip, current) -> {
+                if (current != null) {
+                    return current;
+                }
+                return generations.getOrDefault(ip, 0L) == generation ? candidate : null;
+            });
+            if (inventory != null) {
+                return inventory;
+            }
+        }
+        // the node keeps changing: answer with the last snapshot, without caching it
+        return loaded;
+    }
+
+    /**
+     * Records a bridge created on a node, if the node inventory is cached.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge name
+     * @param deviceId the bridge device id
+     */
+    void bridgeAdded(IpAddress ovsdbIp, String bridgeName, DeviceId deviceId) {
+        update(ovsdbIp, inventory ->
+                inventory.bridges.putIfAbsent(bridgeName, new CachedBridge(bridgeName, deviceId, ImmutableSet.of())));
+    }
+
+    /**
+     * Records a bridge removed from a node, if the node inventory is cached.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge name
+     */
+    void bridgeRemoved(IpAddress ovsdbIp, String bridgeName) {
+        update(ovsdbIp, inventory -> inventory.bridges.remove(bridgeName));
+    }
+
+    /**
+     * Records a bridge device removed from a node, if the node inventory is cached.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param deviceId the bridge device id
+     */
+    void bridgeRemoved(IpAddress ovsdbIp, DeviceId deviceId) {
+        update(ovsdbIp, inventory -> {
+            CachedBridge bridge = inventory.byDeviceId(deviceId);
+            if (bridge != null) {
+                inventory.bridges.remove(bridge.name);
+            }
+        });
+    }
+
+    /**
+     * Records a port added to a bridge, if the node inventory is cached.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge name
+     * @param portName the port name
+     */
+    void portAdded(IpAddress ovsdbIp, String bridgeName, String portName) {
+        update(ovsdbIp, inventory -> updatePort(inventory.bridges.get(bridgeName), portName, true));
+    }
+
+    /**
+     * Records a port removed from a bridge, if the node inventory is cached.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge name
+     * @param portName the port name
+     */
+    void portRemoved(IpAddress ovsdbIp, String bridgeName, String portName) {
+        update(ovsdbIp, inventory -> updatePort(inventory.bridges.get(bridgeName), portName, false));
+    }
+
+    /**
+     * Records a port added to or removed from a bridge device, if the node inventory is cached.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param deviceId the bridge device id
+     * @param portName the port name
+     * @param added true if the port was added, false if it was removed
+     */
+    void portChanged(IpAddress ovsdbIp, DeviceId deviceId, String portName, boolean added) {
+        update(ovsdbIp, inventory -> updatePort(inventory.byDeviceId(deviceId), portName, added));
+    }
+
+    private void updatePort(CachedBridge bridge, String portName, boolean added) {
+        if (bridge == null) {
+            return;
+        }
+        if (added) {
+            bridge.ports.add(portName);
+        } else {
+            bridge.ports.remove(portName);
+        }
+    }
+
+    // bumps the generation of the node, so that a load running meanwhile is not published
+    private void update(IpAddress ovsdbIp, Consumer<NodeInventory> change) {
+        inventories.compute(ovsdbIp, (ip, inventory) -> {
+            generations.merge(ip, 1L, Long::sum);
+            if (inventory != null) {
+                change.accept(inventory);
+                inventory.touch();
+            }
+            return inventory;
+        });
+    }
+
+    /**
+     * Drops the inventory of a node, which is reloaded on next access.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     */
+    void invalidate(IpAddress ovsdbIp) {
+        AtomicBoolean removed = new AtomicBoolean();
+        inventories.compute(ovsdbIp, (ip, inventory) -> {
+            generations.merge(ip, 1L, Long::sum);
+            removed.set(inventory != null);
+            return null;
+        });
+        if (removed.get()) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     *
+     * @return cache statistics
+     */
+    InventoryCacheStats stats() {
+        long now = System.currentTimeMillis();
+        ImmutableMap.Builder<IpAddress, Long> ages = ImmutableMap.builder();
+        ImmutableMap.Builder<IpAddress, Long> sinceUpdates = ImmutableMap.builder();
+        Map<IpAddress, NodeInventory> snapshot = ImmutableMap.copyOf(inventories);
+        snapshot.forEach((ip, inventory) -> {
+            ages.put(ip, now - inventory.loadedAt);
+            sinceUpdates.put(ip, now - inventory.updatedAt);
+        });
+        return new InventoryCacheStats(hits.sum(), misses.sum(), invalidations.sum(),
+                                       ages.build(), sinceUpdates.build());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.onlab.packet.IpAddress;
+import org.onosproject.net.DeviceId;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bridge store backed by concurrent maps, one per ovsdb node.
+ * Every update is a single atomic map operation.
+ */
+final class ConcurrentOvsdbBridgeStore implements OvsdbBridgeStore {
+
+    // {Ovsdb node IP address: <bridge: datapathId>}
+    private final ConcurrentMap<IpAddress, ConcurrentMap<String, DeviceId>> topology = Maps.newConcurrentMap();
+
+    @Override
+    public DeviceId getBridge(IpAddress ovsdbIp, String bridgeName) {
+        Map<String, DeviceId> bridges = topology.get(ovsdbIp);
+        return bridges == null ? null : bridges.get(bridgeName);
+    }
+
+    @Override
+    public Map<String, DeviceId> getBridges(IpAddress ovsdbIp) {
+        Map<String, DeviceId> bridges = topology.get(ovsdbIp);
+        return bridges == null ? ImmutableMap.of() : ImmutableMap.copyOf(bridges);
+    }
+
+    @Override
+    public boolean addBridge(IpAddress ovsdbIp, String bridgeName, DeviceId deviceId) {
+        boolean[] added = new boolean[1];
+        topology.compute(ovsdbIp, (ip, bridges) -> {
+            ConcurrentMap<String, DeviceId> nodeBridges = bridges == null ? Maps.newConcurrentMap() : bridges;
+            added[0] = nodeBridges.putIfAbsent(bridgeName, deviceId) == null;
+            return nodeBridges;
+        });
+        return added[0];
+    }
+
+    @Override
+    public DeviceId removeBridge(IpAddress ovsdbIp, String bridgeName) {
+        DeviceId[] removed = new DeviceId[1];
+        // the node entry is dropped together with its last bridge
+        topology.computeIfPresent(ovsdbIp, (ip, bridges) -> {
+            removed[0] = bridges.remove(bridgeName);
+            return bridges.isEmpty() ? null : bridges;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public void setBridges(IpAddress ovsdbIp, Map<String, DeviceId> bridges) {
+        if (bridges.isEmpty()) {
+            topology.remove(ovsdbIp);
+        } else {
+            ConcurrentMap<String, DeviceId> nodeBridges = Maps.newConcurrentMap();
+            nodeBridges.putAll(bridges);
+            topology.put(ovsdbIp, nodeBridges);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import org.onosproject.net.DeviceId;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.AtomicCounter;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Cluster-wide allocator of bridge datapath ids.
+ * <p>
+ * Ids are leased in blocks from a distributed counter, so each instance
+ * hands out ids from its own block without coordination. Ids of deleted
+ * bridges go to a distributed free set; an instance reclaims them when its
+ * block is exhausted, before leasing a new one, so that the free set is
+ * only read once per block.
+ * </p>
+ */
+final class DatapathIdAllocator {
+
+    private static final String COUNTER_NAME = "ovsdb-rest-dpid-counter";
+    private static final String FREE_SET_NAME = "ovsdb-rest-dpid-free";
+    private static final String OF_SCHEME = "of:";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final long firstId;
+    private final int blockSize;
+    private final AtomicCounter counter;
+    private final Set<Long> freeIds;
+
+    // current block, guarded by this
+    private long next;
+    private long end;
+
+    /**
+     * Creates an allocator.
+     *
+     * @param storageService the storage service
+     * @param firstId lowest datapath id handed out
+     * @param blockSize number of ids leased at once
+     */
+    DatapathIdAllocator(StorageService storageService, long firstId, int blockSize) {
+        this(storageService.atomicCounterBuilder()
+                     .withName(COUNTER_NAME)
+                     .withMeteringDisabled()
+                     .build()
+                     .asAtomicCounter(),
+             storageService.<Long>setBuilder()
+                     .withName(FREE_SET_NAME)
+                     .withSerializer(Serializer.using(KryoNamespaces.BASIC))
+                     .build()
+                     .asDistributedSet(),
+             firstId, blockSize);
+    }
+
+    /**
+     * Creates an allocator on the given primitives, e.g. local ones for benchmarks.
+     *
+     * @param counter counter of the ids leased so far
+     * @param freeIds ids of deleted bridges, shared with the other allocators
+     * @param firstId lowest datapath id handed out
+     * @param blockSize number of ids leased at once
+     */
+    DatapathIdAllocator(AtomicCounter counter, Set<Long> freeIds, long firstId, int blockSize) {
+        this.counter = counter;
+        this.freeIds = freeIds;
+        this.firstId = firstId;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns a datapath id not used by any bridge of the cluster.
+     *
+     * @param inUse tells whether a bridge device already uses an id, e.g. a
+     *              bridge created outside of this application
+     * @return the datapath id
+     */
+    DeviceId allocate(Predicate<DeviceId> inUse) {
+        DeviceId dpid;
+        do {
+            dpid = toDeviceId(nextId());
+        } while (inUse.test(toBridgeId(dpid)));
+        return dpid;
+    }
+
+    /**
+     * Returns the datapath id of a deleted bridge to the pool.
+     * Ids that were not handed out by this allocator are ignored.
+     *
+     * @param bridgeId the bridge device id
+     */
+    void release(DeviceId bridgeId) {
+        long id;
+        try {
+            id = Long.parseUnsignedLong(bridgeId.uri().getSchemeSpecificPart(), 16);
+        } catch (NumberFormatException e) {
+            log.debug("Not a datapath id: {}", bridgeId);
+            return;
+        }
+        if (id >= firstId && id < firstId + counter.get()) {
+            freeIds.add(id);
+        }
+    }
+
+    private long nextId() {
+        synchronized (this) {
+            if (next != end) {
+                return next++;
+            }
+        }
+        Iterator<Long> free = freeIds.iterator();
+        while (free.hasNext()) {
+            Long id = free.next();
+            // only one instance wins the removal of a given id
+            if (freeIds.remove(id)) {
+                return id;
+            }
+        }
+        synchronized (this) {
+            if (next == end) {
+                next = firstId + counter.getAndAdd(blockSize);
+                end = next + blockSize;
+                log.debug("Leased datapath ids {} to {}", next, end - 1);
+            }
+            return next++;
+        }
+    }
+
+    private static DeviceId toDeviceId(long id) {
+        return DeviceId.deviceId(String.format("%16X", id).replace(' ', '0'));
+    }
+
+    private static DeviceId toBridgeId(DeviceId dpid) {
+        return DeviceId.deviceId(OF_SCHEME + dpid.toString().toLowerCase());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.onlab.packet.IpAddress;
+import org.onlab.util.KryoNamespace;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.StorageService;
+import org.onosproject.store.service.Versioned;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.onosproject.ovsdbrest.OvsdbBridgeOperation.Type;
+
+/**
+ * Desired configuration of the ovsdb nodes, shared by the cluster, and the
+ * computation of the changes that bring a node to it.
+ * <p>
+ * The desired state of a node is the list of operations that build it from
+ * scratch: bridges, plain ports, patch ports and tunnels. It is additive,
+ * bridges and ports found on a node but not declared are left untouched.
+ * </p>
+ */
+final class DesiredStateStore {
+
+    private static final String MAP_NAME = "ovsdb-rest-desired-state";
+    private static final Set<Type> DECLARABLE = EnumSet.of(Type.CREATE_BRIDGE, Type.ADD_PORT, Type.CREATE_PATCH,
+                                                           Type.CREATE_GRE_TUNNEL, Type.CREATE_TUNNEL);
+
+    private final ConsistentMap<IpAddress, List<OvsdbBridgeOperation>> desiredStates;
+
+    /**
+     * Creates the store.
+     *
+     * @param storageService the storage service
+     */
+    DesiredStateStore(StorageService storageService) {
+        KryoNamespace serializer = KryoNamespace.newBuilder()
+                .register(KryoNamespaces.API)
+                .nextId(KryoNamespaces.BEGIN_USER_CUSTOM_ID)
+                .register(OvsdbBridgeOperation.class, OvsdbBridgeOperation.Type.class, OvsdbTunnelType.class)
+                .build();
+        desiredStates = storageService.<IpAddress, List<OvsdbBridgeOperation>>consistentMapBuilder()
+                .withName(MAP_NAME)
+                .withSerializer(Serializer.using(serializer))
+                .build();
+    }
+
+    /**
+     * Returns the nodes with a desired state.
+     *
+     * @return set of ovsdb IP addresses
+     */
+    Set<IpAddress> nodes() {
+        return ImmutableSet.copyOf(desiredStates.keySet());
+    }
+
+    /**
+     * Returns the desired state of a node.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @return list of operations, empty if the node has no desired state
+     */
+    List<OvsdbBridgeOperation> get(IpAddress ovsdbIp) {
+        Versioned<List<OvsdbBridgeOperation>> operations = desiredStates.get(ovsdbIp);
+        return operations == null ? ImmutableList.of() : ImmutableList.copyOf(operations.value());
+    }
+
+    /**
+     * Replaces the desired state of a node.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param operations the operations building the node
+     * @throws IllegalArgumentException if an operation targets another node or
+     *                                  does not describe an element to create
+     */
+    void set(IpAddress ovsdbIp, List<OvsdbBridgeOperation> operations) {
+        for (OvsdbBridgeOperation operation : operations) {
+            checkArgument(ovsdbIp.equals(operation.ovsdbIp()),
+                          "Operation %s does not target ovsdb node %s", operation.type(), ovsdbIp);
+            checkArgument(DECLARABLE.contains(operation.type()),
+                          "Operation %s cannot be part of a desired state", operation.type());
+        }
+        desiredStates.put(ovsdbIp, new ArrayList<>(operations));
+    }
+
+    /**
+     * Drops the desired state of a node; the node is no longer reconciled.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     */
+    void remove(IpAddress ovsdbIp) {
+        desiredStates.remove(ovsdbIp);
+    }
+
+    /**
+     * Computes the operations missing from a node to reach its desired state.
+     * Bridges are created before the ports attached to them.
+     *
+     * @param desired the desired state of the node
+     * @param actual map from bridge name to the names of its ports, as found on the node
+     * @return operations to apply, in the order they must be applied
+     */
+    static List<OvsdbBridgeOperation> diff(List<OvsdbBridgeOperation> desired, Map<String, Set<String>> actual) {
+        List<OvsdbBridgeOperation> bridges = new ArrayList<>();
+        List<OvsdbBridgeOperation> ports = new ArrayList<>();
+        // an element declared twice is created once
+        Set<String> planned = Sets.newHashSet();
+        for (OvsdbBridgeOperation operation : desired) {
+            if (operation.type() == Type.CREATE_BRIDGE) {
+                if (!actual.containsKey(operation.bridgeName()) && planned.add(operation.bridgeName())) {
+                    bridges.add(operation);
+                }
+            } else {
+                Set<String> bridgePorts = actual.get(operation.bridgeName());
+                boolean present = bridgePorts != null && bridgePorts.contains(operation.portName());
+                if (!present && planned.add(operation.bridgeName() + '/' + operation.portName())) {
+                    ports.add(operation);
+                }
+            }
+        }
+        bridges.addAll(ports);
+        return bridges;
+    }
+}
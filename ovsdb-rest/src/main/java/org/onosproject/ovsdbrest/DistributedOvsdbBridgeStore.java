@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import org.onlab.packet.IpAddress;
+import org.onosproject.net.DeviceId;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.ConsistentMap;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.StorageService;
+import org.onosproject.store.service.Versioned;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bridge store replicated across the cluster and surviving restarts.
+ * <p>
+ * Bridges are kept in a consistent map keyed by ovsdb node and bridge name.
+ * Each instance mirrors the map in memory, kept current by the map events,
+ * so that lookups do not leave the instance.
+ * </p>
+ */
+final class DistributedOvsdbBridgeStore implements OvsdbBridgeStore {
+
+    private static final String MAP_NAME = "ovsdb-rest-bridges";
+    private static final char KEY_SEPARATOR = '/';
+
+    private final ConsistentMap<String, DeviceId> bridges;
+    private final ConcurrentOvsdbBridgeStore mirror = new ConcurrentOvsdbBridgeStore();
+    private final MapEventListener<String, DeviceId> bridgeListener = new InternalBridgeListener();
+
+    /**
+     * Creates the store, loading the bridges already known to the cluster.
+     *
+     * @param storageService the storage service
+     */
+    DistributedOvsdbBridgeStore(StorageService storageService) {
+        bridges = storageService.<String, DeviceId>consistentMapBuilder()
+                .withName(MAP_NAME)
+                .withSerializer(Serializer.using(KryoNamespaces.API))
+                .build();
+        bridges.addListener(bridgeListener);
+        bridges.entrySet().forEach(entry -> mirror.addBridge(
+                ovsdbIp(entry.getKey()), bridgeName(entry.getKey()), entry.getValue().value()));
+    }
+
+    /**
+     * Stops following the updates of the other instances.
+     */
+    void close() {
+        bridges.removeListener(bridgeListener);
+    }
+
+    @Override
+    public DeviceId getBridge(IpAddress ovsdbIp, String bridgeName) {
+        return mirror.getBridge(ovsdbIp, bridgeName);
+    }
+
+    @Override
+    public Map<String, DeviceId> getBridges(IpAddress ovsdbIp) {
+        return mirror.getBridges(ovsdbIp);
+    }
+
+    @Override
+    public boolean addBridge(IpAddress ovsdbIp, String bridgeName, DeviceId deviceId) {
+        if (bridges.putIfAbsent(key(ovsdbIp, bridgeName), deviceId) != null) {
+            return false;
+        }
+        mirror.addBridge(ovsdbIp, bridgeName, deviceId);
+        return true;
+    }
+
+    @Override
+    public DeviceId removeBridge(IpAddress ovsdbIp, String bridgeName) {
+        Versioned<DeviceId> removed = bridges.remove(key(ovsdbIp, bridgeName));
+        mirror.removeBridge(ovsdbIp, bridgeName);
+        return Versioned.valueOrNull(removed);
+    }
+
+    @Override
+    public void setBridges(IpAddress ovsdbIp, Map<String, DeviceId> nodeBridges) {
+        Set<String> stale = mirror.getBridges(ovsdbIp).keySet().stream()
+                .filter(name -> !nodeBridges.containsKey(name))
+                .collect(Collectors.toSet());
+        stale.forEach(name -> bridges.remove(key(ovsdbIp, name)));
+        nodeBridges.forEach((name, deviceId) -> bridges.put(key(ovsdbIp, name), deviceId));
+        mirror.setBridges(ovsdbIp, nodeBridges);
+    }
+
+    private static String key(IpAddress ovsdbIp, String bridgeName) {
+        return ovsdbIp.toString() + KEY_SEPARATOR + bridgeName;
+    }
+
+    private static IpAddress ovsdbIp(String key) {
+        return IpAddress.valueOf(key.substring(0, key.indexOf(KEY_SEPARATOR)));
+    }
+
+    private static String bridgeName(String key) {
+        return key.substring(key.indexOf(KEY_SEPARATOR) + 1);
+    }
+
+    private class InternalBridgeListener implements MapEventListener<String, DeviceId> {
+
+        @Override
+        public void event(MapEvent<String, DeviceId> event) {
+            IpAddress ovsdbIp = ovsdbIp(event.key());
+            String bridgeName = bridgeName(event.key());
+            switch (event.type()) {
+                case INSERT:
+                case UPDATE:
+                    mirror.removeBridge(ovsdbIp, bridgeName);
+                    mirror.addBridge(ovsdbIp, bridgeName, event.newValue().value());
+                    break;
+                case REMOVE:
+                    mirror.removeBridge(ovsdbIp, bridgeName);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
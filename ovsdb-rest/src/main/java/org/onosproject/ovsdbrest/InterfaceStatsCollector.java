@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import org.onlab.packet.IpAddress;
+import org.onosproject.ovsdb.controller.OvsdbClientService;
+import org.onosproject.ovsdb.rfc.message.OperationResult;
+import org.onosproject.ovsdb.rfc.notation.Column;
+import org.onosproject.ovsdb.rfc.notation.OvsdbMap;
+import org.onosproject.ovsdb.rfc.notation.Row;
+import org.onosproject.ovsdb.rfc.operations.Operation;
+import org.onosproject.ovsdb.rfc.operations.Select;
+import org.onosproject.ovsdb.rfc.schema.DatabaseSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.onosproject.ovsdb.controller.OvsdbConstant.DATABASENAME;
+import static org.onosproject.ovsdb.controller.OvsdbConstant.INTERFACE;
+import static org.onosproject.ovsdbrest.OvsdbInterfaceStats.Counter;
+import static org.onosproject.ovsdbrest.OvsdbNodeConfig.OvsdbNode;
+
+/**
+ * Polls the interface counters of the ovsdb nodes.
+ * <p>
+ * Each node gets a single select of the name and statistics columns of its
+ * Interface table per poll, sent asynchronously so that all the nodes are
+ * polled in parallel from one thread. The poll interval of a node adapts to
+ * its activity: it is halved, down to the minimum, when a counter changed
+ * since the previous poll, and doubled, up to the maximum, otherwise. A node
+ * that fails to answer is polled again after the maximum interval.
+ * </p>
+ */
+final class InterfaceStatsCollector {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int HISTORY_SIZE = 64;
+    private static final String NAME = "name";
+    private static final String STATISTICS = "statistics";
+    private static final List<String> COLUMNS = ImmutableList.of(NAME, STATISTICS);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ScheduledExecutorService executor;
+    private final Supplier<Collection<OvsdbNode>> nodes;
+    private final Function<OvsdbNode, OvsdbClientService> clients;
+    private final ConcurrentMap<IpAddress, NodeStats> nodeStats = Maps.newConcurrentMap();
+    private volatile long minIntervalMillis;
+    private volatile long maxIntervalMillis;
+
+    private final class NodeStats {
+        private final ConcurrentMap<String, InterfaceStatsHistory> interfaces = Maps.newConcurrentMap();
+        private volatile long intervalMillis = minIntervalMillis;
+        private volatile long nextPoll;
+        private volatile long pollSentAt;
+        private volatile boolean pollPending;
+    }
+
+    /**
+     * Creates a collector.
+     *
+     * @param executor the executor sending the polls
+     * @param nodes supplier of the nodes to poll
+     * @param clients returns the ovsdb client of a node, null if there is none
+     * @param minIntervalMillis shortest poll interval of a node
+     * @param maxIntervalMillis longest poll interval of a node
+     */
+    InterfaceStatsCollector(ScheduledExecutorService executor, Supplier<Collection<OvsdbNode>> nodes,
+                            Function<OvsdbNode, OvsdbClientService> clients,
+                            long minIntervalMillis, long maxIntervalMillis) {
+        this.executor = executor;
+        this.nodes = nodes;
+        this.clients = clients;
+        configure(minIntervalMillis, maxIntervalMillis);
+    }
+
+    /**
+     * Starts the polls.
+     */
+    void start() {
+        executor.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the polls and drops the collected samples.
+     */
+    void stop() {
+        executor.shutdownNow();
+        nodeStats.clear();
+    }
+
+    /**
+     * Changes the poll interval bounds; they apply from the next poll of each node.
+     *
+     * @param minIntervalMillis shortest poll interval of a node
+     * @param maxIntervalMillis longest poll interval of a node
+     */
+    void configure(long minIntervalMillis, long maxIntervalMillis) {
+        this.minIntervalMillis = Math.max(TICK_MILLIS, minIntervalMillis);
+        this.maxIntervalMillis = Math.max(this.minIntervalMillis, maxIntervalMillis);
+    }
+
+    /**
+     * Returns the latest counters of the interfaces of a node.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param windowMillis window the deltas and rates are computed over, 0 for the last poll interval
+     * @return list of interface counters ordered by interface name, empty if the node is not polled
+     */
+    List<OvsdbInterfaceStats> stats(IpAddress ovsdbIp, long windowMillis) {
+        NodeStats stats = nodeStats.get(ovsdbIp);
+        if (stats == null) {
+            return ImmutableList.of();
+        }
+        return stats.interfaces.values().stream()
+                .map(history -> history.latest(windowMillis))
+                .filter(sample -> sample != null)
+                .sorted(Comparator.comparing(OvsdbInterfaceStats::name))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the retained samples of an interface.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param interfaceName the interface name
+     * @return list of samples, oldest first, empty if the interface is not polled
+     */
+    List<OvsdbInterfaceStats> history(IpAddress ovsdbIp, String interfaceName) {
+        NodeStats stats = nodeStats.get(ovsdbIp);
+        InterfaceStatsHistory history = stats == null ? null : stats.interfaces.get(interfaceName);
+        return history == null ? ImmutableList.of() : history.samples();
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            Collection<OvsdbNode> current = nodes.get();
+            Set<IpAddress> currentIps = current.stream().map(OvsdbNode::ovsdbIp).collect(Collectors.toSet());
+            nodeStats.keySet().retainAll(currentIps);
+            for (OvsdbNode node : current) {
+                NodeStats stats = nodeStats.computeIfAbsent(node.ovsdbIp(), ip -> new NodeStats());
+                if (stats.pollPending && now - stats.pollSentAt <= maxIntervalMillis) {
+                    continue;
+                }
+                if (stats.pollPending) {
+                    log.debug("Statistics poll of ovsdb node {} timed out", node);
+                    stats.pollPending = false;
+                    stats.intervalMillis = maxIntervalMillis;
+                }
+                if (now >= stats.nextPoll) {
+                    poll(node, stats, now);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Interface statistics poll failed", e);
+        }
+    }
+
+    private void poll(OvsdbNode node, NodeStats stats, long now) {
+        OvsdbClientService client = clients.apply(node);
+        if (client == null || !client.isConnected()) {
+            return;
+        }
+        DatabaseSchema schema = client.getDatabaseSchema(DATABASENAME);
+        if (schema == null) {
+            return;
+        }
+        List<Operation> select = ImmutableList.of(
+                new Select(schema.getTableSchema(INTERFACE), ImmutableList.of(), COLUMNS));
+        stats.pollPending = true;
+        stats.pollSentAt = now;
+        Futures.addCallback(client.transactConfig(DATABASENAME, select),
+                            new FutureCallback<List<OperationResult>>() {
+            @Override
+            public void onSuccess(List<OperationResult> results) {
+                if (results == null || results.isEmpty() || results.get(0).getError() != null) {
+                    onFailure(new IllegalStateException(results == null || results.isEmpty() ?
+                            "no result" : results.get(0).getError()));
+                    return;
+                }
+                boolean changed = record(node.ovsdbIp(), stats, results.get(0).getRows());
+                stats.intervalMillis = changed ?
+                        Math.max(minIntervalMillis, stats.intervalMillis / 2) :
+                        Math.min(maxIntervalMillis, stats.intervalMillis * 2);
+                stats.nextPoll = now + stats.intervalMillis;
+                stats.pollPending = false;
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                log.debug("Statistics poll of ovsdb node {} failed: {}", node, t.getMessage());
+                stats.intervalMillis = maxIntervalMillis;
+                stats.nextPoll = now + maxIntervalMillis;
+                stats.pollPending = false;
+            }
+        });
+    }
+
+    // stores the counters of each interface, and forgets the interfaces that are gone
+    private boolean record(IpAddress ovsdbIp, NodeStats stats, List<Row> rows) {
+        long timestamp = System.currentTimeMillis();
+        boolean changed = false;
+        Set<String> names = Sets.newHashSetWithExpectedSize(rows.size());
+        for (Row row : rows) {
+            Column name = row.getColumn(NAME);
+            Column statistics = row.getColumn(STATISTICS);
+            if (name == null || !(name.data() instanceof String)) {
+                continue;
+            }
+            String interfaceName = (String) name.data();
+            long[] values = counters(statistics == null ? null : statistics.data());
+            names.add(interfaceName);
+            changed |= stats.interfaces
+                    .computeIfAbsent(interfaceName, n -> new InterfaceStatsHistory(ovsdbIp, n, HISTORY_SIZE))
+                    .add(timestamp, values);
+        }
+        stats.interfaces.keySet().retainAll(names);
+        return changed;
+    }
+
+    private static long[] counters(Object statistics) {
+        long[] values = new long[Counter.values().length];
+        if (statistics instanceof OvsdbMap) {
+            Map<?, ?> map = ((OvsdbMap) statistics).map();
+            for (Counter counter : Counter.values()) {
+                Object value = map.get(counter.key());
+                if (value instanceof Number) {
+                    values[counter.ordinal()] = ((Number) value).longValue();
+                }
+            }
+        }
+        return values;
+    }
+}
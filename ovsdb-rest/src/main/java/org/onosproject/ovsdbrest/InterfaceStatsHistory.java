@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import org.onlab.packet.IpAddress;
+
+import java.util.List;
+
+import static org.onosproject.ovsdbrest.OvsdbInterfaceStats.Counter;
+
+/**
+ * Most recent counter samples of an interface, kept in a fixed size ring buffer.
+ * <p>
+ * Samples are stored in a single array of longs, the timestamp followed by
+ * the counters, so that the history of an interface costs one allocation
+ * whatever the number of samples.
+ * </p>
+ */
+final class InterfaceStatsHistory {
+
+    private static final int COUNTERS = Counter.values().length;
+    private static final int STRIDE = COUNTERS + 1;
+
+    private final IpAddress ovsdbIp;
+    private final String name;
+    private final int capacity;
+
+    // guarded by this
+    private final long[] samples;
+    private int head;
+    private int size;
+
+    /**
+     * Creates an empty history.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param name the interface name
+     * @param capacity number of samples retained
+     */
+    InterfaceStatsHistory(IpAddress ovsdbIp, String name, int capacity) {
+        this.ovsdbIp = ovsdbIp;
+        this.name = name;
+        this.capacity = capacity;
+        this.samples = new long[capacity * STRIDE];
+    }
+
+    /**
+     * Records a sample, overwriting the oldest one if the history is full.
+     *
+     * @param timestamp the time the counters were read at, in milliseconds
+     * @param values the counter values, indexed by counter ordinal
+     * @return true if a counter changed since the previous sample
+     */
+    synchronized boolean add(long timestamp, long[] values) {
+        boolean changed = size == 0;
+        if (size > 0) {
+            int last = offset(size - 1);
+            for (int i = 0; i < COUNTERS && !changed; i++) {
+                changed = samples[last + 1 + i] != values[i];
+            }
+        }
+        int offset;
+        if (size < capacity) {
+            offset = offset(size++);
+        } else {
+            // the oldest sample becomes the newest one
+            offset = offset(0);
+            head = (head + 1) % capacity;
+        }
+        samples[offset] = timestamp;
+        System.arraycopy(values, 0, samples, offset + 1, COUNTERS);
+        return changed;
+    }
+
+    /**
+     * Returns the latest sample, with the variation of the counters since the
+     * oldest sample not older than the window.
+     *
+     * @param windowMillis the window, 0 to compare with the previous sample only
+     * @return the latest sample, null if there is none
+     */
+    synchronized OvsdbInterfaceStats latest(long windowMillis) {
+        if (size == 0) {
+            return null;
+        }
+        int last = size - 1;
+        int first = last == 0 ? 0 : last - 1;
+        long since = samples[offset(last)] - windowMillis;
+        while (windowMillis > 0 && first > 0 && samples[offset(first - 1)] >= since) {
+            first--;
+        }
+        return stats(first, last);
+    }
+
+    /**
+     * Returns the retained samples, oldest first, each with the variation of
+     * the counters since the previous sample.
+     *
+     * @return list of samples
+     */
+    synchronized List<OvsdbInterfaceStats> samples() {
+        ImmutableList.Builder<OvsdbInterfaceStats> builder = ImmutableList.builder();
+        for (int i = 0; i < size; i++) {
+            builder.add(stats(i == 0 ? 0 : i - 1, i));
+        }
+        return builder.build();
+    }
+
+    private OvsdbInterfaceStats stats(int from, int to) {
+        int start = offset(from);
+        int end = offset(to);
+        long[] values = new long[COUNTERS];
+        long[] deltas = new long[COUNTERS];
+        System.arraycopy(samples, end + 1, values, 0, COUNTERS);
+        // summed sample by sample, so that a counter reset within the interval is accounted for
+        for (int index = from + 1; index <= to; index++) {
+            int previous = offset(index - 1);
+            int current = offset(index);
+            for (int i = 0; i < COUNTERS; i++) {
+                long before = samples[previous + 1 + i];
+                long after = samples[current + 1 + i];
+                deltas[i] += after >= before ? after - before : after;
+            }
+        }
+        return new OvsdbInterfaceStats(ovsdbIp, name, samples[end], samples[end] - samples[start],
+                                       values, deltas);
+    }
+
+    private int offset(int index) {
+        return ((head + index) % capacity) * STRIDE;
+    }
+}
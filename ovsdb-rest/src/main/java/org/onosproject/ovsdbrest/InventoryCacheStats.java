@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import org.onlab.packet.IpAddress;
+
+import java.util.Map;
+
+/**
+ * Snapshot of the bridge inventory cache statistics.
+ */
+public final class InventoryCacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long invalidations;
+    private final Map<IpAddress, Long> ageMillis;
+    private final Map<IpAddress, Long> sinceUpdateMillis;
+
+    InventoryCacheStats(long hits, long misses, long invalidations,
+                        Map<IpAddress, Long> ageMillis, Map<IpAddress, Long> sinceUpdateMillis) {
+        this.hits = hits;
+        this.misses = misses;
+        this.invalidations = invalidations;
+        this.ageMillis = ImmutableMap.copyOf(ageMillis);
+        this.sinceUpdateMillis = ImmutableMap.copyOf(sinceUpdateMillis);
+    }
+
+    /**
+     * Returns the number of lookups served from memory.
+     *
+     * @return hit count
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that required loading a node from the device.
+     *
+     * @return miss count
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the ratio of lookups served from memory.
+     *
+     * @return hit rate between 0 and 1, 0 if no lookup was made
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the number of node inventories dropped since start.
+     *
+     * @return invalidation count
+     */
+    public long invalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns, for each cached node, the time elapsed since its inventory was loaded.
+     *
+     * @return map from ovsdb IP address to age in milliseconds
+     */
+    public Map<IpAddress, Long> ageMillis() {
+        return ageMillis;
+    }
+
+    /**
+     * Returns, for each cached node, the time elapsed since its inventory last changed.
+     *
+     * @return map from ovsdb IP address to milliseconds since the last update
+     */
+    public Map<IpAddress, Long> sinceUpdateMillis() {
+        return sinceUpdateMillis;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("hits", hits)
+                .add("misses", misses)
+                .add("invalidations", invalidations)
+                .add("nodes", ageMillis.size())
+                .toString();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.Maps;
+import org.onlab.packet.IpAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.onosproject.ovsdbrest.OvsdbRestException.NodeOverloadedException;
+
+/**
+ * Admission control of the requests targeting each ovsdb node.
+ * <p>
+ * Each node has a token bucket refilled at a steady rate, one token per
+ * operation, and a bound on the operations admitted but not completed yet.
+ * A request exceeding either limit is rejected right away with a retry delay,
+ * instead of piling up in front of a slow ovsdb server.
+ * </p>
+ */
+final class NodeAdmissionController {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Operations admitted on one or more nodes, to be released once they complete.
+     */
+    final class Permit {
+        private final Map<NodeBucket, Integer> permits = Maps.newHashMap();
+        private boolean released;
+
+        /**
+         * Releases the operations from the queue depth of their nodes; idempotent.
+         */
+        void release() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            permits.forEach(NodeBucket::complete);
+        }
+    }
+
+    private final class NodeBucket {
+        private final IpAddress ovsdbIp;
+        // guarded by this
+        private double tokens;
+        private long refilledNanos = System.nanoTime();
+        private int queueDepth;
+        private long admitted;
+        private long rejected;
+
+        private NodeBucket(IpAddress ovsdbIp) {
+            this.ovsdbIp = ovsdbIp;
+            this.tokens = burst;
+        }
+
+        private synchronized void admit(int count) {
+            refill();
+            // a request larger than the bucket or the queue is admitted alone, once the node is idle
+            double required = Math.min(count, burst);
+            if (maxQueueDepth > 0 && queueDepth > 0 && queueDepth + count > maxQueueDepth) {
+                rejected++;
+                throw new NodeOverloadedException("Too many pending requests for ovsdb node " + ovsdbIp, 1);
+            }
+            if (ratePerSecond > 0 && tokens < required) {
+                rejected++;
+                long retryAfter = (long) Math.ceil((required - tokens) / ratePerSecond);
+                throw new NodeOverloadedException("Request rate exceeded for ovsdb node " + ovsdbIp,
+                                                  Math.max(retryAfter, 1));
+            }
+            if (ratePerSecond > 0) {
+                tokens -= count;
+            }
+            queueDepth += count;
+            admitted += count;
+        }
+
+        private synchronized void refund(int count) {
+            if (ratePerSecond > 0) {
+                tokens = Math.min(tokens + count, burst);
+            }
+            queueDepth -= count;
+            admitted -= count;
+        }
+
+        private synchronized void complete(int count) {
+            queueDepth -= count;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - refilledNanos) * ratePerSecond / NANOS_PER_SECOND);
+            refilledNanos = now;
+        }
+
+        private synchronized int queueDepth() {
+            return queueDepth;
+        }
+
+        private synchronized OvsdbAdmissionState state() {
+            refill();
+            return new OvsdbAdmissionState(ovsdbIp, queueDepth, ratePerSecond > 0 ? tokens : burst,
+                                           admitted, rejected);
+        }
+    }
+
+    private final ConcurrentMap<IpAddress, NodeBucket> buckets = Maps.newConcurrentMap();
+    private final Predicate<IpAddress> isConfigured;
+    private final Consumer<IpAddress> onNewNode;
+
+    private volatile double ratePerSecond;
+    private volatile int burst;
+    private volatile int maxQueueDepth;
+
+    /**
+     * Creates an admission controller.
+     *
+     * @param ratePerSecond operations admitted per second and per node, 0 for no rate limit
+     * @param burst operations admitted at once on an idle node
+     * @param maxQueueDepth operations admitted but not completed per node, 0 for no limit
+     * @param isConfigured tells the configured nodes; requests to other nodes fail anyway and are not limited
+     * @param onNewNode called the first time a node is seen, e.g. to register its metrics
+     */
+    NodeAdmissionController(double ratePerSecond, int burst, int maxQueueDepth,
+                            Predicate<IpAddress> isConfigured, Consumer<IpAddress> onNewNode) {
+        this.isConfigured = isConfigured;
+        this.onNewNode = onNewNode;
+        configure(ratePerSecond, burst, maxQueueDepth);
+    }
+
+    /**
+     * Changes the limits; buckets keep their tokens, capped to the new burst.
+     *
+     * @param ratePerSecond operations admitted per second and per node, 0 for no rate limit
+     * @param burst operations admitted at once on an idle node
+     * @param maxQueueDepth operations admitted but not completed per node, 0 for no limit
+     */
+    void configure(double ratePerSecond, int burst, int maxQueueDepth) {
+        this.ratePerSecond = Math.max(ratePerSecond, 0);
+        this.burst = Math.max(burst, 1);
+        this.maxQueueDepth = Math.max(maxQueueDepth, 0);
+    }
+
+    /**
+     * Admits operations on a single node.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param count number of operations
+     * @return permit to release once the operations complete
+     * @throws NodeOverloadedException if the node cannot take the operations now
+     */
+    Permit admit(IpAddress ovsdbIp, int count) {
+        Permit permit = new Permit();
+        NodeBucket bucket = bucket(ovsdbIp);
+        if (bucket != null) {
+            bucket.admit(count);
+            permit.permits.put(bucket, count);
+        }
+        return permit;
+    }
+
+    /**
+     * Admits operations on several nodes, all or none.
+     *
+     * @param counts map from ovsdb IP address to number of operations
+     * @return permit to release once the operations complete
+     * @throws NodeOverloadedException if a node cannot take its operations now
+     */
+    Permit admit(Map<IpAddress, Integer> counts) {
+        Permit permit = new Permit();
+        try {
+            counts.forEach((ovsdbIp, count) -> {
+                NodeBucket bucket = bucket(ovsdbIp);
+                if (bucket != null) {
+                    bucket.admit(count);
+                    permit.permits.put(bucket, count);
+                }
+            });
+        } catch (NodeOverloadedException e) {
+            permit.permits.forEach(NodeBucket::refund);
+            throw e;
+        }
+        return permit;
+    }
+
+    /**
+     * Returns the number of admitted operations not completed yet on a node.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @return queue depth
+     */
+    int queueDepth(IpAddress ovsdbIp) {
+        NodeBucket bucket = buckets.get(ovsdbIp);
+        return bucket == null ? 0 : bucket.queueDepth();
+    }
+
+    /**
+     * Returns the admission state of every node seen so far.
+     *
+     * @return list of admission states
+     */
+    List<OvsdbAdmissionState> states() {
+        return new ArrayList<>(buckets.values()).stream()
+                .map(NodeBucket::state)
+                .collect(Collectors.toList());
+    }
+
+    private NodeBucket bucket(IpAddress ovsdbIp) {
+        NodeBucket bucket = buckets.get(ovsdbIp);
+        if (bucket != null || !isConfigured.test(ovsdbIp)) {
+            return bucket;
+        }
+        bucket = new NodeBucket(ovsdbIp);
+        NodeBucket existing = buckets.putIfAbsent(ovsdbIp, bucket);
+        if (existing != null) {
+            return existing;
+        }
+        onNewNode.accept(ovsdbIp);
+        return bucket;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor with one serial lane per key, multiplexed over a shared thread pool.
+ * <p>
+ * Tasks submitted with the same key run one at a time, in submission order;
+ * tasks with different keys run in parallel. Each lane has a bounded queue,
+ * and a lane yields its thread after a few tasks so that a busy key cannot
+ * starve the others.
+ * </p>
+ * <p>
+ * A lane is created and retired only inside the atomic operations of the lane
+ * map, on its key: a removed lane stays in the map until its tasks are done,
+ * so the tasks submitted afterwards with the same key still run after them.
+ * </p>
+ * <p>
+ * A full lane rejects its tasks with a {@link LaneFullException}, which callers
+ * can tell apart from the rejections of a pool that is shut down.
+ * </p>
+ *
+ * @param <K> type of the lane key
+ */
+final class NodeLaneExecutor<K> {
+
+    private static final int MAX_TASKS_PER_RUN = 16;
+
+    /**
+     * Rejection of a task submitted to a lane whose queue is full.
+     */
+    static final class LaneFullException extends RejectedExecutionException {
+        private LaneFullException() {
+            super("Lane queue is full");
+        }
+    }
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ExecutorService pool;
+    private final int laneCapacity;
+    private final ConcurrentMap<K, Lane> lanes = Maps.newConcurrentMap();
+
+    /**
+     * Creates a lane executor.
+     *
+     * @param pool the thread pool running the lanes
+     * @param laneCapacity maximum number of queued tasks per lane
+     */
+    NodeLaneExecutor(ExecutorService pool, int laneCapacity) {
+        this.pool = pool;
+        this.laneCapacity = laneCapacity;
+    }
+
+    /**
+     * Queues a task on the lane of a key.
+     *
+     * @param key the lane key
+     * @param task the task
+     * @throws LaneFullException if the lane is full
+     * @throws RejectedExecutionException if the executor is shut down
+     */
+    void execute(K key, Runnable task) {
+        lanes.compute(key, (k, lane) -> {
+            Lane target = lane == null ? new Lane(k) : lane;
+            target.enqueue(task);
+            return target;
+        });
+    }
+
+    /**
+     * Queues a task producing a value on the lane of a key.
+     *
+     * @param key the lane key
+     * @param task the task
+     * @param <T> type of the value
+     * @return future completed with the value, or exceptionally if the task fails or is rejected
+     */
+    <T> CompletableFuture<T> submit(K key, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            execute(key, () -> {
+                try {
+                    future.complete(task.get());
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Returns whether the lane of a key can accept another task.
+     *
+     * @param key the lane key
+     * @return true if the lane is not full
+     */
+    boolean hasCapacity(K key) {
+        return queueDepth(key) < laneCapacity;
+    }
+
+    /**
+     * Returns the number of tasks queued on the lane of a key.
+     *
+     * @param key the lane key
+     * @return number of queued tasks, not including the running one
+     */
+    int queueDepth(K key) {
+        Lane lane = lanes.get(key);
+        return lane == null ? 0 : lane.size.get();
+    }
+
+    /**
+     * Drops the lane of a key once it is idle; tasks already queued still run,
+     * before the ones submitted later with the same key.
+     *
+     * @param key the lane key
+     */
+    void remove(K key) {
+        lanes.computeIfPresent(key, (k, lane) -> {
+            lane.retired = true;
+            return lane.isIdle() ? null : lane;
+        });
+    }
+
+    /**
+     * Stops the underlying thread pool.
+     */
+    void shutdown() {
+        pool.shutdown();
+        lanes.clear();
+    }
+
+    private final class Lane implements Runnable {
+        private final K key;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean retired;
+
+        private Lane(K key) {
+            this.key = key;
+        }
+
+        private void enqueue(Runnable task) {
+            if (size.incrementAndGet() > laneCapacity) {
+                size.decrementAndGet();
+                throw new LaneFullException();
+            }
+            tasks.add(task);
+            try {
+                schedule();
+            } catch (RejectedExecutionException e) {
+                // nothing runs the lane, so the task is still queued: the caller is told it will never run
+                if (tasks.remove(task)) {
+                    size.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+
+        private boolean isIdle() {
+            return !scheduled.get() && tasks.isEmpty();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    pool.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            Runnable task;
+            int executed = 0;
+            while (executed < MAX_TASKS_PER_RUN && (task = tasks.poll()) != null) {
+                size.decrementAndGet();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("Uncaught exception in lane task", e);
+                }
+                executed++;
+            }
+            scheduled.set(false);
+            if (!tasks.isEmpty()) {
+                try {
+                    schedule();
+                } catch (RejectedExecutionException e) {
+                    log.debug("Lane not rescheduled, executor is shut down");
+                }
+            } else if (retired) {
+                lanes.computeIfPresent(key, (k, lane) -> lane == this && isIdle() ? null : lane);
+            }
+        }
+    }
+}
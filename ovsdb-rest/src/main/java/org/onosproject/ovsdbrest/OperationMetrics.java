@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+import org.onlab.packet.IpAddress;
+
+import java.util.Map;
+
+/**
+ * Snapshot of the latency and failure statistics of one operation on one ovsdb node.
+ */
+public final class OperationMetrics {
+
+    private final String operation;
+    private final IpAddress ovsdbIp;
+    private final long count;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double p999Millis;
+    private final Map<String, Long> failures;
+
+    OperationMetrics(String operation, IpAddress ovsdbIp, long count,
+                     double p50Millis, double p99Millis, double p999Millis, Map<String, Long> failures) {
+        this.operation = operation;
+        this.ovsdbIp = ovsdbIp;
+        this.count = count;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.p999Millis = p999Millis;
+        this.failures = ImmutableMap.copyOf(failures);
+    }
+
+    public String operation() {
+        return operation;
+    }
+
+    public IpAddress ovsdbIp() {
+        return ovsdbIp;
+    }
+
+    /**
+     * Returns the number of calls, successful or not.
+     *
+     * @return call count
+     */
+    public long count() {
+        return count;
+    }
+
+    public double p50Millis() {
+        return p50Millis;
+    }
+
+    public double p99Millis() {
+        return p99Millis;
+    }
+
+    public double p999Millis() {
+        return p999Millis;
+    }
+
+    /**
+     * Returns the number of failed calls by exception type.
+     *
+     * @return map from exception simple class name to failure count
+     */
+    public Map<String, Long> failures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("operation", operation)
+                .add("ovsdbIp", ovsdbIp)
+                .add("count", count)
+                .add("p50Millis", p50Millis)
+                .add("p99Millis", p99Millis)
+                .add("p999Millis", p999Millis)
+                .add("failures", failures)
+                .toString();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.base.MoreObjects;
+import org.onlab.packet.IpAddress;
+
+/**
+ * Snapshot of the admission control state of an ovsdb node.
+ */
+public final class OvsdbAdmissionState {
+
+    private final IpAddress ovsdbIp;
+    private final int queueDepth;
+    private final double availableTokens;
+    private final long admitted;
+    private final long rejected;
+
+    OvsdbAdmissionState(IpAddress ovsdbIp, int queueDepth, double availableTokens, long admitted, long rejected) {
+        this.ovsdbIp = ovsdbIp;
+        this.queueDepth = queueDepth;
+        this.availableTokens = availableTokens;
+        this.admitted = admitted;
+        this.rejected = rejected;
+    }
+
+    public IpAddress ovsdbIp() {
+        return ovsdbIp;
+    }
+
+    /**
+     * Returns the number of admitted operations not completed yet, running or waiting for the node.
+     *
+     * @return queue depth
+     */
+    public int queueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Returns the number of operations that can be admitted right now by the token bucket.
+     *
+     * @return available tokens, negative while a large batch is being paid back
+     */
+    public double availableTokens() {
+        return availableTokens;
+    }
+
+    /**
+     * Returns the number of operations admitted since start.
+     *
+     * @return admitted count
+     */
+    public long admitted() {
+        return admitted;
+    }
+
+    /**
+     * Returns the number of requests rejected since start.
+     *
+     * @return rejected count
+     */
+    public long rejected() {
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("ovsdbIp", ovsdbIp)
+                .add("queueDepth", queueDepth)
+                .add("rejected", rejected)
+                .toString();
+    }
+}
@@ -16,19 +16,28 @@
 
 package org.onosproject.ovsdbrest;
 
-import com.google.common.collect.Maps;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Service;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Reference;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.IpAddress;
 import org.onlab.util.ItemNotFoundException;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
+import org.onosproject.mastership.MastershipService;
+import org.onosproject.net.AnnotationKeys;
 import org.onosproject.net.Device;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.behaviour.BridgeConfig;
@@ -51,33 +60,60 @@ import org.onosproject.net.config.NetworkConfigService;
 import org.onosproject.net.config.NetworkConfigEvent;
 import org.onosproject.net.config.basics.SubjectFactories;
 import org.onosproject.net.device.DeviceAdminService;
+import org.onosproject.net.device.DeviceEvent;
+import org.onosproject.net.device.DeviceListener;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.driver.DriverHandler;
 import org.onosproject.net.driver.DriverService;
+import org.onosproject.ovsdb.controller.EventSubject;
 import org.onosproject.ovsdb.controller.OvsdbClientService;
 import org.onosproject.ovsdb.controller.OvsdbController;
+import org.onosproject.ovsdb.controller.OvsdbEvent;
+import org.onosproject.ovsdb.controller.OvsdbEventListener;
+import org.onosproject.ovsdb.controller.OvsdbEventSubject;
 import org.onosproject.ovsdb.controller.OvsdbNodeId;
+import org.onosproject.store.service.StorageService;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Collection;
-import java.util.Set;
+import java.util.Comparator;
+import java.util.Dictionary;
 import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
-import java.util.Optional;
-import java.util.NoSuchElementException;
-import java.util.concurrent.atomic.AtomicLong;
-
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onosproject.ovsdbrest.BridgeInventoryCache.CachedBridge;
 import static org.onosproject.ovsdbrest.OvsdbNodeConfig.OvsdbNode;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.onlab.util.Tools.get;
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.ovsdbrest.OvsdbRestException.BridgeAlreadyExistsException;
 import static org.onosproject.ovsdbrest.OvsdbRestException.BridgeNotFoundException;
+import static org.onosproject.ovsdbrest.OvsdbRestException.JobQueueFullException;
+import static org.onosproject.ovsdbrest.OvsdbRestException.NodeOverloadedException;
 import static org.onosproject.ovsdbrest.OvsdbRestException.OvsdbDeviceException;
 
 /**
@@ -90,7 +126,43 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
     private final Logger log = LoggerFactory.getLogger(getClass());
     private ApplicationId appId;
     private static final int DPID_BEGIN = 4;
+    private static final int DPID_BLOCK_SIZE = 64;
     private static final int OFPORT = 6653;
+    private static final int LANE_QUEUE_SIZE = 1024;
+    private static final int LANE_THREADS = 16;
+    private static final int NODE_LOCK_STRIPES = 64;
+    private static final int MAX_COMPLETED_JOBS = 10000;
+    private static final int RECONCILE_INTERVAL_SECONDS = 60;
+    private static final int INVENTORY_WALK_PARALLELISM = LANE_THREADS;
+    private static final String GET_BRIDGE_ID = "GET_BRIDGE_ID";
+    private static final String DEVICE_LOOKUP = "DEVICE_LOOKUP";
+    private static final String CONNECT = "CONNECT";
+    private static final String QUEUE_DEPTH = "QUEUE_DEPTH";
+
+    private static final int NODE_REQUEST_RATE = 50;
+    @Property(name = "nodeRequestRate", intValue = NODE_REQUEST_RATE,
+            label = "Operations admitted per second on each ovsdb node, 0 for no rate limit")
+    private int nodeRequestRate = NODE_REQUEST_RATE;
+
+    private static final int NODE_REQUEST_BURST = 100;
+    @Property(name = "nodeRequestBurst", intValue = NODE_REQUEST_BURST,
+            label = "Operations admitted at once on an idle ovsdb node")
+    private int nodeRequestBurst = NODE_REQUEST_BURST;
+
+    private static final int NODE_MAX_QUEUE_DEPTH = 256;
+    @Property(name = "nodeMaxQueueDepth", intValue = NODE_MAX_QUEUE_DEPTH,
+            label = "Operations admitted but not completed on each ovsdb node, 0 for no limit")
+    private int nodeMaxQueueDepth = NODE_MAX_QUEUE_DEPTH;
+
+    private static final int STATS_POLL_MIN_SECONDS = 5;
+    @Property(name = "statsPollMinSeconds", intValue = STATS_POLL_MIN_SECONDS,
+            label = "Shortest interval between two interface statistics polls of an active ovsdb node")
+    private int statsPollMinSeconds = STATS_POLL_MIN_SECONDS;
+
+    private static final int STATS_POLL_MAX_SECONDS = 60;
+    @Property(name = "statsPollMaxSeconds", intValue = STATS_POLL_MAX_SECONDS,
+            label = "Longest interval between two interface statistics polls of an idle ovsdb node")
+    private int statsPollMaxSeconds = STATS_POLL_MAX_SECONDS;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected CoreService coreService;
@@ -116,21 +188,51 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected DriverService driverService;
 
-    private Set<OvsdbNode> ovsdbNodes;
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected StorageService storageService;
 
-    // {bridgeName: datapathId} structure to manage the creation/deletion of bridges for a specific ovsdb node
-    private Map<String, DeviceId> bridgeIds;
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MastershipService mastershipService;
 
-    // {Ovsdb node IP address: <bridge: datapathId>} structure to manage the creation/deletion of bridges
-    // within each ovsdb node, each one identified by its IP address
-    private Map<IpAddress, Map<String, DeviceId>> ovsdbTopology = Maps.newConcurrentMap();
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
 
-    private Map<OvsdbNode, Set<DeviceId>> ovsdbNodeDevIdsSetMap = Maps.newConcurrentMap();
+    private volatile OvsdbNodeIndex nodeIndex = OvsdbNodeIndex.empty();
+
+    // last configuration applied, only accessed by the event handler
+    private JsonNode appliedConfig;
+
+    // bridges of each ovsdb node, each one identified by its IP address, shared by the cluster
+    private DistributedOvsdbBridgeStore bridgeStore;
+
+    // serializes the bridge creation/deletion of each ovsdb node, nodes sharing no stripe run in parallel
+    private final Striped<Lock> nodeLocks = Striped.lock(NODE_LOCK_STRIPES);
 
     private final ExecutorService eventExecutor =
             newSingleThreadExecutor(groupedThreads("onos/ovsdb-rest-ctl", "event-handler", log));
     private final NetworkConfigListener configListener = new InternalConfigListener();
-    private final AtomicLong datapathId = new AtomicLong(DPID_BEGIN);
+    private final DeviceListener deviceListener = new InternalDeviceListener();
+    private final OvsdbEventListener ovsdbEventListener = new InternalOvsdbEventListener();
+    private final BridgeInventoryCache inventoryCache = new BridgeInventoryCache();
+    private final OvsdbJobTracker jobTracker = new OvsdbJobTracker(MAX_COMPLETED_JOBS);
+
+    // one serial lane per ovsdb node: connects and operations of a node run in order,
+    // different nodes run in parallel
+    private final NodeLaneExecutor<IpAddress> nodeLanes = new NodeLaneExecutor<>(
+            newFixedThreadPool(LANE_THREADS, groupedThreads("onos/ovsdb-rest", "node-lane-%d", log)),
+            LANE_QUEUE_SIZE);
+    private DatapathIdAllocator datapathIds;
+    private DesiredStateStore desiredStates;
+    private TunnelMeshBuilder meshBuilder;
+    private OvsdbMetrics metrics;
+    private OvsdbSessionSupervisor sessionSupervisor;
+    private NodeAdmissionController admission;
+    private InterfaceStatsCollector statsCollector;
+    private final ScheduledExecutorService reconcileExecutor =
+            newSingleThreadScheduledExecutor(groupedThreads("onos/ovsdb-rest", "reconciler", log));
 
 
     private final ConfigFactory configFactory =
@@ -142,127 +244,876 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
             };
 
     @Activate
-    protected void activate() {
+    protected void activate(ComponentContext context) {
         appId = coreService.getAppId("org.onosproject.ovsdbrest");
+        cfgService.registerProperties(getClass());
+        datapathIds = new DatapathIdAllocator(storageService, DPID_BEGIN, DPID_BLOCK_SIZE);
+        bridgeStore = new DistributedOvsdbBridgeStore(storageService);
+        desiredStates = new DesiredStateStore(storageService);
+        meshBuilder = new TunnelMeshBuilder(storageService);
+        metrics = new OvsdbMetrics(metricsService);
+        admission = new NodeAdmissionController(
+                nodeRequestRate, nodeRequestBurst, nodeMaxQueueDepth,
+                ovsdbAddress -> nodeIndex.byIp(ovsdbAddress) != null,
+                ovsdbAddress -> metrics.gauge(QUEUE_DEPTH, ovsdbAddress, () -> admission.queueDepth(ovsdbAddress)));
+        // only the master of a node polls it, so that each node gets one poll per interval
+        statsCollector = new InterfaceStatsCollector(
+                newSingleThreadScheduledExecutor(groupedThreads("onos/ovsdb-rest", "stats-collector", log)),
+                () -> nodeIndex.nodes().stream()
+                        .filter(node -> mastershipService.isLocalMaster(node.ovsdbId()))
+                        .collect(Collectors.toList()),
+                this::getOvsdbClient,
+                TimeUnit.SECONDS.toMillis(statsPollMinSeconds), TimeUnit.SECONDS.toMillis(statsPollMaxSeconds));
+        readComponentConfiguration(context);
+        sessionSupervisor = new OvsdbSessionSupervisor(
+                newSingleThreadScheduledExecutor(groupedThreads("onos/ovsdb-rest", "session-supervisor", log)),
+                () -> nodeIndex.nodes(), this::getOvsdbClient, this::requestConnect);
         configService.addListener(configListener);
         configRegistry.registerConfigFactory(configFactory);
+        deviceService.addListener(deviceListener);
+        controller.addOvsdbEventListener(ovsdbEventListener);
+        // the bridges of the nodes already connected are read back from the devices
+        eventExecutor.execute(this::readConfiguration);
+        sessionSupervisor.start();
+        statsCollector.start();
+        reconcileExecutor.scheduleWithFixedDelay(this::reconcilePeriodically, RECONCILE_INTERVAL_SECONDS,
+                                                 RECONCILE_INTERVAL_SECONDS, TimeUnit.SECONDS);
         log.info("Started");
     }
 
     @Deactivate
     protected void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
         configService.removeListener(configListener);
         configRegistry.unregisterConfigFactory(configFactory);
+        deviceService.removeListener(deviceListener);
+        controller.removeOvsdbEventListener(ovsdbEventListener);
+        reconcileExecutor.shutdownNow();
+        sessionSupervisor.stop();
+        statsCollector.stop();
         eventExecutor.shutdown();
+        nodeLanes.shutdown();
+        bridgeStore.close();
+        metrics.clear();
         log.info("Stopped");
     }
 
+    @Modified
+    protected void modified(ComponentContext context) {
+        readComponentConfiguration(context);
+    }
+
+    private void readComponentConfiguration(ComponentContext context) {
+        Dictionary<?, ?> properties = context.getProperties();
+        nodeRequestRate = intProperty(properties, "nodeRequestRate", nodeRequestRate);
+        nodeRequestBurst = intProperty(properties, "nodeRequestBurst", nodeRequestBurst);
+        nodeMaxQueueDepth = intProperty(properties, "nodeMaxQueueDepth", nodeMaxQueueDepth);
+        admission.configure(nodeRequestRate, nodeRequestBurst, nodeMaxQueueDepth);
+        log.info("Admission control: nodeRequestRate={}, nodeRequestBurst={}, nodeMaxQueueDepth={}",
+                 nodeRequestRate, nodeRequestBurst, nodeMaxQueueDepth);
+        statsPollMinSeconds = intProperty(properties, "statsPollMinSeconds", statsPollMinSeconds);
+        statsPollMaxSeconds = intProperty(properties, "statsPollMaxSeconds", statsPollMaxSeconds);
+        statsCollector.configure(TimeUnit.SECONDS.toMillis(statsPollMinSeconds),
+                                 TimeUnit.SECONDS.toMillis(statsPollMaxSeconds));
+        log.info("Interface statistics: statsPollMinSeconds={}, statsPollMaxSeconds={}",
+                 statsPollMinSeconds, statsPollMaxSeconds);
+    }
+
+    private int intProperty(Dictionary<?, ?> properties, String name, int current) {
+        String s = get(properties, name);
+        try {
+            return isNullOrEmpty(s) ? current : Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid value {} for property {}, keeping {}", s, name, current);
+            return current;
+        }
+    }
+
     @Override
     public void createBridge(IpAddress ovsdbAddress, String bridgeName)
             throws OvsdbDeviceException, BridgeAlreadyExistsException {
 
-        OvsdbNode ovsdbNode;
         log.debug("Creating bridge {} at {}", bridgeName, ovsdbAddress);
+        NodeAdmissionController.Permit permit = admission.admit(ovsdbAddress, 1);
+        OvsdbMetrics.Sample sample = metrics.start(OvsdbBridgeOperation.Type.CREATE_BRIDGE.name(), ovsdbAddress);
         try {
             //  gets the target ovsdb node
-            ovsdbNode = ovsdbNodes.stream().filter(node -> node.ovsdbIp().equals(ovsdbAddress)).findFirst().get();
-        } catch (NoSuchElementException nsee) {
-            log.info(nsee.getMessage());
-            throw new OvsdbDeviceException(nsee.getMessage());
+            OvsdbNode ovsdbNode = getOvsdbNode(ovsdbAddress);
+            runOnLane(ovsdbNode, BridgeAlreadyExistsException.class,
+                      () -> doCreateBridge(ovsdbNode, getOvsdbDevice(ovsdbNode), bridgeName, getControllers()));
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            permit.release();
+            sample.stop();
         }
+    }
 
-        // construct a unique dev id'
-        DeviceId dpid = getNextUniqueDatapathId(datapathId);
-
+    @Override
+    public void deleteBridge(IpAddress ovsdbAddress, String bridgeName)
+            throws OvsdbDeviceException, BridgeNotFoundException {
 
-        if (isBridgeCreated(ovsdbNode, bridgeName)) {
-            log.warn("A bridge with this name already exists, aborting.");
-            throw new BridgeAlreadyExistsException();
+        log.debug("Deleting bridge {} at {}", bridgeName, ovsdbAddress);
+        NodeAdmissionController.Permit permit = admission.admit(ovsdbAddress, 1);
+        OvsdbMetrics.Sample sample = metrics.start(OvsdbBridgeOperation.Type.DELETE_BRIDGE.name(), ovsdbAddress);
+        try {
+            // gets the target ovsdb node
+            OvsdbNode ovsdbNode = getOvsdbNode(ovsdbAddress);
+            runOnLane(ovsdbNode, BridgeNotFoundException.class, () -> doDeleteBridge(ovsdbNode, bridgeName));
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            permit.release();
+            sample.stop();
         }
-        List<ControllerInfo> controllers = new ArrayList<>();
-        Sets.newHashSet(clusterService.getNodes()).forEach(controller -> {
-            ControllerInfo ctrlInfo = new ControllerInfo(controller.ip(), OFPORT, "tcp");
-            controllers.add(ctrlInfo);
-            log.info("controller {}:{} added", ctrlInfo.ip().toString(), ctrlInfo.port());
-        });
+    }
+
+    @Override
+    public String getBridgeID(IpAddress ovsdbAddress, String bridgeName) throws OvsdbDeviceException {
+
+        log.debug("Getting bridge ID");
+
+        NodeAdmissionController.Permit permit = admission.admit(ovsdbAddress, 1);
+        OvsdbMetrics.Sample sample = metrics.start(GET_BRIDGE_ID, ovsdbAddress);
         try {
-            Device device = deviceService.getDevice(ovsdbNode.ovsdbId());
-            if (device == null) {
-                log.warn("Ovsdb device not found, aborting.");
-                throw new OvsdbDeviceException("Ovsdb device not found");
+            //  gets the target ovsdb node
+            OvsdbNode ovsdbNode = getOvsdbNode(ovsdbAddress);
+
+            // served from memory, the node is read from the device only on the first lookup
+            DeviceId bridgeId = inventoryCache.bridgeId(ovsdbNode.ovsdbIp(), bridgeName, this::loadInventory);
+            if (bridgeId == null) {
+                log.info("Bridge not found!");
+                return null;
             }
-            if (device.is(BridgeConfig.class)) {
-                BridgeConfig bridgeConfig = device.as(BridgeConfig.class);
-                BridgeDescription bridgeDescription = DefaultBridgeDescription.builder()
-                        .name(bridgeName)
-                        .datapathId(dpid.toString())
-                        .controllers(controllers)
-                        .build();
-                bridgeConfig.addBridge(bridgeDescription);
 
-                if (ovsdbTopology.get(ovsdbNode.ovsdbIp()) == null) {
+            log.debug("Bridge {} found with ID: {}", bridgeName, bridgeId);
+            return bridgeId.toString();
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            permit.release();
+            sample.stop();
+        }
+    }
 
+    @Override
+    public InventoryCacheStats getInventoryCacheStats() {
+        return inventoryCache.stats();
+    }
 
-                    bridgeIds = new HashMap<String, DeviceId>();
+    @Override
+    public List<OperationMetrics> getOperationMetrics() {
+        return metrics.snapshot();
+    }
 
-                    bridgeIds.put(bridgeName, bridgeDescription.deviceId().get());
+    @Override
+    public List<OvsdbSessionState> getSessionStates() {
+        return sessionSupervisor.states();
+    }
 
-                    ovsdbTopology.put(ovsdbNode.ovsdbIp(), bridgeIds);
+    @Override
+    public List<OvsdbAdmissionState> getAdmissionStates() {
+        return admission.states();
+    }
 
-                } else {
+    @Override
+    public List<OvsdbInterfaceStats> getInterfaceStats(IpAddress ovsdbAddress, long windowMillis) {
+        return statsCollector.stats(ovsdbAddress, windowMillis);
+    }
 
-                    bridgeIds = ovsdbTopology.get(ovsdbNode.ovsdbIp());
+    @Override
+    public List<OvsdbInterfaceStats> getInterfaceStatsHistory(IpAddress ovsdbAddress, String interfaceName) {
+        return statsCollector.history(ovsdbAddress, interfaceName);
+    }
 
-                    bridgeIds.put(bridgeName, bridgeDescription.deviceId().get());
+    @Override
+    public void walkInventory(Consumer<OvsdbNodeInventory> consumer) throws InterruptedException {
+        BlockingQueue<OvsdbNodeInventory> ready = new LinkedBlockingQueue<>();
+        Iterator<OvsdbNode> pending = nodeIndex.nodes().iterator();
+        int inFlight = 0;
+        while (pending.hasNext() || inFlight > 0) {
+            // keep a few nodes in flight, the consumer is the pace setter
+            while (inFlight < INVENTORY_WALK_PARALLELISM && pending.hasNext()) {
+                IpAddress ovsdbAddress = pending.next().ovsdbIp();
+                nodeLanes.submit(ovsdbAddress, () -> readNodeInventory(ovsdbAddress))
+                        .whenComplete((inventory, e) -> ready.add(
+                                e == null ? inventory : OvsdbNodeInventory.failed(ovsdbAddress, e.getMessage())));
+                inFlight++;
+            }
+            consumer.accept(ready.take());
+            inFlight--;
+        }
+    }
 
-                    ovsdbTopology.put(ovsdbNode.ovsdbIp(), bridgeIds);
+    private OvsdbNodeInventory readNodeInventory(IpAddress ovsdbAddress) {
+        try {
+            List<OvsdbNodeInventory.Bridge> bridges = inventoryCache.bridges(ovsdbAddress, this::loadInventory)
+                    .stream()
+                    .sorted(Comparator.comparing(CachedBridge::name))
+                    .map(bridge -> new OvsdbNodeInventory.Bridge(bridge.name(), bridge.deviceId(), bridge.ports()))
+                    .collect(Collectors.toList());
+            return OvsdbNodeInventory.of(ovsdbAddress, bridges);
+        } catch (OvsdbDeviceException e) {
+            return OvsdbNodeInventory.failed(ovsdbAddress, e.getMessage());
+        }
+    }
 
-                }
+    @Override
+    public void addPort(IpAddress ovsdbAddress, String bridgeName, String portName)
+            throws OvsdbDeviceException, BridgeNotFoundException {
 
-                log.info("Correctly created bridge {} at {}", bridgeName, ovsdbAddress);
-            } else {
-                log.warn("The bridging behaviour is not supported in device {}", device.id());
-                throw new OvsdbDeviceException(
-                        "The bridging behaviour is not supported in device " + device.id()
-                );
-            }
-        } catch (ItemNotFoundException e) {
-            log.warn("Failed to create integration bridge on {}", ovsdbNode.ovsdbIp());
-            throw new OvsdbDeviceException("Error with ovsdb device: item not found");
+        log.debug("Adding port {} to bridge {} at {}", portName, bridgeName, ovsdbAddress);
+        NodeAdmissionController.Permit permit = admission.admit(ovsdbAddress, 1);
+        OvsdbMetrics.Sample sample = metrics.start(OvsdbBridgeOperation.Type.ADD_PORT.name(), ovsdbAddress);
+        try {
+            // gets the target ovsdb node
+            OvsdbNode ovsdbNode = getOvsdbNode(ovsdbAddress);
+            runOnLane(ovsdbNode, BridgeNotFoundException.class,
+                      () -> doAddPort(ovsdbNode, getOvsdbDevice(ovsdbNode), bridgeName, portName));
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            permit.release();
+            sample.stop();
         }
     }
 
     @Override
-    public void deleteBridge(IpAddress ovsdbAddress, String bridgeName)
+    public void removePort(IpAddress ovsdbAddress, String bridgeName, String portName)
             throws OvsdbDeviceException, BridgeNotFoundException {
 
-        OvsdbNode ovsdbNode;
-        log.debug("Deleting bridge {} at {}", bridgeName, ovsdbAddress);
+        log.debug("Deleting port {} to bridge {} at {}", portName, bridgeName, ovsdbAddress);
+        NodeAdmissionController.Permit permit = admission.admit(ovsdbAddress, 1);
+        OvsdbMetrics.Sample sample = metrics.start(OvsdbBridgeOperation.Type.REMOVE_PORT.name(), ovsdbAddress);
+        try {
+            // gets the target ovsdb node
+            OvsdbNode ovsdbNode = getOvsdbNode(ovsdbAddress);
+            runOnLane(ovsdbNode, BridgeNotFoundException.class,
+                      () -> doRemovePort(ovsdbNode, getOvsdbDevice(ovsdbNode), bridgeName, portName));
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            permit.release();
+            sample.stop();
+        }
+    }
+
+    @Override
+    public void createPatchPeerPort(IpAddress ovsdbAddress, String bridgeName, String portName, String patchPeer)
+            throws OvsdbDeviceException {
+
+        log.debug("Setting port {} as peer of port {}", portName, patchPeer);
+        NodeAdmissionController.Permit permit = admission.admit(ovsdbAddress, 1);
+        OvsdbMetrics.Sample sample = metrics.start(OvsdbBridgeOperation.Type.CREATE_PATCH.name(), ovsdbAddress);
+        try {
+            // gets the target ovsdb node
+            OvsdbNode ovsdbNode = getOvsdbNode(ovsdbAddress);
+            runOnLane(ovsdbNode, OvsdbDeviceException.class,
+                      () -> doCreatePatchPeerPort(ovsdbNode, getOvsdbDevice(ovsdbNode), bridgeName, portName,
+                                                  patchPeer));
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            permit.release();
+            sample.stop();
+        }
+    }
+
+    @Override
+    public void createGreTunnel(IpAddress ovsdbAddress, String bridgeName, String portName, IpAddress localIp,
+                                IpAddress remoteIp, String key)
+            throws OvsdbDeviceException, BridgeNotFoundException {
 
+        log.debug("Setting up tunnel GRE from {} to {} with key {}",
+                localIp, remoteIp, key);
+        NodeAdmissionController.Permit permit = admission.admit(ovsdbAddress, 1);
+        OvsdbMetrics.Sample sample = metrics.start(OvsdbBridgeOperation.Type.CREATE_GRE_TUNNEL.name(), ovsdbAddress);
         try {
             // gets the target ovsdb node
-            ovsdbNode = ovsdbNodes.stream().filter(node -> node.ovsdbIp().equals(ovsdbAddress)).findFirst().get();
-        } catch (NoSuchElementException nsee) {
-            log.warn(nsee.getMessage());
-            throw new OvsdbDeviceException(nsee.getMessage());
+            OvsdbNode ovsdbNode = getOvsdbNode(ovsdbAddress);
+            runOnLane(ovsdbNode, BridgeNotFoundException.class,
+                      () -> doCreateTunnel(ovsdbNode, getOvsdbDevice(ovsdbNode), bridgeName, portName,
+                                           OvsdbTunnelType.GRE, localIp, remoteIp, key));
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            permit.release();
+            sample.stop();
         }
+    }
 
-        bridgeIds = ovsdbTopology.get(ovsdbNode.ovsdbIp());
+    @Override
+    public void deleteGreTunnel(IpAddress ovsdbAddress, String bridgeName, String portName)
+            throws OvsdbDeviceException {
+
+        log.debug("Deleting tunnel GRE from interface {}",
+                portName);
+        NodeAdmissionController.Permit permit = admission.admit(ovsdbAddress, 1);
+        OvsdbMetrics.Sample sample = metrics.start(OvsdbBridgeOperation.Type.DELETE_GRE_TUNNEL.name(), ovsdbAddress);
+        try {
+            // gets the target ovsdb node
+            OvsdbNode ovsdbNode = getOvsdbNode(ovsdbAddress);
+            runOnLane(ovsdbNode, OvsdbDeviceException.class,
+                      () -> doDeleteTunnel(ovsdbNode, getOvsdbDevice(ovsdbNode), bridgeName, portName));
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            permit.release();
+            sample.stop();
+        }
+    }
+
+    @Override
+    public void createTunnel(IpAddress ovsdbAddress, String bridgeName, String portName, OvsdbTunnelType tunnelType,
+                             IpAddress localIp, IpAddress remoteIp, String key) throws OvsdbDeviceException {
+
+        log.debug("Setting up tunnel {} from {} to {} with key {}", tunnelType, localIp, remoteIp, key);
+        NodeAdmissionController.Permit permit = admission.admit(ovsdbAddress, 1);
+        OvsdbMetrics.Sample sample = metrics.start(OvsdbBridgeOperation.Type.CREATE_TUNNEL.name(), ovsdbAddress);
+        try {
+            // gets the target ovsdb node
+            OvsdbNode ovsdbNode = getOvsdbNode(ovsdbAddress);
+            runOnLane(ovsdbNode, OvsdbDeviceException.class,
+                      () -> doCreateTunnel(ovsdbNode, getOvsdbDevice(ovsdbNode), bridgeName, portName, tunnelType,
+                                           localIp, remoteIp, key));
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            permit.release();
+            sample.stop();
+        }
+    }
+
+    @Override
+    public List<OvsdbOperationResult> createTunnelMesh(String meshName, OvsdbTunnelType tunnelType,
+                                                       String bridgeName, Map<IpAddress, IpAddress> endpoints) {
+        checkConfigured(endpoints.keySet());
+        List<OvsdbBridgeOperation> operations = meshBuilder.build(meshName, tunnelType, bridgeName, endpoints);
+        log.info("Building {} mesh {} with {} tunnels on {} nodes",
+                 tunnelType, meshName, operations.size(), endpoints.size());
+        // one batch per node, all nodes in parallel
+        NodeAdmissionController.Permit permit = admit(operations);
+        return dispatch(operations, () -> { }).whenComplete((results, e) -> permit.release()).join();
+    }
+
+    @Override
+    public List<OvsdbOperationResult> applyBatch(List<OvsdbBridgeOperation> operations) {
+        NodeAdmissionController.Permit permit = admit(operations);
+        return dispatch(operations, () -> { }).whenComplete((results, e) -> permit.release()).join();
+    }
+
+    @Override
+    public List<OvsdbOperationResult> applyTransaction(IpAddress ovsdbAddress,
+                                                       List<OvsdbBridgeOperation> operations) {
+        for (OvsdbBridgeOperation operation : operations) {
+            checkArgument(ovsdbAddress.equals(operation.ovsdbIp()),
+                          "Operation %s does not target ovsdb node %s", operation.type(), ovsdbAddress);
+            checkArgument(operation.isReversible(),
+                          "Operation %s cannot be part of a transaction", operation.type());
+        }
+        if (operations.isEmpty()) {
+            return ImmutableList.of();
+        }
+        checkConfigured(ImmutableSet.of(ovsdbAddress));
+        NodeAdmissionController.Permit permit = admission.admit(ovsdbAddress, operations.size());
+        return nodeLanes.submit(ovsdbAddress, () -> applyTransactionOnNode(ovsdbAddress, operations))
+                .handle((results, error) -> {
+                    permit.release();
+                    if (error == null) {
+                        return results;
+                    }
+                    Exception failure = laneFailure(ovsdbAddress, error);
+                    return operations.stream()
+                            .map(operation -> OvsdbOperationResult.failure(operation, failure))
+                            .collect(Collectors.toList());
+                }).join();
+    }
+
+    @Override
+    public OvsdbJob submitJob(List<OvsdbBridgeOperation> operations) throws JobQueueFullException {
+        // checks every node can take its part of the job before queueing anything
+        Set<IpAddress> ovsdbAddresses = groupByNode(operations).keySet();
+        checkConfigured(ovsdbAddresses);
+        for (IpAddress ovsdbAddress : ovsdbAddresses) {
+            if (!nodeLanes.hasCapacity(ovsdbAddress)) {
+                log.warn("Too many pending jobs for ovsdb node {}", ovsdbAddress);
+                throw new JobQueueFullException("Too many pending jobs for ovsdb node " + ovsdbAddress);
+            }
+        }
 
-        DeviceId deviceId = bridgeIds.get(bridgeName);
-        if (deviceId == null) {
-            log.warn("No bridge with this name, aborting.");
-            throw new BridgeNotFoundException();
+        NodeAdmissionController.Permit permit = admit(operations);
+        OvsdbJob job = jobTracker.create(operations);
+        dispatch(operations, job::started).thenAccept(results -> {
+            permit.release();
+            jobTracker.complete(job, results);
+        });
+        log.debug("Submitted job {} with {} operations", job.id(), operations.size());
+        return job;
+    }
+
+    @Override
+    public OvsdbJob getJob(long jobId) {
+        return jobTracker.get(jobId);
+    }
+
+    @Override
+    public List<OvsdbJob> awaitCompletedJobs(long afterSequence, long timeoutMillis) throws InterruptedException {
+        return jobTracker.completedAfter(afterSequence, timeoutMillis);
+    }
+
+    @Override
+    public void setDesiredState(IpAddress ovsdbAddress, List<OvsdbBridgeOperation> operations) {
+        desiredStates.set(ovsdbAddress, operations);
+    }
+
+    @Override
+    public List<OvsdbBridgeOperation> getDesiredState(IpAddress ovsdbAddress) {
+        return desiredStates.get(ovsdbAddress);
+    }
+
+    @Override
+    public void removeDesiredState(IpAddress ovsdbAddress) {
+        desiredStates.remove(ovsdbAddress);
+    }
+
+    @Override
+    public List<OvsdbOperationResult> reconcile() {
+        return reconcileNodes().join();
+    }
+
+    private void reconcilePeriodically() {
+        try {
+            List<OvsdbOperationResult> results = reconcileNodes().join();
+            long failed = results.stream().filter(result -> !result.isSuccess()).count();
+            if (!results.isEmpty()) {
+                log.info("Reconciliation applied {} changes, {} failed", results.size(), failed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Brings the nodes mastered by this instance to their desired state.
+     * The actual state of every node is read in parallel, then the missing
+     * elements of all nodes are applied as a single batch.
+     *
+     * @return future completed with the result of each change applied
+     */
+    private CompletableFuture<List<OvsdbOperationResult>> reconcileNodes() {
+        List<CompletableFuture<List<OvsdbBridgeOperation>>> nodeChanges = new ArrayList<>();
+        for (IpAddress ovsdbAddress : desiredStates.nodes()) {
+            OvsdbNode ovsdbNode = nodeIndex.byIp(ovsdbAddress);
+            // each node is reconciled by the master of its ovsdb device only
+            if (ovsdbNode == null || !mastershipService.isLocalMaster(ovsdbNode.ovsdbId())) {
+                continue;
+            }
+            List<OvsdbBridgeOperation> desired = desiredStates.get(ovsdbAddress);
+            nodeChanges.add(nodeLanes.submit(ovsdbAddress,
+                                             () -> DesiredStateStore.diff(desired, actualState(ovsdbNode)))
+                    .exceptionally(e -> {
+                        log.warn("Failed to read the state of ovsdb node {}: {}", ovsdbNode, e.getMessage());
+                        return ImmutableList.of();
+                    }));
+        }
+        return CompletableFuture.allOf(nodeChanges.toArray(new CompletableFuture[nodeChanges.size()]))
+                .thenCompose(v -> {
+                    List<OvsdbBridgeOperation> changes = nodeChanges.stream()
+                            .flatMap(future -> future.join().stream())
+                            .collect(Collectors.toList());
+                    if (changes.isEmpty()) {
+                        return CompletableFuture.completedFuture(ImmutableList.of());
+                    }
+                    log.debug("Reconciling {} changes", changes.size());
+                    return dispatch(changes, () -> { });
+                });
+    }
+
+    /**
+     * Reads the bridges of a node and their ports from the device.
+     *
+     * @param ovsdbNode the ovsdb node
+     * @return map from bridge name to the names of its ports
+     */
+    private Map<String, Set<String>> actualState(OvsdbNode ovsdbNode) {
+        // drift is detected on fresh data, the cache is refilled on the way
+        inventoryCache.invalidate(ovsdbNode.ovsdbIp());
+        Map<String, Set<String>> actual = new HashMap<>();
+        try {
+            inventoryCache.bridges(ovsdbNode.ovsdbIp(), this::loadInventory)
+                    .forEach(bridge -> actual.put(bridge.name(), bridge.ports()));
+        } catch (OvsdbDeviceException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        return actual;
+    }
+
+    /**
+     * Admits operations on all their ovsdb nodes, one token per operation.
+     *
+     * @param operations the operations
+     * @return permit to release once the operations complete
+     * @throws NodeOverloadedException if a node cannot take its operations now
+     */
+    private NodeAdmissionController.Permit admit(List<OvsdbBridgeOperation> operations) {
+        Map<IpAddress, Integer> counts = new LinkedHashMap<>();
+        groupByNode(operations).forEach((ovsdbAddress, indexes) -> counts.put(ovsdbAddress, indexes.size()));
+        checkConfigured(counts.keySet());
+        return admission.admit(counts);
+    }
+
+    /**
+     * Rejects the requests targeting nodes that are not configured, before
+     * any lane or admission state is created for them.
+     *
+     * @param ovsdbAddresses the ovsdb IP addresses targeted by a request
+     * @throws ItemNotFoundException if a node is not configured
+     */
+    private void checkConfigured(Collection<IpAddress> ovsdbAddresses) {
+        for (IpAddress ovsdbAddress : ovsdbAddresses) {
+            if (nodeIndex.byIp(ovsdbAddress) == null) {
+                throw new ItemNotFoundException("No ovsdb node configured at " + ovsdbAddress);
+            }
+        }
+    }
+
+    /**
+     * Work on an ovsdb node run by a single-operation request.
+     */
+    @FunctionalInterface
+    private interface NodeTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs a single-operation request on the lane of its ovsdb node and waits
+     * for it, so that it stays ordered with the batches, connections and
+     * reconciliations queued on that node.
+     *
+     * @param ovsdbNode the target ovsdb node
+     * @param declared checked exception thrown by the task besides OvsdbDeviceException
+     * @param task the work to run on the lane
+     * @param <X> type of the checked exception
+     * @throws OvsdbDeviceException if the task fails on the device or the lane of the node is full
+     * @throws X if the task throws it
+     */
+    private <X extends Exception> void runOnLane(OvsdbNode ovsdbNode, Class<X> declared, NodeTask task)
+            throws OvsdbDeviceException, X {
+        Exception failure;
+        try {
+            failure = nodeLanes.submit(ovsdbNode.ovsdbIp(), () -> {
+                try {
+                    task.run();
+                    return null;
+                } catch (Exception e) {
+                    return e;
+                }
+            }).join();
+        } catch (CompletionException e) {
+            failure = laneFailure(ovsdbNode.ovsdbIp(), e);
+        }
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof OvsdbDeviceException) {
+            throw (OvsdbDeviceException) failure;
+        }
+        if (declared.isInstance(failure)) {
+            throw declared.cast(failure);
+        }
+        throw new IllegalStateException(failure);
+    }
+
+    /**
+     * Returns the failure reported for work that did not complete on the lane
+     * of a node. A full lane means the node has too many pending operations;
+     * any other error is logged and passed through.
+     *
+     * @param ovsdbAddress the ovsdb IP address
+     * @param error the error of the lane future
+     * @return the failure cause
+     */
+    private Exception laneFailure(IpAddress ovsdbAddress, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ?
+                error.getCause() : error;
+        if (cause instanceof NodeLaneExecutor.LaneFullException) {
+            return new OvsdbDeviceException("Too many pending operations for ovsdb node " + ovsdbAddress);
+        }
+        log.warn("Operations on ovsdb node {} failed", ovsdbAddress, cause);
+        return cause instanceof Exception ? (Exception) cause : new IllegalStateException(cause);
+    }
+
+    /**
+     * Queues the operations on the lanes of their ovsdb nodes. Operations of the
+     * same node run in order on that node's lane, nodes run in parallel.
+     *
+     * @param operations the operations
+     * @param onStart action run when the operations of a node start
+     * @return future completed with the result of each operation, in the same order as the operations
+     */
+    private CompletableFuture<List<OvsdbOperationResult>> dispatch(List<OvsdbBridgeOperation> operations,
+                                                                   Runnable onStart) {
+        OvsdbOperationResult[] results = new OvsdbOperationResult[operations.size()];
+        Map<IpAddress, List<Integer>> opsByNode = groupByNode(operations);
+        log.debug("Applying {} operations on {} ovsdb nodes", operations.size(), opsByNode.size());
+
+        List<CompletableFuture<Void>> nodeFutures = new ArrayList<>();
+        opsByNode.forEach((ovsdbAddress, indexes) -> {
+            List<OvsdbBridgeOperation> nodeOperations = indexes.stream()
+                    .map(operations::get)
+                    .collect(Collectors.toList());
+            if (nodeIndex.byIp(ovsdbAddress) == null) {
+                // the node was removed since the request was admitted: no lane is created for it
+                OvsdbDeviceException e = new OvsdbDeviceException("No ovsdb node configured at " + ovsdbAddress);
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = OvsdbOperationResult.failure(nodeOperations.get(i), e);
+                }
+                return;
+            }
+            nodeFutures.add(nodeLanes.submit(ovsdbAddress, () -> {
+                onStart.run();
+                return applyOnNode(ovsdbAddress, nodeOperations);
+            }).handle((nodeResults, error) -> {
+                Exception failure = error == null ? null : laneFailure(ovsdbAddress, error);
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = failure == null ? nodeResults.get(i) :
+                            OvsdbOperationResult.failure(nodeOperations.get(i), failure);
+                }
+                return null;
+            }));
+        });
+        return CompletableFuture.allOf(nodeFutures.toArray(new CompletableFuture[nodeFutures.size()]))
+                .thenApply(v -> Arrays.asList(results));
+    }
+
+    /**
+     * Applies operations targeting a single ovsdb node, in order.
+     *
+     * @param ovsdbAddress the ovsdb IP address
+     * @param operations the operations
+     * @return the result of each operation
+     */
+    private List<OvsdbOperationResult> applyOnNode(IpAddress ovsdbAddress, List<OvsdbBridgeOperation> operations) {
+        List<OvsdbOperationResult> results = new ArrayList<>(operations.size());
+        OvsdbNode ovsdbNode;
+        Device device;
+        try {
+            // node and device are resolved once for the whole group
+            ovsdbNode = getOvsdbNode(ovsdbAddress);
+            device = getOvsdbDevice(ovsdbNode);
+        } catch (OvsdbDeviceException e) {
+            operations.forEach(operation -> results.add(OvsdbOperationResult.failure(operation, e)));
+            return results;
+        }
+
+        // controllers are the same for every bridge created by this group
+        List<ControllerInfo> controllers = getControllers();
+        for (OvsdbBridgeOperation operation : operations) {
+            try {
+                applyOperation(ovsdbNode, device, operation, controllers);
+                results.add(OvsdbOperationResult.success(operation));
+            } catch (OvsdbDeviceException | BridgeAlreadyExistsException | BridgeNotFoundException e) {
+                results.add(OvsdbOperationResult.failure(operation, e));
+            } catch (RuntimeException e) {
+                log.warn("Unexpected failure applying {}", operation, e);
+                results.add(OvsdbOperationResult.failure(operation, e));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Applies operations targeting a single ovsdb node as an {@link OvsdbTransaction}.
+     * The node lock is held throughout, so that no other bridge creation or deletion
+     * of the node interleaves with the transaction or its rollback.
+     *
+     * @param ovsdbAddress the ovsdb IP address
+     * @param operations the operations, all reversible
+     * @return the result of each operation
+     */
+    private List<OvsdbOperationResult> applyTransactionOnNode(IpAddress ovsdbAddress,
+                                                              List<OvsdbBridgeOperation> operations) {
+        List<OvsdbOperationResult> results = new ArrayList<>(operations.size());
+        OvsdbNode ovsdbNode;
+        Device device;
+        try {
+            ovsdbNode = getOvsdbNode(ovsdbAddress);
+            device = getOvsdbDevice(ovsdbNode);
+        } catch (OvsdbDeviceException e) {
+            operations.forEach(operation -> results.add(OvsdbOperationResult.failure(operation, e)));
+            return results;
+        }
+
+        List<ControllerInfo> controllers = getControllers();
+        Lock nodeLock = nodeLocks.get(ovsdbAddress);
+        nodeLock.lock();
+        try {
+            return new OvsdbTransaction(operation -> applyInTransaction(ovsdbNode, device, operation, controllers))
+                    .apply(operations);
+        } finally {
+            nodeLock.unlock();
+        }
+    }
+
+    private OvsdbOperationResult applyInTransaction(OvsdbNode ovsdbNode, Device device,
+                                                    OvsdbBridgeOperation operation,
+                                                    List<ControllerInfo> controllers) {
+        try {
+            applyOperation(ovsdbNode, device, operation, controllers);
+            return OvsdbOperationResult.success(operation);
+        } catch (OvsdbDeviceException | BridgeAlreadyExistsException | BridgeNotFoundException e) {
+            return OvsdbOperationResult.failure(operation, e);
+        } catch (RuntimeException e) {
+            log.warn("Unexpected failure applying {}", operation, e);
+            return OvsdbOperationResult.failure(operation, e);
+        }
+    }
+
+    /**
+     * Groups operations per ovsdb node, keeping the original order within each node.
+     *
+     * @param operations the operations
+     * @return map from ovsdb IP address to the indexes of its operations
+     */
+    private static Map<IpAddress, List<Integer>> groupByNode(List<OvsdbBridgeOperation> operations) {
+        Map<IpAddress, List<Integer>> opsByNode = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            opsByNode.computeIfAbsent(operations.get(i).ovsdbIp(), ip -> new ArrayList<>()).add(i);
+        }
+        return opsByNode;
+    }
+
+    /**
+     * Applies an operation to an already resolved ovsdb node.
+     *
+     * @param ovsdbNode the target ovsdb node
+     * @param device the device of the ovsdb node
+     * @param operation the operation to apply
+     * @param controllers the controllers of the bridges created by the operation
+     */
+    private void applyOperation(OvsdbNode ovsdbNode, Device device, OvsdbBridgeOperation operation,
+                                List<ControllerInfo> controllers)
+            throws OvsdbDeviceException, BridgeAlreadyExistsException, BridgeNotFoundException {
+        OvsdbMetrics.Sample sample = metrics.start(operation.type().name(), ovsdbNode.ovsdbIp());
+        try {
+            doApplyOperation(ovsdbNode, device, operation, controllers);
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    private void doApplyOperation(OvsdbNode ovsdbNode, Device device, OvsdbBridgeOperation operation,
+                                  List<ControllerInfo> controllers)
+            throws OvsdbDeviceException, BridgeAlreadyExistsException, BridgeNotFoundException {
+        switch (operation.type()) {
+            case CREATE_BRIDGE:
+                doCreateBridge(ovsdbNode, device, operation.bridgeName(), controllers);
+                break;
+            case DELETE_BRIDGE:
+                doDeleteBridge(ovsdbNode, operation.bridgeName());
+                break;
+            case ADD_PORT:
+                doAddPort(ovsdbNode, device, operation.bridgeName(), operation.portName());
+                break;
+            case REMOVE_PORT:
+                doRemovePort(ovsdbNode, device, operation.bridgeName(), operation.portName());
+                break;
+            case CREATE_PATCH:
+                doCreatePatchPeerPort(ovsdbNode, device, operation.bridgeName(), operation.portName(),
+                                      operation.patchPeer());
+                break;
+            case CREATE_GRE_TUNNEL:
+            case CREATE_TUNNEL:
+                doCreateTunnel(ovsdbNode, device, operation.bridgeName(), operation.portName(),
+                               operation.tunnelType(), operation.localIp(), operation.remoteIp(), operation.key());
+                break;
+            case DELETE_GRE_TUNNEL:
+            case DELETE_TUNNEL:
+                doDeleteTunnel(ovsdbNode, device, operation.bridgeName(), operation.portName());
+                break;
+            default:
+                throw new OvsdbDeviceException("Unsupported operation " + operation.type());
+        }
+    }
+
+    private void doCreateBridge(OvsdbNode ovsdbNode, Device device, String bridgeName,
+                                List<ControllerInfo> controllers)
+            throws OvsdbDeviceException, BridgeAlreadyExistsException {
+
+        Lock nodeLock = nodeLocks.get(ovsdbNode.ovsdbIp());
+        nodeLock.lock();
+        try {
+            if (isBridgeCreated(ovsdbNode, bridgeName)) {
+                log.warn("A bridge with this name already exists, aborting.");
+                throw new BridgeAlreadyExistsException();
+            }
+
+            if (device.is(BridgeConfig.class)) {
+                // construct a unique dev id'
+                DeviceId dpid = datapathIds.allocate(id -> deviceService.getDevice(id) != null);
+
+                BridgeConfig bridgeConfig = device.as(BridgeConfig.class);
+                BridgeDescription bridgeDescription = DefaultBridgeDescription.builder()
+                        .name(bridgeName)
+                        .datapathId(dpid.toString())
+                        .controllers(controllers)
+                        .build();
+                bridgeConfig.addBridge(bridgeDescription);
+
+                DeviceId bridgeId = bridgeDescription.deviceId().get();
+                if (!bridgeStore.addBridge(ovsdbNode.ovsdbIp(), bridgeName, bridgeId)) {
+                    // a stale entry whose device is gone, replaced by the new bridge
+                    bridgeStore.removeBridge(ovsdbNode.ovsdbIp(), bridgeName);
+                    bridgeStore.addBridge(ovsdbNode.ovsdbIp(), bridgeName, bridgeId);
+                }
+                nodeIndex.registerBridge(bridgeId, ovsdbNode.ovsdbIp());
+                inventoryCache.bridgeAdded(ovsdbNode.ovsdbIp(), bridgeName, bridgeId);
+
+                log.info("Correctly created bridge {} at {}", bridgeName, ovsdbNode.ovsdbIp());
+            } else {
+                log.warn("The bridging behaviour is not supported in device {}", device.id());
+                throw new OvsdbDeviceException(
+                        "The bridging behaviour is not supported in device " + device.id()
+                );
+            }
+        } catch (ItemNotFoundException e) {
+            log.warn("Failed to create integration bridge on {}", ovsdbNode.ovsdbIp());
+            throw new OvsdbDeviceException("Error with ovsdb device: item not found");
+        } finally {
+            nodeLock.unlock();
         }
+    }
 
-        log.debug("Device id is: " + deviceId.toString());
+    private void doDeleteBridge(OvsdbNode ovsdbNode, String bridgeName)
+            throws OvsdbDeviceException, BridgeNotFoundException {
 
+        Lock nodeLock = nodeLocks.get(ovsdbNode.ovsdbIp());
+        nodeLock.lock();
         try {
-            Device device = deviceService.getDevice(ovsdbNode.ovsdbId());
-            if (device == null) {
-                log.warn("Ovsdb device not found, aborting.");
-                throw new OvsdbDeviceException("Ovsdb device not found");
+            DeviceId deviceId = bridgeStore.getBridge(ovsdbNode.ovsdbIp(), bridgeName);
+            if (deviceId == null) {
+                log.warn("No bridge with this name, aborting.");
+                throw new BridgeNotFoundException();
             }
+
+            log.debug("Device id is: " + deviceId.toString());
+
+            Device device = getOvsdbDevice(ovsdbNode);
             if (device.is(BridgeConfig.class)) {
 
                 // unregister bridge from its controllers
@@ -276,13 +1127,15 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
                 bridgeConfig.deleteBridge(BridgeName.bridgeName(bridgeName));
 
                 // Remove a bridge from a specific ovsdb node
-                bridgeIds = ovsdbTopology.get(ovsdbNode.ovsdbIp());
-                bridgeIds.remove(bridgeName);
+                bridgeStore.removeBridge(ovsdbNode.ovsdbIp(), bridgeName);
+                nodeIndex.unregisterBridge(deviceId);
+                inventoryCache.bridgeRemoved(ovsdbNode.ovsdbIp(), bridgeName);
 
                 // remove bridge from onos devices
                 adminService.removeDevice(deviceId);
+                datapathIds.release(deviceId);
 
-                log.info("Correctly deleted bridge {} at {}", bridgeName, ovsdbAddress);
+                log.info("Correctly deleted bridge {} at {}", bridgeName, ovsdbNode.ovsdbIp());
             } else {
                 log.warn("The bridging behaviour is not supported in device {}", device.id());
                 throw new OvsdbDeviceException(
@@ -292,90 +1145,20 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
         } catch (ItemNotFoundException e) {
             log.warn("Failed to delete bridge on {}", ovsdbNode.ovsdbIp());
             throw new OvsdbDeviceException("Error with ovsdb device: item not found");
+        } finally {
+            nodeLock.unlock();
         }
     }
 
-    @Override
-    public String getBridgeID(IpAddress ovsdbAddress, String bridgeName) throws OvsdbDeviceException {
-
-        OvsdbNode ovsdbNode;
-        BridgeDescription description;
-
-        log.info("Getting bridge ID");
-
-        try {
-            //  gets the target ovsdb node
-            ovsdbNode = ovsdbNodes.stream().filter(node -> node.ovsdbIp().equals(ovsdbAddress)).findFirst().get();
-        } catch (NoSuchElementException nsee) {
-            log.info(nsee.getMessage());
-            throw new OvsdbDeviceException(nsee.getMessage());
-        }
-
-        Device device = deviceService.getDevice(ovsdbNode.ovsdbId());
-        if (device == null) {
-            log.warn("Ovsdb device not found, aborting.");
-            throw new OvsdbDeviceException("Ovsdb device not found");
-        }
-
-        BridgeConfig bridgeConfig = device.as(BridgeConfig.class);
-
-        Collection<BridgeDescription> collection = bridgeConfig.getBridges();
-
-        for (Iterator iterator = collection.iterator(); iterator.hasNext();) {
-
-            description = (BridgeDescription) iterator.next();
-
-            if ((description.name()).equals(bridgeName)) {
-
-                try {
-
-                    device = deviceService.getDevice(description.deviceId().get());
-
-                } catch (NoSuchElementException exception) {
-
-                    log.warn(exception.getMessage());
-                    throw new OvsdbDeviceException(exception.getMessage());
-                }
-
-                log.info("Bridge " + description.name() + " found with ID: " + device.id().toString());
-
-                return device.id().toString();
-
-            }
-        }
-
-        log.info("Bridge not found!");
-
-        return null;
-     }
-
-    @Override
-    public void addPort(IpAddress ovsdbAddress, String bridgeName, String portName)
-            throws OvsdbDeviceException, BridgeNotFoundException {
-
-        OvsdbNode ovsdbNode;
-        log.debug("Adding port {} to bridge {} at {}", portName, bridgeName, ovsdbAddress);
-
-        try {
-            // gets the target ovsdb node
-            ovsdbNode = ovsdbNodes.stream().filter(node -> node.ovsdbIp().equals(ovsdbAddress)).findFirst().get();
-        } catch (NoSuchElementException nsee) {
-            log.warn(nsee.getMessage());
-            throw new OvsdbDeviceException(nsee.getMessage());
-        }
-
+    private void doAddPort(OvsdbNode ovsdbNode, Device device, String bridgeName, String portName)
+            throws OvsdbDeviceException {
         try {
-            Device device = deviceService.getDevice(ovsdbNode.ovsdbId());
-            log.debug("OvsdbNode.ovsdbId = " + ovsdbNode.ovsdbId());
-            if (device == null) {
-                log.warn("Ovsdb device not found, aborting.");
-                throw new OvsdbDeviceException("Ovsdb device not found");
-            }
             if (device.is(BridgeConfig.class)) {
                 // add port to bridge through ovsdb
                 BridgeConfig bridgeConfig = device.as(BridgeConfig.class);
                 bridgeConfig.addPort(BridgeName.bridgeName(bridgeName), portName);
-                log.info("Correctly added port {} to bridge {} at {}", portName, bridgeName, ovsdbAddress);
+                inventoryCache.portAdded(ovsdbNode.ovsdbIp(), bridgeName, portName);
+                log.info("Correctly added port {} to bridge {} at {}", portName, bridgeName, ovsdbNode.ovsdbIp());
             } else {
                 log.warn("The bridging behaviour is not supported in device {}", device.id());
                 throw new OvsdbDeviceException(
@@ -383,40 +1166,23 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
                 );
             }
         } catch (ItemNotFoundException e) {
-            log.warn("Failed to delete bridge on {}", ovsdbNode.ovsdbIp());
+            log.warn("Failed to add port on {}", ovsdbNode.ovsdbIp());
             throw new OvsdbDeviceException("Error with ovsdb device: item not found");
         }
     }
 
-    @Override
-    public void removePort(IpAddress ovsdbAddress, String bridgeName, String portName)
-            throws OvsdbDeviceException, BridgeNotFoundException {
-
-        OvsdbNode ovsdbNode;
-        log.debug("Deleting port {} to bridge {} at {}", portName, bridgeName, ovsdbAddress);
-
-        try {
-            // gets the target ovsdb node
-            ovsdbNode = ovsdbNodes.stream().filter(node -> node.ovsdbIp().equals(ovsdbAddress)).findFirst().get();
-
-        } catch (NoSuchElementException nsee) {
-            log.warn(nsee.getMessage());
-            throw new OvsdbDeviceException(nsee.getMessage());
-        }
-
+    private void doRemovePort(OvsdbNode ovsdbNode, Device device, String bridgeName, String portName)
+            throws OvsdbDeviceException {
         try {
-            Device device = deviceService.getDevice(ovsdbNode.ovsdbId());
-            if (device == null) {
-                log.warn("Ovsdb device not found, aborting.");
-                throw new OvsdbDeviceException("Ovsdb device not found");
-            }
             if (device.is(BridgeConfig.class)) {
 
                 // delete port from bridge through ovsdb
                 BridgeConfig bridgeConfig = device.as(BridgeConfig.class);
                 bridgeConfig.deletePort(BridgeName.bridgeName(bridgeName), portName);
+                inventoryCache.portRemoved(ovsdbNode.ovsdbIp(), bridgeName, portName);
 
-                log.info("Correctly deleted port {} from bridge {} at {}", portName, bridgeName, ovsdbAddress);
+                log.info("Correctly deleted port {} from bridge {} at {}", portName, bridgeName,
+                         ovsdbNode.ovsdbIp());
 
             } else {
                 log.warn("The bridging behaviour is not supported in device {}", device.id());
@@ -425,33 +1191,15 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
                 );
             }
         } catch (ItemNotFoundException e) {
-            log.warn("Failed to delete bridge on {}", ovsdbNode.ovsdbIp());
+            log.warn("Failed to delete port on {}", ovsdbNode.ovsdbIp());
             throw new OvsdbDeviceException("Error with ovsdb device: item not found");
         }
     }
 
-    @Override
-    public void createPatchPeerPort(IpAddress ovsdbAddress, String bridgeName, String portName, String patchPeer)
+    private void doCreatePatchPeerPort(OvsdbNode ovsdbNode, Device device, String bridgeName, String portName,
+                                       String patchPeer)
             throws OvsdbDeviceException {
 
-        OvsdbNode ovsdbNode;
-        log.debug("Setting port {} as peer of port {}", portName, patchPeer);
-
-        try {
-            // gets the target ovsdb node
-            ovsdbNode = ovsdbNodes.stream().filter(node -> node.ovsdbIp().equals(ovsdbAddress)).findFirst().get();
-        } catch (NoSuchElementException nsee) {
-            log.warn(nsee.getMessage());
-            throw new OvsdbDeviceException(nsee.getMessage());
-        }
-
-        Device device = deviceService.getDevice(ovsdbNode.ovsdbId());
-        log.debug("OvsdbNode.ovsdbId = " + ovsdbNode.ovsdbId());
-        if (device == null) {
-            log.warn("Ovsdb device not found, aborting.");
-            throw new OvsdbDeviceException("Ovsdb device not found");
-        }
-
         if (device.is(InterfaceConfig.class)) {
             InterfaceConfig interfaceConfig = device.as(InterfaceConfig.class);
 
@@ -464,6 +1212,7 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
                     .build();
             // add patch to port through ovsdb
             interfaceConfig.addPatchMode(portName, patchDescription);
+            inventoryCache.portAdded(ovsdbNode.ovsdbIp(), bridgeName, portName);
             log.info("Correctly created port {} on device {} as peer of port {}", portName, bridgeName, patchPeer);
         } else {
             log.warn("The interface behaviour is not supported in device {}", device.id());
@@ -473,31 +1222,16 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
         }
     }
 
-    @Override
-    public void createGreTunnel(IpAddress ovsdbAddress, String bridgeName, String portName, IpAddress localIp,
-                                IpAddress remoteIp, String key)
-            throws OvsdbDeviceException, BridgeNotFoundException {
-
-        OvsdbNode ovsdbNode;
-        log.debug("Setting up tunnel GRE from {} to {} with key {}",
-                localIp, remoteIp, key);
-
+    private void doCreateTunnel(OvsdbNode ovsdbNode, Device device, String bridgeName, String portName,
+                                OvsdbTunnelType tunnelType, IpAddress localIp, IpAddress remoteIp, String key)
+            throws OvsdbDeviceException {
+        TunnelDescription.Type descriptionType;
         try {
-            // gets the target ovsdb node
-            ovsdbNode = ovsdbNodes.stream().filter(node -> node.ovsdbIp().equals(ovsdbAddress)).findFirst().get();
-        } catch (NoSuchElementException nsee) {
-            log.warn(nsee.getMessage());
-            throw new OvsdbDeviceException(nsee.getMessage());
+            descriptionType = TunnelDescription.Type.valueOf(tunnelType.name());
+        } catch (IllegalArgumentException e) {
+            throw new OvsdbDeviceException("Tunnel type " + tunnelType + " is not supported by the ovsdb driver");
         }
-
         try {
-            Device device = deviceService.getDevice(ovsdbNode.ovsdbId());
-            log.debug("OvsdbNode.ovsdbId = " + ovsdbNode.ovsdbId());
-            if (device == null) {
-                log.warn("Ovsdb device not found, aborting.");
-                throw new OvsdbDeviceException("Ovsdb device not found");
-            }
-
             if (device.is(InterfaceConfig.class)) {
                 InterfaceConfig interfaceConfig = device.as(InterfaceConfig.class);
 
@@ -505,15 +1239,16 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
                 TunnelDescription tunnelDescription = DefaultTunnelDescription.builder()
                         .deviceId(bridgeName)
                         .ifaceName(portName)
-                        .type(TunnelDescription.Type.GRE)
+                        .type(descriptionType)
                         .local(TunnelEndPoints.ipTunnelEndpoint(localIp))
                         .remote(TunnelEndPoints.ipTunnelEndpoint(remoteIp))
                         .key(new TunnelKey<>(key))
                         .build();
                 // create tunnel to port through ovsdb
                 interfaceConfig.addTunnelMode(portName, tunnelDescription);
-                log.info("Correctly added tunnel GRE from {} to {} with key {}",
-                        localIp, remoteIp, key);
+                inventoryCache.portAdded(ovsdbNode.ovsdbIp(), bridgeName, portName);
+                log.info("Correctly added tunnel {} from {} to {} with key {}",
+                        tunnelType, localIp, remoteIp, key);
             } else {
                 log.warn("The interface behaviour is not supported in device {}", device.id());
                 throw new OvsdbDeviceException(
@@ -521,39 +1256,20 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
                 );
             }
         } catch (ItemNotFoundException e) {
-            log.warn("Failed to delete bridge on {}", ovsdbNode.ovsdbIp());
+            log.warn("Failed to create tunnel on {}", ovsdbNode.ovsdbIp());
             throw new OvsdbDeviceException("Error with ovsdb device: item not found");
         }
     }
 
-    @Override
-    public void deleteGreTunnel(IpAddress ovsdbAddress, String bridgeName, String portName)
+    private void doDeleteTunnel(OvsdbNode ovsdbNode, Device device, String bridgeName, String portName)
             throws OvsdbDeviceException {
-
-        OvsdbNode ovsdbNode;
-        log.debug("Deleting tunnel GRE from interface {}",
-                portName);
-
-        try {
-            // gets the target ovsdb node
-            ovsdbNode = ovsdbNodes.stream().filter(node -> node.ovsdbIp().equals(ovsdbAddress)).findFirst().get();
-        } catch (NoSuchElementException nsee) {
-            log.warn(nsee.getMessage());
-            throw new OvsdbDeviceException(nsee.getMessage());
-        }
-
         try {
-            Device device = deviceService.getDevice(ovsdbNode.ovsdbId());
-            if (device == null) {
-                log.warn("Ovsdb device not found, aborting.");
-                throw new OvsdbDeviceException("Ovsdb device not found");
-            }
-
             if (device.is(InterfaceConfig.class)) {
                 InterfaceConfig interfaceConfig = device.as(InterfaceConfig.class);
                 // remove tunnel through ovsdb
                 interfaceConfig.removeTunnelMode(portName);
-                log.info("Correctly deleted tunnel GRE from interface {}", portName);
+                inventoryCache.portRemoved(ovsdbNode.ovsdbIp(), bridgeName, portName);
+                log.info("Correctly deleted tunnel from interface {}", portName);
             } else {
                 log.warn("The interface behaviour is not supported in device {}", device.id());
                 throw new OvsdbDeviceException(
@@ -561,10 +1277,119 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
                 );
             }
         } catch (ItemNotFoundException e) {
-            log.warn("Failed to delete bridge on {}", ovsdbNode.ovsdbIp());
+            log.warn("Failed to delete tunnel on {}", ovsdbNode.ovsdbIp());
             throw new OvsdbDeviceException("Error with ovsdb device: item not found");
         }
+    }
+
+    /**
+     * Returns the configured ovsdb node with the given IP address.
+     *
+     * @param ovsdbAddress the ovsdb IP address
+     * @return the ovsdb node
+     * @throws OvsdbDeviceException if no node is configured with that address
+     */
+    private OvsdbNode getOvsdbNode(IpAddress ovsdbAddress) throws OvsdbDeviceException {
+        OvsdbNode ovsdbNode = nodeIndex.byIp(ovsdbAddress);
+        if (ovsdbNode == null) {
+            log.warn("No ovsdb node configured at {}", ovsdbAddress);
+            throw new OvsdbDeviceException("No ovsdb node configured at " + ovsdbAddress);
+        }
+        return ovsdbNode;
+    }
+
+    /**
+     * Returns the device representing an ovsdb node.
+     *
+     * @param ovsdbNode the ovsdb node
+     * @return the ovsdb device
+     * @throws OvsdbDeviceException if the device is not known to onos
+     */
+    private Device getOvsdbDevice(OvsdbNode ovsdbNode) throws OvsdbDeviceException {
+        // requests fail fast while the session is being reconnected in the background
+        if (sessionSupervisor.isDown(ovsdbNode.ovsdbIp())) {
+            throw new OvsdbDeviceException("Ovsdb session to " + ovsdbNode.ovsdbIp() + " is down, reconnecting");
+        }
+        OvsdbMetrics.Sample sample = metrics.start(DEVICE_LOOKUP, ovsdbNode.ovsdbIp());
+        Device device;
+        try {
+            device = deviceService.getDevice(ovsdbNode.ovsdbId());
+        } finally {
+            sample.stop();
+        }
+        log.debug("OvsdbNode.ovsdbId = " + ovsdbNode.ovsdbId());
+        if (device == null) {
+            log.warn("Ovsdb device not found, aborting.");
+            throw new OvsdbDeviceException("Ovsdb device not found");
+        }
+        return device;
+    }
+
+    /**
+     * Reads the bridges of an ovsdb node, with their ports, to fill the inventory cache.
+     *
+     * @param ovsdbAddress the ovsdb IP address
+     * @return bridges of the node
+     * @throws OvsdbDeviceException if the node cannot be queried
+     */
+    private Collection<CachedBridge> loadInventory(IpAddress ovsdbAddress) throws OvsdbDeviceException {
+        OvsdbNode ovsdbNode = getOvsdbNode(ovsdbAddress);
+        Device device = getOvsdbDevice(ovsdbNode);
+        if (!device.is(BridgeConfig.class)) {
+            log.warn("The bridging behaviour is not supported in device {}", device.id());
+            throw new OvsdbDeviceException(
+                    "The bridging behaviour is not supported in device " + device.id()
+            );
+        }
+        log.debug("Loading bridge inventory of {}", ovsdbAddress);
+        List<CachedBridge> bridges = new ArrayList<>();
+        Map<String, DeviceId> bridgeIds = new HashMap<>();
+        Lock nodeLock = nodeLocks.get(ovsdbAddress);
+        nodeLock.lock();
+        try {
+            for (BridgeDescription description : device.as(BridgeConfig.class).getBridges()) {
+                if (!description.deviceId().isPresent()) {
+                    continue;
+                }
+                DeviceId bridgeId = description.deviceId().get();
+                nodeIndex.registerBridge(bridgeId, ovsdbAddress);
+                bridgeIds.put(description.name(), bridgeId);
+                bridges.add(new CachedBridge(description.name(), bridgeId, portNames(bridgeId)));
+            }
+            // the device is the source of truth, the store follows what it reports
+            bridgeStore.setBridges(ovsdbAddress, bridgeIds);
+        } finally {
+            nodeLock.unlock();
+        }
+        return bridges;
+    }
+
+    /**
+     * Returns the names of the ports onos knows for a bridge.
+     *
+     * @param bridgeId the bridge device id
+     * @return list of port names
+     */
+    private List<String> portNames(DeviceId bridgeId) {
+        return deviceService.getPorts(bridgeId).stream()
+                .map(port -> port.annotations().value(AnnotationKeys.PORT_NAME))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
+    /**
+     * Returns the controllers new bridges are connected to, one per cluster node.
+     *
+     * @return list of controllers
+     */
+    private List<ControllerInfo> getControllers() {
+        List<ControllerInfo> controllers = new ArrayList<>();
+        Sets.newHashSet(clusterService.getNodes()).forEach(controller -> {
+            ControllerInfo ctrlInfo = new ControllerInfo(controller.ip(), OFPORT, "tcp");
+            controllers.add(ctrlInfo);
+            log.info("controller {}:{} added", ctrlInfo.ip().toString(), ctrlInfo.port());
+        });
+        return controllers;
     }
 
     /**
@@ -574,25 +1399,43 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
      */
     private void connectOvsdb(OvsdbNode node) {
         if (!isOvsdbConnected(node)) {
-            log.info("connecting ovsdb at {}:{}", node.ovsdbIp(), node.ovsdbPort());
+            requestConnect(node);
+        } else {
+            syncBridges(node);
+        }
+    }
+
+    /**
+     * Asks the ovsdb controller to connect a node; the session comes up asynchronously.
+     *
+     * @param node the ovsdb node, with IP address and port
+     */
+    private void requestConnect(OvsdbNode node) {
+        log.info("connecting ovsdb at {}:{}", node.ovsdbIp(), node.ovsdbPort());
+        OvsdbMetrics.Sample sample = metrics.start(CONNECT, node.ovsdbIp());
+        try {
             controller.connect(node.ovsdbIp(), node.ovsdbPort());
+        } catch (RuntimeException e) {
+            sample.failed(e);
+            throw e;
+        } finally {
+            sample.stop();
         }
     }
 
     /**
-     * Gets an available datapath id for the new bridge.
+     * Reads back the bridges of a connected node, refreshing the bridge
+     * store and the inventory cache.
      *
-     * @param datapathId the integer used to generate ids
-     * @return the datapath id
+     * @param node the ovsdb node
      */
-    private DeviceId getNextUniqueDatapathId(AtomicLong datapathId) {
-        DeviceId dpid;
-        do {
-            String stringId = String.format("%16X", datapathId.getAndIncrement()).replace(' ', '0');
-            log.info("String id is: " + stringId);
-            dpid = DeviceId.deviceId(stringId);
-        } while (deviceService.getDevice(dpid) != null);
-        return dpid;
+    private void syncBridges(OvsdbNode node) {
+        inventoryCache.invalidate(node.ovsdbIp());
+        try {
+            inventoryCache.bridges(node.ovsdbIp(), this::loadInventory);
+        } catch (OvsdbDeviceException e) {
+            log.warn("Failed to read bridges of ovsdb node {}: {}", node, e.getMessage());
+        }
     }
 
     /**
@@ -602,11 +1445,7 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
      */
     private boolean isBridgeCreated(OvsdbNode ovsdbNode, String bridgeName) {
 
-        bridgeIds = ovsdbTopology.get(ovsdbNode.ovsdbIp());
-        if (bridgeIds == null) {
-            return false;
-        }
-        DeviceId deviceId = bridgeIds.get(bridgeName);
+        DeviceId deviceId = bridgeStore.getBridge(ovsdbNode.ovsdbIp(), bridgeName);
         return (deviceId != null
                 && deviceService.getDevice(deviceId) != null
                 && deviceService.isAvailable(deviceId));
@@ -646,9 +1485,7 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
      * @return cordvtn node, null if it fails to find the node
      */
     private OvsdbNode nodeByOvsdbId(DeviceId ovsdbId) {
-        return ovsdbNodes.stream()
-                .filter(node -> node.ovsdbId().equals(ovsdbId))
-                .findFirst().orElse(null);
+        return nodeIndex.byOvsdbId(ovsdbId);
     }
 
     /**
@@ -658,18 +1495,7 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
      * @return ovsdb node, null if it fails to find the node
      */
     private OvsdbNode nodeByBridgeId(DeviceId bridgeId) {
-        final  Set<OvsdbNode> nodes = new HashSet<>();
-        ovsdbNodeDevIdsSetMap.forEach((node, set) -> {
-            if (set.contains(bridgeId)) {
-                 nodes.add(node);
-            }
-        });
-        Optional<OvsdbNode> opt = nodes.stream().findAny();
-        if (opt.isPresent()) {
-            return opt.get();
-        } else {
-            return null;
-        }
+        return nodeIndex.byBridgeId(bridgeId);
     }
 
     private void readConfiguration() {
@@ -678,8 +1504,66 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
             log.debug("No configuration found");
             return;
         }
-        ovsdbNodes = config.getNodes();
-        ovsdbNodes.forEach(this::connectOvsdb);
+        if (config.node().equals(appliedConfig)) {
+            log.debug("Configuration unchanged");
+            return;
+        }
+        appliedConfig = config.node().deepCopy();
+        applyNodes(config.getNodes());
+    }
+
+    /**
+     * Applies a new set of configured nodes. Only the nodes added, removed or
+     * changed since the previous configuration are connected or disconnected.
+     *
+     * @param nodes the configured ovsdb nodes
+     */
+    private void applyNodes(Set<OvsdbNode> nodes) {
+        OvsdbNodeIndex previous = nodeIndex;
+        OvsdbNodeChanges changes = OvsdbNodeChanges.between(previous.nodes(), nodes);
+        if (changes.isEmpty()) {
+            log.debug("No ovsdb node changed");
+            return;
+        }
+        log.info("Applying ovsdb node changes: {}", changes);
+
+        // the new index is published atomically, requests see either the old or the new one
+        nodeIndex = previous.rebuild(nodes);
+
+        changes.removed().forEach(node -> {
+            inventoryCache.invalidate(node.ovsdbIp());
+            schedule(node, () -> {
+                disconnectOvsdb(node);
+                nodeLanes.remove(node.ovsdbIp());
+            });
+        });
+        changes.changed().forEach(node -> schedule(node, () -> {
+            disconnectOvsdb(previous.byIp(node.ovsdbIp()));
+            connectOvsdb(node);
+        }));
+        // connects fan out in parallel, one lane per node
+        changes.added().forEach(node -> schedule(node, () -> connectOvsdb(node)));
+    }
+
+    private void schedule(OvsdbNode node, Runnable task) {
+        try {
+            nodeLanes.execute(node.ovsdbIp(), task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Failed to schedule configuration of ovsdb node {}", node);
+        }
+    }
+
+    /**
+     * Closes the ovsdb session of a node no longer configured as it was.
+     *
+     * @param node the ovsdb node, as it was configured
+     */
+    private void disconnectOvsdb(OvsdbNode node) {
+        OvsdbClientService ovsdbClient = getOvsdbClient(node);
+        if (ovsdbClient != null && ovsdbClient.isConnected()) {
+            log.info("disconnecting ovsdb at {}:{}", node.ovsdbIp(), node.ovsdbPort());
+            ovsdbClient.disconnect();
+        }
     }
 
     private class InternalConfigListener implements NetworkConfigListener {
@@ -694,9 +1578,144 @@ public class OvsdbBridgeManager implements OvsdbBridgeService {
                 case CONFIG_UPDATED:
                     eventExecutor.execute(OvsdbBridgeManager.this::readConfiguration);
                     break;
+                case CONFIG_REMOVED:
+                    eventExecutor.execute(() -> {
+                        appliedConfig = null;
+                        applyNodes(ImmutableSet.of());
+                    });
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the ovsdb node a bridge device is connected from, according to
+     * the address of its OpenFlow channel.
+     *
+     * @param device the bridge device
+     * @return ovsdb node, null if the channel address is not a configured node
+     */
+    private OvsdbNode nodeByChannel(Device device) {
+        String channelId = device.annotations().value(AnnotationKeys.CHANNEL_ID);
+        if (channelId == null || channelId.lastIndexOf(':') < 0) {
+            return null;
+        }
+        String address = channelId.substring(0, channelId.lastIndexOf(':'))
+                .replace("[", "").replace("]", "");
+        try {
+            return nodeIndex.byIp(IpAddress.valueOf(address));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void scheduleSync(OvsdbNode node) {
+        try {
+            nodeLanes.execute(node.ovsdbIp(), () -> syncBridges(node));
+        } catch (RejectedExecutionException e) {
+            log.warn("Failed to schedule bridge sync of ovsdb node {}", node);
+        }
+    }
+
+    private class InternalDeviceListener implements DeviceListener {
+
+        // only the events handled below are queued, not the periodic statistics of every switch
+        @Override
+        public boolean isRelevant(DeviceEvent event) {
+            switch (event.type()) {
+                case DEVICE_ADDED:
+                case DEVICE_REMOVED:
+                case DEVICE_AVAILABILITY_CHANGED:
+                case PORT_ADDED:
+                case PORT_REMOVED:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        public void event(DeviceEvent event) {
+            eventExecutor.execute(() -> processDeviceEvent(event));
+        }
+
+        private void processDeviceEvent(DeviceEvent event) {
+            Device device = event.subject();
+            OvsdbNode ovsdbNode = nodeByOvsdbId(device.id());
+            if (ovsdbNode != null) {
+                switch (event.type()) {
+                    case DEVICE_AVAILABILITY_CHANGED:
+                    case DEVICE_REMOVED:
+                        // the node may have changed while the session was down
+                        inventoryCache.invalidate(ovsdbNode.ovsdbIp());
+                        if (deviceService.isAvailable(device.id())) {
+                            scheduleSync(ovsdbNode);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                return;
+            }
+
+            ovsdbNode = nodeByBridgeId(device.id());
+            if (ovsdbNode == null) {
+                // bridge created outside this application, reload its node on next access
+                OvsdbNode channelNode = nodeByChannel(device);
+                if (channelNode != null && event.type() == DeviceEvent.Type.DEVICE_ADDED) {
+                    inventoryCache.invalidate(channelNode.ovsdbIp());
+                }
+                return;
+            }
+
+            switch (event.type()) {
+                case DEVICE_REMOVED:
+                    inventoryCache.bridgeRemoved(ovsdbNode.ovsdbIp(), device.id());
+                    break;
+                case PORT_ADDED:
+                case PORT_REMOVED:
+                    String portName = event.port().annotations().value(AnnotationKeys.PORT_NAME);
+                    if (portName != null) {
+                        inventoryCache.portChanged(ovsdbNode.ovsdbIp(), device.id(), portName,
+                                                   event.type() == DeviceEvent.Type.PORT_ADDED);
+                    }
+                    break;
                 default:
                     break;
             }
         }
     }
+
+    private class InternalOvsdbEventListener implements OvsdbEventListener {
+
+        @Override
+        public void handle(OvsdbEvent<EventSubject> event) {
+            if (!(event.subject() instanceof OvsdbEventSubject)) {
+                return;
+            }
+            OvsdbEventSubject subject = (OvsdbEventSubject) event.subject();
+            if (subject.dpid() == null || subject.portName() == null) {
+                return;
+            }
+            eventExecutor.execute(() -> {
+                DeviceId bridgeId = DeviceId.deviceId("of:" + subject.dpid().value());
+                OvsdbNode ovsdbNode = nodeByBridgeId(bridgeId);
+                if (ovsdbNode == null) {
+                    return;
+                }
+                switch (event.type()) {
+                    case PORT_ADDED:
+                        inventoryCache.portChanged(ovsdbNode.ovsdbIp(), bridgeId, subject.portName().value(), true);
+                        break;
+                    case PORT_REMOVED:
+                        inventoryCache.portChanged(ovsdbNode.ovsdbIp(), bridgeId, subject.portName().value(), false);
+                        break;
+                    default:
+                        break;
+                }
+            });
+        }
+    }
 }
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.base.MoreObjects;
+import org.onlab.packet.IpAddress;
+
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A single bridge, port, patch or tunnel operation targeting an ovsdb node.
+ */
+public final class OvsdbBridgeOperation {
+
+    /**
+     * Kinds of operation supported on an ovsdb node.
+     */
+    public enum Type {
+        CREATE_BRIDGE,
+        DELETE_BRIDGE,
+        ADD_PORT,
+        REMOVE_PORT,
+        CREATE_PATCH,
+        CREATE_GRE_TUNNEL,
+        DELETE_GRE_TUNNEL,
+        CREATE_TUNNEL,
+        DELETE_TUNNEL
+    }
+
+    private final Type type;
+    private final IpAddress ovsdbIp;
+    private final String bridgeName;
+    private final String portName;
+    private final String patchPeer;
+    private final IpAddress localIp;
+    private final IpAddress remoteIp;
+    private final String key;
+    private final OvsdbTunnelType tunnelType;
+
+    private OvsdbBridgeOperation(Type type, IpAddress ovsdbIp, String bridgeName, String portName,
+                                 String patchPeer, IpAddress localIp, IpAddress remoteIp, String key) {
+        this(type, ovsdbIp, bridgeName, portName, patchPeer, localIp, remoteIp, key, null);
+    }
+
+    private OvsdbBridgeOperation(Type type, IpAddress ovsdbIp, String bridgeName, String portName,
+                                 String patchPeer, IpAddress localIp, IpAddress remoteIp, String key,
+                                 OvsdbTunnelType tunnelType) {
+        this.type = checkNotNull(type, "Operation type cannot be null");
+        this.ovsdbIp = checkNotNull(ovsdbIp, "Ovsdb IP address cannot be null");
+        this.bridgeName = checkNotNull(bridgeName, "Bridge name cannot be null");
+        this.portName = portName;
+        this.patchPeer = patchPeer;
+        this.localIp = localIp;
+        this.remoteIp = remoteIp;
+        this.key = key;
+        this.tunnelType = tunnelType;
+    }
+
+    /**
+     * Returns an operation creating a bridge.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge identifier
+     * @return bridge creation operation
+     */
+    public static OvsdbBridgeOperation createBridge(IpAddress ovsdbIp, String bridgeName) {
+        return new OvsdbBridgeOperation(Type.CREATE_BRIDGE, ovsdbIp, bridgeName,
+                                        null, null, null, null, null);
+    }
+
+    /**
+     * Returns an operation deleting a bridge.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge identifier
+     * @return bridge deletion operation
+     */
+    public static OvsdbBridgeOperation deleteBridge(IpAddress ovsdbIp, String bridgeName) {
+        return new OvsdbBridgeOperation(Type.DELETE_BRIDGE, ovsdbIp, bridgeName,
+                                        null, null, null, null, null);
+    }
+
+    /**
+     * Returns an operation attaching a port to a bridge.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge identifier
+     * @param portName the name of the port to attach to the bridge
+     * @return port addition operation
+     */
+    public static OvsdbBridgeOperation addPort(IpAddress ovsdbIp, String bridgeName, String portName) {
+        checkArgument(portName != null, "Port name cannot be null");
+        return new OvsdbBridgeOperation(Type.ADD_PORT, ovsdbIp, bridgeName,
+                                        portName, null, null, null, null);
+    }
+
+    /**
+     * Returns an operation removing a port from a bridge.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge identifier
+     * @param portName the name of the port to remove from the bridge
+     * @return port removal operation
+     */
+    public static OvsdbBridgeOperation removePort(IpAddress ovsdbIp, String bridgeName, String portName) {
+        checkArgument(portName != null, "Port name cannot be null");
+        return new OvsdbBridgeOperation(Type.REMOVE_PORT, ovsdbIp, bridgeName,
+                                        portName, null, null, null, null);
+    }
+
+    /**
+     * Returns an operation creating a patch port peered with another port.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge identifier
+     * @param portName the port name
+     * @param patchPeer the name of the peer port
+     * @return patch creation operation
+     */
+    public static OvsdbBridgeOperation createPatch(IpAddress ovsdbIp, String bridgeName,
+                                                   String portName, String patchPeer) {
+        checkArgument(portName != null, "Port name cannot be null");
+        checkArgument(patchPeer != null, "Patch peer cannot be null");
+        return new OvsdbBridgeOperation(Type.CREATE_PATCH, ovsdbIp, bridgeName,
+                                        portName, patchPeer, null, null, null);
+    }
+
+    /**
+     * Returns an operation creating a GRE tunnel port.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge identifier
+     * @param portName the name of the new GRE port
+     * @param localIp local end point of the GRE tunnel
+     * @param remoteIp remote end point of GRE tunnel
+     * @param key the tunnel key
+     * @return GRE tunnel creation operation
+     */
+    public static OvsdbBridgeOperation createGreTunnel(IpAddress ovsdbIp, String bridgeName, String portName,
+                                                       IpAddress localIp, IpAddress remoteIp, String key) {
+        checkArgument(portName != null, "Port name cannot be null");
+        checkArgument(localIp != null && remoteIp != null, "Tunnel end points cannot be null");
+        checkArgument(key != null, "Tunnel key cannot be null");
+        return new OvsdbBridgeOperation(Type.CREATE_GRE_TUNNEL, ovsdbIp, bridgeName,
+                                        portName, null, localIp, remoteIp, key, OvsdbTunnelType.GRE);
+    }
+
+    /**
+     * Returns an operation deleting a GRE tunnel port.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge identifier
+     * @param portName the name of the GRE port
+     * @return GRE tunnel deletion operation
+     */
+    public static OvsdbBridgeOperation deleteGreTunnel(IpAddress ovsdbIp, String bridgeName, String portName) {
+        checkArgument(portName != null, "Port name cannot be null");
+        return new OvsdbBridgeOperation(Type.DELETE_GRE_TUNNEL, ovsdbIp, bridgeName,
+                                        portName, null, null, null, null);
+    }
+
+    /**
+     * Returns an operation creating a GRE, VXLAN or Geneve tunnel port.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge identifier
+     * @param portName the name of the new tunnel port
+     * @param tunnelType the tunnel encapsulation
+     * @param localIp local end point of the tunnel
+     * @param remoteIp remote end point of the tunnel
+     * @param key the tunnel key, or VNI
+     * @return tunnel creation operation
+     */
+    public static OvsdbBridgeOperation createTunnel(IpAddress ovsdbIp, String bridgeName, String portName,
+                                                    OvsdbTunnelType tunnelType, IpAddress localIp,
+                                                    IpAddress remoteIp, String key) {
+        checkArgument(portName != null, "Port name cannot be null");
+        checkArgument(tunnelType != null, "Tunnel type cannot be null");
+        checkArgument(localIp != null && remoteIp != null, "Tunnel end points cannot be null");
+        checkArgument(key != null, "Tunnel key cannot be null");
+        return new OvsdbBridgeOperation(Type.CREATE_TUNNEL, ovsdbIp, bridgeName,
+                                        portName, null, localIp, remoteIp, key, tunnelType);
+    }
+
+    /**
+     * Returns an operation deleting a tunnel port, whatever its encapsulation.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge identifier
+     * @param portName the name of the tunnel port
+     * @return tunnel deletion operation
+     */
+    public static OvsdbBridgeOperation deleteTunnel(IpAddress ovsdbIp, String bridgeName, String portName) {
+        checkArgument(portName != null, "Port name cannot be null");
+        return new OvsdbBridgeOperation(Type.DELETE_TUNNEL, ovsdbIp, bridgeName,
+                                        portName, null, null, null, null);
+    }
+
+    /**
+     * Returns whether the operation can be undone, i.e. it creates an element
+     * or removes a port. Deleted bridges and tunnels cannot be restored.
+     *
+     * @return true if the operation has an inverse
+     */
+    public boolean isReversible() {
+        return type != Type.DELETE_BRIDGE && type != Type.DELETE_GRE_TUNNEL && type != Type.DELETE_TUNNEL;
+    }
+
+    /**
+     * Returns the operation undoing this one.
+     *
+     * @return inverse operation
+     * @throws IllegalStateException if the operation is not reversible
+     */
+    public OvsdbBridgeOperation inverse() {
+        switch (type) {
+            case CREATE_BRIDGE:
+                return deleteBridge(ovsdbIp, bridgeName);
+            case ADD_PORT:
+            case CREATE_PATCH:
+                return removePort(ovsdbIp, bridgeName, portName);
+            case REMOVE_PORT:
+                return addPort(ovsdbIp, bridgeName, portName);
+            case CREATE_GRE_TUNNEL:
+                return deleteGreTunnel(ovsdbIp, bridgeName, portName);
+            case CREATE_TUNNEL:
+                return deleteTunnel(ovsdbIp, bridgeName, portName);
+            default:
+                throw new IllegalStateException("Operation " + type + " cannot be undone");
+        }
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    public IpAddress ovsdbIp() {
+        return ovsdbIp;
+    }
+
+    public String bridgeName() {
+        return bridgeName;
+    }
+
+    public String portName() {
+        return portName;
+    }
+
+    public String patchPeer() {
+        return patchPeer;
+    }
+
+    public IpAddress localIp() {
+        return localIp;
+    }
+
+    public IpAddress remoteIp() {
+        return remoteIp;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public OvsdbTunnelType tunnelType() {
+        return tunnelType;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, ovsdbIp, bridgeName, portName, patchPeer, localIp, remoteIp, key, tunnelType);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof OvsdbBridgeOperation)) {
+            return false;
+        }
+        OvsdbBridgeOperation that = (OvsdbBridgeOperation) obj;
+        return type == that.type &&
+                Objects.equals(ovsdbIp, that.ovsdbIp) &&
+                Objects.equals(bridgeName, that.bridgeName) &&
+                Objects.equals(portName, that.portName) &&
+                Objects.equals(patchPeer, that.patchPeer) &&
+                Objects.equals(localIp, that.localIp) &&
+                Objects.equals(remoteIp, that.remoteIp) &&
+                Objects.equals(key, that.key) &&
+                tunnelType == that.tunnelType;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .omitNullValues()
+                .add("type", type)
+                .add("ovsdbIp", ovsdbIp)
+                .add("bridgeName", bridgeName)
+                .add("portName", portName)
+                .add("patchPeer", patchPeer)
+                .add("localIp", localIp)
+                .add("remoteIp", remoteIp)
+                .add("key", key)
+                .add("tunnelType", tunnelType)
+                .toString();
+    }
+}
@@ -18,6 +18,10 @@ package org.onosproject.ovsdbrest;
 
 import org.onlab.packet.IpAddress;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
 /**
  * APIs for ovsdb driver access.
  */
@@ -46,6 +50,59 @@ public interface OvsdbBridgeService {
      */
     String getBridgeID(IpAddress ovsdbAddress, String bridgeName) throws OvsdbRestException.OvsdbDeviceException;
 
+    /**
+     * Returns the statistics of the in-memory bridge inventory used by bridge ID lookups.
+     * @return inventory cache statistics
+     */
+    InventoryCacheStats getInventoryCacheStats();
+
+    /**
+     * Returns the latency and failure statistics of the operations, per operation and ovsdb node.
+     * Operations are named after the batch operation types, plus GET_BRIDGE_ID, DEVICE_LOOKUP and CONNECT.
+     * @return list of operation statistics
+     */
+    List<OperationMetrics> getOperationMetrics();
+
+    /**
+     * Returns the state of the ovsdb sessions of the configured nodes, as seen by their heartbeats.
+     * @return list of session states
+     */
+    List<OvsdbSessionState> getSessionStates();
+
+    /**
+     * Returns the admission control state of the ovsdb nodes: queue depth, available tokens and rejections.
+     * Requests exceeding the rate or queue depth of a node fail with NodeOverloadedException.
+     * @return list of admission states, one per node that received requests
+     */
+    List<OvsdbAdmissionState> getAdmissionStates();
+
+    /**
+     * Returns the latest counters of the interfaces of an ovsdb node, with their deltas and rates.
+     * Nodes are polled by their master only, at an interval adapting to their activity.
+     * @param ovsdbAddress the ovsdb IP address
+     * @param windowMillis window the deltas and rates are computed over, 0 for the last poll interval
+     * @return interface counters ordered by interface name, empty if the node is not polled by this instance
+     */
+    List<OvsdbInterfaceStats> getInterfaceStats(IpAddress ovsdbAddress, long windowMillis);
+
+    /**
+     * Returns the retained counter samples of an interface of an ovsdb node, each with the deltas
+     * and rates since the previous sample.
+     * @param ovsdbAddress the ovsdb IP address
+     * @param interfaceName the interface name
+     * @return samples ordered from the oldest, empty if the interface is not polled by this instance
+     */
+    List<OvsdbInterfaceStats> getInterfaceStatsHistory(IpAddress ovsdbAddress, String interfaceName);
+
+    /**
+     * Walks the bridge inventory of all the configured nodes, reading a bounded number of nodes in parallel.
+     * Each node is handed to the consumer on the calling thread as soon as it is read, in completion order,
+     * so that only the nodes in flight are held in memory.
+     * @param consumer receives the inventory of each node; a node that cannot be read carries an error
+     * @throws InterruptedException if interrupted while waiting for a node
+     */
+    void walkInventory(Consumer<OvsdbNodeInventory> consumer) throws InterruptedException;
+
     /**
      * Adds a port to a bridge.
      * @param ovsdbAddress the ovsdb IP address
@@ -95,4 +152,112 @@ public interface OvsdbBridgeService {
      */
     void deleteGreTunnel(IpAddress ovsdbAddress, String bridgeName, String portName)
             throws OvsdbRestException.OvsdbDeviceException;
+
+    /**
+     * Creates a GRE, VXLAN or Geneve tunnel from a bridge to a remote destination.
+     * Tunnels of any type are deleted with deleteGreTunnel.
+     * @param ovsdbAddress the ovsdb IP address
+     * @param bridgeName the bridge identifier
+     * @param portName the name of the new tunnel port
+     * @param tunnelType the tunnel encapsulation
+     * @param localIp local end point of the tunnel
+     * @param remoteIp remote end point of the tunnel
+     * @param key the tunnel key, or VNI
+     */
+    void createTunnel(IpAddress ovsdbAddress, String bridgeName, String portName, OvsdbTunnelType tunnelType,
+                      IpAddress localIp, IpAddress remoteIp, String key)
+            throws OvsdbRestException.OvsdbDeviceException;
+
+    /**
+     * Builds a full mesh of tunnels between ovsdb nodes: each node gets a tunnel port towards each other node.
+     * The mesh key, or VNI, is allocated once per mesh name and never shared with another mesh.
+     * @param meshName the mesh name
+     * @param tunnelType the tunnel encapsulation
+     * @param bridgeName the bridge the tunnel ports are attached to, on every node
+     * @param endpoints map from ovsdb IP address to the local tunnel end point of the node
+     * @return the result of each tunnel creation
+     * @throws IllegalArgumentException if the mesh has less than two nodes or an IPv6 end point
+     * @throws IllegalStateException if no key is left for the encapsulation
+     * @throws org.onlab.util.ItemNotFoundException if a node of the mesh is not configured
+     */
+    List<OvsdbOperationResult> createTunnelMesh(String meshName, OvsdbTunnelType tunnelType, String bridgeName,
+                                                Map<IpAddress, IpAddress> endpoints);
+
+    /**
+     * Applies a batch of operations spanning one or more ovsdb nodes.
+     * Operations are grouped per ovsdb node and applied in the given order within each node;
+     * a failing operation does not prevent the following ones from being applied.
+     * @param operations the operations to apply
+     * @return the result of each operation, in the same order as the operations
+     * @throws org.onlab.util.ItemNotFoundException if an operation targets an ovsdb node that is not configured
+     */
+    List<OvsdbOperationResult> applyBatch(List<OvsdbBridgeOperation> operations);
+
+    /**
+     * Applies operations on one ovsdb node as a unit: they are applied in order on the node executor,
+     * without interleaving with other bridge creations or deletions of the node. On the first failure
+     * the remaining operations are not applied and the applied ones are undone, last one first.
+     * Only reversible operations are accepted: bridge and tunnel deletions cannot be undone.
+     * @param ovsdbAddress the ovsdb IP address
+     * @param operations the operations to apply
+     * @return the result of each operation, in the same order as the operations: all successful if the
+     *         transaction was applied, otherwise FAILED for the failing operation, ROLLED_BACK or
+     *         ROLLBACK_FAILED for the operations before it and NOT_APPLIED for the ones after it
+     * @throws IllegalArgumentException if an operation targets another node or is not reversible
+     * @throws org.onlab.util.ItemNotFoundException if an operation targets an ovsdb node that is not configured
+     */
+    List<OvsdbOperationResult> applyTransaction(IpAddress ovsdbAddress, List<OvsdbBridgeOperation> operations);
+
+    /**
+     * Queues a set of operations for asynchronous execution and returns immediately.
+     * Operations are executed by a bounded executor of their ovsdb node, in the given order within each node.
+     * @param operations the operations to execute
+     * @return the job tracking the execution
+     * @throws org.onlab.util.ItemNotFoundException if an operation targets an ovsdb node that is not configured
+     */
+    OvsdbJob submitJob(List<OvsdbBridgeOperation> operations) throws OvsdbRestException.JobQueueFullException;
+
+    /**
+     * Returns an asynchronous job.
+     * @param jobId the job identifier
+     * @return the job, null if unknown or no longer retained
+     */
+    OvsdbJob getJob(long jobId);
+
+    /**
+     * Returns the jobs completed after a given completion sequence number, waiting for
+     * at least one completion up to the given timeout.
+     * @param afterSequence the last completion sequence number already seen, 0 to get all retained jobs
+     * @param timeoutMillis maximum time to wait, in milliseconds
+     * @return the completed jobs ordered by completion, empty on timeout
+     */
+    List<OvsdbJob> awaitCompletedJobs(long afterSequence, long timeoutMillis) throws InterruptedException;
+
+    /**
+     * Declares the desired state of an ovsdb node, replacing the previous one.
+     * The node is periodically brought back to this state by creating the missing elements.
+     * @param ovsdbAddress the ovsdb IP address
+     * @param operations operations creating the bridges, ports, patch ports and GRE tunnels of the node
+     * @throws IllegalArgumentException if an operation targets another node or does not create an element
+     */
+    void setDesiredState(IpAddress ovsdbAddress, List<OvsdbBridgeOperation> operations);
+
+    /**
+     * Returns the desired state of an ovsdb node.
+     * @param ovsdbAddress the ovsdb IP address
+     * @return operations creating the node elements, empty if the node has no desired state
+     */
+    List<OvsdbBridgeOperation> getDesiredState(IpAddress ovsdbAddress);
+
+    /**
+     * Removes the desired state of an ovsdb node, which is no longer reconciled.
+     * @param ovsdbAddress the ovsdb IP address
+     */
+    void removeDesiredState(IpAddress ovsdbAddress);
+
+    /**
+     * Reconciles now the nodes mastered by this instance with their desired state.
+     * @return the result of each change applied
+     */
+    List<OvsdbOperationResult> reconcile();
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import org.onlab.packet.IpAddress;
+import org.onosproject.net.DeviceId;
+
+import java.util.Map;
+
+/**
+ * Store of the bridges created on each ovsdb node, with their datapath ids.
+ */
+public interface OvsdbBridgeStore {
+
+    /**
+     * Returns the datapath id of a bridge.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge name
+     * @return bridge device id, null if the bridge is not stored
+     */
+    DeviceId getBridge(IpAddress ovsdbIp, String bridgeName);
+
+    /**
+     * Returns the bridges of an ovsdb node.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @return immutable map from bridge name to bridge device id
+     */
+    Map<String, DeviceId> getBridges(IpAddress ovsdbIp);
+
+    /**
+     * Stores a bridge if no bridge with the same name exists on the node.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge name
+     * @param deviceId the bridge device id
+     * @return true if the bridge was stored, false if the name was already taken
+     */
+    boolean addBridge(IpAddress ovsdbIp, String bridgeName, DeviceId deviceId);
+
+    /**
+     * Removes a bridge.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridgeName the bridge name
+     * @return the device id of the removed bridge, null if the bridge was not stored
+     */
+    DeviceId removeBridge(IpAddress ovsdbIp, String bridgeName);
+
+    /**
+     * Replaces the bridges of an ovsdb node with the ones read from the device.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @param bridges map from bridge name to bridge device id
+     */
+    void setBridges(IpAddress ovsdbIp, Map<String, DeviceId> bridges);
+}
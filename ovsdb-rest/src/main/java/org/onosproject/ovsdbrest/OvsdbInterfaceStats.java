@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.base.MoreObjects;
+import org.onlab.packet.IpAddress;
+
+import java.util.Arrays;
+
+/**
+ * Counters of an interface of an ovsdb node, with their variation over an interval.
+ */
+public final class OvsdbInterfaceStats {
+
+    /**
+     * Counters read from the statistics column of the ovsdb Interface table.
+     */
+    public enum Counter {
+        RX_PACKETS("rx_packets"),
+        TX_PACKETS("tx_packets"),
+        RX_BYTES("rx_bytes"),
+        TX_BYTES("tx_bytes"),
+        RX_DROPPED("rx_dropped"),
+        TX_DROPPED("tx_dropped"),
+        RX_ERRORS("rx_errors"),
+        TX_ERRORS("tx_errors");
+
+        private final String key;
+
+        Counter(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Returns the key of the counter in the statistics column.
+         *
+         * @return statistics key
+         */
+        public String key() {
+            return key;
+        }
+    }
+
+    private final IpAddress ovsdbIp;
+    private final String name;
+    private final long timestamp;
+    private final long intervalMillis;
+    private final long[] values;
+    private final long[] deltas;
+
+    OvsdbInterfaceStats(IpAddress ovsdbIp, String name, long timestamp, long intervalMillis,
+                        long[] values, long[] deltas) {
+        this.ovsdbIp = ovsdbIp;
+        this.name = name;
+        this.timestamp = timestamp;
+        this.intervalMillis = intervalMillis;
+        this.values = Arrays.copyOf(values, values.length);
+        this.deltas = Arrays.copyOf(deltas, deltas.length);
+    }
+
+    public IpAddress ovsdbIp() {
+        return ovsdbIp;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the time the counters were read at.
+     *
+     * @return time in milliseconds
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the length of the interval the deltas and rates are computed over.
+     *
+     * @return interval in milliseconds, 0 if there is no earlier sample
+     */
+    public long intervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Returns the value of a counter.
+     *
+     * @param counter the counter
+     * @return counter value
+     */
+    public long value(Counter counter) {
+        return values[counter.ordinal()];
+    }
+
+    /**
+     * Returns the increase of a counter over the interval. A counter that went
+     * backwards, e.g. because the interface was recreated, is considered reset
+     * and its delta is its current value.
+     *
+     * @param counter the counter
+     * @return counter increase, 0 if there is no earlier sample
+     */
+    public long delta(Counter counter) {
+        return deltas[counter.ordinal()];
+    }
+
+    /**
+     * Returns the rate of a counter over the interval.
+     *
+     * @param counter the counter
+     * @return increase per second, 0 if there is no earlier sample
+     */
+    public double rate(Counter counter) {
+        return intervalMillis == 0 ? 0 : deltas[counter.ordinal()] * 1000.0 / intervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("ovsdbIp", ovsdbIp)
+                .add("name", name)
+                .add("timestamp", timestamp)
+                .add("intervalMillis", intervalMillis)
+                .toString();
+    }
+}
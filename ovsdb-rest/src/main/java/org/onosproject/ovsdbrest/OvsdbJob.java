@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * Handle of a set of operations executed asynchronously.
+ */
+public final class OvsdbJob {
+
+    /**
+     * Lifecycle of a job.
+     */
+    public enum State {
+        PENDING,
+        RUNNING,
+        COMPLETED
+    }
+
+    private final long id;
+    private final List<OvsdbBridgeOperation> operations;
+    private final long submittedMillis = System.currentTimeMillis();
+
+    private volatile State state = State.PENDING;
+    private volatile long completedMillis;
+    private volatile long completionSequence;
+    private volatile List<OvsdbOperationResult> results = ImmutableList.of();
+
+    OvsdbJob(long id, List<OvsdbBridgeOperation> operations) {
+        this.id = id;
+        this.operations = ImmutableList.copyOf(operations);
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public List<OvsdbBridgeOperation> operations() {
+        return operations;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public long submittedMillis() {
+        return submittedMillis;
+    }
+
+    /**
+     * Returns the time the job completed at.
+     *
+     * @return completion time in milliseconds, 0 if the job is not completed
+     */
+    public long completedMillis() {
+        return completedMillis;
+    }
+
+    /**
+     * Returns the position of the job in the sequence of completed jobs.
+     *
+     * @return completion sequence number, 0 if the job is not completed
+     */
+    public long completionSequence() {
+        return completionSequence;
+    }
+
+    /**
+     * Returns the results of the job operations, in the same order as the operations.
+     *
+     * @return list of results, empty if the job is not completed
+     */
+    public List<OvsdbOperationResult> results() {
+        return results;
+    }
+
+    void started() {
+        if (state == State.PENDING) {
+            state = State.RUNNING;
+        }
+    }
+
+    void completed(List<OvsdbOperationResult> results, long sequence) {
+        this.results = ImmutableList.copyOf(results);
+        this.completedMillis = System.currentTimeMillis();
+        this.completionSequence = sequence;
+        this.state = State.COMPLETED;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", id)
+                .add("state", state)
+                .add("operations", operations.size())
+                .toString();
+    }
+}
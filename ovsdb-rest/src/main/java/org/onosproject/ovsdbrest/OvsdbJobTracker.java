@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the asynchronous jobs and log of their completions.
+ * <p>
+ * Pending and running jobs are always retained; only the most recent
+ * completed jobs are kept, older ones are forgotten.
+ * </p>
+ */
+final class OvsdbJobTracker {
+
+    private final int maxCompleted;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final ConcurrentMap<Long, OvsdbJob> jobs = Maps.newConcurrentMap();
+
+    // guarded by this
+    private final Deque<OvsdbJob> completions = new ArrayDeque<>();
+    private long lastSequence;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param maxCompleted number of completed jobs retained
+     */
+    OvsdbJobTracker(int maxCompleted) {
+        this.maxCompleted = maxCompleted;
+    }
+
+    /**
+     * Registers a new pending job.
+     *
+     * @param operations the operations of the job
+     * @return the new job
+     */
+    OvsdbJob create(List<OvsdbBridgeOperation> operations) {
+        OvsdbJob job = new OvsdbJob(nextId.getAndIncrement(), operations);
+        jobs.put(job.id(), job);
+        return job;
+    }
+
+    /**
+     * Returns a job.
+     *
+     * @param jobId the job identifier
+     * @return the job, null if unknown or forgotten
+     */
+    OvsdbJob get(long jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Marks a job as completed and wakes up the threads waiting for completions.
+     *
+     * @param job the job
+     * @param results the results of the job operations
+     */
+    synchronized void complete(OvsdbJob job, List<OvsdbOperationResult> results) {
+        job.completed(results, ++lastSequence);
+        completions.addLast(job);
+        while (completions.size() > maxCompleted) {
+            jobs.remove(completions.removeFirst().id());
+        }
+        notifyAll();
+    }
+
+    /**
+     * Returns the jobs completed after the given sequence number, waiting
+     * for at least one completion if there is none yet.
+     *
+     * @param afterSequence the last completion sequence number already seen
+     * @param timeoutMillis maximum time to wait
+     * @return list of completed jobs ordered by completion, empty on timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized List<OvsdbJob> completedAfter(long afterSequence, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (lastSequence <= afterSequence) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return ImmutableList.of();
+            }
+            wait(remaining);
+        }
+        return completions.stream()
+                .filter(job -> job.completionSequence() > afterSequence)
+                .collect(Collectors.toList());
+    }
+}
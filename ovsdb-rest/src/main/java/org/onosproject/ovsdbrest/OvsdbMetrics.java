@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Maps;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onlab.packet.IpAddress;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Latency timers and failure counters of the ovsdb operations, per operation
+ * and per ovsdb node, and gauges of the ovsdb nodes, registered with the ONOS
+ * metrics service.
+ * <p>
+ * Metrics are named {@code <operation>.<ovsdb-ip>} under the feature of the
+ * operation; failure counters add the exception type as a last component.
+ * </p>
+ */
+final class OvsdbMetrics {
+
+    private static final String COMPONENT = "OvsdbRest";
+    private static final String FAILURES = "failures";
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Measurement of a single call, to be stopped once the call returns.
+     */
+    final class Sample {
+        private final String operation;
+        private final IpAddress ovsdbIp;
+        private final long startNanos = System.nanoTime();
+        private Exception failure;
+
+        private Sample(String operation, IpAddress ovsdbIp) {
+            this.operation = operation;
+            this.ovsdbIp = ovsdbIp;
+        }
+
+        /**
+         * Marks the call as failed.
+         *
+         * @param cause the exception ending the call
+         */
+        void failed(Exception cause) {
+            failure = cause;
+        }
+
+        /**
+         * Records the call duration and, if it failed, its failure.
+         */
+        void stop() {
+            OperationStats stats = stats(operation, ovsdbIp);
+            stats.timer.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            if (failure != null) {
+                stats.failures.computeIfAbsent(failure.getClass().getSimpleName(),
+                                               type -> metricsService.createCounter(
+                                                       component, stats.feature,
+                                                       stats.name + '.' + FAILURES + '.' + type))
+                        .inc();
+            }
+        }
+    }
+
+    private final class OperationStats {
+        private final String operation;
+        private final IpAddress ovsdbIp;
+        private final MetricsFeature feature;
+        private final String name;
+        private final Timer timer;
+        private final ConcurrentMap<String, Counter> failures = Maps.newConcurrentMap();
+
+        private OperationStats(String operation, IpAddress ovsdbIp) {
+            this.operation = operation;
+            this.ovsdbIp = ovsdbIp;
+            this.feature = component.registerFeature(operation);
+            this.name = operation + '.' + ovsdbIp;
+            this.timer = metricsService.createTimer(component, feature, name);
+        }
+    }
+
+    private final MetricsService metricsService;
+    private final MetricsComponent component;
+    // {operation.ovsdbIp: statistics}
+    private final ConcurrentMap<String, OperationStats> operations = Maps.newConcurrentMap();
+    // {name.ovsdbIp: feature}
+    private final ConcurrentMap<String, MetricsFeature> gauges = Maps.newConcurrentMap();
+
+    /**
+     * Creates the metrics of the application.
+     *
+     * @param metricsService the metrics service
+     */
+    OvsdbMetrics(MetricsService metricsService) {
+        this.metricsService = metricsService;
+        this.component = metricsService.registerComponent(COMPONENT);
+    }
+
+    /**
+     * Starts measuring a call.
+     *
+     * @param operation the operation name
+     * @param ovsdbIp the ovsdb IP address the call targets
+     * @return sample to stop once the call returns
+     */
+    Sample start(String operation, IpAddress ovsdbIp) {
+        return new Sample(operation, ovsdbIp);
+    }
+
+    /**
+     * Registers a gauge measuring a value of an ovsdb node.
+     *
+     * @param name the gauge name, used as feature
+     * @param ovsdbIp the ovsdb IP address
+     * @param value supplier of the current value
+     */
+    void gauge(String name, IpAddress ovsdbIp, Supplier<Integer> value) {
+        MetricsFeature feature = component.registerFeature(name);
+        String gaugeName = name + '.' + ovsdbIp;
+        if (gauges.putIfAbsent(gaugeName, feature) == null) {
+            metricsService.registerMetric(component, feature, gaugeName, (Gauge<Integer>) value::get);
+        }
+    }
+
+    private OperationStats stats(String operation, IpAddress ovsdbIp) {
+        return operations.computeIfAbsent(operation + '.' + ovsdbIp,
+                                          key -> new OperationStats(operation, ovsdbIp));
+    }
+
+    /**
+     * Returns a snapshot of the statistics of every operation measured so far.
+     *
+     * @return list of statistics, one per operation and ovsdb node
+     */
+    List<OperationMetrics> snapshot() {
+        return operations.values().stream().map(stats -> {
+            Snapshot latencies = stats.timer.getSnapshot();
+            Map<String, Long> failures = Maps.transformValues(stats.failures, Counter::getCount);
+            return new OperationMetrics(stats.operation, stats.ovsdbIp, stats.timer.getCount(),
+                                        latencies.getMedian() / NANOS_PER_MILLI,
+                                        latencies.get99thPercentile() / NANOS_PER_MILLI,
+                                        latencies.get999thPercentile() / NANOS_PER_MILLI,
+                                        failures);
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Removes the metrics from the metrics service.
+     */
+    void clear() {
+        operations.values().forEach(stats -> {
+            metricsService.removeMetric(component, stats.feature, stats.name);
+            stats.failures.keySet().forEach(type -> metricsService.removeMetric(
+                    component, stats.feature, stats.name + '.' + FAILURES + '.' + type));
+        });
+        operations.clear();
+        gauges.forEach((name, feature) -> metricsService.removeMetric(component, feature, name));
+        gauges.clear();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import org.onlab.packet.IpAddress;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.onosproject.ovsdbrest.OvsdbNodeConfig.OvsdbNode;
+
+/**
+ * Difference between two sets of configured ovsdb nodes, nodes being
+ * identified by their IP address.
+ */
+final class OvsdbNodeChanges {
+
+    private final Set<OvsdbNode> added;
+    private final Set<OvsdbNode> removed;
+    private final Set<OvsdbNode> changed;
+
+    private OvsdbNodeChanges(Set<OvsdbNode> added, Set<OvsdbNode> removed, Set<OvsdbNode> changed) {
+        this.added = ImmutableSet.copyOf(added);
+        this.removed = ImmutableSet.copyOf(removed);
+        this.changed = ImmutableSet.copyOf(changed);
+    }
+
+    /**
+     * Computes the changes from a set of nodes to another.
+     *
+     * @param previous the nodes configured before
+     * @param current the nodes configured now
+     * @return changes between the two sets
+     */
+    static OvsdbNodeChanges between(Collection<OvsdbNode> previous, Collection<OvsdbNode> current) {
+        Map<IpAddress, OvsdbNode> before = byIp(previous);
+        Map<IpAddress, OvsdbNode> after = byIp(current);
+        Set<OvsdbNode> added = after.values().stream()
+                .filter(node -> !before.containsKey(node.ovsdbIp()))
+                .collect(Collectors.toSet());
+        Set<OvsdbNode> removed = before.values().stream()
+                .filter(node -> !after.containsKey(node.ovsdbIp()))
+                .collect(Collectors.toSet());
+        Set<OvsdbNode> changed = after.values().stream()
+                .filter(node -> before.containsKey(node.ovsdbIp()) && !before.get(node.ovsdbIp()).equals(node))
+                .collect(Collectors.toSet());
+        return new OvsdbNodeChanges(added, removed, changed);
+    }
+
+    private static Map<IpAddress, OvsdbNode> byIp(Collection<OvsdbNode> nodes) {
+        // a duplicated address keeps its last entry, as the node index does
+        return nodes.stream().collect(Collectors.toMap(OvsdbNode::ovsdbIp, Function.identity(), (a, b) -> b));
+    }
+
+    /**
+     * Returns the nodes whose address was not configured before.
+     *
+     * @return added nodes
+     */
+    Set<OvsdbNode> added() {
+        return added;
+    }
+
+    /**
+     * Returns the nodes whose address is no longer configured.
+     *
+     * @return removed nodes, as they were configured
+     */
+    Set<OvsdbNode> removed() {
+        return removed;
+    }
+
+    /**
+     * Returns the nodes whose address was already configured with another port.
+     *
+     * @return changed nodes, as they are configured now
+     */
+    Set<OvsdbNode> changed() {
+        return changed;
+    }
+
+    /**
+     * Returns whether the two sets of nodes are the same.
+     *
+     * @return true if no node was added, removed or changed
+     */
+    boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("added", added.size())
+                .add("removed", removed.size())
+                .add("changed", changed.size())
+                .toString();
+    }
+}
@@ -26,6 +26,7 @@ import org.onosproject.net.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -45,7 +46,7 @@ public class OvsdbNodeConfig extends Config<ApplicationId> {
         jsnoNodes.forEach(node -> {
             IpAddress ovsdbIp = IpAddress.valueOf(node.path(OVSDB_IP).textValue());
             TpPort port = TpPort.tpPort(Integer.parseInt(node.path(OVSDB_PORT).asText()));
-            log.info("Ovsdb port: " + port.toString());
+            log.debug("Ovsdb port: {}", port);
             nodes.add(new OvsdbNode(ovsdbIp, port));
         });
         return nodes;
@@ -71,5 +72,28 @@ public class OvsdbNodeConfig extends Config<ApplicationId> {
         public DeviceId ovsdbId() {
             return DeviceId.deviceId("ovsdb:" + ovsdbIp.toString());
         }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ovsdbIp, ovsdbPort);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof OvsdbNode)) {
+                return false;
+            }
+            OvsdbNode that = (OvsdbNode) obj;
+            return Objects.equals(ovsdbIp, that.ovsdbIp) &&
+                    Objects.equals(ovsdbPort, that.ovsdbPort);
+        }
+
+        @Override
+        public String toString() {
+            return ovsdbIp + ":" + ovsdbPort;
+        }
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.onlab.packet.IpAddress;
+import org.onosproject.net.DeviceId;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import static org.onosproject.ovsdbrest.OvsdbNodeConfig.OvsdbNode;
+
+/**
+ * Index of the configured ovsdb nodes, keyed by IP address, by ovsdb device id
+ * and by the device id of the bridges created on each node.
+ * <p>
+ * The node maps are immutable; a new index is built for every configuration
+ * and published with a single reference swap, so lookups never need locking.
+ * The bridge ownership map is carried over from one index to the next.
+ * </p>
+ */
+final class OvsdbNodeIndex {
+
+    private final Set<OvsdbNode> nodes;
+    private final Map<IpAddress, OvsdbNode> nodesByIp;
+    private final Map<DeviceId, OvsdbNode> nodesByOvsdbId;
+
+    // {bridge device id: ovsdb node IP address}
+    private final Map<DeviceId, IpAddress> bridgeOwners;
+
+    private OvsdbNodeIndex(Collection<OvsdbNode> nodes, Map<DeviceId, IpAddress> bridgeOwners) {
+        Map<IpAddress, OvsdbNode> byIp = Maps.newHashMap();
+        Map<DeviceId, OvsdbNode> byOvsdbId = Maps.newHashMap();
+        nodes.forEach(node -> {
+            byIp.put(node.ovsdbIp(), node);
+            byOvsdbId.put(node.ovsdbId(), node);
+        });
+        this.nodes = ImmutableSet.copyOf(nodes);
+        this.nodesByIp = ImmutableMap.copyOf(byIp);
+        this.nodesByOvsdbId = ImmutableMap.copyOf(byOvsdbId);
+        this.bridgeOwners = bridgeOwners;
+    }
+
+    /**
+     * Returns an index with no nodes.
+     *
+     * @return empty index
+     */
+    static OvsdbNodeIndex empty() {
+        return new OvsdbNodeIndex(ImmutableSet.of(), Maps.newConcurrentMap());
+    }
+
+    /**
+     * Builds the index for a new set of nodes, keeping the bridges of the nodes still present.
+     *
+     * @param newNodes the configured ovsdb nodes
+     * @return new index
+     */
+    OvsdbNodeIndex rebuild(Collection<OvsdbNode> newNodes) {
+        OvsdbNodeIndex index = new OvsdbNodeIndex(newNodes, bridgeOwners);
+        bridgeOwners.values().removeIf(ip -> !index.nodesByIp.containsKey(ip));
+        return index;
+    }
+
+    /**
+     * Returns all the indexed nodes.
+     *
+     * @return set of ovsdb nodes
+     */
+    Set<OvsdbNode> nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the node with the given IP address.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @return ovsdb node, null if not configured
+     */
+    OvsdbNode byIp(IpAddress ovsdbIp) {
+        return nodesByIp.get(ovsdbIp);
+    }
+
+    /**
+     * Returns the node with the given ovsdb device id.
+     *
+     * @param ovsdbId the ovsdb device id, e.g. ovsdb:192.168.1.1
+     * @return ovsdb node, null if not configured
+     */
+    OvsdbNode byOvsdbId(DeviceId ovsdbId) {
+        return nodesByOvsdbId.get(ovsdbId);
+    }
+
+    /**
+     * Returns the node hosting the given bridge.
+     *
+     * @param bridgeId the bridge device id
+     * @return ovsdb node, null if the bridge is unknown
+     */
+    OvsdbNode byBridgeId(DeviceId bridgeId) {
+        IpAddress ovsdbIp = bridgeOwners.get(bridgeId);
+        return ovsdbIp == null ? null : nodesByIp.get(ovsdbIp);
+    }
+
+    /**
+     * Records that a bridge is hosted by a node.
+     *
+     * @param bridgeId the bridge device id
+     * @param ovsdbIp the IP address of the hosting node
+     */
+    void registerBridge(DeviceId bridgeId, IpAddress ovsdbIp) {
+        bridgeOwners.put(bridgeId, ovsdbIp);
+    }
+
+    /**
+     * Forgets the node hosting a bridge.
+     *
+     * @param bridgeId the bridge device id
+     */
+    void unregisterBridge(DeviceId bridgeId) {
+        bridgeOwners.remove(bridgeId);
+    }
+}
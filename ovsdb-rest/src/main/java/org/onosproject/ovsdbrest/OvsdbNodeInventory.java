@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.onlab.packet.IpAddress;
+import org.onosproject.net.DeviceId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bridges and ports of an ovsdb node, as exported by the inventory stream.
+ */
+public final class OvsdbNodeInventory {
+
+    /**
+     * Bridge of a node with the names of its ports, tunnel and patch ports included.
+     */
+    public static final class Bridge {
+        private final String name;
+        private final DeviceId deviceId;
+        private final Set<String> ports;
+
+        Bridge(String name, DeviceId deviceId, Collection<String> ports) {
+            this.name = name;
+            this.deviceId = deviceId;
+            this.ports = ImmutableSet.copyOf(ports);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public DeviceId deviceId() {
+            return deviceId;
+        }
+
+        public Set<String> ports() {
+            return ports;
+        }
+    }
+
+    private final IpAddress ovsdbIp;
+    private final List<Bridge> bridges;
+    private final String error;
+
+    private OvsdbNodeInventory(IpAddress ovsdbIp, List<Bridge> bridges, String error) {
+        this.ovsdbIp = ovsdbIp;
+        this.bridges = ImmutableList.copyOf(bridges);
+        this.error = error;
+    }
+
+    static OvsdbNodeInventory of(IpAddress ovsdbIp, List<Bridge> bridges) {
+        return new OvsdbNodeInventory(ovsdbIp, bridges, null);
+    }
+
+    static OvsdbNodeInventory failed(IpAddress ovsdbIp, String error) {
+        return new OvsdbNodeInventory(ovsdbIp, ImmutableList.of(), error);
+    }
+
+    public IpAddress ovsdbIp() {
+        return ovsdbIp;
+    }
+
+    public List<Bridge> bridges() {
+        return bridges;
+    }
+
+    /**
+     * Returns why the inventory of the node could not be read.
+     *
+     * @return error message, null if the inventory was read
+     */
+    public String error() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .omitNullValues()
+                .add("ovsdbIp", ovsdbIp)
+                .add("bridges", bridges.size())
+                .add("error", error)
+                .toString();
+    }
+}
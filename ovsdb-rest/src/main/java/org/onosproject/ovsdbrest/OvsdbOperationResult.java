@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.onosproject.ovsdbrest.OvsdbRestException.BridgeAlreadyExistsException;
+import static org.onosproject.ovsdbrest.OvsdbRestException.BridgeNotFoundException;
+
+/**
+ * Outcome of an operation applied to an ovsdb node.
+ */
+public final class OvsdbOperationResult {
+
+    /**
+     * Outcome of an operation.
+     */
+    public enum Status {
+        SUCCESS,
+        BRIDGE_ALREADY_EXISTS,
+        BRIDGE_NOT_FOUND,
+        FAILED,
+        NOT_APPLIED,
+        ROLLED_BACK,
+        ROLLBACK_FAILED
+    }
+
+    private final OvsdbBridgeOperation operation;
+    private final Status status;
+    private final String message;
+
+    private OvsdbOperationResult(OvsdbBridgeOperation operation, Status status, String message) {
+        this.operation = checkNotNull(operation);
+        this.status = checkNotNull(status);
+        this.message = message;
+    }
+
+    /**
+     * Returns a successful result for the given operation.
+     *
+     * @param operation the applied operation
+     * @return successful result
+     */
+    public static OvsdbOperationResult success(OvsdbBridgeOperation operation) {
+        return new OvsdbOperationResult(operation, Status.SUCCESS, null);
+    }
+
+    /**
+     * Returns a failed result for the given operation, mapping the cause to a status.
+     *
+     * @param operation the failed operation
+     * @param cause the exception raised while applying the operation
+     * @return failed result
+     */
+    public static OvsdbOperationResult failure(OvsdbBridgeOperation operation, Exception cause) {
+        if (cause instanceof BridgeAlreadyExistsException) {
+            return new OvsdbOperationResult(operation, Status.BRIDGE_ALREADY_EXISTS,
+                                            "A bridge with this name already exists");
+        }
+        if (cause instanceof BridgeNotFoundException) {
+            return new OvsdbOperationResult(operation, Status.BRIDGE_NOT_FOUND,
+                                            "No bridge found with the specified name");
+        }
+        return new OvsdbOperationResult(operation, Status.FAILED, cause.getMessage());
+    }
+
+    /**
+     * Returns the result of an operation of a transaction that was not
+     * attempted because an earlier operation failed.
+     *
+     * @param operation the operation
+     * @return not applied result
+     */
+    public static OvsdbOperationResult notApplied(OvsdbBridgeOperation operation) {
+        return new OvsdbOperationResult(operation, Status.NOT_APPLIED,
+                                        "Not applied, an earlier operation of the transaction failed");
+    }
+
+    /**
+     * Returns the result of an operation of a transaction that was applied,
+     * then undone because a later operation failed.
+     *
+     * @param operation the operation
+     * @return rolled back result
+     */
+    public static OvsdbOperationResult rolledBack(OvsdbBridgeOperation operation) {
+        return new OvsdbOperationResult(operation, Status.ROLLED_BACK,
+                                        "Rolled back, a later operation of the transaction failed");
+    }
+
+    /**
+     * Returns the result of an operation of a transaction that was applied,
+     * but could not be undone when a later operation failed.
+     *
+     * @param operation the operation
+     * @param cause the exception raised while undoing the operation
+     * @return rollback failure result
+     */
+    public static OvsdbOperationResult rollbackFailed(OvsdbBridgeOperation operation, Exception cause) {
+        return new OvsdbOperationResult(operation, Status.ROLLBACK_FAILED,
+                                        "Rollback failed: " + cause.getMessage());
+    }
+
+    public OvsdbBridgeOperation operation() {
+        return operation;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .omitNullValues()
+                .add("operation", operation)
+                .add("status", status)
+                .add("message", message)
+                .toString();
+    }
+}
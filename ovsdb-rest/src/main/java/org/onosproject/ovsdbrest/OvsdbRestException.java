@@ -39,4 +39,35 @@ public class OvsdbRestException {
      * Thrown when an ovs bridge is not found.
      */
     public static class BridgeNotFoundException extends Exception { }
+
+    /**
+     * Thrown when an asynchronous job cannot be queued because an ovsdb node has too many pending jobs.
+     */
+    public static class JobQueueFullException extends Exception {
+        public JobQueueFullException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown when an ovsdb node cannot take more requests for now; unchecked as any
+     * request targeting a node may be rejected.
+     */
+    public static class NodeOverloadedException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public NodeOverloadedException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        /**
+         * Returns when the request may be retried.
+         *
+         * @return delay in seconds
+         */
+        public long retryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.base.MoreObjects;
+import org.onlab.packet.IpAddress;
+
+/**
+ * Snapshot of the state of the ovsdb session of a node.
+ */
+public final class OvsdbSessionState {
+
+    /**
+     * Health of a session.
+     */
+    public enum Status {
+        /** Connected and answering heartbeats. */
+        UP,
+        /** Connection requested, waiting for the session to answer. */
+        CONNECTING,
+        /** Not connected or not answering heartbeats, a reconnection is scheduled. */
+        DOWN
+    }
+
+    private final IpAddress ovsdbIp;
+    private final Status status;
+    private final long sinceMillis;
+    private final long lastRttMillis;
+    private final int failedAttempts;
+    private final long nextAttemptMillis;
+
+    OvsdbSessionState(IpAddress ovsdbIp, Status status, long sinceMillis, long lastRttMillis,
+                      int failedAttempts, long nextAttemptMillis) {
+        this.ovsdbIp = ovsdbIp;
+        this.status = status;
+        this.sinceMillis = sinceMillis;
+        this.lastRttMillis = lastRttMillis;
+        this.failedAttempts = failedAttempts;
+        this.nextAttemptMillis = nextAttemptMillis;
+    }
+
+    public IpAddress ovsdbIp() {
+        return ovsdbIp;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    /**
+     * Returns the time the session entered its current status.
+     *
+     * @return time in milliseconds
+     */
+    public long sinceMillis() {
+        return sinceMillis;
+    }
+
+    /**
+     * Returns the round trip time of the last answered heartbeat.
+     *
+     * @return round trip time in milliseconds, -1 if no heartbeat was answered yet
+     */
+    public long lastRttMillis() {
+        return lastRttMillis;
+    }
+
+    /**
+     * Returns the number of reconnections attempted since the session was last up.
+     *
+     * @return attempt count
+     */
+    public int failedAttempts() {
+        return failedAttempts;
+    }
+
+    /**
+     * Returns the time of the next reconnection attempt.
+     *
+     * @return time in milliseconds, 0 if the session is up
+     */
+    public long nextAttemptMillis() {
+        return nextAttemptMillis;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("ovsdbIp", ovsdbIp)
+                .add("status", status)
+                .add("lastRttMillis", lastRttMillis)
+                .add("failedAttempts", failedAttempts)
+                .toString();
+    }
+}
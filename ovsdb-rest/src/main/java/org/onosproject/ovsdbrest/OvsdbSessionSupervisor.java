@@ -0,0 +1,263 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import org.onlab.packet.IpAddress;
+import org.onosproject.ovsdb.controller.OvsdbClientService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.onosproject.ovsdbrest.OvsdbNodeConfig.OvsdbNode;
+import static org.onosproject.ovsdbrest.OvsdbSessionState.Status;
+
+/**
+ * Keeps the ovsdb sessions of the configured nodes alive.
+ * <p>
+ * Connected sessions are probed with an ovsdb echo at every heartbeat; a
+ * session that does not answer within the timeout is considered down.
+ * Sessions that are down are reconnected in the background, with an
+ * exponential backoff randomized so that nodes lost together are not
+ * reconnected all at once. The heartbeat never blocks: echoes complete
+ * asynchronously and their timeout is checked at the next heartbeat.
+ * </p>
+ */
+final class OvsdbSessionSupervisor {
+
+    private static final long HEARTBEAT_MILLIS = 5000;
+    static final long ECHO_TIMEOUT_MILLIS = 3000;
+    static final long MIN_BACKOFF_MILLIS = 1000;
+    static final long MAX_BACKOFF_MILLIS = 60000;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final ScheduledExecutorService executor;
+    private final Supplier<Collection<OvsdbNode>> nodes;
+    private final Function<OvsdbNode, OvsdbClientService> clients;
+    private final Consumer<OvsdbNode> connector;
+    private final LongSupplier clock;
+    private final ConcurrentMap<IpAddress, Session> sessions = Maps.newConcurrentMap();
+
+    private static final class Session {
+        private volatile Status status = Status.DOWN;
+        private volatile long since;
+        private volatile long lastRtt = -1;
+        private volatile int attempts;
+        private volatile long nextAttempt;
+        private volatile long echoSentAt;
+        private volatile boolean echoPending;
+
+        private Session(long now) {
+            since = now;
+        }
+
+        private void moveTo(Status newStatus, long now) {
+            if (status != newStatus) {
+                status = newStatus;
+                since = now;
+            }
+        }
+    }
+
+    /**
+     * Creates a supervisor.
+     *
+     * @param executor the executor running the heartbeats
+     * @param nodes supplier of the configured nodes
+     * @param clients returns the ovsdb client of a node, null if there is none
+     * @param connector requests the connection of a node
+     */
+    OvsdbSessionSupervisor(ScheduledExecutorService executor, Supplier<Collection<OvsdbNode>> nodes,
+                           Function<OvsdbNode, OvsdbClientService> clients, Consumer<OvsdbNode> connector) {
+        this(executor, nodes, clients, connector, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a supervisor reading the time from the given clock, e.g. a manual one for tests.
+     *
+     * @param executor the executor running the heartbeats
+     * @param nodes supplier of the configured nodes
+     * @param clients returns the ovsdb client of a node, null if there is none
+     * @param connector requests the connection of a node
+     * @param clock current time in milliseconds
+     */
+    OvsdbSessionSupervisor(ScheduledExecutorService executor, Supplier<Collection<OvsdbNode>> nodes,
+                           Function<OvsdbNode, OvsdbClientService> clients, Consumer<OvsdbNode> connector,
+                           LongSupplier clock) {
+        this.executor = executor;
+        this.nodes = nodes;
+        this.clients = clients;
+        this.connector = connector;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts the heartbeats.
+     */
+    void start() {
+        executor.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the heartbeats.
+     */
+    void stop() {
+        executor.shutdownNow();
+        sessions.clear();
+    }
+
+    /**
+     * Returns whether the session of a node is known to be down, i.e. it is
+     * being reconnected. Nodes not supervised yet are not considered down.
+     *
+     * @param ovsdbIp the ovsdb IP address
+     * @return true if the session is down
+     */
+    boolean isDown(IpAddress ovsdbIp) {
+        Session session = sessions.get(ovsdbIp);
+        return session != null && session.status != Status.UP && session.attempts > 0;
+    }
+
+    /**
+     * Returns the state of the sessions of the configured nodes.
+     *
+     * @return list of session states
+     */
+    List<OvsdbSessionState> states() {
+        return sessions.entrySet().stream()
+                .map(entry -> {
+                    Session session = entry.getValue();
+                    return new OvsdbSessionState(entry.getKey(), session.status, session.since, session.lastRtt,
+                                                 session.attempts,
+                                                 session.status == Status.UP ? 0 : session.nextAttempt);
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Probes the connected sessions and reconnects the ones that are down, once.
+     */
+    void heartbeat() {
+        try {
+            long now = clock.getAsLong();
+            Collection<OvsdbNode> current = nodes.get();
+            Set<IpAddress> currentIps = current.stream().map(OvsdbNode::ovsdbIp).collect(Collectors.toSet());
+            sessions.keySet().retainAll(currentIps);
+            current.forEach(node -> supervise(node, sessions.computeIfAbsent(node.ovsdbIp(), ip -> new Session(now)),
+                                              now));
+        } catch (RuntimeException e) {
+            log.warn("Ovsdb session heartbeat failed", e);
+        }
+    }
+
+    private void supervise(OvsdbNode node, Session session, long now) {
+        OvsdbClientService client = clients.apply(node);
+        if (client != null && client.isConnected()) {
+            if (!session.echoPending) {
+                echo(node, client, session, now);
+            } else if (now - session.echoSentAt > ECHO_TIMEOUT_MILLIS) {
+                log.warn("Ovsdb node {} did not answer the heartbeat", node);
+                drop(node, client, session, now);
+            }
+            return;
+        }
+
+        session.echoPending = false;
+        if (session.status == Status.UP) {
+            log.info("Ovsdb session to {} lost", node);
+            session.moveTo(Status.DOWN, now);
+            session.nextAttempt = now + backoff(0);
+        } else if (now >= session.nextAttempt) {
+            reconnect(node, session, now);
+        }
+    }
+
+    private void echo(OvsdbNode node, OvsdbClientService client, Session session, long now) {
+        session.echoPending = true;
+        session.echoSentAt = now;
+        Futures.addCallback(client.echo(), new FutureCallback<List<String>>() {
+            @Override
+            public void onSuccess(List<String> result) {
+                long answeredAt = clock.getAsLong();
+                session.echoPending = false;
+                session.lastRtt = answeredAt - now;
+                if (session.status != Status.UP) {
+                    log.info("Ovsdb session to {} is up", node);
+                }
+                session.attempts = 0;
+                session.moveTo(Status.UP, answeredAt);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                log.warn("Heartbeat to ovsdb node {} failed: {}", node, t.getMessage());
+                drop(node, client, session, clock.getAsLong());
+            }
+        });
+    }
+
+    // closes an unresponsive session, it is reconnected by the next heartbeats
+    private void drop(OvsdbNode node, OvsdbClientService client, Session session, long now) {
+        session.echoPending = false;
+        session.moveTo(Status.DOWN, now);
+        session.nextAttempt = now + backoff(session.attempts);
+        try {
+            client.disconnect();
+        } catch (RuntimeException e) {
+            log.debug("Failed to close session to ovsdb node {}", node, e);
+        }
+    }
+
+    private void reconnect(OvsdbNode node, Session session, long now) {
+        session.attempts++;
+        session.moveTo(Status.CONNECTING, now);
+        session.nextAttempt = now + backoff(session.attempts);
+        log.debug("Reconnecting ovsdb node {}, attempt {}", node, session.attempts);
+        try {
+            connector.accept(node);
+        } catch (RuntimeException e) {
+            log.warn("Failed to reconnect ovsdb node {}: {}", node, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the delay before the next reconnection: exponential in the number
+     * of attempts, capped, with a random jitter of up to half the delay.
+     *
+     * @param attempts number of attempts already made
+     * @return delay in milliseconds
+     */
+    static long backoff(int attempts) {
+        long delay = Math.min(MAX_BACKOFF_MILLIS, MIN_BACKOFF_MILLIS << Math.min(attempts, 16));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+}
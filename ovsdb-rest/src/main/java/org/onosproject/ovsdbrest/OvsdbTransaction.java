@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.onosproject.ovsdbrest.OvsdbRestException.OvsdbDeviceException;
+
+/**
+ * Operations on one ovsdb node applied as a unit.
+ * <p>
+ * Operations are applied in order and the first failure stops the
+ * transaction: the operations after it are not applied, and the ones
+ * applied before it are undone, last one first. The ports of a bridge
+ * created by the transaction are not removed one by one: deleting the
+ * bridge removes them in the same round trip.
+ * </p>
+ */
+final class OvsdbTransaction {
+
+    /**
+     * Applies one operation on the ovsdb node of the transaction.
+     */
+    @FunctionalInterface
+    interface Applier {
+        /**
+         * Applies an operation, reporting its failure in the result.
+         *
+         * @param operation the operation
+         * @return the result of the operation
+         */
+        OvsdbOperationResult apply(OvsdbBridgeOperation operation);
+    }
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Applier applier;
+
+    /**
+     * Creates a transaction applying its operations with the given applier.
+     *
+     * @param applier applies the operations and their inverses
+     */
+    OvsdbTransaction(Applier applier) {
+        this.applier = applier;
+    }
+
+    /**
+     * Applies operations as a unit.
+     *
+     * @param operations the operations, all reversible and targeting the same ovsdb node
+     * @return the result of each operation, in the same order as the operations: all
+     *         successful if the transaction succeeded
+     */
+    List<OvsdbOperationResult> apply(List<OvsdbBridgeOperation> operations) {
+        List<OvsdbOperationResult> results = new ArrayList<>(operations.size());
+        for (OvsdbBridgeOperation operation : operations) {
+            OvsdbOperationResult result = applier.apply(operation);
+            results.add(result);
+            if (!result.isSuccess()) {
+                break;
+            }
+        }
+        int failed = results.size() - 1;
+        if (failed < 0 || results.get(failed).isSuccess()) {
+            return results;
+        }
+        for (int i = failed + 1; i < operations.size(); i++) {
+            results.add(OvsdbOperationResult.notApplied(operations.get(i)));
+        }
+        if (failed > 0) {
+            log.info("Transaction on {} failed at operation {}, rolling back", operations.get(0).ovsdbIp(), failed);
+            rollback(operations.subList(0, failed), results);
+        }
+        return results;
+    }
+
+    /**
+     * Undoes applied operations, last one first.
+     *
+     * @param applied the operations applied, in application order
+     * @param results the results of the transaction, updated with the rollback outcomes
+     */
+    private void rollback(List<OvsdbBridgeOperation> applied, List<OvsdbOperationResult> results) {
+        Set<String> createdBridges = applied.stream()
+                .filter(operation -> operation.type() == OvsdbBridgeOperation.Type.CREATE_BRIDGE)
+                .map(OvsdbBridgeOperation::bridgeName)
+                .collect(Collectors.toSet());
+        // indexes of the operations undone along with the deletion of their bridge
+        Map<String, List<Integer>> bridgePorts = new HashMap<>();
+        for (int i = applied.size() - 1; i >= 0; i--) {
+            OvsdbBridgeOperation operation = applied.get(i);
+            boolean bridgeCreation = operation.type() == OvsdbBridgeOperation.Type.CREATE_BRIDGE;
+            if (!bridgeCreation && createdBridges.contains(operation.bridgeName())) {
+                bridgePorts.computeIfAbsent(operation.bridgeName(), name -> new ArrayList<>()).add(i);
+                continue;
+            }
+            OvsdbOperationResult undo = applier.apply(operation.inverse());
+            Exception cause = null;
+            if (!undo.isSuccess()) {
+                log.warn("Failed to undo {}: {}", operation, undo.message());
+                cause = new OvsdbDeviceException(undo.message());
+            }
+            results.set(i, cause == null ? OvsdbOperationResult.rolledBack(operation) :
+                    OvsdbOperationResult.rollbackFailed(operation, cause));
+            if (bridgeCreation) {
+                for (int port : bridgePorts.getOrDefault(operation.bridgeName(), ImmutableList.of())) {
+                    results.set(port, cause == null ? OvsdbOperationResult.rolledBack(applied.get(port)) :
+                            OvsdbOperationResult.rollbackFailed(applied.get(port), cause));
+                }
+            }
+        }
+    }
+}
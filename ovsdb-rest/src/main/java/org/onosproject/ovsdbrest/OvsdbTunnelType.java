@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+/**
+ * Encapsulations of the tunnel ports created on the ovsdb nodes.
+ */
+public enum OvsdbTunnelType {
+    GRE('g', 0xFFFFFFFFL),
+    VXLAN('v', 0xFFFFFFL),
+    GENEVE('n', 0xFFFFFFL);
+
+    private final char portPrefix;
+    private final long maxKey;
+
+    OvsdbTunnelType(char portPrefix, long maxKey) {
+        this.portPrefix = portPrefix;
+        this.maxKey = maxKey;
+    }
+
+    /**
+     * Returns the first character of the ports created by the mesh builder.
+     *
+     * @return port name prefix
+     */
+    char portPrefix() {
+        return portPrefix;
+    }
+
+    /**
+     * Returns the largest key, or VNI, the encapsulation can carry.
+     *
+     * @return maximum key
+     */
+    public long maxKey() {
+        return maxKey;
+    }
+}
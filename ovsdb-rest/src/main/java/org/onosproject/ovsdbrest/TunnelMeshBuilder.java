@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import org.onlab.packet.IpAddress;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.AtomicCounter;
+import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.StorageService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Plans the tunnel ports of a full mesh between ovsdb nodes.
+ * <p>
+ * Each mesh gets its own key, or VNI, allocated from a cluster-wide counter
+ * and remembered by mesh name and encapsulation, so that two meshes never
+ * share a key and building a mesh again reuses its key. Tunnel ports are named
+ * after the encapsulation, the remote end point and the key, which keeps the
+ * names of different meshes on the same bridge apart and within the 15
+ * characters allowed for an interface name; an IPv6 end point does not fit in
+ * such a name, so meshes are IPv4 only.
+ * </p>
+ */
+final class TunnelMeshBuilder {
+
+    private static final String KEY_MAP_NAME = "ovsdb-rest-tunnel-keys";
+    private static final String KEY_COUNTER_NAME = "ovsdb-rest-tunnel-key-counter";
+    private static final int MAX_PORT_NAME_LENGTH = 15;
+
+    private final Map<String, Long> meshKeys;
+    private final AtomicCounter keyCounter;
+
+    /**
+     * Creates a mesh builder.
+     *
+     * @param storageService the storage service
+     */
+    TunnelMeshBuilder(StorageService storageService) {
+        this(storageService.<String, Long>consistentMapBuilder()
+                     .withName(KEY_MAP_NAME)
+                     .withSerializer(Serializer.using(KryoNamespaces.BASIC))
+                     .build()
+                     .asJavaMap(),
+             storageService.atomicCounterBuilder()
+                     .withName(KEY_COUNTER_NAME)
+                     .withMeteringDisabled()
+                     .build()
+                     .asAtomicCounter());
+    }
+
+    /**
+     * Creates a mesh builder on the given primitives, e.g. local ones for tests.
+     *
+     * @param meshKeys keys of the meshes built so far, by encapsulation and mesh name
+     * @param keyCounter counter of the keys allocated so far
+     */
+    TunnelMeshBuilder(Map<String, Long> meshKeys, AtomicCounter keyCounter) {
+        this.meshKeys = meshKeys;
+        this.keyCounter = keyCounter;
+    }
+
+    /**
+     * Returns the tunnel operations building a full mesh: every node gets one
+     * tunnel port towards each of the other nodes.
+     *
+     * @param meshName the mesh name
+     * @param tunnelType the tunnel encapsulation
+     * @param bridgeName the bridge the tunnel ports are attached to, on every node
+     * @param endpoints map from ovsdb IP address to the local tunnel end point of the node
+     * @return tunnel creation operations
+     * @throws IllegalArgumentException if the mesh has less than two nodes or an IPv6 end point
+     * @throws IllegalStateException if no key is left for the encapsulation
+     */
+    List<OvsdbBridgeOperation> build(String meshName, OvsdbTunnelType tunnelType, String bridgeName,
+                                     Map<IpAddress, IpAddress> endpoints) {
+        checkArgument(endpoints.size() > 1, "A mesh needs at least two nodes");
+        endpoints.values().forEach(endpoint -> checkArgument(endpoint.isIp4(),
+                "IPv6 tunnel end point %s is not supported", endpoint));
+        long key = meshKey(meshName, tunnelType);
+
+        List<OvsdbBridgeOperation> operations = new ArrayList<>(endpoints.size() * (endpoints.size() - 1));
+        endpoints.forEach((ovsdbIp, localIp) -> endpoints.forEach((peerIp, remoteIp) -> {
+            if (!peerIp.equals(ovsdbIp)) {
+                operations.add(OvsdbBridgeOperation.createTunnel(
+                        ovsdbIp, bridgeName, portName(tunnelType, remoteIp, key), tunnelType,
+                        localIp, remoteIp, String.valueOf(key)));
+            }
+        }));
+        return operations;
+    }
+
+    // a mesh built again with another encapsulation gets a key checked against that encapsulation
+    private long meshKey(String meshName, OvsdbTunnelType tunnelType) {
+        String name = tunnelType + "/" + meshName;
+        Long key = meshKeys.get(name);
+        if (key != null) {
+            return key;
+        }
+        long candidate = keyCounter.incrementAndGet();
+        if (candidate > tunnelType.maxKey()) {
+            throw new IllegalStateException("No " + tunnelType + " key left for mesh " + meshName);
+        }
+        // a concurrent build of the same mesh may have won, its key is used
+        Long existing = meshKeys.putIfAbsent(name, candidate);
+        return existing == null ? candidate : existing;
+    }
+
+    private static String portName(OvsdbTunnelType tunnelType, IpAddress remoteIp, long key) {
+        String name = tunnelType.portPrefix() + String.format("%08x", remoteIp.getIp4Address().toInt())
+                + Long.toString(key, Character.MAX_RADIX);
+        if (name.length() > MAX_PORT_NAME_LENGTH) {
+            throw new IllegalStateException("Tunnel key " + key + " too large for a port name");
+        }
+        return name;
+    }
+}
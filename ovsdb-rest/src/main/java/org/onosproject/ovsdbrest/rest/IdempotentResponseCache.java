@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest.rest;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the responses of recent requests carrying an idempotency key.
+ * <p>
+ * The first request with a given key runs and its response is kept for a while;
+ * a retry with the same key gets the kept response instead of running again,
+ * and a retry arriving while the first request is still running waits for it.
+ * A request reusing a key with another body is rejected with 422, so that a
+ * client bug never gets the response of a different request.
+ * </p>
+ * <p>
+ * Only the successful responses and the client errors that a retry would get
+ * again are kept: server errors and the 4xx telling the client to come back
+ * later (408, 425 and 429) are dropped once returned, so that a retry runs the
+ * request again.
+ * </p>
+ */
+final class IdempotentResponseCache {
+
+    /**
+     * Header set on the responses replayed from the cache.
+     */
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int UNPROCESSABLE_ENTITY = 422;
+    private static final int REQUEST_TIMEOUT = 408;
+    private static final int TOO_EARLY = 425;
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private static final class CachedResponse {
+        private final String fingerprint;
+        private final int status;
+        private final Object entity;
+        private final URI location;
+
+        private CachedResponse(String fingerprint, Response response) {
+            this.fingerprint = fingerprint;
+            this.status = response.getStatus();
+            this.entity = response.getEntity();
+            this.location = response.getLocation();
+        }
+
+        private Response replay() {
+            return Response.status(status)
+                    .entity(entity)
+                    .location(location)
+                    .header(REPLAYED_HEADER, true)
+                    .build();
+        }
+    }
+
+    private final Cache<String, CachedResponse> responses;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize maximum number of responses kept
+     * @param ttlMillis time a response is kept for, in milliseconds
+     */
+    IdempotentResponseCache(long maxSize, long ttlMillis) {
+        this.responses = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Runs a request once per key.
+     *
+     * @param key the idempotency key, scoped by the caller to the request method and path
+     * @param fingerprint digest of the request body, empty if the request has none
+     * @param request the request
+     * @return response of the request, or of the earlier request with the same key,
+     * 422 if the earlier request had another body
+     */
+    Response execute(String key, String fingerprint, Supplier<Response> request) {
+        Response[] executed = new Response[1];
+        CachedResponse cached;
+        try {
+            cached = responses.get(key, () -> {
+                executed[0] = request.get();
+                return new CachedResponse(fingerprint, executed[0]);
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            // not kept, the retry runs the request again
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        if (!isKept(cached.status)) {
+            responses.asMap().remove(key, cached);
+        }
+        if (executed[0] != null) {
+            return executed[0];
+        }
+        if (!cached.fingerprint.equals(fingerprint)) {
+            return Response.status(UNPROCESSABLE_ENTITY)
+                    .entity("The idempotency key has been used with another request body")
+                    .build();
+        }
+        return cached.replay();
+    }
+
+    private static boolean isKept(int status) {
+        Response.Status.Family family = Response.Status.Family.familyOf(status);
+        return family == Response.Status.Family.SUCCESSFUL
+                || (family == Response.Status.Family.CLIENT_ERROR
+                && status != REQUEST_TIMEOUT && status != TOO_EARLY && status != TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.onlab.packet.IpAddress;
+import org.onosproject.codec.CodecContext;
+import org.onosproject.codec.JsonCodec;
+import org.onosproject.ovsdbrest.OvsdbBridgeOperation;
+import org.onosproject.ovsdbrest.OvsdbTunnelType;
+
+import static org.onlab.util.Tools.nullIsIllegal;
+
+/**
+ * JSON codec for ovsdb bridge operations.
+ */
+public class OvsdbBridgeOperationCodec extends JsonCodec<OvsdbBridgeOperation> {
+
+    static final String TYPE = "type";
+    static final String OVSDB_IP = "ovsdbIp";
+    static final String BRIDGE_NAME = "bridgeName";
+    static final String PORT_NAME = "portName";
+    static final String PATCH_PEER = "patchPeer";
+    static final String LOCAL_IP = "localIp";
+    static final String REMOTE_IP = "remoteIp";
+    static final String KEY = "key";
+    static final String TUNNEL_TYPE = "tunnelType";
+
+    private static final String MISSING_MEMBER_MESSAGE = " member is required in an operation";
+
+    @Override
+    public ObjectNode encode(OvsdbBridgeOperation operation, CodecContext context) {
+        ObjectNode result = context.mapper().createObjectNode()
+                .put(TYPE, operation.type().name())
+                .put(OVSDB_IP, operation.ovsdbIp().toString())
+                .put(BRIDGE_NAME, operation.bridgeName());
+        if (operation.portName() != null) {
+            result.put(PORT_NAME, operation.portName());
+        }
+        if (operation.patchPeer() != null) {
+            result.put(PATCH_PEER, operation.patchPeer());
+        }
+        if (operation.localIp() != null) {
+            result.put(LOCAL_IP, operation.localIp().toString());
+        }
+        if (operation.remoteIp() != null) {
+            result.put(REMOTE_IP, operation.remoteIp().toString());
+        }
+        if (operation.key() != null) {
+            result.put(KEY, operation.key());
+        }
+        if (operation.type() == OvsdbBridgeOperation.Type.CREATE_TUNNEL) {
+            result.put(TUNNEL_TYPE, operation.tunnelType().name());
+        }
+        return result;
+    }
+
+    @Override
+    public OvsdbBridgeOperation decode(ObjectNode json, CodecContext context) {
+        if (json == null || !json.isObject()) {
+            return null;
+        }
+
+        OvsdbBridgeOperation.Type type = OvsdbBridgeOperation.Type.valueOf(
+                nullIsIllegal(json.get(TYPE), TYPE + MISSING_MEMBER_MESSAGE).asText());
+        IpAddress ovsdbIp = IpAddress.valueOf(
+                nullIsIllegal(json.get(OVSDB_IP), OVSDB_IP + MISSING_MEMBER_MESSAGE).asText());
+        String bridgeName = nullIsIllegal(json.get(BRIDGE_NAME), BRIDGE_NAME + MISSING_MEMBER_MESSAGE).asText();
+
+        switch (type) {
+            case CREATE_BRIDGE:
+                return OvsdbBridgeOperation.createBridge(ovsdbIp, bridgeName);
+            case DELETE_BRIDGE:
+                return OvsdbBridgeOperation.deleteBridge(ovsdbIp, bridgeName);
+            case ADD_PORT:
+                return OvsdbBridgeOperation.addPort(ovsdbIp, bridgeName, portName(json));
+            case REMOVE_PORT:
+                return OvsdbBridgeOperation.removePort(ovsdbIp, bridgeName, portName(json));
+            case CREATE_PATCH:
+                return OvsdbBridgeOperation.createPatch(ovsdbIp, bridgeName, portName(json),
+                        nullIsIllegal(json.get(PATCH_PEER), PATCH_PEER + MISSING_MEMBER_MESSAGE).asText());
+            case CREATE_GRE_TUNNEL:
+                return OvsdbBridgeOperation.createGreTunnel(ovsdbIp, bridgeName, portName(json),
+                        ipAddress(json, LOCAL_IP), ipAddress(json, REMOTE_IP),
+                        nullIsIllegal(json.get(KEY), KEY + MISSING_MEMBER_MESSAGE).asText());
+            case DELETE_GRE_TUNNEL:
+                return OvsdbBridgeOperation.deleteGreTunnel(ovsdbIp, bridgeName, portName(json));
+            case CREATE_TUNNEL:
+                return OvsdbBridgeOperation.createTunnel(ovsdbIp, bridgeName, portName(json),
+                        OvsdbTunnelType.valueOf(
+                                nullIsIllegal(json.get(TUNNEL_TYPE), TUNNEL_TYPE + MISSING_MEMBER_MESSAGE).asText()),
+                        ipAddress(json, LOCAL_IP), ipAddress(json, REMOTE_IP),
+                        nullIsIllegal(json.get(KEY), KEY + MISSING_MEMBER_MESSAGE).asText());
+            case DELETE_TUNNEL:
+                return OvsdbBridgeOperation.deleteTunnel(ovsdbIp, bridgeName, portName(json));
+            default:
+                throw new IllegalArgumentException("Unsupported operation type " + type);
+        }
+    }
+
+    private static String portName(JsonNode json) {
+        return nullIsIllegal(json.get(PORT_NAME), PORT_NAME + MISSING_MEMBER_MESSAGE).asText();
+    }
+
+    private static IpAddress ipAddress(JsonNode json, String member) {
+        return IpAddress.valueOf(nullIsIllegal(json.get(member), member + MISSING_MEMBER_MESSAGE).asText());
+    }
+}
@@ -16,26 +16,62 @@
 
 package org.onosproject.ovsdbrest.rest;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import org.onlab.packet.IpAddress;
+import org.onosproject.ovsdbrest.InventoryCacheStats;
+import org.onosproject.ovsdbrest.OvsdbAdmissionState;
+import org.onosproject.ovsdbrest.OvsdbBridgeOperation;
+import org.onosproject.ovsdbrest.OvsdbInterfaceStats;
+import org.onosproject.ovsdbrest.OvsdbJob;
+import org.onosproject.ovsdbrest.OvsdbNodeInventory;
+import org.onosproject.ovsdbrest.OvsdbOperationResult;
 import org.onosproject.ovsdbrest.OvsdbRestException;
+import org.onosproject.ovsdbrest.OvsdbSessionState;
 import org.onosproject.ovsdbrest.OvsdbBridgeService;
+import org.onosproject.ovsdbrest.OvsdbTunnelType;
 import org.onosproject.rest.AbstractWebResource;
 import org.slf4j.Logger;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import static org.onlab.util.Tools.nullIsIllegal;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -46,6 +82,49 @@ import static org.slf4j.LoggerFactory.getLogger;
 public class OvsdbBridgeWebResource extends AbstractWebResource {
     private final Logger log = getLogger(getClass());
 
+    private static final String OPERATIONS = "operations";
+    private static final String RESULTS = "results";
+    private static final String INDEX = "index";
+    private static final String OPERATION = "operation";
+    private static final String STATUS = "status";
+    private static final String MESSAGE = "message";
+    private static final String JOB_ID = "jobId";
+    private static final String ID = "id";
+    private static final String STATE = "state";
+    private static final String SUBMITTED = "submitted";
+    private static final String COMPLETED = "completed";
+    private static final String SEQUENCE = "sequence";
+    private static final String NAME = "name";
+    private static final String TUNNEL_TYPE = "tunnelType";
+    private static final String BRIDGE_NAME = "bridgeName";
+    private static final String NODES = "nodes";
+    private static final String OVSDB_IP = "ovsdbIp";
+    private static final String TUNNEL_IP = "tunnelIp";
+    private static final String MISSING_MEMBER_MESSAGE = " member is required";
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final long MAX_STREAM_TIMEOUT_MILLIS = 300000;
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final long MAX_IDEMPOTENT_RESPONSES = 10000;
+    private static final long IDEMPOTENT_RESPONSE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    // shared by all the requests, resources are created per request
+    private static final IdempotentResponseCache IDEMPOTENT_RESPONSES =
+            new IdempotentResponseCache(MAX_IDEMPOTENT_RESPONSES, IDEMPOTENT_RESPONSE_TTL_MILLIS);
+
+    @Context
+    private HttpHeaders headers;
+
+    @Context
+    private Request request;
+
+    @Context
+    private UriInfo uriInfo;
+
+    private final OvsdbBridgeOperationCodec operationCodec = new OvsdbBridgeOperationCodec();
+
     @GET
     @Path("/test")
     public Response getTest() {
@@ -58,37 +137,51 @@ public class OvsdbBridgeWebResource extends AbstractWebResource {
     @Path("/{ovsdb-ip}/bridge/{bridge-name}")
     @Produces(MediaType.TEXT_PLAIN)
     public Response addBridge(InputStream stream,
+                              @QueryParam("async") @DefaultValue("false") boolean async,
                               @PathParam("ovsdb-ip") String ovsdbIp,
                               @PathParam("bridge-name") String bridgeName) {
-        try {
-            IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
-            OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
-            ovsdbBridgeService.createBridge(ovsdbAddress, bridgeName);
-            return Response.status(200).build();
-        } catch (OvsdbRestException.BridgeAlreadyExistsException ex) {
-            return Response.status(Response.Status.CONFLICT).entity("A bridge with this name already exists").build();
-        } catch (OvsdbRestException.OvsdbDeviceException ex) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
-        }
+        return idempotent(() -> {
+            try {
+                IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+                if (async) {
+                    return submitJob(OvsdbBridgeOperation.createBridge(ovsdbAddress, bridgeName));
+                }
+                OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+                ovsdbBridgeService.createBridge(ovsdbAddress, bridgeName);
+                return Response.status(200).build();
+            } catch (OvsdbRestException.BridgeAlreadyExistsException ex) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("A bridge with this name already exists").build();
+            } catch (OvsdbRestException.OvsdbDeviceException ex) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
+            }
+        });
     }
 
     @DELETE
     @Path("/{ovsdb-ip}/bridge/{bridge-name}")
     @Produces(MediaType.TEXT_PLAIN)
     public Response deleteBridge(InputStream stream,
+                                 @QueryParam("async") @DefaultValue("false") boolean async,
                                  @PathParam("ovsdb-ip") String ovsdbIp,
                                  @PathParam("bridge-name") String bridgeName) {
-        try {
+        return idempotent(() -> {
+            try {
 
-            IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
-            OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
-            ovsdbBridgeService.deleteBridge(ovsdbAddress, bridgeName);
-            return Response.status(200).build();
-        } catch (OvsdbRestException.BridgeNotFoundException ex) {
-            return Response.status(Response.Status.NOT_FOUND).entity("No bridge found with the specified name").build();
-        } catch (OvsdbRestException.OvsdbDeviceException ex) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
-        }
+                IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+                if (async) {
+                    return submitJob(OvsdbBridgeOperation.deleteBridge(ovsdbAddress, bridgeName));
+                }
+                OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+                ovsdbBridgeService.deleteBridge(ovsdbAddress, bridgeName);
+                return Response.status(200).build();
+            } catch (OvsdbRestException.BridgeNotFoundException ex) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("No bridge found with the specified name").build();
+            } catch (OvsdbRestException.OvsdbDeviceException ex) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
+            }
+        });
     }
 
     @GET
@@ -114,24 +207,165 @@ public class OvsdbBridgeWebResource extends AbstractWebResource {
         }
     }
 
+    @GET
+    @Path("/cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getInventoryCacheStats() {
+        InventoryCacheStats stats = get(OvsdbBridgeService.class).getInventoryCacheStats();
+
+        ObjectNode responseBody = mapper().createObjectNode()
+                .put("hits", stats.hits())
+                .put("misses", stats.misses())
+                .put("hitRate", stats.hitRate())
+                .put("invalidations", stats.invalidations());
+        ArrayNode nodes = responseBody.putArray("nodes");
+        stats.ageMillis().forEach((ovsdbIp, age) -> nodes.addObject()
+                .put("ovsdbIp", ovsdbIp.toString())
+                .put("ageMillis", age)
+                .put("sinceUpdateMillis", stats.sinceUpdateMillis().get(ovsdbIp)));
+        return Response.status(200).entity(responseBody).build();
+    }
+
+    @GET
+    @Path("/sessions")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getSessionStates() {
+        ObjectNode responseBody = mapper().createObjectNode();
+        ArrayNode sessions = responseBody.putArray("sessions");
+        for (OvsdbSessionState state : get(OvsdbBridgeService.class).getSessionStates()) {
+            sessions.addObject()
+                    .put("ovsdbIp", state.ovsdbIp().toString())
+                    .put("status", state.status().name())
+                    .put("since", state.sinceMillis())
+                    .put("lastRttMillis", state.lastRttMillis())
+                    .put("failedAttempts", state.failedAttempts())
+                    .put("nextAttempt", state.nextAttemptMillis());
+        }
+        return Response.status(200).entity(responseBody).build();
+    }
+
+    @GET
+    @Path("/admission")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAdmissionStates() {
+        ObjectNode responseBody = mapper().createObjectNode();
+        ArrayNode nodes = responseBody.putArray(NODES);
+        for (OvsdbAdmissionState state : get(OvsdbBridgeService.class).getAdmissionStates()) {
+            nodes.addObject()
+                    .put(OVSDB_IP, state.ovsdbIp().toString())
+                    .put("queueDepth", state.queueDepth())
+                    .put("availableTokens", state.availableTokens())
+                    .put("admitted", state.admitted())
+                    .put("rejected", state.rejected());
+        }
+        return Response.status(200).entity(responseBody).build();
+    }
+
+    @GET
+    @Path("/{ovsdb-ip}/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getInterfaceStats(@PathParam("ovsdb-ip") String ovsdbIp,
+                                      @QueryParam("window") @DefaultValue("0") long windowSeconds) {
+        IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+        List<OvsdbInterfaceStats> stats = get(OvsdbBridgeService.class)
+                .getInterfaceStats(ovsdbAddress, TimeUnit.SECONDS.toMillis(windowSeconds));
+
+        ObjectNode responseBody = mapper().createObjectNode().put(OVSDB_IP, ovsdbAddress.toString());
+        ArrayNode interfaces = responseBody.putArray("interfaces");
+        stats.forEach(sample -> interfaces.add(encodeInterfaceStats(sample)));
+        return Response.status(200).entity(responseBody).build();
+    }
+
+    @GET
+    @Path("/{ovsdb-ip}/stats/{interface-name}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getInterfaceStatsHistory(@PathParam("ovsdb-ip") String ovsdbIp,
+                                             @PathParam("interface-name") String interfaceName) {
+        IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+        List<OvsdbInterfaceStats> history = get(OvsdbBridgeService.class)
+                .getInterfaceStatsHistory(ovsdbAddress, interfaceName);
+        if (history.isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("No statistics found for the specified interface").build();
+        }
+
+        ObjectNode responseBody = mapper().createObjectNode()
+                .put(OVSDB_IP, ovsdbAddress.toString())
+                .put("name", interfaceName);
+        ArrayNode samples = responseBody.putArray("samples");
+        history.forEach(sample -> samples.add(encodeInterfaceStats(sample)));
+        return Response.status(200).entity(responseBody).build();
+    }
+
+    private ObjectNode encodeInterfaceStats(OvsdbInterfaceStats stats) {
+        ObjectNode result = mapper().createObjectNode()
+                .put("name", stats.name())
+                .put("timestamp", stats.timestamp())
+                .put("intervalMillis", stats.intervalMillis());
+        ObjectNode values = result.putObject("values");
+        ObjectNode deltas = result.putObject("deltas");
+        ObjectNode rates = result.putObject("rates");
+        for (OvsdbInterfaceStats.Counter counter : OvsdbInterfaceStats.Counter.values()) {
+            values.put(counter.key(), stats.value(counter));
+            deltas.put(counter.key(), stats.delta(counter));
+            rates.put(counter.key(), stats.rate(counter));
+        }
+        return result;
+    }
+
+    @GET
+    @Path("/inventory")
+    @Produces(NDJSON)
+    public Response streamInventory() {
+        OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+
+        // one JSON document per node, written as soon as the node is read
+        StreamingOutput inventory = output -> {
+            try {
+                ovsdbBridgeService.walkInventory(node -> {
+                    try {
+                        output.write(mapper().writeValueAsBytes(encodeInventory(node)));
+                        output.write('\n');
+                        output.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw interrupted("Inventory stream interrupted", e);
+            }
+        };
+        return Response.status(200).entity(inventory).build();
+    }
+
     @POST
     @Path("/{ovsdb-ip}/bridge/{bridge-name}/port/{port-name}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.TEXT_PLAIN)
     public Response addPort(InputStream stream,
+                            @QueryParam("async") @DefaultValue("false") boolean async,
                             @PathParam("ovsdb-ip") String ovsdbIp,
                             @PathParam("bridge-name") String bridgeName,
                             @PathParam("port-name") String portName) {
-        try {
-            IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
-            OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
-            ovsdbBridgeService.addPort(ovsdbAddress, bridgeName, portName);
-            return Response.status(200).build();
-        } catch (OvsdbRestException.BridgeNotFoundException ex) {
-            return Response.status(Response.Status.NOT_FOUND).entity("No bridge found with the specified name").build();
-        } catch (OvsdbRestException.OvsdbDeviceException ex) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
-        }
+        return idempotent(() -> {
+            try {
+                IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+                if (async) {
+                    return submitJob(OvsdbBridgeOperation.addPort(ovsdbAddress, bridgeName, portName));
+                }
+                OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+                ovsdbBridgeService.addPort(ovsdbAddress, bridgeName, portName);
+                return Response.status(200).build();
+            } catch (OvsdbRestException.BridgeNotFoundException ex) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("No bridge found with the specified name").build();
+            } catch (OvsdbRestException.OvsdbDeviceException ex) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
+            }
+        });
     }
 
     @DELETE
@@ -139,19 +373,26 @@ public class OvsdbBridgeWebResource extends AbstractWebResource {
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.TEXT_PLAIN)
     public Response deletePort(InputStream stream,
+                               @QueryParam("async") @DefaultValue("false") boolean async,
                                @PathParam("ovsdb-ip") String ovsdbIp,
                                @PathParam("bridge-name") String bridgeName,
                                @PathParam("port-name") String portName) {
-        try {
-            IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
-            OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
-            ovsdbBridgeService.removePort(ovsdbAddress, bridgeName, portName);
-            return Response.status(200).build();
-        } catch (OvsdbRestException.BridgeNotFoundException ex) {
-            return Response.status(Response.Status.NOT_FOUND).entity("No bridge found with the specified name").build();
-        } catch (OvsdbRestException.OvsdbDeviceException ex) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
-        }
+        return idempotent(() -> {
+            try {
+                IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+                if (async) {
+                    return submitJob(OvsdbBridgeOperation.removePort(ovsdbAddress, bridgeName, portName));
+                }
+                OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+                ovsdbBridgeService.removePort(ovsdbAddress, bridgeName, portName);
+                return Response.status(200).build();
+            } catch (OvsdbRestException.BridgeNotFoundException ex) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("No bridge found with the specified name").build();
+            } catch (OvsdbRestException.OvsdbDeviceException ex) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
+            }
+        });
     }
 
     @POST
@@ -159,18 +400,24 @@ public class OvsdbBridgeWebResource extends AbstractWebResource {
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.TEXT_PLAIN)
     public Response createPatchPeerPort(InputStream stream,
+                                        @QueryParam("async") @DefaultValue("false") boolean async,
                                         @PathParam("ovsdb-ip") String ovsdbIp,
                                         @PathParam("bridge-name") String bridgeName,
                                         @PathParam("port-name") String portName,
                                         @PathParam("patch-peer") String patchPeer) {
-        try {
-            IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
-            OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
-            ovsdbBridgeService.createPatchPeerPort(ovsdbAddress, bridgeName, portName, patchPeer);
-            return Response.status(200).build();
-        } catch (OvsdbRestException.OvsdbDeviceException ex) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
-        }
+        return idempotent(() -> {
+            try {
+                IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+                if (async) {
+                    return submitJob(OvsdbBridgeOperation.createPatch(ovsdbAddress, bridgeName, portName, patchPeer));
+                }
+                OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+                ovsdbBridgeService.createPatchPeerPort(ovsdbAddress, bridgeName, portName, patchPeer);
+                return Response.status(200).build();
+            } catch (OvsdbRestException.OvsdbDeviceException ex) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
+            }
+        });
     }
 
     @POST
@@ -178,24 +425,33 @@ public class OvsdbBridgeWebResource extends AbstractWebResource {
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.TEXT_PLAIN)
     public Response addGreTunnel(InputStream stream,
+                                 @QueryParam("async") @DefaultValue("false") boolean async,
                                  @PathParam("ovsdb-ip") String ovsdbIp,
                                  @PathParam("bridge-name") String bridgeName,
                                  @PathParam("port-name") String portName,
                                  @PathParam("local-ip") String localIp,
                                  @PathParam("remote-ip") String remoteIp,
                                  @PathParam("key") String key) {
-        try {
-            IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
-            IpAddress tunnelLocalIp = IpAddress.valueOf(localIp);
-            IpAddress tunnelRemoteIp = IpAddress.valueOf(remoteIp);
-            OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
-            ovsdbBridgeService.createGreTunnel(ovsdbAddress, bridgeName, portName, tunnelLocalIp, tunnelRemoteIp, key);
-            return Response.status(200).build();
-        } catch (OvsdbRestException.BridgeNotFoundException ex) {
-            return Response.status(Response.Status.NOT_FOUND).entity("No bridge found with the specified name").build();
-        } catch (OvsdbRestException.OvsdbDeviceException ex) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
-        }
+        return idempotent(() -> {
+            try {
+                IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+                IpAddress tunnelLocalIp = IpAddress.valueOf(localIp);
+                IpAddress tunnelRemoteIp = IpAddress.valueOf(remoteIp);
+                if (async) {
+                    return submitJob(OvsdbBridgeOperation.createGreTunnel(ovsdbAddress, bridgeName, portName,
+                                                                          tunnelLocalIp, tunnelRemoteIp, key));
+                }
+                OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+                ovsdbBridgeService.createGreTunnel(ovsdbAddress, bridgeName, portName,
+                                                   tunnelLocalIp, tunnelRemoteIp, key);
+                return Response.status(200).build();
+            } catch (OvsdbRestException.BridgeNotFoundException ex) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("No bridge found with the specified name").build();
+            } catch (OvsdbRestException.OvsdbDeviceException ex) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
+            }
+        });
     }
 
     @DELETE
@@ -203,16 +459,464 @@ public class OvsdbBridgeWebResource extends AbstractWebResource {
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.TEXT_PLAIN)
     public Response deleteGreTunnel(InputStream stream,
+                                    @QueryParam("async") @DefaultValue("false") boolean async,
                                     @PathParam("ovsdb-ip") String ovsdbIp,
                                     @PathParam("bridge-name") String bridgeName,
                                     @PathParam("port-name") String portName) {
-        try {
-            IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+        return idempotent(() -> {
+            try {
+                IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+                if (async) {
+                    return submitJob(OvsdbBridgeOperation.deleteGreTunnel(ovsdbAddress, bridgeName, portName));
+                }
+                OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+                ovsdbBridgeService.deleteGreTunnel(ovsdbAddress, bridgeName, portName);
+                return Response.status(200).build();
+            } catch (OvsdbRestException.OvsdbDeviceException ex) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
+            }
+        });
+    }
+
+    @POST
+    @Path("/{ovsdb-ip}/bridge/{bridge-name}/port/{port-name}/tunnel/{tunnel-type}/{local-ip}/{remote-ip}/{key}")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response addTunnel(InputStream stream,
+                              @QueryParam("async") @DefaultValue("false") boolean async,
+                              @PathParam("ovsdb-ip") String ovsdbIp,
+                              @PathParam("bridge-name") String bridgeName,
+                              @PathParam("port-name") String portName,
+                              @PathParam("tunnel-type") String tunnelType,
+                              @PathParam("local-ip") String localIp,
+                              @PathParam("remote-ip") String remoteIp,
+                              @PathParam("key") String key) {
+        return idempotent(() -> {
+            try {
+                IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+                OvsdbTunnelType type = OvsdbTunnelType.valueOf(tunnelType.toUpperCase());
+                IpAddress tunnelLocalIp = IpAddress.valueOf(localIp);
+                IpAddress tunnelRemoteIp = IpAddress.valueOf(remoteIp);
+                if (async) {
+                    return submitJob(OvsdbBridgeOperation.createTunnel(ovsdbAddress, bridgeName, portName, type,
+                                                                       tunnelLocalIp, tunnelRemoteIp, key));
+                }
+                OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+                ovsdbBridgeService.createTunnel(ovsdbAddress, bridgeName, portName, type,
+                                                tunnelLocalIp, tunnelRemoteIp, key);
+                return Response.status(200).build();
+            } catch (IllegalArgumentException ex) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(ex.getMessage()).build();
+            } catch (OvsdbRestException.OvsdbDeviceException ex) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
+            }
+        });
+    }
+
+    @DELETE
+    @Path("/{ovsdb-ip}/bridge/{bridge-name}/port/{port-name}/tunnel")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response deleteTunnel(InputStream stream,
+                                 @QueryParam("async") @DefaultValue("false") boolean async,
+                                 @PathParam("ovsdb-ip") String ovsdbIp,
+                                 @PathParam("bridge-name") String bridgeName,
+                                 @PathParam("port-name") String portName) {
+        return idempotent(() -> {
+            try {
+                IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+                if (async) {
+                    return submitJob(OvsdbBridgeOperation.deleteTunnel(ovsdbAddress, bridgeName, portName));
+                }
+                OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+                ovsdbBridgeService.deleteGreTunnel(ovsdbAddress, bridgeName, portName);
+                return Response.status(200).build();
+            } catch (OvsdbRestException.OvsdbDeviceException ex) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
+            }
+        });
+    }
+
+    @POST
+    @Path("/mesh")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response createTunnelMesh(InputStream stream) {
+        return idempotent(stream, body -> {
+            String meshName;
+            OvsdbTunnelType tunnelType;
+            String bridgeName;
+            Map<IpAddress, IpAddress> endpoints = new LinkedHashMap<>();
+            try {
+                JsonNode root = mapper().readTree(body);
+                if (root == null || !root.isObject()) {
+                    throw new IllegalArgumentException("A JSON object is required");
+                }
+                meshName = nullIsIllegal(root.get(NAME), NAME + MISSING_MEMBER_MESSAGE).asText();
+                tunnelType = OvsdbTunnelType.valueOf(
+                        nullIsIllegal(root.get(TUNNEL_TYPE), TUNNEL_TYPE + MISSING_MEMBER_MESSAGE).asText());
+                bridgeName = nullIsIllegal(root.get(BRIDGE_NAME), BRIDGE_NAME + MISSING_MEMBER_MESSAGE).asText();
+                JsonNode nodes = root.get(NODES);
+                if (nodes == null || !nodes.isArray()) {
+                    throw new IllegalArgumentException(NODES + " array is required");
+                }
+                for (JsonNode node : nodes) {
+                    IpAddress ovsdbAddress = IpAddress.valueOf(
+                            nullIsIllegal(node.get(OVSDB_IP), OVSDB_IP + MISSING_MEMBER_MESSAGE).asText());
+                    // the tunnel end point defaults to the ovsdb address
+                    JsonNode tunnelIp = node.get(TUNNEL_IP);
+                    endpoints.put(ovsdbAddress, tunnelIp == null ? ovsdbAddress : IpAddress.valueOf(tunnelIp.asText()));
+                }
+            } catch (IOException | IllegalArgumentException ex) {
+                log.warn("Invalid mesh request: {}", ex.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST).entity(ex.getMessage()).build();
+            }
+
+            List<OvsdbOperationResult> results;
+            try {
+                results = get(OvsdbBridgeService.class).createTunnelMesh(meshName, tunnelType, bridgeName, endpoints);
+            } catch (IllegalArgumentException ex) {
+                return Response.status(Response.Status.BAD_REQUEST).entity(ex.getMessage()).build();
+            } catch (IllegalStateException ex) {
+                return Response.status(Response.Status.CONFLICT).entity(ex.getMessage()).build();
+            }
+
+            ObjectNode responseBody = mapper().createObjectNode();
+            ArrayNode resultsNode = responseBody.putArray(RESULTS);
+            for (int i = 0; i < results.size(); i++) {
+                resultsNode.add(encodeResult(i, results.get(i)));
+            }
+            return Response.status(200).entity(responseBody).build();
+        });
+    }
+
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response applyBatch(InputStream stream,
+                               @QueryParam("async") @DefaultValue("false") boolean async) {
+        return idempotent(stream, body -> {
+            List<OvsdbBridgeOperation> operations;
+            try {
+                operations = decodeOperations(body);
+            } catch (IOException | IllegalArgumentException ex) {
+                log.warn("Invalid batch request: {}", ex.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST).entity(ex.getMessage()).build();
+            }
+
             OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
-            ovsdbBridgeService.deleteGreTunnel(ovsdbAddress, bridgeName, portName);
+            if (async) {
+                try {
+                    OvsdbJob job = ovsdbBridgeService.submitJob(operations);
+                    ObjectNode responseBody = mapper().createObjectNode().put(JOB_ID, job.id());
+                    return accepted(job, responseBody);
+                } catch (OvsdbRestException.JobQueueFullException ex) {
+                    return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(ex.getMessage()).build();
+                }
+            }
+            List<OvsdbOperationResult> results = ovsdbBridgeService.applyBatch(operations);
+
+            ObjectNode responseBody = mapper().createObjectNode();
+            ArrayNode resultsNode = responseBody.putArray(RESULTS);
+            for (int i = 0; i < results.size(); i++) {
+                resultsNode.add(encodeResult(i, results.get(i)));
+            }
+            return Response.status(200).entity(responseBody).build();
+        });
+    }
+
+    @POST
+    @Path("/{ovsdb-ip}/transaction")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response applyTransaction(InputStream stream,
+                                     @PathParam("ovsdb-ip") String ovsdbIp) {
+        return idempotent(stream, body -> {
+            IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+            List<OvsdbOperationResult> results;
+            try {
+                results = get(OvsdbBridgeService.class).applyTransaction(ovsdbAddress, decodeOperations(body));
+            } catch (IOException | IllegalArgumentException ex) {
+                log.warn("Invalid transaction request: {}", ex.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST).entity(ex.getMessage()).build();
+            }
+
+            ObjectNode responseBody = mapper().createObjectNode()
+                    .put("committed", results.stream().allMatch(OvsdbOperationResult::isSuccess));
+            ArrayNode resultsNode = responseBody.putArray(RESULTS);
+            for (int i = 0; i < results.size(); i++) {
+                resultsNode.add(encodeResult(i, results.get(i)));
+            }
+            return Response.status(200).entity(responseBody).build();
+        });
+    }
+
+    @GET
+    @Path("/jobs/{job-id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getJob(@PathParam("job-id") long jobId) {
+        OvsdbJob job = get(OvsdbBridgeService.class).getJob(jobId);
+        if (job == null) {
+            return Response.status(Response.Status.NOT_FOUND).entity("No job found with the specified id").build();
+        }
+        return Response.status(200).entity(encodeJob(job)).build();
+    }
+
+    @GET
+    @Path("/jobs/completions")
+    @Produces(NDJSON)
+    public Response streamCompletedJobs(@QueryParam("after") @DefaultValue("0") long afterSequence,
+                                        @QueryParam("timeout") @DefaultValue("30000") long timeoutMillis) {
+        OvsdbBridgeService ovsdbBridgeService = get(OvsdbBridgeService.class);
+        long deadline = System.currentTimeMillis() + Math.min(Math.max(timeoutMillis, 0), MAX_STREAM_TIMEOUT_MILLIS);
+
+        // one JSON document per line, written as soon as each job completes
+        StreamingOutput completions = output -> {
+            long lastSequence = afterSequence;
+            try {
+                long remaining;
+                while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+                    for (OvsdbJob job : ovsdbBridgeService.awaitCompletedJobs(lastSequence, remaining)) {
+                        output.write(mapper().writeValueAsString(encodeJob(job)).getBytes(StandardCharsets.UTF_8));
+                        output.write('\n');
+                        lastSequence = job.completionSequence();
+                    }
+                    output.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw interrupted("Job completion stream interrupted", e);
+            }
+        };
+        return Response.status(200).entity(completions).build();
+    }
+
+    // aborts a chunked response, so that the client does not take a cut stream for a complete one
+    private static InterruptedIOException interrupted(String message, InterruptedException cause) {
+        InterruptedIOException e = new InterruptedIOException(message);
+        e.initCause(cause);
+        return e;
+    }
+
+    @GET
+    @Path("/{ovsdb-ip}/desired")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getDesiredState(@PathParam("ovsdb-ip") String ovsdbIp) {
+        IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+        List<OvsdbBridgeOperation> operations = get(OvsdbBridgeService.class).getDesiredState(ovsdbAddress);
+
+        ObjectNode responseBody = mapper().createObjectNode();
+        ArrayNode operationsNode = responseBody.putArray(OPERATIONS);
+        operations.forEach(operation -> operationsNode.add(operationCodec.encode(operation, this)));
+        return Response.status(200).entity(responseBody).build();
+    }
+
+    @PUT
+    @Path("/{ovsdb-ip}/desired")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response setDesiredState(InputStream stream,
+                                    @PathParam("ovsdb-ip") String ovsdbIp) {
+        return idempotent(stream, body -> {
+            try {
+                IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+                get(OvsdbBridgeService.class).setDesiredState(ovsdbAddress, decodeOperations(body));
+                return Response.status(200).build();
+            } catch (IOException | IllegalArgumentException ex) {
+                log.warn("Invalid desired state: {}", ex.getMessage());
+                return Response.status(Response.Status.BAD_REQUEST).entity(ex.getMessage()).build();
+            }
+        });
+    }
+
+    @DELETE
+    @Path("/{ovsdb-ip}/desired")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response removeDesiredState(@PathParam("ovsdb-ip") String ovsdbIp) {
+        return idempotent(() -> {
+            IpAddress ovsdbAddress = IpAddress.valueOf(ovsdbIp);
+            get(OvsdbBridgeService.class).removeDesiredState(ovsdbAddress);
             return Response.status(200).build();
-        } catch (OvsdbRestException.OvsdbDeviceException ex) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(ex.getMessage()).build();
+        });
+    }
+
+    @POST
+    @Path("/reconcile")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response reconcile() {
+        return idempotent(() -> {
+            List<OvsdbOperationResult> results = get(OvsdbBridgeService.class).reconcile();
+
+            ObjectNode responseBody = mapper().createObjectNode();
+            ArrayNode resultsNode = responseBody.putArray(RESULTS);
+            for (int i = 0; i < results.size(); i++) {
+                resultsNode.add(encodeResult(i, results.get(i)));
+            }
+            return Response.status(200).entity(responseBody).build();
+        });
+    }
+
+    /**
+     * Runs a mutation once per idempotency key, if the request carries one.
+     * The key is scoped to the request method, path and query; a retry within
+     * ten minutes gets the response of the first request.
+     *
+     * @param mutation the mutation
+     * @return response of the mutation, or of the earlier request with the same key
+     */
+    private Response idempotent(Supplier<Response> mutation) {
+        return idempotent(null, body -> mutation.get());
+    }
+
+    /**
+     * Runs a mutation reading the request body once per idempotency key, if
+     * the request carries one. A retry with the same key and another body is
+     * rejected with 422.
+     *
+     * @param stream the request body, null if the mutation does not read it
+     * @param mutation the mutation, reading the body from the given stream
+     * @return response of the mutation, or of the earlier request with the same key
+     */
+    private Response idempotent(InputStream stream, Function<InputStream, Response> mutation) {
+        String key = headers.getHeaderString(IDEMPOTENCY_KEY);
+        if (key == null) {
+            return mutation.apply(stream);
+        }
+        if (key.isEmpty() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(IDEMPOTENCY_KEY + " must have 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters")
+                    .build();
+        }
+        URI uri = uriInfo.getRequestUri();
+        String scope = request.getMethod() + ' ' + uri.getRawPath()
+                + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+        if (stream == null) {
+            return IDEMPOTENT_RESPONSES.execute(key + ' ' + scope, "", () -> mutation.apply(null));
+        }
+
+        byte[] body;
+        try {
+            body = ByteStreams.toByteArray(stream);
+        } catch (IOException ex) {
+            log.warn("Unreadable request body: {}", ex.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(ex.getMessage()).build();
+        }
+        // the body is kept as a digest only
+        String fingerprint = Hashing.sha256().hashBytes(body).toString();
+        return IDEMPOTENT_RESPONSES.execute(key + ' ' + scope, fingerprint,
+                                            () -> mutation.apply(new ByteArrayInputStream(body)));
+    }
+
+    /**
+     * Queues a single operation for asynchronous execution.
+     *
+     * @param operation the operation
+     * @return 202 response carrying the job identifier, 503 if the node queue is full
+     */
+    private Response submitJob(OvsdbBridgeOperation operation) {
+        try {
+            OvsdbJob job = get(OvsdbBridgeService.class).submitJob(ImmutableList.of(operation));
+            return accepted(job, String.valueOf(job.id()));
+        } catch (OvsdbRestException.JobQueueFullException ex) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(ex.getMessage()).build();
+        }
+    }
+
+    private static Response accepted(OvsdbJob job, Object entity) {
+        return Response.status(Response.Status.ACCEPTED)
+                .location(URI.create("jobs/" + job.id()))
+                .entity(entity)
+                .build();
+    }
+
+    private ObjectNode encodeInventory(OvsdbNodeInventory inventory) {
+        ObjectNode node = mapper().createObjectNode()
+                .put(OVSDB_IP, inventory.ovsdbIp().toString());
+        if (inventory.error() != null) {
+            return node.put(MESSAGE, inventory.error());
+        }
+        ArrayNode bridges = node.putArray("bridges");
+        for (OvsdbNodeInventory.Bridge bridge : inventory.bridges()) {
+            ArrayNode ports = bridges.addObject()
+                    .put(NAME, bridge.name())
+                    .put(ID, bridge.deviceId().toString())
+                    .putArray("ports");
+            bridge.ports().forEach(ports::add);
+        }
+        return node;
+    }
+
+    private ObjectNode encodeJob(OvsdbJob job) {
+        ObjectNode jobNode = mapper().createObjectNode()
+                .put(ID, job.id())
+                .put(STATE, job.state().name())
+                .put(SUBMITTED, job.submittedMillis());
+        if (job.state() == OvsdbJob.State.COMPLETED) {
+            jobNode.put(COMPLETED, job.completedMillis())
+                    .put(SEQUENCE, job.completionSequence());
+            ArrayNode resultsNode = jobNode.putArray(RESULTS);
+            List<OvsdbOperationResult> results = job.results();
+            for (int i = 0; i < results.size(); i++) {
+                resultsNode.add(encodeResult(i, results.get(i)));
+            }
+        }
+        return jobNode;
+    }
+
+    /**
+     * Decodes the list of operations carried by a request body.
+     *
+     * @param stream the request body
+     * @return list of operations
+     * @throws IOException if the body is not valid JSON
+     */
+    private List<OvsdbBridgeOperation> decodeOperations(InputStream stream) throws IOException {
+        JsonNode root = mapper().readTree(stream);
+        JsonNode operationsNode = root == null ? null : root.get(OPERATIONS);
+        if (operationsNode == null || !operationsNode.isArray()) {
+            throw new IllegalArgumentException(OPERATIONS + " array is required");
+        }
+        List<OvsdbBridgeOperation> operations = new ArrayList<>();
+        for (JsonNode operationNode : operationsNode) {
+            if (!operationNode.isObject()) {
+                throw new IllegalArgumentException("Each operation must be a JSON object");
+            }
+            operations.add(operationCodec.decode((ObjectNode) operationNode, this));
+        }
+        return operations;
+    }
+
+    private ObjectNode encodeResult(int index, OvsdbOperationResult result) {
+        ObjectNode resultNode = mapper().createObjectNode()
+                .put(INDEX, index);
+        resultNode.set(OPERATION, operationCodec.encode(result.operation(), this));
+        resultNode.put(STATUS, toHttpStatus(result).getStatusCode());
+        if (result.message() != null) {
+            resultNode.put(MESSAGE, result.message());
+        }
+        return resultNode;
+    }
+
+    /**
+     * Maps an operation outcome to the HTTP status the single-operation API would return.
+     *
+     * @param result the operation result
+     * @return HTTP status
+     */
+    private static Response.Status toHttpStatus(OvsdbOperationResult result) {
+        switch (result.status()) {
+            case SUCCESS:
+                return Response.Status.OK;
+            case BRIDGE_ALREADY_EXISTS:
+                return Response.Status.CONFLICT;
+            case BRIDGE_NOT_FOUND:
+                return Response.Status.NOT_FOUND;
+            case NOT_APPLIED:
+            case ROLLED_BACK:
+                return Response.Status.CONFLICT;
+            default:
+                return Response.Status.INTERNAL_SERVER_ERROR;
         }
     }
 }
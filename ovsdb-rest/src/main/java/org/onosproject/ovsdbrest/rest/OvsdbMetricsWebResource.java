@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest.rest;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.onosproject.ovsdbrest.OperationMetrics;
+import org.onosproject.ovsdbrest.OvsdbBridgeService;
+import org.onosproject.rest.AbstractWebResource;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * REST API for the latency and failure statistics of the ovsdb operations.
+ */
+@Path("metrics")
+public class OvsdbMetricsWebResource extends AbstractWebResource {
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getMetrics() {
+        ObjectNode responseBody = mapper().createObjectNode();
+        ArrayNode operations = responseBody.putArray("operations");
+        for (OperationMetrics metrics : get(OvsdbBridgeService.class).getOperationMetrics()) {
+            ObjectNode operation = operations.addObject()
+                    .put("operation", metrics.operation())
+                    .put("ovsdbIp", metrics.ovsdbIp().toString())
+                    .put("count", metrics.count())
+                    .put("p50Millis", metrics.p50Millis())
+                    .put("p99Millis", metrics.p99Millis())
+                    .put("p999Millis", metrics.p999Millis());
+            ObjectNode failures = operation.putObject("failures");
+            metrics.failures().forEach(failures::put);
+        }
+        return Response.status(200).entity(responseBody).build();
+    }
+}
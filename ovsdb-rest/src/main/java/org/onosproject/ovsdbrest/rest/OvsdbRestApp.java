@@ -27,6 +27,7 @@ public class OvsdbRestApp extends AbstractWebApplication {
 
     @Override
     public Set<Class<?>> getClasses() {
-        return getClasses(OvsdbBridgeWebResource.class);
+        return getClasses(OvsdbBridgeWebResource.class, OvsdbMetricsWebResource.class,
+                          NodeOverloadedExceptionMapper.class);
     }
 }
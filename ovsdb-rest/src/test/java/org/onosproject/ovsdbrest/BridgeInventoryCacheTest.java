@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.net.DeviceId;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.onosproject.ovsdbrest.BridgeInventoryCache.CachedBridge;
+import static org.onosproject.ovsdbrest.BridgeInventoryCache.Loader;
+
+/**
+ * Tests of the bridge inventory cache.
+ */
+public class BridgeInventoryCacheTest {
+
+    private static final IpAddress NODE = IpAddress.valueOf("10.0.0.1");
+    private static final DeviceId BR1 = DeviceId.deviceId("of:0000000000000001");
+    private static final DeviceId BR2 = DeviceId.deviceId("of:0000000000000002");
+
+    private final BridgeInventoryCache cache = new BridgeInventoryCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Loader loader = ip -> {
+        loads.incrementAndGet();
+        return ImmutableList.of(new CachedBridge("br1", BR1, ImmutableList.of("p1")));
+    };
+
+    /**
+     * Tests that a node is loaded once and then served from the cache.
+     */
+    @Test
+    public void loadOnce() throws Exception {
+        assertEquals(BR1, cache.bridgeId(NODE, "br1", loader));
+        assertNull(cache.bridgeId(NODE, "br2", loader));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().misses());
+        assertEquals(1, cache.stats().hits());
+    }
+
+    /**
+     * Tests that the changes of a cached node are applied to its inventory.
+     */
+    @Test
+    public void changes() throws Exception {
+        cache.bridges(NODE, loader);
+        cache.bridgeAdded(NODE, "br2", BR2);
+        cache.portAdded(NODE, "br2", "p2");
+        cache.portChanged(NODE, BR1, "p3", true);
+        cache.portRemoved(NODE, "br1", "p1");
+
+        assertEquals(BR2, cache.bridgeId(NODE, "br2", loader));
+        for (CachedBridge bridge : cache.bridges(NODE, loader)) {
+            assertEquals(bridge.name().equals("br1") ? ImmutableSet.of("p3") : ImmutableSet.of("p2"),
+                         bridge.ports());
+        }
+        cache.bridgeRemoved(NODE, BR2);
+        assertNull(cache.bridgeId(NODE, "br2", loader));
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Tests that the changes of a node that is not cached are not recorded.
+     */
+    @Test
+    public void changesOfUncachedNode() throws Exception {
+        cache.bridgeAdded(NODE, "br2", BR2);
+        assertNull(cache.bridgeId(NODE, "br2", loader));
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Tests that a bridge added while the node is being loaded is not lost.
+     */
+    @Test
+    public void bridgeAddedDuringLoad() throws Exception {
+        Loader racingLoader = ip -> {
+            // the snapshot is taken before the bridge is created
+            ImmutableList<CachedBridge> snapshot = ImmutableList.copyOf(loader.load(ip));
+            if (loads.get() == 1) {
+                cache.bridgeAdded(ip, "br2", BR2);
+                return snapshot;
+            }
+            return ImmutableList.<CachedBridge>builder().addAll(snapshot)
+                    .add(new CachedBridge("br2", BR2, ImmutableList.of())).build();
+        };
+
+        assertEquals(BR2, cache.bridgeId(NODE, "br2", racingLoader));
+        assertEquals(2, loads.get());
+        assertEquals(BR2, cache.bridgeId(NODE, "br2", racingLoader));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Tests that a node that keeps changing while it is loaded is not cached.
+     */
+    @Test
+    public void nodeChangingDuringEveryLoad() throws Exception {
+        Loader racingLoader = ip -> {
+            cache.portAdded(ip, "br1", "p2");
+            return loader.load(ip);
+        };
+
+        assertEquals(BR1, cache.bridgeId(NODE, "br1", racingLoader));
+        int attempts = loads.get();
+        cache.bridgeId(NODE, "br1", racingLoader);
+        assertEquals(2 * attempts, loads.get());
+    }
+
+    /**
+     * Tests that an invalidated node is loaded again.
+     */
+    @Test
+    public void invalidate() throws Exception {
+        cache.bridges(NODE, loader);
+        cache.invalidate(NODE);
+        cache.invalidate(NODE);
+        cache.bridges(NODE, loader);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().invalidations());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the datapath id allocator.
+ */
+public class DatapathIdAllocatorTest {
+
+    private static final long FIRST_ID = 0x100;
+    private static final int BLOCK_SIZE = 4;
+
+    private final LocalAtomicCounter counter = new LocalAtomicCounter("dpid-counter");
+    private final Set<Long> freeIds = ConcurrentHashMap.newKeySet();
+
+    private static DeviceId bridgeId(DeviceId dpid) {
+        return DeviceId.deviceId("of:" + dpid.toString().toLowerCase());
+    }
+
+    /**
+     * Tests that ids are handed out in order, from blocks leased on the shared counter.
+     */
+    @Test
+    public void blocks() {
+        DatapathIdAllocator allocator = new DatapathIdAllocator(counter, freeIds, FIRST_ID, BLOCK_SIZE);
+        assertEquals(DeviceId.deviceId("0000000000000100"), allocator.allocate(id -> false));
+        assertEquals(BLOCK_SIZE, counter.get());
+        for (int i = 1; i < BLOCK_SIZE; i++) {
+            allocator.allocate(id -> false);
+        }
+        assertEquals(BLOCK_SIZE, counter.get());
+        assertEquals(DeviceId.deviceId("0000000000000104"), allocator.allocate(id -> false));
+        assertEquals(2 * BLOCK_SIZE, counter.get());
+    }
+
+    /**
+     * Tests that two allocators sharing the counter never hand out the same id.
+     */
+    @Test
+    public void twoInstances() {
+        DatapathIdAllocator first = new DatapathIdAllocator(counter, freeIds, FIRST_ID, BLOCK_SIZE);
+        DatapathIdAllocator second = new DatapathIdAllocator(counter, freeIds, FIRST_ID, BLOCK_SIZE);
+        Set<DeviceId> allocated = Sets.newHashSet();
+        for (int i = 0; i < 3 * BLOCK_SIZE; i++) {
+            assertTrue(allocated.add(first.allocate(id -> false)));
+            assertTrue(allocated.add(second.allocate(id -> false)));
+        }
+    }
+
+    /**
+     * Tests that the ids already used by a bridge are skipped.
+     */
+    @Test
+    public void inUse() {
+        DatapathIdAllocator allocator = new DatapathIdAllocator(counter, freeIds, FIRST_ID, BLOCK_SIZE);
+        Set<DeviceId> used = ImmutableSet.of(DeviceId.deviceId("of:0000000000000100"),
+                                             DeviceId.deviceId("of:0000000000000101"));
+        assertEquals(DeviceId.deviceId("0000000000000102"), allocator.allocate(used::contains));
+    }
+
+    /**
+     * Tests that a released id is reused by any allocator, once.
+     */
+    @Test
+    public void release() {
+        DatapathIdAllocator first = new DatapathIdAllocator(counter, freeIds, FIRST_ID, BLOCK_SIZE);
+        DatapathIdAllocator second = new DatapathIdAllocator(counter, freeIds, FIRST_ID, BLOCK_SIZE);
+        DeviceId dpid = first.allocate(id -> false);
+        first.allocate(id -> false);
+        first.release(bridgeId(dpid));
+
+        assertEquals(dpid, second.allocate(id -> false));
+        assertTrue(freeIds.isEmpty());
+        assertEquals(DeviceId.deviceId("0000000000000104"), second.allocate(id -> false));
+    }
+
+    /**
+     * Tests that an allocator reads the free set only once its block is exhausted.
+     */
+    @Test
+    public void reclaimWhenBlockExhausted() {
+        AtomicLong reads = new AtomicLong();
+        Set<Long> countedIds = new HashSet<Long>() {
+            @Override
+            public Iterator<Long> iterator() {
+                reads.incrementAndGet();
+                return super.iterator();
+            }
+        };
+        DatapathIdAllocator allocator = new DatapathIdAllocator(counter, countedIds, FIRST_ID, BLOCK_SIZE);
+        DeviceId dpid = allocator.allocate(id -> false);
+        assertEquals(1, reads.get());
+        allocator.release(bridgeId(dpid));
+
+        for (int i = 1; i < BLOCK_SIZE; i++) {
+            allocator.allocate(id -> false);
+        }
+        assertEquals(1, reads.get());
+        assertEquals(dpid, allocator.allocate(id -> false));
+        assertEquals(2, reads.get());
+        assertEquals(DeviceId.deviceId("0000000000000104"), allocator.allocate(id -> false));
+    }
+
+    /**
+     * Tests that the ids not handed out by the allocators are not taken back.
+     */
+    @Test
+    public void releaseForeignId() {
+        DatapathIdAllocator allocator = new DatapathIdAllocator(counter, freeIds, FIRST_ID, BLOCK_SIZE);
+        allocator.allocate(id -> false);
+        allocator.release(DeviceId.deviceId("of:00000000000000ff"));
+        allocator.release(DeviceId.deviceId("of:0000000000000104"));
+        allocator.release(DeviceId.deviceId("of:not-a-dpid"));
+        allocator.release(DeviceId.deviceId("ovsdb:10.0.0.1"));
+        assertTrue(freeIds.isEmpty());
+    }
+}
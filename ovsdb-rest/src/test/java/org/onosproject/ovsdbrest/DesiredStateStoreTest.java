@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the computation of the changes bringing a node to its desired state.
+ */
+public class DesiredStateStoreTest {
+
+    private static final IpAddress NODE = IpAddress.valueOf("10.0.0.1");
+
+    private static final OvsdbBridgeOperation BR1 = OvsdbBridgeOperation.createBridge(NODE, "br1");
+    private static final OvsdbBridgeOperation BR2 = OvsdbBridgeOperation.createBridge(NODE, "br2");
+    private static final OvsdbBridgeOperation PORT1 = OvsdbBridgeOperation.addPort(NODE, "br1", "p1");
+    private static final OvsdbBridgeOperation PORT2 = OvsdbBridgeOperation.addPort(NODE, "br2", "p2");
+    private static final OvsdbBridgeOperation PATCH = OvsdbBridgeOperation.createPatch(NODE, "br1", "patch1", "patch2");
+    private static final OvsdbBridgeOperation TUNNEL = OvsdbBridgeOperation.createGreTunnel(
+            NODE, "br2", "gre1", NODE, IpAddress.valueOf("10.0.0.2"), "1");
+
+    /**
+     * Tests that a node without any bridge gets its whole desired state, bridges first.
+     */
+    @Test
+    public void emptyNode() {
+        List<OvsdbBridgeOperation> desired = ImmutableList.of(BR1, PORT1, BR2, PORT2, PATCH, TUNNEL);
+        assertEquals(ImmutableList.of(BR1, BR2, PORT1, PORT2, PATCH, TUNNEL),
+                     DesiredStateStore.diff(desired, ImmutableMap.of()));
+    }
+
+    /**
+     * Tests that a node already in its desired state needs no change.
+     */
+    @Test
+    public void upToDate() {
+        Map<String, Set<String>> actual = ImmutableMap.of(
+                "br1", ImmutableSet.of("p1", "patch1"),
+                "br2", ImmutableSet.of("p2", "gre1"));
+        assertTrue(DesiredStateStore.diff(ImmutableList.of(BR1, PORT1, BR2, PORT2, PATCH, TUNNEL), actual)
+                           .isEmpty());
+    }
+
+    /**
+     * Tests that only the missing bridges and ports are created.
+     */
+    @Test
+    public void missingElements() {
+        Map<String, Set<String>> actual = ImmutableMap.of("br1", ImmutableSet.of("p1"));
+        assertEquals(ImmutableList.of(BR2, PATCH, PORT2),
+                     DesiredStateStore.diff(ImmutableList.of(BR1, PORT1, PATCH, BR2, PORT2), actual));
+    }
+
+    /**
+     * Tests that the elements found on the node but not declared are left untouched.
+     */
+    @Test
+    public void undeclaredElements() {
+        Map<String, Set<String>> actual = ImmutableMap.of(
+                "br1", ImmutableSet.of("p1", "other"),
+                "br3", ImmutableSet.of("p3"));
+        assertEquals(ImmutableList.of(BR2),
+                     DesiredStateStore.diff(ImmutableList.of(BR1, PORT1, BR2), actual));
+    }
+
+    /**
+     * Tests that an element declared twice is created once.
+     */
+    @Test
+    public void duplicates() {
+        assertEquals(ImmutableList.of(BR1, PORT1),
+                     DesiredStateStore.diff(ImmutableList.of(BR1, PORT1, BR1, PORT1), ImmutableMap.of()));
+    }
+
+    /**
+     * Tests that ports with the same name on different bridges are told apart.
+     */
+    @Test
+    public void samePortNameOnTwoBridges() {
+        OvsdbBridgeOperation port = OvsdbBridgeOperation.addPort(NODE, "br2", "p1");
+        Map<String, Set<String>> actual = ImmutableMap.of(
+                "br1", ImmutableSet.of("p1"),
+                "br2", ImmutableSet.of());
+        assertEquals(ImmutableList.of(port),
+                     DesiredStateStore.diff(ImmutableList.of(BR1, PORT1, BR2, port), actual));
+    }
+}
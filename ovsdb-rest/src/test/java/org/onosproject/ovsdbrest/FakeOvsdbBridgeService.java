@@ -0,0 +1,415 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.onlab.packet.IpAddress;
+import org.onosproject.net.DeviceId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.onosproject.ovsdbrest.OvsdbRestException.BridgeAlreadyExistsException;
+import static org.onosproject.ovsdbrest.OvsdbRestException.BridgeNotFoundException;
+import static org.onosproject.ovsdbrest.OvsdbRestException.OvsdbDeviceException;
+
+/**
+ * Bridge service backed by fake ovsdb servers, one per node, for driving the REST
+ * resources without ONOS nor hypervisors.
+ * <p>
+ * Each call runs the OVSDB transactions a real node would see: a bridge lookup, then
+ * the inserts, mutations or deletes of the Bridge, Port and Interface rows. Jobs,
+ * desired states and statistics are not supported.
+ * </p>
+ */
+public final class FakeOvsdbBridgeService implements OvsdbBridgeService, AutoCloseable {
+
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+    private final Map<IpAddress, FakeOvsdbServer> servers = Maps.newLinkedHashMap();
+    private final Map<IpAddress, FakeOvsdbClient> clients = Maps.newLinkedHashMap();
+
+    /**
+     * Starts a fake ovsdb server and session per node.
+     *
+     * @param nodes the ovsdb IP addresses of the nodes
+     * @param minLatencyMicros minimum latency of each ovsdb request, in microseconds
+     * @param maxLatencyMicros maximum latency of each ovsdb request, in microseconds
+     * @throws IOException if a server cannot be started
+     */
+    public FakeOvsdbBridgeService(List<IpAddress> nodes, long minLatencyMicros, long maxLatencyMicros)
+            throws IOException {
+        for (IpAddress node : nodes) {
+            FakeOvsdbServer server = new FakeOvsdbServer(minLatencyMicros, maxLatencyMicros);
+            servers.put(node, server);
+            clients.put(node, new FakeOvsdbClient(server.port()));
+        }
+    }
+
+    /**
+     * Returns the fake server of a node.
+     *
+     * @param ovsdbAddress the ovsdb IP address
+     * @return the server
+     */
+    public FakeOvsdbServer server(IpAddress ovsdbAddress) {
+        return servers.get(ovsdbAddress);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FakeOvsdbClient client : clients.values()) {
+            client.close();
+        }
+        for (FakeOvsdbServer server : servers.values()) {
+            server.close();
+        }
+    }
+
+    @Override
+    public void createBridge(IpAddress ovsdbAddress, String bridgeName)
+            throws OvsdbDeviceException, BridgeAlreadyExistsException {
+        FakeOvsdbClient client = client(ovsdbAddress);
+        if (findBridge(client, bridgeName) != null) {
+            throw new BridgeAlreadyExistsException();
+        }
+        ObjectNode row = JSON.objectNode().put("name", bridgeName);
+        row.set("ports", set());
+        client.transact(insert(FakeOvsdbServer.BRIDGE, row, null));
+    }
+
+    @Override
+    public void deleteBridge(IpAddress ovsdbAddress, String bridgeName)
+            throws OvsdbDeviceException, BridgeNotFoundException {
+        ArrayNode results = client(ovsdbAddress).transact(delete(FakeOvsdbServer.BRIDGE, bridgeName));
+        if (results.path(0).path("count").asInt() == 0) {
+            throw new BridgeNotFoundException();
+        }
+    }
+
+    @Override
+    public String getBridgeID(IpAddress ovsdbAddress, String bridgeName) throws OvsdbDeviceException {
+        JsonNode bridge = findBridge(client(ovsdbAddress), bridgeName);
+        return bridge == null ? null : deviceId(bridge).toString();
+    }
+
+    @Override
+    public InventoryCacheStats getInventoryCacheStats() {
+        return new InventoryCacheStats(0, 0, 0, Maps.newHashMap(), Maps.newHashMap());
+    }
+
+    @Override
+    public List<OperationMetrics> getOperationMetrics() {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public List<OvsdbSessionState> getSessionStates() {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public List<OvsdbAdmissionState> getAdmissionStates() {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public List<OvsdbInterfaceStats> getInterfaceStats(IpAddress ovsdbAddress, long windowMillis) {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public List<OvsdbInterfaceStats> getInterfaceStatsHistory(IpAddress ovsdbAddress, String interfaceName) {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public void walkInventory(Consumer<OvsdbNodeInventory> consumer) {
+        clients.forEach((ovsdbAddress, client) -> {
+            try {
+                List<OvsdbNodeInventory.Bridge> bridges = new ArrayList<>();
+                JsonNode rows = client.transact(select(FakeOvsdbServer.BRIDGE, null)).path(0).path("rows");
+                for (JsonNode bridge : rows) {
+                    // ports are listed by uuid, their names are not resolved
+                    List<String> ports = new ArrayList<>();
+                    bridge.path("ports").path(1).forEach(port -> ports.add(port.path(1).asText()));
+                    bridges.add(new OvsdbNodeInventory.Bridge(bridge.path("name").asText(), deviceId(bridge), ports));
+                }
+                consumer.accept(OvsdbNodeInventory.of(ovsdbAddress, bridges));
+            } catch (OvsdbDeviceException e) {
+                consumer.accept(OvsdbNodeInventory.failed(ovsdbAddress, e.getMessage()));
+            }
+        });
+    }
+
+    @Override
+    public void addPort(IpAddress ovsdbAddress, String bridgeName, String portName)
+            throws OvsdbDeviceException, BridgeNotFoundException {
+        attachPort(ovsdbAddress, bridgeName, JSON.objectNode().put("name", portName));
+    }
+
+    @Override
+    public void removePort(IpAddress ovsdbAddress, String bridgeName, String portName)
+            throws OvsdbDeviceException, BridgeNotFoundException {
+        FakeOvsdbClient client = client(ovsdbAddress);
+        if (findBridge(client, bridgeName) == null) {
+            throw new BridgeNotFoundException();
+        }
+        detachPort(client, bridgeName, portName);
+    }
+
+    @Override
+    public void createPatchPeerPort(IpAddress ovsdbAddress, String bridgeName, String portName, String patchPeer)
+            throws OvsdbDeviceException {
+        ObjectNode iface = JSON.objectNode().put("name", portName).put("type", "patch");
+        iface.set("options", map("peer", patchPeer));
+        try {
+            attachPort(ovsdbAddress, bridgeName, iface);
+        } catch (BridgeNotFoundException e) {
+            throw new OvsdbDeviceException("No bridge " + bridgeName + " at " + ovsdbAddress);
+        }
+    }
+
+    @Override
+    public void createGreTunnel(IpAddress ovsdbAddress, String bridgeName, String portName, IpAddress localIp,
+                                IpAddress remoteIp, String key)
+            throws OvsdbDeviceException, BridgeNotFoundException {
+        ObjectNode iface = JSON.objectNode().put("name", portName).put("type", "gre");
+        iface.set("options", map("local_ip", localIp.toString(), "remote_ip", remoteIp.toString(), "key", key));
+        attachPort(ovsdbAddress, bridgeName, iface);
+    }
+
+    @Override
+    public void deleteGreTunnel(IpAddress ovsdbAddress, String bridgeName, String portName)
+            throws OvsdbDeviceException {
+        detachPort(client(ovsdbAddress), bridgeName, portName);
+    }
+
+    @Override
+    public void createTunnel(IpAddress ovsdbAddress, String bridgeName, String portName, OvsdbTunnelType tunnelType,
+                             IpAddress localIp, IpAddress remoteIp, String key)
+            throws OvsdbDeviceException {
+        ObjectNode iface = JSON.objectNode().put("name", portName).put("type", tunnelType.name().toLowerCase());
+        iface.set("options", map("local_ip", localIp.toString(), "remote_ip", remoteIp.toString(), "key", key));
+        try {
+            attachPort(ovsdbAddress, bridgeName, iface);
+        } catch (BridgeNotFoundException e) {
+            throw new OvsdbDeviceException("No bridge " + bridgeName + " at " + ovsdbAddress);
+        }
+    }
+
+    @Override
+    public List<OvsdbOperationResult> createTunnelMesh(String meshName, OvsdbTunnelType tunnelType,
+                                                       String bridgeName, Map<IpAddress, IpAddress> endpoints) {
+        throw new UnsupportedOperationException("Tunnel meshes are not supported by the fake service");
+    }
+
+    @Override
+    public List<OvsdbOperationResult> applyBatch(List<OvsdbBridgeOperation> operations) {
+        List<OvsdbOperationResult> results = new ArrayList<>(operations.size());
+        for (OvsdbBridgeOperation operation : operations) {
+            try {
+                apply(operation);
+                results.add(OvsdbOperationResult.success(operation));
+            } catch (Exception e) {
+                results.add(OvsdbOperationResult.failure(operation, e));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<OvsdbOperationResult> applyTransaction(IpAddress ovsdbAddress,
+                                                       List<OvsdbBridgeOperation> operations) {
+        return new OvsdbTransaction(operation -> {
+            try {
+                apply(operation);
+                return OvsdbOperationResult.success(operation);
+            } catch (Exception e) {
+                return OvsdbOperationResult.failure(operation, e);
+            }
+        }).apply(operations);
+    }
+
+    private void apply(OvsdbBridgeOperation op) throws Exception {
+        switch (op.type()) {
+            case CREATE_BRIDGE:
+                createBridge(op.ovsdbIp(), op.bridgeName());
+                break;
+            case DELETE_BRIDGE:
+                deleteBridge(op.ovsdbIp(), op.bridgeName());
+                break;
+            case ADD_PORT:
+                addPort(op.ovsdbIp(), op.bridgeName(), op.portName());
+                break;
+            case REMOVE_PORT:
+                removePort(op.ovsdbIp(), op.bridgeName(), op.portName());
+                break;
+            case CREATE_PATCH:
+                createPatchPeerPort(op.ovsdbIp(), op.bridgeName(), op.portName(), op.patchPeer());
+                break;
+            case CREATE_GRE_TUNNEL:
+                createGreTunnel(op.ovsdbIp(), op.bridgeName(), op.portName(), op.localIp(), op.remoteIp(), op.key());
+                break;
+            case CREATE_TUNNEL:
+                createTunnel(op.ovsdbIp(), op.bridgeName(), op.portName(), op.tunnelType(),
+                             op.localIp(), op.remoteIp(), op.key());
+                break;
+            case DELETE_GRE_TUNNEL:
+            case DELETE_TUNNEL:
+                deleteGreTunnel(op.ovsdbIp(), op.bridgeName(), op.portName());
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported operation " + op.type());
+        }
+    }
+
+    @Override
+    public OvsdbJob submitJob(List<OvsdbBridgeOperation> operations) {
+        throw new UnsupportedOperationException("Jobs are not supported by the fake service");
+    }
+
+    @Override
+    public OvsdbJob getJob(long jobId) {
+        return null;
+    }
+
+    @Override
+    public List<OvsdbJob> awaitCompletedJobs(long afterSequence, long timeoutMillis) {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public void setDesiredState(IpAddress ovsdbAddress, List<OvsdbBridgeOperation> operations) {
+        throw new UnsupportedOperationException("Desired states are not supported by the fake service");
+    }
+
+    @Override
+    public List<OvsdbBridgeOperation> getDesiredState(IpAddress ovsdbAddress) {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public void removeDesiredState(IpAddress ovsdbAddress) {
+    }
+
+    @Override
+    public List<OvsdbOperationResult> reconcile() {
+        return ImmutableList.of();
+    }
+
+    private FakeOvsdbClient client(IpAddress ovsdbAddress) throws OvsdbDeviceException {
+        FakeOvsdbClient client = clients.get(ovsdbAddress);
+        if (client == null) {
+            throw new OvsdbDeviceException("No ovsdb node found with IP " + ovsdbAddress);
+        }
+        return client;
+    }
+
+    /**
+     * Inserts a port and its interface, then adds the port to a bridge, in one transaction.
+     */
+    private void attachPort(IpAddress ovsdbAddress, String bridgeName, ObjectNode iface)
+            throws OvsdbDeviceException, BridgeNotFoundException {
+        FakeOvsdbClient client = client(ovsdbAddress);
+        if (findBridge(client, bridgeName) == null) {
+            throw new BridgeNotFoundException();
+        }
+        ObjectNode port = JSON.objectNode().put("name", iface.get("name").asText());
+        port.set("interfaces", namedUuid("iface"));
+        ObjectNode addToBridge = operation("mutate", FakeOvsdbServer.BRIDGE, bridgeName);
+        addToBridge.putArray("mutations").addArray().add("ports").add("insert").add(namedUuid("port"));
+        client.transact(insert(FakeOvsdbServer.INTERFACE, iface, "iface"),
+                        insert(FakeOvsdbServer.PORT, port, "port"),
+                        addToBridge);
+    }
+
+    private void detachPort(FakeOvsdbClient client, String bridgeName, String portName)
+            throws OvsdbDeviceException {
+        JsonNode rows = client.transact(select(FakeOvsdbServer.PORT, portName)).path(0).path("rows");
+        if (rows.size() == 0) {
+            throw new OvsdbDeviceException("No port " + portName + " on bridge " + bridgeName);
+        }
+        ObjectNode removeFromBridge = operation("mutate", FakeOvsdbServer.BRIDGE, bridgeName);
+        removeFromBridge.putArray("mutations").addArray().add("ports").add("delete").add(rows.get(0).get("_uuid"));
+        client.transact(removeFromBridge,
+                        delete(FakeOvsdbServer.PORT, portName),
+                        delete(FakeOvsdbServer.INTERFACE, portName));
+    }
+
+    private static JsonNode findBridge(FakeOvsdbClient client, String bridgeName) throws OvsdbDeviceException {
+        JsonNode rows = client.transact(select(FakeOvsdbServer.BRIDGE, bridgeName)).path(0).path("rows");
+        return rows.size() == 0 ? null : rows.get(0);
+    }
+
+    private static DeviceId deviceId(JsonNode bridge) {
+        return DeviceId.deviceId("of:" + bridge.path("datapath_id").asText());
+    }
+
+    private static ObjectNode operation(String op, String table, String name) {
+        ObjectNode operation = JSON.objectNode().put("op", op).put("table", table);
+        ArrayNode where = operation.putArray("where");
+        if (name != null) {
+            where.addArray().add("name").add("==").add(name);
+        }
+        return operation;
+    }
+
+    private static ObjectNode insert(String table, ObjectNode row, String uuidName) {
+        ObjectNode insert = JSON.objectNode().put("op", "insert").put("table", table);
+        insert.set("row", row);
+        if (uuidName != null) {
+            insert.put("uuid-name", uuidName);
+        }
+        return insert;
+    }
+
+    private static ObjectNode select(String table, String name) {
+        return operation("select", table, name);
+    }
+
+    private static ObjectNode delete(String table, String name) {
+        return operation("delete", table, name);
+    }
+
+    private static ArrayNode namedUuid(String name) {
+        return JSON.arrayNode().add("named-uuid").add(name);
+    }
+
+    private static ArrayNode set() {
+        ArrayNode set = JSON.arrayNode().add("set");
+        set.addArray();
+        return set;
+    }
+
+    private static ArrayNode map(String... keyValues) {
+        ArrayNode map = JSON.arrayNode().add("map");
+        ArrayNode pairs = map.addArray();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            pairs.addArray().add(keyValues[i]).add(keyValues[i + 1]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.onosproject.ovsdbrest.OvsdbRestException.OvsdbDeviceException;
+
+/**
+ * Minimal JSON-RPC client of an OVSDB server, pipelining requests over a single session.
+ */
+public final class FakeOvsdbClient implements AutoCloseable {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Socket socket;
+    private final OutputStream output;
+    private final AtomicLong nextId = new AtomicLong();
+    private final ConcurrentMap<Long, CompletableFuture<JsonNode>> pending = Maps.newConcurrentMap();
+    private final Thread reader;
+
+    /**
+     * Opens a session with a server on the loopback address.
+     *
+     * @param port the server port
+     * @throws IOException if the session cannot be opened
+     */
+    public FakeOvsdbClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        output = socket.getOutputStream();
+        reader = new Thread(this::read, "fake-ovsdb-client-" + port);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Sends an echo request.
+     *
+     * @return the echoed parameters
+     * @throws OvsdbDeviceException if the request fails
+     */
+    public JsonNode echo() throws OvsdbDeviceException {
+        return call("echo", JSON.arrayNode());
+    }
+
+    /**
+     * Runs a transaction on the Open_vSwitch database.
+     *
+     * @param operations the transaction operations
+     * @return the result of each operation
+     * @throws OvsdbDeviceException if the request fails or an operation reports an error
+     */
+    public ArrayNode transact(ObjectNode... operations) throws OvsdbDeviceException {
+        ArrayNode params = JSON.arrayNode().add(FakeOvsdbServer.DATABASE);
+        for (ObjectNode operation : operations) {
+            params.add(operation);
+        }
+        JsonNode results = call("transact", params);
+        for (JsonNode result : results) {
+            if (result.has("error")) {
+                throw new OvsdbDeviceException(result.get("error").asText());
+            }
+        }
+        return (ArrayNode) results;
+    }
+
+    private JsonNode call(String method, ArrayNode params) throws OvsdbDeviceException {
+        long id = nextId.incrementAndGet();
+        CompletableFuture<JsonNode> response = new CompletableFuture<>();
+        pending.put(id, response);
+        ObjectNode request = JSON.objectNode().put("method", method).put("id", id);
+        request.set("params", params);
+        try {
+            byte[] bytes = mapper.writeValueAsBytes(request);
+            synchronized (output) {
+                output.write(bytes);
+                output.flush();
+            }
+            JsonNode reply = response.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (!reply.path("error").isNull()) {
+                throw new OvsdbDeviceException(reply.path("error").asText());
+            }
+            return reply.get("result");
+        } catch (IOException | ExecutionException | TimeoutException e) {
+            throw new OvsdbDeviceException("Ovsdb request " + method + " failed: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OvsdbDeviceException("Interrupted while waiting for ovsdb request " + method);
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    private void read() {
+        try (MappingIterator<JsonNode> messages = mapper.readerFor(JsonNode.class)
+                .readValues(socket.getInputStream())) {
+            while (messages.hasNextValue()) {
+                JsonNode reply = messages.nextValue();
+                CompletableFuture<JsonNode> response = pending.get(reply.path("id").asLong());
+                if (response != null) {
+                    response.complete(reply);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            pending.values().forEach(response -> response.completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process OVSDB server speaking the JSON-RPC protocol of RFC 7047, for tests and load runs.
+ * <p>
+ * Supports the echo, list_dbs and transact methods on the Bridge, Port and Interface tables of
+ * the Open_vSwitch database, with the insert, select, update, delete and mutate operations.
+ * Conditions are limited to equality on a column. Each request is answered after a configurable
+ * latency, to stand for a loaded ovsdb server.
+ * </p>
+ */
+public final class FakeOvsdbServer implements AutoCloseable {
+
+    public static final String DATABASE = "Open_vSwitch";
+    public static final String BRIDGE = "Bridge";
+    public static final String PORT = "Port";
+    public static final String INTERFACE = "Interface";
+
+    private static final Set<String> TABLES = ImmutableSet.of(BRIDGE, PORT, INTERFACE);
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newCachedThreadPool();
+    private final long minLatencyMicros;
+    private final long maxLatencyMicros;
+    private final AtomicLong datapathIds = new AtomicLong(1);
+    private final AtomicLong requests = new AtomicLong();
+
+    // {table: {uuid: row}}, guarded by this
+    private final Map<String, Map<String, ObjectNode>> tables = Maps.newHashMap();
+
+    /**
+     * Starts a server on an ephemeral port of the loopback address.
+     *
+     * @param minLatencyMicros minimum latency added to each request, in microseconds
+     * @param maxLatencyMicros maximum latency added to each request, in microseconds
+     * @throws IOException if the server socket cannot be opened
+     */
+    public FakeOvsdbServer(long minLatencyMicros, long maxLatencyMicros) throws IOException {
+        this.minLatencyMicros = minLatencyMicros;
+        this.maxLatencyMicros = Math.max(minLatencyMicros, maxLatencyMicros);
+        TABLES.forEach(table -> tables.put(table, new LinkedHashMap<>()));
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        sessions.execute(this::accept);
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return TCP port
+     */
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of requests answered so far.
+     *
+     * @return request count
+     */
+    public long requests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of rows of a table.
+     *
+     * @param table the table name
+     * @return row count
+     */
+    public synchronized int rows(String table) {
+        return tables.get(table).size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sessions.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("Failed to accept an ovsdb session", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket session = socket;
+             MappingIterator<JsonNode> messages = mapper.readerFor(JsonNode.class)
+                     .readValues(session.getInputStream())) {
+            OutputStream output = session.getOutputStream();
+            while (messages.hasNextValue()) {
+                JsonNode response = handle(messages.nextValue());
+                injectLatency();
+                output.write(mapper.writeValueAsBytes(response));
+                output.flush();
+                requests.incrementAndGet();
+            }
+        } catch (SocketException e) {
+            log.debug("Ovsdb session closed: {}", e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ovsdb session failed", e);
+        }
+    }
+
+    private void injectLatency() {
+        if (maxLatencyMicros <= 0) {
+            return;
+        }
+        long micros = minLatencyMicros == maxLatencyMicros ? minLatencyMicros :
+                ThreadLocalRandom.current().nextLong(minLatencyMicros, maxLatencyMicros + 1);
+        try {
+            TimeUnit.MICROSECONDS.sleep(micros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private JsonNode handle(JsonNode request) {
+        ObjectNode response = JSON.objectNode();
+        response.set("id", request.get("id"));
+        String method = request.path("method").asText();
+        JsonNode params = request.path("params");
+        try {
+            switch (method) {
+                case "echo":
+                    response.set("result", params);
+                    break;
+                case "list_dbs":
+                    response.set("result", JSON.arrayNode().add(DATABASE));
+                    break;
+                case "transact":
+                    response.set("result", transact(params));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown method " + method);
+            }
+            response.putNull("error");
+        } catch (IllegalArgumentException e) {
+            response.putNull("result");
+            response.put("error", e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * Applies the operations of a transaction; named uuids of the inserted rows
+     * can be referenced by the following operations.
+     */
+    private synchronized ArrayNode transact(JsonNode params) {
+        if (!params.isArray() || !DATABASE.equals(params.path(0).asText())) {
+            throw new IllegalArgumentException("unknown database");
+        }
+        ArrayNode results = JSON.arrayNode();
+        Map<String, String> namedUuids = Maps.newHashMap();
+        for (int i = 1; i < params.size(); i++) {
+            JsonNode operation = params.get(i);
+            String table = operation.path("table").asText();
+            if (!TABLES.contains(table)) {
+                results.addObject().put("error", "unknown table " + table);
+                break;
+            }
+            Map<String, ObjectNode> rows = tables.get(table);
+            switch (operation.path("op").asText()) {
+                case "insert":
+                    results.add(insert(table, rows, operation, namedUuids));
+                    break;
+                case "select":
+                    results.add(select(rows, operation));
+                    break;
+                case "update":
+                    results.add(update(rows, operation, namedUuids));
+                    break;
+                case "mutate":
+                    results.add(mutate(rows, operation, namedUuids));
+                    break;
+                case "delete":
+                    results.add(delete(rows, operation));
+                    break;
+                default:
+                    results.addObject().put("error", "unknown operation " + operation.path("op").asText());
+                    return results;
+            }
+        }
+        return results;
+    }
+
+    private ObjectNode insert(String table, Map<String, ObjectNode> rows, JsonNode operation,
+                              Map<String, String> namedUuids) {
+        String uuid = UUID.randomUUID().toString();
+        ObjectNode row = (ObjectNode) resolve(operation.path("row"), namedUuids).deepCopy();
+        row.set("_uuid", JSON.arrayNode().add("uuid").add(uuid));
+        if (BRIDGE.equals(table) && !row.has("datapath_id")) {
+            row.put("datapath_id", String.format("%016x", datapathIds.getAndIncrement()));
+        }
+        rows.put(uuid, row);
+        if (operation.has("uuid-name")) {
+            namedUuids.put(operation.get("uuid-name").asText(), uuid);
+        }
+        ObjectNode result = JSON.objectNode();
+        result.set("uuid", JSON.arrayNode().add("uuid").add(uuid));
+        return result;
+    }
+
+    private ObjectNode select(Map<String, ObjectNode> rows, JsonNode operation) {
+        ObjectNode result = JSON.objectNode();
+        ArrayNode selected = result.putArray("rows");
+        rows.values().stream()
+                .filter(row -> matches(row, operation.path("where")))
+                .forEach(row -> selected.add(row.deepCopy()));
+        return result;
+    }
+
+    private ObjectNode update(Map<String, ObjectNode> rows, JsonNode operation, Map<String, String> namedUuids) {
+        JsonNode changes = resolve(operation.path("row"), namedUuids);
+        int count = 0;
+        for (ObjectNode row : rows.values()) {
+            if (matches(row, operation.path("where"))) {
+                row.setAll((ObjectNode) changes);
+                count++;
+            }
+        }
+        return JSON.objectNode().put("count", count);
+    }
+
+    /**
+     * Applies insert and delete mutations on set columns, e.g. the ports of a bridge.
+     */
+    private ObjectNode mutate(Map<String, ObjectNode> rows, JsonNode operation, Map<String, String> namedUuids) {
+        int count = 0;
+        for (ObjectNode row : rows.values()) {
+            if (!matches(row, operation.path("where"))) {
+                continue;
+            }
+            for (JsonNode mutation : operation.path("mutations")) {
+                String column = mutation.path(0).asText();
+                String mutator = mutation.path(1).asText();
+                JsonNode value = resolve(mutation.path(2), namedUuids);
+                ArrayNode members = setMembers(row, column);
+                if ("insert".equals(mutator)) {
+                    setMembers(value).forEach(members::add);
+                } else if ("delete".equals(mutator)) {
+                    for (JsonNode member : setMembers(value)) {
+                        for (Iterator<JsonNode> it = members.iterator(); it.hasNext();) {
+                            if (it.next().equals(member)) {
+                                it.remove();
+                            }
+                        }
+                    }
+                }
+            }
+            count++;
+        }
+        return JSON.objectNode().put("count", count);
+    }
+
+    private ObjectNode delete(Map<String, ObjectNode> rows, JsonNode operation) {
+        int count = 0;
+        for (Iterator<ObjectNode> it = rows.values().iterator(); it.hasNext();) {
+            if (matches(it.next(), operation.path("where"))) {
+                it.remove();
+                count++;
+            }
+        }
+        return JSON.objectNode().put("count", count);
+    }
+
+    private static boolean matches(ObjectNode row, JsonNode where) {
+        for (JsonNode condition : where) {
+            if (!"==".equals(condition.path(1).asText())
+                    || !condition.path(2).equals(row.get(condition.path(0).asText()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ArrayNode setMembers(ObjectNode row, String column) {
+        JsonNode set = row.get(column);
+        ArrayNode members = JSON.arrayNode();
+        if (set != null) {
+            setMembers(set).forEach(members::add);
+        }
+        row.set(column, JSON.arrayNode().add("set").add(members));
+        return members;
+    }
+
+    /**
+     * Returns the members of an OVSDB set, either ["set", [...]] or a single atom.
+     */
+    private static ArrayNode setMembers(JsonNode value) {
+        if (value.isArray() && "set".equals(value.path(0).asText())) {
+            return (ArrayNode) value.get(1);
+        }
+        return JSON.arrayNode().add(value);
+    }
+
+    /**
+     * Replaces the ["named-uuid", name] references by the uuids inserted earlier in the transaction.
+     */
+    private static JsonNode resolve(JsonNode value, Map<String, String> namedUuids) {
+        if (value.isArray()) {
+            if (value.size() == 2 && "named-uuid".equals(value.path(0).asText())) {
+                String uuid = namedUuids.get(value.get(1).asText());
+                if (uuid == null) {
+                    throw new IllegalArgumentException("unknown named uuid " + value.get(1).asText());
+                }
+                return JSON.arrayNode().add("uuid").add(uuid);
+            }
+            ArrayNode resolved = JSON.arrayNode();
+            value.forEach(member -> resolved.add(resolve(member, namedUuids)));
+            return resolved;
+        }
+        if (value.isObject()) {
+            ObjectNode resolved = JSON.objectNode();
+            value.fields().forEachRemaining(field -> resolved.set(field.getKey(),
+                                                                  resolve(field.getValue(), namedUuids)));
+            return resolved;
+        }
+        return value;
+    }
+}
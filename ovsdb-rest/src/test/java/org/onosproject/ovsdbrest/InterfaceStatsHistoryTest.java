@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.ovsdbrest.OvsdbInterfaceStats.Counter;
+
+/**
+ * Tests of the counter history of an interface.
+ */
+public class InterfaceStatsHistoryTest {
+
+    private static final IpAddress NODE = IpAddress.valueOf("10.0.0.1");
+    private static final long PERIOD = 1000;
+    private static final double DELTA = 1e-9;
+
+    private final InterfaceStatsHistory history = new InterfaceStatsHistory(NODE, "eth0", 3);
+
+    // counters of a sample, the bytes given and one packet per hundred bytes
+    private static long[] values(long rxBytes) {
+        long[] values = new long[Counter.values().length];
+        values[Counter.RX_BYTES.ordinal()] = rxBytes;
+        values[Counter.RX_PACKETS.ordinal()] = rxBytes / 100;
+        return values;
+    }
+
+    // adds samples one period apart, from the given time, with 1000 more bytes each time
+    private void addSamples(long fromMillis, int count) {
+        for (int i = 0; i < count; i++) {
+            history.add(fromMillis + i * PERIOD, values(1000 * (fromMillis / PERIOD + i)));
+        }
+    }
+
+    /**
+     * Tests that an empty history has no sample, and that a single sample has no rate.
+     */
+    @Test
+    public void emptyAndSingle() {
+        assertNull(history.latest(0));
+        assertTrue(history.samples().isEmpty());
+
+        assertTrue(history.add(PERIOD, values(500)));
+        OvsdbInterfaceStats latest = history.latest(10 * PERIOD);
+        assertEquals(500, latest.value(Counter.RX_BYTES));
+        assertEquals(0, latest.intervalMillis());
+        assertEquals(0, latest.rate(Counter.RX_BYTES), DELTA);
+    }
+
+    /**
+     * Tests that a sample tells whether a counter changed since the previous one.
+     */
+    @Test
+    public void changed() {
+        assertTrue(history.add(PERIOD, values(500)));
+        assertFalse(history.add(2 * PERIOD, values(500)));
+        assertTrue(history.add(3 * PERIOD, values(600)));
+    }
+
+    /**
+     * Tests that the oldest samples are overwritten once the ring is full, and that the
+     * retained ones keep their order and their variations.
+     */
+    @Test
+    public void ringWrap() {
+        addSamples(PERIOD, 5);
+        List<OvsdbInterfaceStats> samples = history.samples();
+        assertEquals(3, samples.size());
+        assertEquals(Arrays.asList(3 * PERIOD, 4 * PERIOD, 5 * PERIOD),
+                     samples.stream().map(OvsdbInterfaceStats::timestamp).collect(Collectors.toList()));
+        assertEquals(3000, samples.get(0).value(Counter.RX_BYTES));
+        assertEquals(0, samples.get(0).delta(Counter.RX_BYTES));
+        assertEquals(1000, samples.get(1).delta(Counter.RX_BYTES));
+        assertEquals(10, samples.get(2).delta(Counter.RX_PACKETS));
+
+        // the oldest slot is reused again
+        history.add(6 * PERIOD, values(6000));
+        assertEquals(4 * PERIOD, history.samples().get(0).timestamp());
+        assertEquals(6000, history.latest(0).value(Counter.RX_BYTES));
+    }
+
+    /**
+     * Tests the rates over the previous sample and over a window, the window being
+     * bounded by the retained samples.
+     */
+    @Test
+    public void ratesOverWindow() {
+        addSamples(PERIOD, 2);
+        history.add(3 * PERIOD, values(5000));
+        OvsdbInterfaceStats previous = history.latest(0);
+        assertEquals(PERIOD, previous.intervalMillis());
+        assertEquals(3000, previous.delta(Counter.RX_BYTES));
+        assertEquals(3000, previous.rate(Counter.RX_BYTES), DELTA);
+
+        OvsdbInterfaceStats window = history.latest(2 * PERIOD);
+        assertEquals(2 * PERIOD, window.intervalMillis());
+        assertEquals(4000, window.delta(Counter.RX_BYTES));
+        assertEquals(2000, window.rate(Counter.RX_BYTES), DELTA);
+        assertEquals(40, window.delta(Counter.RX_PACKETS));
+
+        // a window shorter than the last interval still compares with the previous sample
+        assertEquals(PERIOD, history.latest(PERIOD / 2).intervalMillis());
+
+        history.add(4 * PERIOD, values(6000));
+        assertEquals(2 * PERIOD, history.latest(10 * PERIOD).intervalMillis());
+    }
+
+    /**
+     * Tests that a counter going back, e.g. after an interface reset, counts from zero.
+     */
+    @Test
+    public void counterReset() {
+        history.add(PERIOD, values(5000));
+        history.add(2 * PERIOD, values(6000));
+        history.add(3 * PERIOD, values(300));
+        assertEquals(300, history.latest(0).delta(Counter.RX_BYTES));
+        assertEquals(1300, history.latest(2 * PERIOD).delta(Counter.RX_BYTES));
+    }
+}
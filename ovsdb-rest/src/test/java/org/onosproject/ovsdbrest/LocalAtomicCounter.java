@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import org.onosproject.store.service.AtomicCounter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter local to the JVM, standing for a distributed one.
+ */
+final class LocalAtomicCounter implements AtomicCounter {
+
+    private final String name;
+    private final AtomicLong value = new AtomicLong();
+
+    LocalAtomicCounter(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Type primitiveType() {
+        return Type.COUNTER;
+    }
+
+    @Override
+    public long incrementAndGet() {
+        return value.incrementAndGet();
+    }
+
+    @Override
+    public long getAndIncrement() {
+        return value.getAndIncrement();
+    }
+
+    @Override
+    public long getAndAdd(long delta) {
+        return value.getAndAdd(delta);
+    }
+
+    @Override
+    public long addAndGet(long delta) {
+        return value.addAndGet(delta);
+    }
+
+    @Override
+    public void set(long value) {
+        this.value.set(value);
+    }
+
+    @Override
+    public boolean compareAndSet(long expectedValue, long updateValue) {
+        return value.compareAndSet(expectedValue, updateValue);
+    }
+
+    @Override
+    public long get() {
+        return value.get();
+    }
+}
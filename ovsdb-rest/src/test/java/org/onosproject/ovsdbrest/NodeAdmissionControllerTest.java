@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.onosproject.ovsdbrest.OvsdbRestException.NodeOverloadedException;
+
+/**
+ * Tests of the per-node admission control.
+ */
+public class NodeAdmissionControllerTest {
+
+    private static final IpAddress NODE1 = IpAddress.valueOf("10.0.0.1");
+    private static final IpAddress NODE2 = IpAddress.valueOf("10.0.0.2");
+    private static final IpAddress UNKNOWN = IpAddress.valueOf("10.0.0.3");
+
+    // slow enough for the buckets not to refill during a test
+    private static final double SLOW_RATE = 0.001;
+
+    private final List<IpAddress> newNodes = new CopyOnWriteArrayList<>();
+
+    private NodeAdmissionController controller(double ratePerSecond, int burst, int maxQueueDepth) {
+        return new NodeAdmissionController(ratePerSecond, burst, maxQueueDepth,
+                                           ip -> !ip.equals(UNKNOWN), newNodes::add);
+    }
+
+    /**
+     * Tests that a node takes a burst of operations and then has to wait for its bucket to refill.
+     */
+    @Test
+    public void rateLimit() {
+        NodeAdmissionController admission = controller(SLOW_RATE, 3, 0);
+        admission.admit(NODE1, 2);
+        admission.admit(NODE1, 1);
+        try {
+            admission.admit(NODE1, 1);
+            fail("the bucket is not empty");
+        } catch (NodeOverloadedException e) {
+            assertTrue(e.retryAfterSeconds() > 1);
+        }
+        admission.admit(NODE2, 3);
+
+        OvsdbAdmissionState state = state(admission, NODE1);
+        assertEquals(3, state.admitted());
+        assertEquals(1, state.rejected());
+        assertEquals(3, state.queueDepth());
+    }
+
+    /**
+     * Tests that a node takes no more operations than its queue bound until some complete.
+     */
+    @Test
+    public void queueDepth() {
+        NodeAdmissionController admission = controller(0, 1, 2);
+        NodeAdmissionController.Permit permit = admission.admit(NODE1, 2);
+        try {
+            admission.admit(NODE1, 1);
+            fail("the queue is not full");
+        } catch (NodeOverloadedException e) {
+            assertEquals(1, e.retryAfterSeconds());
+        }
+
+        permit.release();
+        permit.release();
+        assertEquals(0, admission.queueDepth(NODE1));
+        admission.admit(NODE1, 1);
+        assertEquals(1, admission.queueDepth(NODE1));
+    }
+
+    /**
+     * Tests that a request larger than the bucket and the queue is admitted alone on an idle node.
+     */
+    @Test
+    public void largeRequest() {
+        NodeAdmissionController admission = controller(SLOW_RATE, 2, 2);
+        NodeAdmissionController.Permit permit = admission.admit(NODE1, 5);
+        assertEquals(5, admission.queueDepth(NODE1));
+        try {
+            admission.admit(NODE1, 1);
+            fail("the node is idle");
+        } catch (NodeOverloadedException e) {
+            assertEquals(1, e.retryAfterSeconds());
+        }
+        permit.release();
+        assertEquals(0, admission.queueDepth(NODE1));
+    }
+
+    /**
+     * Tests that operations on several nodes are admitted all or none.
+     */
+    @Test
+    public void allOrNone() {
+        NodeAdmissionController admission = controller(SLOW_RATE, 2, 0);
+        admission.admit(NODE2, 2);
+        try {
+            admission.admit(ImmutableMap.of(NODE1, 2, NODE2, 1));
+            fail("the second node is not overloaded");
+        } catch (NodeOverloadedException e) {
+            assertEquals(0, admission.queueDepth(NODE1));
+        }
+
+        // the refunded tokens of the first node are available again
+        admission.admit(NODE1, 2);
+        assertEquals(2, state(admission, NODE1).admitted());
+    }
+
+    /**
+     * Tests that the nodes which are not configured are neither limited nor tracked.
+     */
+    @Test
+    public void unknownNode() {
+        NodeAdmissionController admission = controller(0, 1, 2);
+        admission.admit(UNKNOWN, 10);
+        admission.admit(UNKNOWN, 10);
+        assertEquals(0, admission.queueDepth(UNKNOWN));
+        assertTrue(admission.states().isEmpty());
+        assertTrue(newNodes.isEmpty());
+
+        admission.admit(NODE1, 1);
+        admission.admit(NODE1, 1);
+        assertEquals(1, admission.states().size());
+        assertEquals(NODE1, newNodes.get(0));
+        assertEquals(1, newNodes.size());
+    }
+
+    /**
+     * Tests that new limits apply to the buckets already created.
+     */
+    @Test
+    public void configure() {
+        NodeAdmissionController admission = controller(SLOW_RATE, 4, 0);
+        admission.admit(NODE1, 1);
+        admission.configure(SLOW_RATE, 1, 0);
+        admission.admit(NODE1, 1);
+        try {
+            admission.admit(NODE1, 1);
+            fail("the burst is not lowered");
+        } catch (NodeOverloadedException e) {
+            assertEquals(1, state(admission, NODE1).rejected());
+        }
+
+        admission.configure(0, 1, 0);
+        admission.admit(NODE1, 100);
+    }
+
+    private static OvsdbAdmissionState state(NodeAdmissionController admission, IpAddress ovsdbIp) {
+        return admission.states().stream()
+                .filter(state -> state.ovsdbIp().equals(ovsdbIp))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+    }
+}
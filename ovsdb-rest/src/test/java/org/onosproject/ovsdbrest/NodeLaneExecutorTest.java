@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the per-key lane executor.
+ */
+public class NodeLaneExecutorTest {
+
+    private static final String NODE = "10.0.0.1";
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Tests that the tasks of a key run one at a time, in submission order.
+     */
+    @Test
+    public void serialPerKey() throws Exception {
+        NodeLaneExecutor<String> lanes = new NodeLaneExecutor<>(pool, 1000);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CompletableFuture<?> last = null;
+        for (int i = 0; i < 200; i++) {
+            int task = i;
+            last = lanes.submit(NODE, () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                order.add(task);
+                running.decrementAndGet();
+                return task;
+            });
+        }
+        last.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertFalse(overlapped.get());
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    /**
+     * Tests that a task is rejected when its lane is full.
+     */
+    @Test
+    public void laneFull() throws Exception {
+        NodeLaneExecutor<String> lanes = new NodeLaneExecutor<>(pool, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        lanes.execute(NODE, () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        lanes.execute(NODE, () -> { });
+        lanes.execute(NODE, () -> { });
+        assertFalse(lanes.hasCapacity(NODE));
+        assertTrue(lanes.hasCapacity("10.0.0.2"));
+
+        CompletableFuture<Integer> rejected = lanes.submit(NODE, () -> 1);
+        assertTrue(rejected.isCompletedExceptionally());
+        assertTrue(rejected.handle((value, e) -> e).join() instanceof NodeLaneExecutor.LaneFullException);
+        release.countDown();
+    }
+
+    /**
+     * Tests that a task rejected by the thread pool is never run afterwards.
+     */
+    @Test
+    public void rejectedByPool() throws Exception {
+        pool.shutdownNow();
+        AtomicBoolean rejectNext = new AtomicBoolean(true);
+        pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                if (rejectNext.getAndSet(false)) {
+                    throw new RejectedExecutionException("rejected");
+                }
+                super.execute(command);
+            }
+        };
+        NodeLaneExecutor<String> lanes = new NodeLaneExecutor<>(pool, 10);
+        AtomicBoolean rejectedRan = new AtomicBoolean();
+
+        CompletableFuture<Boolean> rejected = lanes.submit(NODE, () -> rejectedRan.getAndSet(true));
+        assertTrue(rejected.isCompletedExceptionally());
+        assertFalse(rejected.handle((value, e) -> e).join() instanceof NodeLaneExecutor.LaneFullException);
+        assertEquals(0, lanes.queueDepth(NODE));
+
+        assertEquals(2, (int) lanes.submit(NODE, () -> 2).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(rejectedRan.get());
+    }
+
+    /**
+     * Tests that the tasks submitted after a lane is removed run after the ones already queued.
+     */
+    @Test
+    public void removeKeepsOrder() throws Exception {
+        NodeLaneExecutor<String> lanes = new NodeLaneExecutor<>(pool, 10);
+        List<String> order = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        lanes.execute(NODE, () -> {
+            started.countDown();
+            await(release);
+            order.add("running");
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        CompletableFuture<Void> queued = lanes.submit(NODE, () -> record(order, "queued", running, overlapped));
+        lanes.remove(NODE);
+        CompletableFuture<Void> later = lanes.submit(NODE, () -> record(order, "later", running, overlapped));
+        release.countDown();
+
+        later.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        queued.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(ImmutableList.of("running", "queued", "later"), ImmutableList.copyOf(order));
+        assertFalse(overlapped.get());
+
+        // an idle lane is dropped at once and recreated on the next task
+        lanes.remove(NODE);
+        assertEquals(0, lanes.queueDepth(NODE));
+        assertEquals("again", lanes.submit(NODE, () -> "again").get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that a failing task does not stop its lane.
+     */
+    @Test
+    public void failingTask() throws Exception {
+        NodeLaneExecutor<String> lanes = new NodeLaneExecutor<>(pool, 10);
+        CompletableFuture<Integer> failed = lanes.submit(NODE, () -> {
+            throw new IllegalStateException("failed");
+        });
+        CompletableFuture<Integer> next = lanes.submit(NODE, () -> 1);
+        try {
+            failed.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("the task failure is not reported");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(1, (int) next.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private static Void record(List<String> order, String task, AtomicInteger running, AtomicBoolean overlapped) {
+        if (running.incrementAndGet() > 1) {
+            overlapped.set(true);
+        }
+        order.add(task);
+        running.decrementAndGet();
+        return null;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the registry of the asynchronous jobs.
+ */
+public class OvsdbJobTrackerTest {
+
+    private static final OvsdbBridgeOperation OPERATION =
+            OvsdbBridgeOperation.createBridge(IpAddress.valueOf("10.0.0.1"), "br1");
+    private static final List<OvsdbBridgeOperation> OPERATIONS = ImmutableList.of(OPERATION);
+    private static final List<OvsdbOperationResult> RESULTS = ImmutableList.of(OvsdbOperationResult.success(OPERATION));
+
+    private final OvsdbJobTracker tracker = new OvsdbJobTracker(2);
+
+    /**
+     * Tests that a job goes from pending to running to completed, with its results.
+     */
+    @Test
+    public void lifecycle() {
+        OvsdbJob job = tracker.create(OPERATIONS);
+        assertEquals(OvsdbJob.State.PENDING, job.state());
+        assertEquals(job, tracker.get(job.id()));
+        assertTrue(job.results().isEmpty());
+        assertEquals(0, job.completionSequence());
+
+        job.started();
+        assertEquals(OvsdbJob.State.RUNNING, job.state());
+        tracker.complete(job, RESULTS);
+        assertEquals(OvsdbJob.State.COMPLETED, job.state());
+        assertEquals(RESULTS, job.results());
+        assertEquals(1, job.completionSequence());
+        assertTrue(job.completedMillis() >= job.submittedMillis());
+
+        assertEquals(job.id() + 1, tracker.create(OPERATIONS).id());
+    }
+
+    /**
+     * Tests that only the most recent completed jobs are kept, and every job not completed yet.
+     */
+    @Test
+    public void retention() {
+        OvsdbJob pending = tracker.create(OPERATIONS);
+        OvsdbJob first = tracker.create(OPERATIONS);
+        OvsdbJob second = tracker.create(OPERATIONS);
+        OvsdbJob third = tracker.create(OPERATIONS);
+        tracker.complete(first, RESULTS);
+        tracker.complete(second, RESULTS);
+        tracker.complete(third, RESULTS);
+
+        assertNull(tracker.get(first.id()));
+        assertEquals(second, tracker.get(second.id()));
+        assertEquals(third, tracker.get(third.id()));
+        assertEquals(pending, tracker.get(pending.id()));
+        assertNull(tracker.get(42));
+    }
+
+    /**
+     * Tests that the completions are returned in order after a sequence number, and
+     * that nothing is returned once the wait times out.
+     */
+    @Test
+    public void completedAfter() throws InterruptedException {
+        OvsdbJob first = tracker.create(OPERATIONS);
+        OvsdbJob second = tracker.create(OPERATIONS);
+        tracker.complete(second, RESULTS);
+        tracker.complete(first, RESULTS);
+
+        assertEquals(ImmutableList.of(second, first), tracker.completedAfter(0, 0));
+        assertEquals(ImmutableList.of(first), tracker.completedAfter(second.completionSequence(), 0));
+        assertTrue(tracker.completedAfter(first.completionSequence(), 10).isEmpty());
+    }
+
+    /**
+     * Tests that a thread waiting for completions is woken up by the next one.
+     */
+    @Test
+    public void waitForCompletion() throws Exception {
+        OvsdbJob job = tracker.create(OPERATIONS);
+        CompletableFuture<List<OvsdbJob>> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return tracker.completedAfter(0, TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        tracker.complete(job, RESULTS);
+        assertEquals(ImmutableList.of(job), waiting.get(5, TimeUnit.SECONDS));
+    }
+}
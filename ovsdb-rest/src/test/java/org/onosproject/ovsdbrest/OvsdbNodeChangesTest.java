@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.TpPort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.ovsdbrest.OvsdbNodeConfig.OvsdbNode;
+
+/**
+ * Tests of the changes between two sets of configured ovsdb nodes.
+ */
+public class OvsdbNodeChangesTest {
+
+    private static final TpPort PORT = TpPort.tpPort(6640);
+    private static final TpPort OTHER_PORT = TpPort.tpPort(6641);
+
+    private static final OvsdbNode NODE1 = node("10.0.0.1", PORT);
+    private static final OvsdbNode NODE2 = node("10.0.0.2", PORT);
+    private static final OvsdbNode NODE3 = node("10.0.0.3", PORT);
+
+    private static OvsdbNode node(String ip, TpPort port) {
+        return new OvsdbNode(IpAddress.valueOf(ip), port);
+    }
+
+    /**
+     * Tests that the same nodes make no change, whatever their order.
+     */
+    @Test
+    public void sameNodes() {
+        OvsdbNodeChanges changes = OvsdbNodeChanges.between(ImmutableList.of(NODE1, NODE2),
+                                                            ImmutableList.of(NODE2, NODE1));
+        assertTrue(changes.isEmpty());
+    }
+
+    /**
+     * Tests that nodes are reported as added, removed or changed by address.
+     */
+    @Test
+    public void addedRemovedChanged() {
+        OvsdbNode moved = node("10.0.0.2", OTHER_PORT);
+        OvsdbNodeChanges changes = OvsdbNodeChanges.between(ImmutableList.of(NODE1, NODE2),
+                                                            ImmutableList.of(moved, NODE3));
+        assertFalse(changes.isEmpty());
+        assertEquals(ImmutableSet.of(NODE3), changes.added());
+        assertEquals(ImmutableSet.of(NODE1), changes.removed());
+        assertEquals(ImmutableSet.of(moved), changes.changed());
+    }
+
+    /**
+     * Tests that a first configuration adds every node and an empty one removes them.
+     */
+    @Test
+    public void fromAndToNothing() {
+        OvsdbNodeChanges first = OvsdbNodeChanges.between(ImmutableList.of(), ImmutableList.of(NODE1, NODE2));
+        assertEquals(ImmutableSet.of(NODE1, NODE2), first.added());
+        assertTrue(first.removed().isEmpty());
+
+        OvsdbNodeChanges last = OvsdbNodeChanges.between(ImmutableList.of(NODE1, NODE2), ImmutableList.of());
+        assertEquals(ImmutableSet.of(NODE1, NODE2), last.removed());
+        assertTrue(last.added().isEmpty());
+        assertTrue(last.changed().isEmpty());
+    }
+
+    /**
+     * Tests that an address configured twice keeps its last entry.
+     */
+    @Test
+    public void duplicatedAddress() {
+        OvsdbNode moved = node("10.0.0.1", OTHER_PORT);
+        OvsdbNodeChanges changes = OvsdbNodeChanges.between(ImmutableList.of(NODE1),
+                                                            ImmutableList.of(NODE1, moved));
+        assertEquals(ImmutableSet.of(moved), changes.changed());
+        assertTrue(changes.added().isEmpty());
+
+        assertTrue(OvsdbNodeChanges.between(ImmutableList.of(moved, NODE1), ImmutableList.of(NODE1)).isEmpty());
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.After;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onlab.packet.TpPort;
+import org.onosproject.ovsdb.controller.OvsdbClientService;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.ovsdbrest.OvsdbNodeConfig.OvsdbNode;
+import static org.onosproject.ovsdbrest.OvsdbSessionState.Status;
+import static org.onosproject.ovsdbrest.OvsdbSessionSupervisor.ECHO_TIMEOUT_MILLIS;
+import static org.onosproject.ovsdbrest.OvsdbSessionSupervisor.MAX_BACKOFF_MILLIS;
+import static org.onosproject.ovsdbrest.OvsdbSessionSupervisor.MIN_BACKOFF_MILLIS;
+
+/**
+ * Tests of the supervision of the ovsdb sessions.
+ */
+public class OvsdbSessionSupervisorTest {
+
+    private static final OvsdbNode NODE = new OvsdbNode(IpAddress.valueOf("10.0.0.1"), TpPort.tpPort(6640));
+    private static final long START = 1000000;
+
+    private long now = START;
+    private boolean connected;
+    private final List<SettableFuture<List<String>>> echoes = new ArrayList<>();
+    private final AtomicInteger disconnects = new AtomicInteger();
+    private final AtomicInteger connects = new AtomicInteger();
+    private Collection<OvsdbNode> nodes = ImmutableList.of(NODE);
+
+    // client answering only what the supervisor uses
+    private final OvsdbClientService client = (OvsdbClientService) Proxy.newProxyInstance(
+            OvsdbClientService.class.getClassLoader(), new Class<?>[]{OvsdbClientService.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "isConnected":
+                        return connected;
+                    case "echo":
+                        SettableFuture<List<String>> echo = SettableFuture.create();
+                        echoes.add(echo);
+                        return echo;
+                    case "disconnect":
+                        connected = false;
+                        disconnects.incrementAndGet();
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+    private final OvsdbSessionSupervisor supervisor = new OvsdbSessionSupervisor(
+            Executors.newSingleThreadScheduledExecutor(), () -> nodes, node -> client,
+            node -> connects.incrementAndGet(), () -> now);
+
+    @After
+    public void tearDown() {
+        supervisor.stop();
+    }
+
+    private OvsdbSessionState state() {
+        List<OvsdbSessionState> states = supervisor.states();
+        assertEquals(1, states.size());
+        return states.get(0);
+    }
+
+    // brings the session up with an echo answered after the given round trip time
+    private void up(long rttMillis) {
+        connected = true;
+        supervisor.heartbeat();
+        now += rttMillis;
+        echoes.get(echoes.size() - 1).set(ImmutableList.of());
+    }
+
+    /**
+     * Tests that a connected session goes up once it answers a heartbeat.
+     */
+    @Test
+    public void echoAnswered() {
+        connected = true;
+        supervisor.heartbeat();
+        assertEquals(1, echoes.size());
+        assertEquals(Status.DOWN, state().status());
+        assertFalse(supervisor.isDown(NODE.ovsdbIp()));
+
+        now += 20;
+        echoes.get(0).set(ImmutableList.of());
+        OvsdbSessionState state = state();
+        assertEquals(Status.UP, state.status());
+        assertEquals(20, state.lastRttMillis());
+        assertEquals(START + 20, state.sinceMillis());
+        assertEquals(0, state.nextAttemptMillis());
+
+        // a new echo is sent once the previous one is answered
+        supervisor.heartbeat();
+        assertEquals(2, echoes.size());
+    }
+
+    /**
+     * Tests that a session not answering within the echo timeout is dropped and reconnected
+     * after a backoff.
+     */
+    @Test
+    public void echoTimeout() {
+        up(10);
+        supervisor.heartbeat();
+        now += ECHO_TIMEOUT_MILLIS;
+        supervisor.heartbeat();
+        assertEquals(Status.UP, state().status());
+        assertEquals(2, echoes.size());
+        assertEquals(0, disconnects.get());
+
+        now += 1;
+        supervisor.heartbeat();
+        OvsdbSessionState state = state();
+        assertEquals(Status.DOWN, state.status());
+        assertEquals(1, disconnects.get());
+        assertBackoff(MIN_BACKOFF_MILLIS, state.nextAttemptMillis() - now);
+
+        // nothing is done until the backoff is over
+        now = state.nextAttemptMillis() - 1;
+        supervisor.heartbeat();
+        assertEquals(0, connects.get());
+        now += 1;
+        supervisor.heartbeat();
+        assertEquals(1, connects.get());
+        assertEquals(Status.CONNECTING, state().status());
+        assertTrue(supervisor.isDown(NODE.ovsdbIp()));
+    }
+
+    /**
+     * Tests that a failed echo drops the session at once.
+     */
+    @Test
+    public void echoFailed() {
+        up(10);
+        supervisor.heartbeat();
+        echoes.get(1).setException(new IllegalStateException("closed"));
+        assertEquals(Status.DOWN, state().status());
+        assertEquals(1, disconnects.get());
+    }
+
+    /**
+     * Tests that the delay between reconnections doubles up to its maximum, and starts
+     * over once the session is up again.
+     */
+    @Test
+    public void backoff() {
+        up(10);
+        connected = false;
+        supervisor.heartbeat();
+        assertEquals(Status.DOWN, state().status());
+        assertBackoff(MIN_BACKOFF_MILLIS, state().nextAttemptMillis() - now);
+
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            now = state().nextAttemptMillis();
+            supervisor.heartbeat();
+            OvsdbSessionState state = state();
+            assertEquals(attempt, state.failedAttempts());
+            assertEquals(attempt, connects.get());
+            assertBackoff(Math.min(MAX_BACKOFF_MILLIS, MIN_BACKOFF_MILLIS << attempt), state.nextAttemptMillis() - now);
+        }
+
+        up(10);
+        assertEquals(Status.UP, state().status());
+        assertEquals(0, state().failedAttempts());
+        assertFalse(supervisor.isDown(NODE.ovsdbIp()));
+    }
+
+    /**
+     * Tests that the sessions of the nodes removed from the configuration are forgotten.
+     */
+    @Test
+    public void nodeRemoved() {
+        supervisor.heartbeat();
+        assertEquals(1, supervisor.states().size());
+        nodes = ImmutableList.of();
+        supervisor.heartbeat();
+        assertTrue(supervisor.states().isEmpty());
+    }
+
+    private static void assertBackoff(long delayMillis, long actualMillis) {
+        assertTrue("backoff of " + actualMillis + " ms for a delay of " + delayMillis + " ms",
+                   actualMillis >= delayMillis / 2 && actualMillis <= delayMillis);
+    }
+}
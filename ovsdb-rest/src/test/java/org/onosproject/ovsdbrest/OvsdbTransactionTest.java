@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.onosproject.ovsdbrest.OvsdbOperationResult.Status;
+import static org.onosproject.ovsdbrest.OvsdbRestException.BridgeAlreadyExistsException;
+import static org.onosproject.ovsdbrest.OvsdbRestException.OvsdbDeviceException;
+
+/**
+ * Tests of the transactions of operations on an ovsdb node.
+ */
+public class OvsdbTransactionTest {
+
+    private static final IpAddress NODE = IpAddress.valueOf("10.0.0.1");
+
+    private static final OvsdbBridgeOperation BR1 = OvsdbBridgeOperation.createBridge(NODE, "br1");
+    private static final OvsdbBridgeOperation PORT1 = OvsdbBridgeOperation.addPort(NODE, "br1", "p1");
+    private static final OvsdbBridgeOperation PATCH1 =
+            OvsdbBridgeOperation.createPatch(NODE, "br1", "patch1", "patch2");
+    private static final OvsdbBridgeOperation PORT2 = OvsdbBridgeOperation.addPort(NODE, "br0", "p2");
+    private static final OvsdbBridgeOperation PORT3 = OvsdbBridgeOperation.addPort(NODE, "br0", "p3");
+    private static final OvsdbBridgeOperation TUNNEL = OvsdbBridgeOperation.createGreTunnel(
+            NODE, "br0", "gre1", NODE, IpAddress.valueOf("10.0.0.2"), "1");
+
+    // operations applied so far, inverses included, and the ones that fail
+    private final List<OvsdbBridgeOperation> applied = new ArrayList<>();
+    private final Set<OvsdbBridgeOperation> failing = new HashSet<>();
+
+    private final OvsdbTransaction transaction = new OvsdbTransaction(operation -> {
+        applied.add(operation);
+        if (!failing.contains(operation)) {
+            return OvsdbOperationResult.success(operation);
+        }
+        return operation.type() == OvsdbBridgeOperation.Type.CREATE_BRIDGE ?
+                OvsdbOperationResult.failure(operation, new BridgeAlreadyExistsException()) :
+                OvsdbOperationResult.failure(operation, new OvsdbDeviceException("failed"));
+    });
+
+    private static List<Status> statuses(List<OvsdbOperationResult> results) {
+        return results.stream().map(OvsdbOperationResult::status).collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that a transaction without failure applies every operation once, in order.
+     */
+    @Test
+    public void success() {
+        List<OvsdbBridgeOperation> operations = ImmutableList.of(BR1, PORT1, PORT2, TUNNEL);
+        List<OvsdbOperationResult> results = transaction.apply(operations);
+        assertTrue(results.stream().allMatch(OvsdbOperationResult::isSuccess));
+        assertEquals(operations, applied);
+        assertTrue(transaction.apply(ImmutableList.of()).isEmpty());
+    }
+
+    /**
+     * Tests that a failure of the first operation leaves the others not applied and undoes nothing.
+     */
+    @Test
+    public void failureAtFirstOperation() {
+        failing.add(BR1);
+        List<OvsdbOperationResult> results = transaction.apply(ImmutableList.of(BR1, PORT1, PORT2));
+        assertEquals(ImmutableList.of(Status.BRIDGE_ALREADY_EXISTS, Status.NOT_APPLIED, Status.NOT_APPLIED),
+                     statuses(results));
+        assertEquals(ImmutableList.of(BR1), applied);
+    }
+
+    /**
+     * Tests that a failure in the middle undoes the operations before it, last one first,
+     * and leaves the ones after it not applied.
+     */
+    @Test
+    public void failureMidSequence() {
+        failing.add(TUNNEL);
+        List<OvsdbOperationResult> results = transaction.apply(ImmutableList.of(PORT2, PORT3, TUNNEL, PORT1));
+        assertEquals(ImmutableList.of(Status.ROLLED_BACK, Status.ROLLED_BACK, Status.FAILED, Status.NOT_APPLIED),
+                     statuses(results));
+        assertEquals(ImmutableList.of(PORT2, PORT3, TUNNEL, PORT3.inverse(), PORT2.inverse()), applied);
+        assertEquals(PORT1, results.get(3).operation());
+    }
+
+    /**
+     * Tests that the ports of a bridge created by the transaction are rolled back along with
+     * the deletion of the bridge, without being removed one by one.
+     */
+    @Test
+    public void portsOfCreatedBridge() {
+        failing.add(TUNNEL);
+        List<OvsdbOperationResult> results = transaction.apply(ImmutableList.of(BR1, PORT1, PORT2, PATCH1, TUNNEL));
+        assertEquals(ImmutableList.of(Status.ROLLED_BACK, Status.ROLLED_BACK, Status.ROLLED_BACK,
+                                      Status.ROLLED_BACK, Status.FAILED),
+                     statuses(results));
+        assertEquals(ImmutableList.of(PORT2.inverse(), BR1.inverse()), applied.subList(5, applied.size()));
+    }
+
+    /**
+     * Tests that an undo that fails is reported, for the ports of a deleted bridge as well,
+     * and that the rollback goes on with the other operations.
+     */
+    @Test
+    public void rollbackFailed() {
+        failing.add(TUNNEL);
+        failing.add(PORT2.inverse());
+        failing.add(BR1.inverse());
+        List<OvsdbOperationResult> results = transaction.apply(ImmutableList.of(BR1, PORT1, PORT2, PORT3, TUNNEL));
+        assertEquals(ImmutableList.of(Status.ROLLBACK_FAILED, Status.ROLLBACK_FAILED, Status.ROLLBACK_FAILED,
+                                      Status.ROLLED_BACK, Status.FAILED),
+                     statuses(results));
+        assertEquals(ImmutableList.of(PORT3.inverse(), PORT2.inverse(), BR1.inverse()),
+                     applied.subList(5, applied.size()));
+        assertTrue(results.get(0).message().startsWith("Rollback failed"));
+    }
+
+    /**
+     * Tests the inverse of the reversible operations, and that the others have none.
+     */
+    @Test
+    public void inverses() {
+        assertEquals(OvsdbBridgeOperation.deleteBridge(NODE, "br1"), BR1.inverse());
+        assertEquals(OvsdbBridgeOperation.removePort(NODE, "br1", "p1"), PORT1.inverse());
+        assertEquals(OvsdbBridgeOperation.removePort(NODE, "br1", "patch1"), PATCH1.inverse());
+        assertEquals(PORT1, PORT1.inverse().inverse());
+        assertEquals(OvsdbBridgeOperation.deleteGreTunnel(NODE, "br0", "gre1"), TUNNEL.inverse());
+        OvsdbBridgeOperation vxlan = OvsdbBridgeOperation.createTunnel(
+                NODE, "br0", "vx1", OvsdbTunnelType.VXLAN, NODE, IpAddress.valueOf("10.0.0.2"), "1");
+        assertEquals(OvsdbBridgeOperation.deleteTunnel(NODE, "br0", "vx1"), vxlan.inverse());
+
+        for (OvsdbBridgeOperation operation : ImmutableList.of(BR1.inverse(), TUNNEL.inverse(), vxlan.inverse())) {
+            assertFalse(operation.isReversible());
+            try {
+                operation.inverse();
+                fail("No inverse expected for " + operation);
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().contains("cannot be undone"));
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the planning of the tunnel meshes.
+ */
+public class TunnelMeshBuilderTest {
+
+    private static final IpAddress NODE1 = IpAddress.valueOf("10.0.0.1");
+    private static final IpAddress NODE2 = IpAddress.valueOf("10.0.0.2");
+    private static final IpAddress NODE3 = IpAddress.valueOf("10.0.0.3");
+    private static final IpAddress TEP1 = IpAddress.valueOf("192.168.0.1");
+    private static final IpAddress TEP2 = IpAddress.valueOf("192.168.0.2");
+    private static final IpAddress TEP3 = IpAddress.valueOf("192.168.0.3");
+
+    private static final Map<IpAddress, IpAddress> ENDPOINTS = ImmutableMap.of(NODE1, TEP1, NODE2, TEP2, NODE3, TEP3);
+
+    private final Map<String, Long> meshKeys = new ConcurrentHashMap<>();
+    private final LocalAtomicCounter keyCounter = new LocalAtomicCounter("tunnel-key-counter");
+    private final TunnelMeshBuilder builder = new TunnelMeshBuilder(meshKeys, keyCounter);
+
+    /**
+     * Tests that every node gets a tunnel towards each of the others, all with the key of the mesh.
+     */
+    @Test
+    public void fullMesh() {
+        List<OvsdbBridgeOperation> operations = builder.build("mesh", OvsdbTunnelType.VXLAN, "br-int", ENDPOINTS);
+        assertEquals(6, operations.size());
+        for (OvsdbBridgeOperation operation : operations) {
+            assertEquals(OvsdbBridgeOperation.Type.CREATE_TUNNEL, operation.type());
+            assertEquals(OvsdbTunnelType.VXLAN, operation.tunnelType());
+            assertEquals("br-int", operation.bridgeName());
+            assertEquals(ENDPOINTS.get(operation.ovsdbIp()), operation.localIp());
+            assertNotEquals(operation.localIp(), operation.remoteIp());
+            assertEquals("1", operation.key());
+            assertTrue(operation.portName().length() <= 15);
+        }
+        OvsdbBridgeOperation towardsNode2 = operations.stream()
+                .filter(operation -> operation.ovsdbIp().equals(NODE1) && operation.remoteIp().equals(TEP2))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+        assertEquals("vc0a800021", towardsNode2.portName());
+    }
+
+    /**
+     * Tests that a mesh built again keeps its key, and that the same mesh name gets
+     * another key with another encapsulation.
+     */
+    @Test
+    public void keyPerTunnelType() {
+        String vxlanKey = builder.build("mesh", OvsdbTunnelType.VXLAN, "br-int", ENDPOINTS).get(0).key();
+        String greKey = builder.build("mesh", OvsdbTunnelType.GRE, "br-int", ENDPOINTS).get(0).key();
+        String otherKey = builder.build("other", OvsdbTunnelType.VXLAN, "br-int", ENDPOINTS).get(0).key();
+        assertNotEquals(vxlanKey, greKey);
+        assertNotEquals(vxlanKey, otherKey);
+        assertEquals(vxlanKey, builder.build("mesh", OvsdbTunnelType.VXLAN, "br-int", ENDPOINTS).get(0).key());
+        assertEquals(greKey, builder.build("mesh", OvsdbTunnelType.GRE, "br-int", ENDPOINTS).get(0).key());
+        assertEquals(3, keyCounter.get());
+
+        // the names of the tunnels of different meshes on the same bridge do not clash
+        assertNotEquals(builder.build("mesh", OvsdbTunnelType.VXLAN, "br-int", ENDPOINTS).get(0).portName(),
+                        builder.build("other", OvsdbTunnelType.VXLAN, "br-int", ENDPOINTS).get(0).portName());
+    }
+
+    /**
+     * Tests that a key larger than the encapsulation can carry is refused, but is fine for another one.
+     */
+    @Test
+    public void keysExhausted() {
+        keyCounter.set(OvsdbTunnelType.VXLAN.maxKey());
+        try {
+            builder.build("mesh", OvsdbTunnelType.VXLAN, "br-int", ENDPOINTS);
+            fail("VXLAN keys are exhausted");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("No VXLAN key left"));
+        }
+        String key = builder.build("mesh", OvsdbTunnelType.GRE, "br-int", ENDPOINTS).get(0).key();
+        assertEquals(OvsdbTunnelType.VXLAN.maxKey() + 2, Long.parseLong(key));
+    }
+
+    /**
+     * Tests that a mesh with an IPv6 end point, or with less than two nodes, is refused.
+     */
+    @Test
+    public void invalidEndpoints() {
+        Map<IpAddress, IpAddress> ipv6 = ImmutableMap.of(NODE1, TEP1, NODE2, IpAddress.valueOf("2001:db8::2"));
+        try {
+            builder.build("mesh", OvsdbTunnelType.GENEVE, "br-int", ipv6);
+            fail("IPv6 end points are not supported");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("IPv6"));
+        }
+        try {
+            builder.build("mesh", OvsdbTunnelType.GENEVE, "br-int", ImmutableMap.of(NODE1, TEP1));
+            fail("a mesh needs two nodes");
+        } catch (IllegalArgumentException e) {
+            assertTrue(meshKeys.isEmpty());
+        }
+        assertEquals(0, keyCounter.get());
+    }
+}
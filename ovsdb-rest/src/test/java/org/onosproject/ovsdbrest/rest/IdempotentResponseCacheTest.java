@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest.rest;
+
+import org.junit.Test;
+
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the idempotent response cache.
+ */
+public class IdempotentResponseCacheTest {
+
+    private static final String KEY = "key POST /batch";
+    private static final String BODY = "body";
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final AtomicInteger runs = new AtomicInteger();
+    private IdempotentResponseCache cache = newCache();
+
+    private static IdempotentResponseCache newCache() {
+        return new IdempotentResponseCache(100, TimeUnit.MINUTES.toMillis(1));
+    }
+
+    private Response run(int status) {
+        return cache.execute(KEY, BODY, () -> {
+            runs.incrementAndGet();
+            return Response.status(status).entity("run " + runs.get()).location(URI.create("jobs/1")).build();
+        });
+    }
+
+    /**
+     * Tests that a retry gets the response of the first request without running it again.
+     */
+    @Test
+    public void replay() {
+        Response first = run(202);
+        assertNull(first.getHeaderString(IdempotentResponseCache.REPLAYED_HEADER));
+
+        Response retry = run(202);
+        assertEquals(1, runs.get());
+        assertEquals(202, retry.getStatus());
+        assertEquals("run 1", retry.getEntity());
+        assertEquals(URI.create("jobs/1"), retry.getLocation());
+        assertEquals("true", retry.getHeaderString(IdempotentResponseCache.REPLAYED_HEADER));
+    }
+
+    /**
+     * Tests that the client errors a retry would get again are kept.
+     */
+    @Test
+    public void clientErrorKept() {
+        for (int status : new int[]{400, 404, 409, 422}) {
+            cache = newCache();
+            runs.set(0);
+            run(status);
+            assertEquals(status, run(200).getStatus());
+            assertEquals(1, runs.get());
+        }
+    }
+
+    /**
+     * Tests that server errors and the client errors asking to come back later are not kept.
+     */
+    @Test
+    public void transientErrorNotKept() {
+        for (int status : new int[]{408, 425, 429, 500, 502, 503, 504}) {
+            cache = newCache();
+            runs.set(0);
+            assertEquals(status, run(status).getStatus());
+            assertEquals(200, run(200).getStatus());
+            assertEquals(200, run(200).getStatus());
+            assertEquals(2, runs.get());
+        }
+    }
+
+    /**
+     * Tests that a key reused with another body is rejected without running the request.
+     */
+    @Test
+    public void otherBody() {
+        run(200);
+        Response other = cache.execute(KEY, "other body", () -> {
+            runs.incrementAndGet();
+            return Response.status(200).build();
+        });
+        assertEquals(422, other.getStatus());
+        assertEquals(1, runs.get());
+        assertEquals("run 1", run(200).getEntity());
+    }
+
+    /**
+     * Tests that a retry arriving while the first request runs waits for its response.
+     */
+    @Test
+    public void concurrentRetry() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<Response> first = executor.submit(() -> cache.execute(KEY, BODY, () -> {
+                started.countDown();
+                await(release);
+                return Response.status(200).entity("first").build();
+            }));
+            assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            Future<Response> retry = executor.submit(() -> run(200));
+            release.countDown();
+
+            assertEquals("first", first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getEntity());
+            assertEquals("first", retry.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getEntity());
+            assertEquals(0, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that a failing request is not kept.
+     */
+    @Test
+    public void failure() {
+        IllegalStateException failure = new IllegalStateException("failed");
+        try {
+            cache.execute(KEY, BODY, () -> {
+                throw failure;
+            });
+            fail("the failure is not thrown");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        assertEquals("run 1", run(200).getEntity());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
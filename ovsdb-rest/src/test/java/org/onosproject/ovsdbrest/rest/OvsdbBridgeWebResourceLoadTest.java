@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest.rest;
+
+import com.google.common.collect.ImmutableList;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.JerseyTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.osgi.TestServiceDirectory;
+import org.onlab.packet.IpAddress;
+import org.onlab.rest.BaseResource;
+import org.onosproject.ovsdbrest.FakeOvsdbBridgeService;
+import org.onosproject.ovsdbrest.FakeOvsdbServer;
+import org.onosproject.ovsdbrest.OvsdbBridgeService;
+import org.slf4j.Logger;
+
+import javax.ws.rs.core.Application;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Load run of the bridge REST resource against fake ovsdb servers.
+ * <p>
+ * The defaults make a short functional run. Larger runs are set with system properties,
+ * e.g. {@code mvn test -Dtest=OvsdbBridgeWebResourceLoadTest -Dload.nodes=16
+ * -Dload.concurrency=64 -Dload.iterations=500 -Dload.latencyMicros=200:2000}.
+ * </p>
+ */
+public class OvsdbBridgeWebResourceLoadTest extends JerseyTest {
+
+    private static final int NODES = Integer.getInteger("load.nodes", 2);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 4);
+    private static final int ITERATIONS = Integer.getInteger("load.iterations", 20);
+    private static final String LATENCY_MICROS = System.getProperty("load.latencyMicros", "0:0");
+
+    private final Logger log = getLogger(getClass());
+
+    private final List<IpAddress> nodes = IntStream.range(0, NODES)
+            .mapToObj(i -> IpAddress.valueOf("10.10.0." + (i + 1)))
+            .collect(Collectors.toList());
+    private FakeOvsdbBridgeService service;
+
+    @Override
+    protected Application configure() {
+        return new ResourceConfig().registerClasses(new OvsdbRestApp().getClasses());
+    }
+
+    @Before
+    public void setUpService() throws Exception {
+        String[] latency = LATENCY_MICROS.split(":");
+        service = new FakeOvsdbBridgeService(nodes, Long.parseLong(latency[0]),
+                                             Long.parseLong(latency[latency.length - 1]));
+        BaseResource.setServiceDirectory(new TestServiceDirectory().add(OvsdbBridgeService.class, service));
+    }
+
+    @After
+    public void tearDownService() throws Exception {
+        service.close();
+    }
+
+    @Test
+    public void bridgeLifeCycleUnderLoad() throws Exception {
+        OvsdbRestLoadGenerator generator = new OvsdbRestLoadGenerator(target(), ImmutableList.copyOf(nodes),
+                                                                      CONCURRENCY, ITERATIONS);
+        generator.run();
+        log.debug("Load run report:\n{}", generator.report());
+
+        generator.stats().values().forEach(stats -> {
+            assertEquals(stats.endpoint(), CONCURRENCY * ITERATIONS, stats.count());
+            assertEquals(stats.endpoint(), 0, stats.failures());
+        });
+        // every bridge, port and interface was deleted
+        for (IpAddress node : nodes) {
+            assertEquals(0, service.server(node).rows(FakeOvsdbServer.BRIDGE));
+            assertEquals(0, service.server(node).rows(FakeOvsdbServer.PORT));
+            assertEquals(0, service.server(node).rows(FakeOvsdbServer.INTERFACE));
+        }
+    }
+}
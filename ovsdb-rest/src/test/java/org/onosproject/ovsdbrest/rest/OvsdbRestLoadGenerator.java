@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017-present Open Networking Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.ovsdbrest.rest;
+
+import com.google.common.collect.Maps;
+import org.onlab.packet.IpAddress;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drives the bridge REST resource at a fixed concurrency and reports the
+ * throughput and latency percentiles of each endpoint.
+ * <p>
+ * Each worker repeatedly runs the life cycle of a bridge on one of the nodes:
+ * create the bridge, look up its id, add a port and a GRE tunnel, then delete
+ * the tunnel, the port and the bridge. Workers use distinct bridge names, so
+ * every request is expected to succeed.
+ * </p>
+ */
+public final class OvsdbRestLoadGenerator {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Latency samples and failures of an endpoint.
+     */
+    public static final class EndpointStats {
+        private final String endpoint;
+        // guarded by this
+        private long[] latencies = new long[1024];
+        private int count;
+        private int failures;
+
+        private EndpointStats(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private synchronized void record(long nanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!success) {
+                failures++;
+            }
+        }
+
+        public String endpoint() {
+            return endpoint;
+        }
+
+        public synchronized int count() {
+            return count;
+        }
+
+        public synchronized int failures() {
+            return failures;
+        }
+
+        /**
+         * Returns a latency percentile.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return latency in milliseconds, 0 if nothing was recorded
+         */
+        public synchronized double percentileMillis(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * count) - 1;
+            return sorted[Math.max(0, Math.min(index, count - 1))] / NANOS_PER_MILLI;
+        }
+    }
+
+    private final WebTarget target;
+    private final List<IpAddress> nodes;
+    private final int concurrency;
+    private final int iterations;
+    private final ConcurrentMap<String, EndpointStats> stats = Maps.newConcurrentMap();
+    private long elapsedNanos;
+
+    /**
+     * Creates a load generator.
+     *
+     * @param target the root of the ovsdb REST API
+     * @param nodes the ovsdb IP addresses of the nodes, spread over the workers
+     * @param concurrency number of workers sending requests in parallel
+     * @param iterations number of bridge life cycles run by each worker
+     */
+    public OvsdbRestLoadGenerator(WebTarget target, List<IpAddress> nodes, int concurrency, int iterations) {
+        this.target = target;
+        this.nodes = nodes;
+        this.concurrency = concurrency;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Runs the load and waits for every worker to complete.
+     *
+     * @throws Exception if a worker fails unexpectedly
+     */
+    public void run() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int worker = 0; worker < concurrency; worker++) {
+                int id = worker;
+                futures.add(workers.submit(() -> runWorker(id)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            elapsedNanos = System.nanoTime() - start;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void runWorker(int worker) {
+        IpAddress node = nodes.get(worker % nodes.size());
+        for (int i = 0; i < iterations; i++) {
+            // bridge names are at most 15 characters, as interface names
+            String bridge = String.format("b%dx%d", worker, i);
+            String bridgePath = node + "/bridge/" + bridge;
+            String portPath = bridgePath + "/port/p" + worker;
+            String tunnelPath = bridgePath + "/port/g" + worker;
+            call("POST bridge", bridgePath, t -> t.request().post(Entity.entity("", MediaType.APPLICATION_JSON)));
+            call("GET bridge", bridgePath, t -> t.request().get());
+            call("POST port", portPath, t -> t.request().post(Entity.entity("", MediaType.APPLICATION_JSON)));
+            call("POST gre", tunnelPath + "/gre/10.0.0.1/10.0.0.2/" + Integer.toHexString(worker),
+                 t -> t.request().post(Entity.entity("", MediaType.APPLICATION_JSON)));
+            call("DELETE gre", tunnelPath + "/gre", t -> t.request().delete());
+            call("DELETE port", portPath, t -> t.request().delete());
+            call("DELETE bridge", bridgePath, t -> t.request().delete());
+        }
+    }
+
+    private void call(String endpoint, String path, Function<WebTarget, Response> request) {
+        long start = System.nanoTime();
+        Response response = request.apply(target.path(path));
+        long nanos = System.nanoTime() - start;
+        boolean success = response.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL;
+        response.close();
+        stats.computeIfAbsent(endpoint, EndpointStats::new).record(nanos, success);
+    }
+
+    /**
+     * Returns the statistics of each endpoint.
+     *
+     * @return map from endpoint to statistics
+     */
+    public Map<String, EndpointStats> stats() {
+        return stats;
+    }
+
+    /**
+     * Returns a report of the throughput and latency percentiles of each endpoint.
+     *
+     * @return human readable report, one line per endpoint
+     */
+    public String report() {
+        double seconds = elapsedNanos / NANOS_PER_SECOND;
+        String header = String.format("%-14s %8s %8s %10s %9s %9s %9s%n",
+                                      "endpoint", "requests", "failures", "ops/s", "p50 ms", "p99 ms", "p999 ms");
+        return header + stats.values().stream()
+                .sorted((a, b) -> a.endpoint().compareTo(b.endpoint()))
+                .map(s -> String.format("%-14s %8d %8d %10.1f %9.3f %9.3f %9.3f",
+                                        s.endpoint(), s.count(), s.failures(), s.count() / seconds,
+                                        s.percentileMillis(50), s.percentileMillis(99), s.percentileMillis(99.9)))
+                .collect(Collectors.joining(String.format("%n")));
+    }
+}